@@ -0,0 +1,94 @@
+package hu.psprog.leaflet.lags.benchmark;
+
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.persistence.repository.AccessTokenRepository;
+import hu.psprog.leaflet.lags.core.persistence.repository.impl.CompactAccessTokenRepository;
+import hu.psprog.leaflet.lags.core.persistence.repository.impl.InMemoryAccessTokenRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lookup and save cost of the in-memory {@link AccessTokenRepository} implementations, filled with the
+ * same number of tokens (issued for a limited set of subjects, as in a real deployment).
+ *
+ * Run with the GC profiler to also compare the allocation per operation (gc.alloc.rate.norm):
+ * {@code java -jar benchmark/target/lags-benchmark-<version>.jar AccessTokenRepositoryBenchmark -prof gc}.
+ *
+ * @author Peter Smith
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTokenRepositoryBenchmark {
+
+    private static final int SUBJECT_COUNT = 1_000;
+
+    @Param({"in-memory", "compact"})
+    private String storage;
+
+    @Param({"100000"})
+    private int tokenCount;
+
+    private AccessTokenRepository accessTokenRepository;
+    private AccessTokenInfo[] accessTokenInfos;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+
+        accessTokenRepository = "compact".equals(storage)
+                ? new CompactAccessTokenRepository()
+                : new InMemoryAccessTokenRepository();
+        accessTokenInfos = new AccessTokenInfo[tokenCount];
+
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plus(1, ChronoUnit.HOURS);
+        for (int index = 0; index < tokenCount; index++) {
+            accessTokenInfos[index] = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                    .id(UUID.randomUUID().toString())
+                    // subjects are created as new String instances, as they would arrive with each token request
+                    .subject(new String("client|uid=" + (index % SUBJECT_COUNT)))
+                    .issuedAt(Date.from(issuedAt))
+                    .expiresAt(Date.from(expiresAt))
+                    .build());
+            accessTokenRepository.save(accessTokenInfos[index]);
+        }
+    }
+
+    @Benchmark
+    public Optional<AccessTokenInfo> retrieveByJTI() {
+        return accessTokenRepository.retrieveByJTI(nextAccessTokenInfo().getId());
+    }
+
+    @Benchmark
+    public void save() {
+        accessTokenRepository.save(nextAccessTokenInfo());
+    }
+
+    private AccessTokenInfo nextAccessTokenInfo() {
+
+        cursor = (cursor + 1) % tokenCount;
+
+        return accessTokenInfos[cursor];
+    }
+}
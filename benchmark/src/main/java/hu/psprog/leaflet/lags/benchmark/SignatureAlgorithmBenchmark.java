@@ -0,0 +1,104 @@
+package hu.psprog.leaflet.lags.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.util.Base64URL;
+import hu.psprog.leaflet.lags.core.security.signature.SignatureAlgorithmFamily;
+import hu.psprog.leaflet.lags.core.security.signature.SignatureComponentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sign and verify throughput of the supported JWT signature algorithms, using the same signer and
+ * verifier implementations as the application does, and a payload resembling the issued access tokens.
+ *
+ * Build with {@code mvn -P benchmark -pl benchmark -am package}, then run with
+ * {@code java -jar benchmark/target/lags-benchmark-<version>.jar SignatureAlgorithmBenchmark}.
+ *
+ * @author Peter Smith
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureAlgorithmBenchmark {
+
+    private static final int RSA_KEY_SIZE = 2048;
+    private static final String EC_CURVE = "secp256r1";
+    private static final String PAYLOAD = """
+            {"sub":"user@dev.local","aud":"target-svc-aud-1","scope":"read:users write:users","iss":"https://oauth.dev.local",\
+            "exp":1893456000,"iat":1893452400,"jti":"1b9f3c2e-4c9a-4b1d-9a1e-7f3f0d9c2b11","uid":6643,"name":"User",\
+            "rol":"EDITOR","status":{"status_list":{"idx":12,"uri":"https://oauth.dev.local/oauth/status-list/1"}}}""";
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JWSSigner signer;
+    private JWSVerifier verifier;
+    private JWSHeader header;
+    private byte[] signingInput;
+    private Base64URL signature;
+
+    @Setup
+    public void setup() throws GeneralSecurityException, JOSEException {
+
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm);
+        KeyPair keyPair = generateKeyPair(SignatureAlgorithmFamily.forAlgorithm(jwsAlgorithm));
+
+        signer = SignatureComponentFactory.createSigner(jwsAlgorithm, keyPair.getPrivate());
+        verifier = SignatureComponentFactory.createVerifier(jwsAlgorithm, keyPair.getPublic());
+        header = new JWSHeader.Builder(jwsAlgorithm)
+                .type(JOSEObjectType.JWT)
+                .keyID("benchmark")
+                .build();
+
+        JWSObject jwsObject = new JWSObject(header, new Payload(PAYLOAD));
+        signingInput = jwsObject.getSigningInput();
+        signature = signer.sign(header, signingInput);
+    }
+
+    @Benchmark
+    public Base64URL sign() throws JOSEException {
+        return signer.sign(header, signingInput);
+    }
+
+    @Benchmark
+    public boolean verify() throws JOSEException {
+        return verifier.verify(header, signingInput, signature);
+    }
+
+    private static KeyPair generateKeyPair(SignatureAlgorithmFamily family) throws GeneralSecurityException {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(family.getKeyAlgorithm());
+        switch (family) {
+            case RSA -> keyPairGenerator.initialize(RSA_KEY_SIZE);
+            case EC -> keyPairGenerator.initialize(new ECGenParameterSpec(EC_CURVE));
+            default -> { }
+        }
+
+        return keyPairGenerator.generateKeyPair();
+    }
+}
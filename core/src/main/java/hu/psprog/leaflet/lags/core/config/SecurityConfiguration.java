@@ -1,22 +1,21 @@
 package hu.psprog.leaflet.lags.core.config;
 
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.RSASSASigner;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.KeyUse;
-import com.nimbusds.jose.jwk.RSAKey;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
-import hu.psprog.leaflet.lags.core.domain.config.OAuthTokenSettings;
+import hu.psprog.leaflet.lags.core.security.CachingClientCredentialAuthenticationProvider;
+import hu.psprog.leaflet.lags.core.security.CachingJwtDecoder;
 import hu.psprog.leaflet.lags.core.security.ExternalSignUpAuthenticationFailureHandler;
 import hu.psprog.leaflet.lags.core.security.OAuthAuthenticationEntryPoint;
 import hu.psprog.leaflet.lags.core.security.PasswordResetTokenCopyFilter;
 import hu.psprog.leaflet.lags.core.security.RequestSavingLogoutSuccessHandler;
 import hu.psprog.leaflet.lags.core.security.ReturnToAuthorizationAfterLogoutAuthenticationSuccessHandler;
+import hu.psprog.leaflet.lags.core.security.SignedJwtDecoder;
+import hu.psprog.leaflet.lags.core.security.signature.SignatureComponentFactory;
 import hu.psprog.leaflet.lags.core.service.UserManagementService;
 import hu.psprog.leaflet.lags.core.service.registry.KeyRegistry;
 import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
 import hu.psprog.leaflet.lags.core.service.token.validator.PasswordResetTokenValidator;
 import hu.psprog.leaflet.lags.core.service.token.validator.TrackedStatusTokenValidator;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,7 +24,6 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -36,15 +34,15 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.user.OAuth2User;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
-import java.security.interfaces.RSAPublicKey;
 import java.time.Duration;
 import java.util.List;
 
@@ -107,8 +105,14 @@ public class SecurityConfiguration {
 
     @Bean
     public AuthenticationProvider oAuthClientAuthenticationProvider(@Qualifier("OAuthClientUserDetailsService") UserDetailsService oAuthClientUserDetailsService,
-                                                                    PasswordEncoder passwordEncoder) {
-        return createAuthenticationProvider(passwordEncoder, oAuthClientUserDetailsService);
+                                                                    PasswordEncoder passwordEncoder, OAuthConfigurationProperties oAuthConfigurationProperties,
+                                                                    MeterRegistry meterRegistry) {
+
+        DaoAuthenticationProvider authenticationProvider = new CachingClientCredentialAuthenticationProvider(oAuthClientUserDetailsService,
+                oAuthConfigurationProperties.getClientCredentialCache(), meterRegistry);
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+
+        return authenticationProvider;
     }
 
     @Bean
@@ -124,37 +128,23 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public JWKSet jwkSet(KeyRegistry keyRegistry, OAuthConfigurationProperties oAuthConfigurationProperties) {
-
-        OAuthTokenSettings tokenSettings = oAuthConfigurationProperties.getToken();
-        RSAKey.Builder rsaKeyBuilder = new RSAKey.Builder((RSAPublicKey) keyRegistry.getPublicKey())
-                .keyID(tokenSettings.getKeyID())
-                .keyUse(KeyUse.SIGNATURE)
-                .algorithm(tokenSettings.getSignatureAlgorithm());
+    @Primary
+    public CachingJwtDecoder jwtDecoder(KeyRegistry keyRegistry, TokenTracker tokenTracker, AuthenticationConfig authenticationConfig,
+                                       OAuthConfigurationProperties oAuthConfigurationProperties, MeterRegistry meterRegistry) {
 
-        return new JWKSet(rsaKeyBuilder.build());
+        return new CachingJwtDecoder(untrackedJwtDecoder(keyRegistry, authenticationConfig, oAuthConfigurationProperties),
+                new TrackedStatusTokenValidator(tokenTracker),
+                new JwtGrantedAuthoritiesConverter(),
+                oAuthConfigurationProperties.getBearerTokenCache(), meterRegistry);
     }
 
     @Bean
-    public JwtDecoder jwtDecoder(KeyRegistry keyRegistry, TokenTracker tokenTracker,
-                                 AuthenticationConfig authenticationConfig) {
-
-        NimbusJwtDecoder nimbusJwtDecoder = NimbusJwtDecoder
-                .withPublicKey((RSAPublicKey) keyRegistry.getPublicKey())
-                .build();
+    public SignedJwtDecoder untrackedJwtDecoder(KeyRegistry keyRegistry, AuthenticationConfig authenticationConfig,
+                                          OAuthConfigurationProperties oAuthConfigurationProperties) {
 
-        nimbusJwtDecoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(List.of(
+        return createJwtDecoder(keyRegistry, oAuthConfigurationProperties,
                 new JwtTimestampValidator(Duration.ZERO),
-                new TrackedStatusTokenValidator(tokenTracker),
-                new PasswordResetTokenValidator(authenticationConfig)
-        )));
-
-        return nimbusJwtDecoder;
-    }
-
-    @Bean
-    public JWSSigner jwsSigner(KeyRegistry keyRegistry) {
-        return new RSASSASigner(keyRegistry.getPrivateKey());
+                new PasswordResetTokenValidator(authenticationConfig));
     }
 
     @Bean
@@ -165,7 +155,8 @@ public class SecurityConfiguration {
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http, OAuth2UserService<OAuth2UserRequest, OAuth2User> oAuth2UserService,
-                                                   SavedRequestAwareAuthenticationSuccessHandler authenticationSuccessHandler) {
+                                                   SavedRequestAwareAuthenticationSuccessHandler authenticationSuccessHandler,
+                                                   CachingJwtDecoder jwtDecoder) {
 
         return http
                 .addFilterBefore(new PasswordResetTokenCopyFilter(), UsernamePasswordAuthenticationFilter.class)
@@ -193,7 +184,8 @@ public class SecurityConfiguration {
 
                 .oauth2ResourceServer(resourceServer -> resourceServer
                         .authenticationEntryPoint(new OAuthAuthenticationEntryPoint())
-                        .jwt(Customizer.withDefaults()))
+                        .jwt(jwt -> jwt
+                                .jwtAuthenticationConverter(jwtDecoder)))
 
                 .logout(logout -> logout
                         .logoutUrl(PATH_LOGOUT)
@@ -217,6 +209,15 @@ public class SecurityConfiguration {
         return requestSavingLogoutSuccessHandler;
     }
 
+    @SafeVarargs
+    private SignedJwtDecoder createJwtDecoder(KeyRegistry keyRegistry, OAuthConfigurationProperties oAuthConfigurationProperties,
+                                              OAuth2TokenValidator<Jwt>... validators) {
+
+        return new SignedJwtDecoder(SignatureComponentFactory.createJWTProcessor(
+                oAuthConfigurationProperties.getToken().getSignatureAlgorithm(), keyRegistry::getVerificationKey),
+                new DelegatingOAuth2TokenValidator<>(List.of(validators)));
+    }
+
     private AuthenticationProvider createAuthenticationProvider(PasswordEncoder passwordEncoder,
                                                                 UserDetailsService userDetailsService) {
 
@@ -0,0 +1,24 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Verified bearer token cache configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class BearerTokenCacheSettings {
+
+    /**
+     * Maximum number of cached verified bearer tokens (defaults to 1000).
+     */
+    private long maximumSize = 1_000;
+
+    /**
+     * Maximum time to live of a cached verified bearer token, further capped by the expiration of the token (defaults to 5 minutes).
+     */
+    private Duration maximumTimeToLive = Duration.ofMinutes(5);
+}
@@ -0,0 +1,26 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Verified OAuth client credential cache configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class ClientCredentialCacheSettings {
+
+    /**
+     * Maximum number of cached verified client credentials (defaults to 1000).
+     */
+    private long maximumSize = 1_000;
+
+    /**
+     * Time to live of a cached verified client credential (defaults to 2 minutes). Secret regeneration, status change
+     * and deletion of an application invalidate the cache immediately, this only limits how long changes made via
+     * another service instance may remain unnoticed.
+     */
+    private Duration timeToLive = Duration.ofMinutes(2);
+}
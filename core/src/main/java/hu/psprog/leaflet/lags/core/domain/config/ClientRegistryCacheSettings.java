@@ -0,0 +1,25 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * OAuth client registry cache configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class ClientRegistryCacheSettings {
+
+    /**
+     * Maximum number of cached OAuth clients (defaults to 1000).
+     */
+    private long maximumSize = 1_000;
+
+    /**
+     * Time to live of a cached OAuth client (defaults to 5 minutes). Local changes invalidate the cache immediately,
+     * this only limits how long changes made via another service instance may remain unnoticed.
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+}
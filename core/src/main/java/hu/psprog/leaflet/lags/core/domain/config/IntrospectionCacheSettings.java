@@ -0,0 +1,24 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Token introspection result cache configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class IntrospectionCacheSettings {
+
+    /**
+     * Maximum number of cached introspection results (defaults to 10000).
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Maximum time to live of a cached introspection result, further capped by the expiration of the token (defaults to 5 minutes).
+     */
+    private Duration maximumTimeToLive = Duration.ofMinutes(5);
+}
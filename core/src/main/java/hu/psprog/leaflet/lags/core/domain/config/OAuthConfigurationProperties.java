@@ -30,6 +30,64 @@ public class OAuthConfigurationProperties {
     @NestedConfigurationProperty
     private OAuthTokenSettings token;
 
+    /**
+     * Access token tracking configuration parameters.
+     */
+    @NestedConfigurationProperty
+    private TokenTrackingSettings tokenTracking = new TokenTrackingSettings();
+
+    /**
+     * Token introspection result cache configuration parameters.
+     */
+    @NestedConfigurationProperty
+    private IntrospectionCacheSettings introspectionCache = new IntrospectionCacheSettings();
+
+    /**
+     * Verified bearer token cache configuration parameters (used by the resource server endpoints of the service).
+     */
+    @NestedConfigurationProperty
+    private BearerTokenCacheSettings bearerTokenCache = new BearerTokenCacheSettings();
+
+    /**
+     * OAuth client registry cache configuration parameters (used in dynamic registration mode).
+     */
+    @NestedConfigurationProperty
+    private ClientRegistryCacheSettings clientRegistryCache = new ClientRegistryCacheSettings();
+
+    /**
+     * Verified OAuth client credential cache configuration parameters (used by the client authentication of the OAuth endpoints).
+     */
+    @NestedConfigurationProperty
+    private ClientCredentialCacheSettings clientCredentialCache = new ClientCredentialCacheSettings();
+
+    /**
+     * Token signing executor configuration parameters.
+     */
+    @NestedConfigurationProperty
+    private SigningExecutorSettings signingExecutor = new SigningExecutorSettings();
+
+    /**
+     * Client credentials token reuse configuration parameters.
+     */
+    @NestedConfigurationProperty
+    private TokenReuseSettings tokenReuse = new TokenReuseSettings();
+
+    /**
+     * Refresh token configuration parameters.
+     */
+    @NestedConfigurationProperty
+    private RefreshTokenSettings refreshToken = new RefreshTokenSettings();
+
+    /**
+     * Maximum number of tokens accepted by a single batch introspection request (defaults to 100).
+     */
+    private int introspectionBatchLimit = 100;
+
+    /**
+     * Maximum number of audiences accepted by a single batch token request (defaults to 20).
+     */
+    private int tokenBatchLimit = 20;
+
     /**
      * Authorization code expiration in {@link Duration}.
      */
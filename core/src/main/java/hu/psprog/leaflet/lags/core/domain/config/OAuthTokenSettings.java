@@ -4,6 +4,7 @@ import com.nimbusds.jose.JWSAlgorithm;
 import lombok.Data;
 
 import java.nio.file.Path;
+import java.time.Duration;
 
 /**
  * OAuth2 JWT token configuration parameters model.
@@ -24,22 +25,35 @@ public class OAuthTokenSettings {
     private String issuer;
 
     /**
-     * Path of the private RSA key file to sign the tokens with.
+     * Path of the private key file (PKCS#8 PEM) to sign the tokens with.
      */
     private Path privateKeyFile;
 
     /**
-     * Path of the public RSA key file to sign the tokens with.
+     * Path of the public key file (X.509 PEM) to verify the tokens with.
      */
     private Path publicKeyFile;
 
+    /**
+     * Path of the directory containing the signing key pairs (named as {@code <kid>.private.pem} and
+     * {@code <kid>.public.pem}). If set, the keys are loaded from this directory instead of the above key files, and
+     * reloaded on every change of the directory, the most recently added key becoming the signing key.
+     */
+    private Path keyDirectory;
+
+    /**
+     * Time to wait after publishing a newly added key (of the key directory) in the JWK set, before signing the tokens
+     * with it, so the resource servers caching the JWK set can pick up the new key first.
+     */
+    private Duration keyActivationDelay = Duration.ofMinutes(5);
+
     /**
      * Key ID ("kid") header value for the generated JWT access tokens.
      */
     private String keyID;
 
     /**
-     * JWT access token signature algorithm.
+     * JWT access token signature algorithm (RSA, ECDSA and EdDSA algorithms are supported).
      */
     private JWSAlgorithm signatureAlgorithm;
 }
@@ -0,0 +1,33 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Refresh token configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class RefreshTokenSettings {
+
+    /**
+     * Enables issuing refresh tokens on authorization code and password grant flows (disabled by default).
+     * Refresh tokens are stored in the memory of the issuing service instance and are not replicated, thus they can
+     * only be used on single-node deployments, or behind a load balancer routing the clients to the same instance.
+     */
+    private boolean enabled;
+
+    /**
+     * Refresh token expiration in {@link Duration}. As refresh tokens are rotated on every use, the chain of refresh
+     * tokens stays valid as long as it is used within this time frame (defaults to 14 days).
+     */
+    private Duration expiration = Duration.ofDays(14);
+
+    /**
+     * Absolute expiration of a refresh token family in {@link Duration}, counted from the original user authorization.
+     * Rotation does not extend it, thus the user must re-authenticate once it is reached (defaults to 90 days).
+     */
+    private Duration absoluteExpiration = Duration.ofDays(90);
+}
@@ -0,0 +1,56 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token tracking replication configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class ReplicationSettings {
+
+    /**
+     * Enables replicating the token tracking mutations between the service instances (disabled by default).
+     */
+    private boolean enabled = false;
+
+    /**
+     * Name of this service instance, used as the prefix of the node ID generated on every startup.
+     */
+    private String nodeName = "lags";
+
+    /**
+     * Base URLs of the peer service instances.
+     */
+    private List<String> peers = new ArrayList<>();
+
+    /**
+     * Client ID of the OAuth application used by the service instances to authenticate against each other.
+     */
+    private String clientID;
+
+    /**
+     * Client secret of the OAuth application used by the service instances to authenticate against each other.
+     */
+    private String clientSecret;
+
+    /**
+     * Connect and read timeout of the requests sent to the peers (defaults to 2 seconds).
+     */
+    private Duration requestTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Interval of pushing the pending mutations to the peers (defaults to 100 milliseconds).
+     */
+    private Duration pushInterval = Duration.ofMillis(100);
+
+    /**
+     * Interval of the anti-entropy catch-up with the peers (defaults to 30 seconds).
+     */
+    private Duration antiEntropyInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,23 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+/**
+ * Token signing executor configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class SigningExecutorSettings {
+
+    /**
+     * Number of threads signing the issued tokens (defaults to the number of available processors).
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of tokens waiting for signing; further token requests are rejected with temporarily_unavailable
+     * error (defaults to 256).
+     */
+    private int queueCapacity = 256;
+}
@@ -0,0 +1,32 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Client credentials token reuse configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class TokenReuseSettings {
+
+    /**
+     * Client IDs of the applications opted in for token reuse. Repeated client credentials token requests of these
+     * applications for the same audience and scope are served with the same (still valid and not revoked) token.
+     */
+    private List<String> clientIDs = Collections.emptyList();
+
+    /**
+     * Fraction of the token lifetime, until which an issued token is reused (defaults to 0.5, i.e. a new token is
+     * issued after half of the lifetime of the previous one has passed).
+     */
+    private double maximumLifetimeFraction = 0.5;
+
+    /**
+     * Maximum number of reusable tokens (defaults to 1000).
+     */
+    private long maximumSize = 1_000;
+}
@@ -0,0 +1,20 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+/**
+ * Available access token tracking modes.
+ *
+ * @author Peter Smith
+ */
+public enum TokenTrackingMode {
+
+    /**
+     * Every issued access token is tracked, and tokens unknown to the tracker are considered inactive (default).
+     */
+    FULL,
+
+    /**
+     * Only the revoked access tokens are tracked (until their original expiration), and tokens unknown to the tracker
+     * are considered active. Storage and write costs scale with the number of revocations instead of issued tokens.
+     */
+    DENYLIST
+}
@@ -0,0 +1,92 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Access token tracking configuration parameters model.
+ *
+ * @author Peter Smith
+ */
+@Data
+public class TokenTrackingSettings {
+
+    /**
+     * Storage implementation to be used for tracking the issued access tokens (defaults to in-memory storage).
+     */
+    private TokenTrackingStorage storage = TokenTrackingStorage.IN_MEMORY;
+
+    /**
+     * Token tracking mode (defaults to full tracking of every issued token).
+     */
+    private TokenTrackingMode mode = TokenTrackingMode.FULL;
+
+    /**
+     * Directory of the segment files (mapped-file storage only).
+     */
+    private Path storageDirectory;
+
+    /**
+     * Size of a single segment file (mapped-file storage only, defaults to 8 MB).
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(8);
+
+    /**
+     * Maximum number of buffered token records written in a single JDBC batch (relational storage only, defaults to 100).
+     */
+    private int writeBehindBatchSize = 100;
+
+    /**
+     * Maximum number of token records held by the write-behind buffer, above which the records are inserted directly
+     * (relational storage only, defaults to 10000).
+     */
+    private int writeBehindBufferLimit = 10_000;
+
+    /**
+     * Flush interval of the write-behind buffer (relational storage only, defaults to 200 milliseconds).
+     */
+    private Duration writeBehindInterval = Duration.ofMillis(200);
+
+    /**
+     * Maximum number of expired token records deleted by a single statement (relational storage only, defaults to 1000).
+     */
+    private int deleteChunkSize = 1000;
+
+    /**
+     * Maximum lifetime of a revocation event stream connection, after which the subscriber must reconnect (defaults to 30 minutes).
+     */
+    private Duration revocationStreamTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Maximum number of revocation events waiting for delivery to a single stream subscriber, above which the subscriber
+     * is dropped, and must reconnect (defaults to 1000).
+     */
+    private int revocationStreamSubscriberQueueSize = 1000;
+
+    /**
+     * Retention of the revocation events of tokens without expiration (defaults to 24 hours). Events of tokens with
+     * expiration are retained until the token expires.
+     */
+    private Duration revocationEventRetention = Duration.ofHours(24);
+
+    /**
+     * Maximum age of the published token status list, allowed to be cached by the resource servers (defaults to 5 seconds).
+     */
+    private Duration statusListMaxAge = Duration.ofSeconds(5);
+
+    /**
+     * Base URI of the token status list referenced by the issued tokens (defaults to the issuer URI). Status lists are
+     * local to the service instances, so with multiple instances it must address this specific instance.
+     */
+    private String statusListBaseURI;
+
+    /**
+     * Replication of the token tracking mutations between multiple service instances.
+     */
+    @NestedConfigurationProperty
+    private ReplicationSettings replication = new ReplicationSettings();
+}
@@ -0,0 +1,29 @@
+package hu.psprog.leaflet.lags.core.domain.config;
+
+/**
+ * Available storage implementations for tracking the issued access tokens.
+ *
+ * @author Peter Smith
+ */
+public enum TokenTrackingStorage {
+
+    /**
+     * Map based in-memory storage (default).
+     */
+    IN_MEMORY,
+
+    /**
+     * Memory-compact in-memory storage, keeping the token information in primitive arrays.
+     */
+    COMPACT,
+
+    /**
+     * Durable storage, writing the token information into memory-mapped, append-only segment files.
+     */
+    MAPPED_FILE,
+
+    /**
+     * Relational database storage, shared across multiple service instances.
+     */
+    RELATIONAL
+}
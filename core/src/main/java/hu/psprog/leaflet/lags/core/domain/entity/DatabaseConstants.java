@@ -15,6 +15,7 @@ public final class DatabaseConstants {
     static final String TABLE_PERMISSIONS = TABLE_PREFIX + "permissions";
     static final String TABLE_USERS = TABLE_PREFIX + "users";
     static final String TABLE_ROLES = TABLE_PREFIX + "roles";
+    static final String TABLE_TRACKED_ACCESS_TOKENS = TABLE_PREFIX + "tracked_access_tokens";
 
     static final String COLUMN_DATE_CREATED = "date_created";
     static final String COLUMN_DATE_LAST_MODIFIED = "date_last_modified";
@@ -34,6 +35,12 @@ public final class DatabaseConstants {
     static final String COLUMN_AUDIENCE = "audience";
     static final String COLUMN_LOCAL_DEFAULT = "local_default";
     static final String COLUMN_EXTERNAL_DEFAULT = "external_default";
+    static final String COLUMN_JTI = "jti";
+    static final String COLUMN_SUBJECT = "subject";
+    static final String COLUMN_ISSUED_AT = "issued_at";
+    static final String COLUMN_EXPIRES_AT = "expires_at";
+    static final String COLUMN_STATUS = "status";
+    static final String COLUMN_REVOKED_AT = "revoked_at";
 
     static final String UK_USER_EMAIL = "UK_USER_EMAIL";
     static final String UK_OAUTH_APPLICATION_NAME = "uk_oauth_application_name";
@@ -55,5 +62,7 @@ public final class DatabaseConstants {
     static final String FK_USER_ROLE = "fk_user_role";
     static final String UK_PERMISSION_NAME = "uk_permission_name";
 
+    static final String IX_TRACKED_ACCESS_TOKEN_EXPIRES_AT = "ix_tracked_access_token_expires_at";
+
     private DatabaseConstants() {}
 }
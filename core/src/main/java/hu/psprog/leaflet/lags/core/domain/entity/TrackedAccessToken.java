@@ -0,0 +1,54 @@
+package hu.psprog.leaflet.lags.core.domain.entity;
+
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Entity class representing a tracked access token (used by the relational token tracking storage).
+ *
+ * @author Peter Smith
+ */
+@Data
+@Entity
+@Table(
+        name = DatabaseConstants.TABLE_TRACKED_ACCESS_TOKENS,
+        indexes = @Index(
+                columnList = DatabaseConstants.COLUMN_EXPIRES_AT,
+                name = DatabaseConstants.IX_TRACKED_ACCESS_TOKEN_EXPIRES_AT))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackedAccessToken {
+
+    @Id
+    @Column(name = DatabaseConstants.COLUMN_JTI, length = 64)
+    private String jti;
+
+    @Column(name = DatabaseConstants.COLUMN_SUBJECT)
+    private String subject;
+
+    @Column(name = DatabaseConstants.COLUMN_ISSUED_AT)
+    private Date issuedAt;
+
+    @Column(name = DatabaseConstants.COLUMN_EXPIRES_AT)
+    private Date expiresAt;
+
+    @Column(name = DatabaseConstants.COLUMN_STATUS, length = 16)
+    @Enumerated(EnumType.STRING)
+    private TokenStatus status;
+
+    @Column(name = DatabaseConstants.COLUMN_REVOKED_AT)
+    private Date revokedAt;
+}
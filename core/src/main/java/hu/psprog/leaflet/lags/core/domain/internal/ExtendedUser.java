@@ -1,17 +1,24 @@
 package hu.psprog.leaflet.lags.core.domain.internal;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * Spring Security compatible {@link UserDetails} implementation containing extra user information.
+ * The authorities of the user are also carried as a {@link ScopeSet}, encoded once when the user is loaded. The encoded
+ * set is not serialized with the user, since the scope IDs are only valid within the running instance.
  *
  * @author Peter Smith
  */
@@ -27,6 +34,30 @@ public class ExtendedUser implements UserDetails, OAuth2User {
     private final String role;
     private final Collection<GrantedAuthority> authorities;
 
+    @Getter(AccessLevel.NONE)
+    private final transient ScopeSet authoritySet;
+
+    /**
+     * Returns the authorities of the user encoded as {@link ScopeSet}. The set encoded when the user was loaded is
+     * returned if present, otherwise (e.g. for a deserialized user) the authorities are encoded by the given encoder.
+     *
+     * @param scopeEncoder {@link Function} encoding the authorities into {@link ScopeSet}
+     * @return authorities of the user as {@link ScopeSet}
+     */
+    public ScopeSet getAuthoritySet(Function<Collection<String>, ScopeSet> scopeEncoder) {
+
+        return Objects.nonNull(authoritySet)
+                ? authoritySet
+                : scopeEncoder.apply(getAuthorityNames());
+    }
+
+    private List<String> getAuthorityNames() {
+
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return enabled;
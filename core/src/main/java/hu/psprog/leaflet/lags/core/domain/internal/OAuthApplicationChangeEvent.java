@@ -0,0 +1,55 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import java.util.UUID;
+
+/**
+ * Event published on every change of the registered OAuth applications.
+ *
+ * @param applicationID ID of the affected application
+ * @param type type of the change
+ * @param replicated flag indicating whether the change was made on another service instance
+ * @author Peter Smith
+ */
+public record OAuthApplicationChangeEvent(UUID applicationID, Type type, boolean replicated) {
+
+    /**
+     * Creates an event for a change made on this service instance.
+     *
+     * @param applicationID ID of the affected application
+     * @param type type of the change
+     */
+    public OAuthApplicationChangeEvent(UUID applicationID, Type type) {
+        this(applicationID, type, false);
+    }
+
+    /**
+     * Types of OAuth application changes.
+     */
+    public enum Type {
+
+        /**
+         * A new application has been registered.
+         */
+        CREATED,
+
+        /**
+         * The registration of an application has been updated.
+         */
+        UPDATED,
+
+        /**
+         * An application has been enabled or disabled.
+         */
+        STATUS_CHANGED,
+
+        /**
+         * The client secret of an application has been regenerated.
+         */
+        SECRET_REGENERATED,
+
+        /**
+         * An application has been deleted.
+         */
+        DELETED
+    }
+}
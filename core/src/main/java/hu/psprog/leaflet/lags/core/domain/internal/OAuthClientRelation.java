@@ -0,0 +1,68 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Immutable relation between a source and a target OAuth client, resolved from the {@link OAuthClientAllowRelation}
+ * registered for the target client. Carries the allowed scopes both in their registered order and as a pre-built
+ * {@link ScopeSet}, so scope checks do not need to scan the list.
+ *
+ * @param sourceClientID client ID of the source client
+ * @param targetAudience audience of the target client
+ * @param allowedScopes scopes the target client allows the source client to access, in their registered order
+ * @param allowedScopeSet the same scopes encoded as {@link ScopeSet}
+ * @author Peter Smith
+ */
+public record OAuthClientRelation(String sourceClientID, String targetAudience, List<String> allowedScopes, ScopeSet allowedScopeSet) {
+
+    /**
+     * Resolves the relation between the given source and target clients.
+     *
+     * @param sourceClient source client as {@link OAuthClient}
+     * @param targetClient target client as {@link OAuthClient}
+     * @param scopeEncoder {@link Function} encoding the allowed scopes into {@link ScopeSet}
+     * @return resolved {@link OAuthClientRelation} wrapped as {@link Optional}, or empty Optional if the target client does not allow access for the source client
+     */
+    public static Optional<OAuthClientRelation> resolve(OAuthClient sourceClient, OAuthClient targetClient,
+                                                        Function<Collection<String>, ScopeSet> scopeEncoder) {
+
+        return targetClient.getAllowedClients().stream()
+                .filter(relation -> Objects.equals(relation.getName(), sourceClient.getClientName()))
+                .findFirst()
+                .map(relation -> of(sourceClient, targetClient, relation, scopeEncoder));
+    }
+
+    /**
+     * Creates a frozen {@link OAuthClientRelation} from the given registered relation descriptor.
+     *
+     * @param sourceClient source client as {@link OAuthClient}
+     * @param targetClient target client as {@link OAuthClient}
+     * @param relation registered relation descriptor as {@link OAuthClientAllowRelation}
+     * @param scopeEncoder {@link Function} encoding the allowed scopes into {@link ScopeSet}
+     * @return created {@link OAuthClientRelation}
+     */
+    public static OAuthClientRelation of(OAuthClient sourceClient, OAuthClient targetClient, OAuthClientAllowRelation relation,
+                                         Function<Collection<String>, ScopeSet> scopeEncoder) {
+
+        List<String> allowedScopes = List.copyOf(relation.getAllowedScopes());
+
+        return new OAuthClientRelation(sourceClient.getClientId(), targetClient.getAudience(), allowedScopes, scopeEncoder.apply(allowedScopes));
+    }
+
+    /**
+     * Checks whether every given scope is allowed by this relation.
+     *
+     * @param scope encoded scopes to check as {@link ScopeSet}
+     * @return {@code true} if every given scope is allowed, {@code false} otherwise
+     */
+    public boolean allowsAll(ScopeSet scope) {
+        return scope.isSubsetOf(allowedScopeSet);
+    }
+}
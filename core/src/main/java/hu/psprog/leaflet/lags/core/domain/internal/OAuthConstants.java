@@ -21,6 +21,7 @@ public interface OAuthConstants {
         String RESPONSE_TYPE = "response_type";
         String REDIRECT_URI = "redirect_uri";
         String STATE = "state";
+        String REFRESH_TOKEN = "refresh_token";
     }
 
     /**
@@ -39,5 +40,9 @@ public interface OAuthConstants {
         String ISSUED_AT = "iat";
         String ISSUER = "iss";
         String NOT_BEFORE = "nbf";
+        String STATUS = "status";
+        String STATUS_LIST = "status_list";
+        String STATUS_LIST_INDEX = "idx";
+        String STATUS_LIST_URI = "uri";
     }
 }
@@ -0,0 +1,17 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
+
+import java.util.Map;
+
+/**
+ * Context domain object containing the OAuth clients resolved for an {@link OAuthTokenBatchRequest}, with a single
+ * registry lookup. Audiences without registered client are missing from the target clients map.
+ *
+ * @param sourceClient source OAuth client of the request as {@link OAuthClient}
+ * @param targetClients target OAuth clients of the request, mapped by their audience
+ * @author Peter Smith
+ */
+public record OAuthTokenBatchContext(OAuthClient sourceClient, Map<String, OAuthClient> targetClients) {
+}
@@ -1,7 +1,6 @@
 package hu.psprog.leaflet.lags.core.domain.internal;
 
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
-import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
@@ -16,8 +15,9 @@ import java.util.Optional;
  * Contains the following objects:
  *  - The original {@link OAuthTokenRequest};
  *  - The source and the target OAuth clients extracted from the request as {@link OAuthClient} objects;
- *  - The relation descriptor between the clients as {@link OAuthClientAllowRelation} object;
- *  - And an {@link OngoingAuthorization} object wrapped in {@link Optional} for Authorization Code flow based authorizations.
+ *  - The relation descriptor between the clients as {@link OAuthClientRelation} object;
+ *  - An {@link OngoingAuthorization} object wrapped in {@link Optional} for Authorization Code flow based authorizations;
+ *  - And a {@link RefreshTokenInfo} object wrapped in {@link Optional} for Refresh Token flow based authorizations.
  *
  * @author Peter Smith
  */
@@ -28,9 +28,12 @@ public class OAuthTokenRequestContext implements OAuthRequestContext {
     private final OAuthTokenRequest request;
     private final OAuthClient sourceClient;
     private final OAuthClient targetClient;
-    private final OAuthClientAllowRelation relation;
+    private final OAuthClientRelation relation;
     private final Optional<OngoingAuthorization> ongoingAuthorization;
 
+    @Builder.Default
+    private final Optional<RefreshTokenInfo> refreshToken = Optional.empty();
+
     /**
      * Returns the stored {@link OngoingAuthorization} object for token requests on Auth Code flow.
      * Throws exception if missing (call the standard getter method instead if the object is not required).
@@ -43,4 +46,17 @@ public class OAuthTokenRequestContext implements OAuthRequestContext {
         return ongoingAuthorization
                 .orElseThrow(() -> new OAuthTokenRequestException(OAuthErrorCode.INVALID_REQUEST, "Missing ongoing authorization"));
     }
+
+    /**
+     * Returns the stored {@link RefreshTokenInfo} object for token requests on Refresh Token flow.
+     * Throws exception if missing (call the standard getter method instead if the object is not required).
+     *
+     * @return the stored {@link RefreshTokenInfo} object
+     * @throws OAuthAuthorizationException if the {@link RefreshTokenInfo} object is not set
+     */
+    public RefreshTokenInfo getRequiredRefreshToken() {
+
+        return refreshToken
+                .orElseThrow(() -> new OAuthTokenRequestException(OAuthErrorCode.INVALID_GRANT, "Invalid refresh token"));
+    }
 }
@@ -8,6 +8,7 @@ import java.util.List;
 
 /**
  * Domain class holding information about an in-progress OAuth2 authorization.
+ * The authorized scope is also carried as a {@link ScopeSet}, encoded once when the authorization is created.
  *
  * @author Peter Smith
  */
@@ -21,4 +22,5 @@ public class OngoingAuthorization {
     private final UserInfo userInfo;
     private final LocalDateTime expiration;
     private final List<String> scope;
+    private final ScopeSet scopeSet;
 }
@@ -0,0 +1,26 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import lombok.Builder;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Domain class holding the information stored about an issued refresh token.
+ * Refresh tokens are single-use: on every use, the token is flagged as used and a new one is issued in the same family
+ * (i.e. the chain of refresh tokens originating from the same user authorization).
+ *
+ * @param familyID ID of the refresh token family
+ * @param clientID ID of the client the refresh token has been issued to
+ * @param audience audience of the access tokens issued with the refresh token
+ * @param scope originally granted scope (access tokens issued with the refresh token can only narrow it down)
+ * @param userInfo authorized user as {@link UserInfo}
+ * @param expiresAt expiration of the refresh token (never later than the expiration of its family)
+ * @param familyExpiresAt absolute expiration of the refresh token family, not extended by the rotation of its tokens
+ * @param used flag indicating whether the refresh token has already been used
+ * @author Peter Smith
+ */
+@Builder(toBuilder = true)
+public record RefreshTokenInfo(String familyID, String clientID, String audience, List<String> scope, UserInfo userInfo,
+                               Date expiresAt, Date familyExpiresAt, boolean used) {
+}
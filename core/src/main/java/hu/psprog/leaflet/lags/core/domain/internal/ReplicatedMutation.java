@@ -0,0 +1,41 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import lombok.Builder;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Domain class representing a single token tracking mutation exchanged between service instances.
+ * Mutations are identified by their origin node and their sequence number, assigned by the origin node.
+ * Changes of the OAuth applications are exchanged as mutations as well (without token tracking mutation type), so the
+ * client caches of every service instance are invalidated on them.
+ *
+ * @param originNodeID ID of the node the mutation originates from
+ * @param sequence sequence number of the mutation (per origin node)
+ * @param type type of the token tracking mutation ({@code null} for application change mutations)
+ * @param jti ID of the affected token (stored and revoked mutations only)
+ * @param subject subject of the affected token (stored and revoked mutations only)
+ * @param issuedAt issue date of the affected token (stored and revoked mutations only)
+ * @param expiresAt expiration of the affected token (stored and revoked mutations), or the end of the relevance of the
+ *                  change (application change mutations)
+ * @param revokedAt revocation date of the affected token (revoked mutations only)
+ * @param threshold expiration threshold of the clean-up (expired mutations only)
+ * @param applicationID ID of the changed application (application change mutations only)
+ * @param applicationChangeType type of the application change (application change mutations only)
+ * @author Peter Smith
+ */
+@Builder
+public record ReplicatedMutation(
+        String originNodeID,
+        long sequence,
+        TokenTrackingEvent.Type type,
+        String jti,
+        String subject,
+        Date issuedAt,
+        Date expiresAt,
+        Date revokedAt,
+        Date threshold,
+        UUID applicationID,
+        OAuthApplicationChangeEvent.Type applicationChangeType) {
+}
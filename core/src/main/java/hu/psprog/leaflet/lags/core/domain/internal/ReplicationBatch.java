@@ -0,0 +1,16 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Domain class representing a batch of token tracking mutations sent by a service instance to its peers, either as a
+ * push of its recent mutations, or as a response to a catch-up request.
+ *
+ * @param senderNodeID ID of the sending node
+ * @param mutations list of {@link ReplicatedMutation} objects
+ * @param completeSequences sequence number up to which the sender has applied every mutation (with no gaps), per origin node
+ * @author Peter Smith
+ */
+public record ReplicationBatch(String senderNodeID, List<ReplicatedMutation> mutations, Map<String, Long> completeSequences) {
+}
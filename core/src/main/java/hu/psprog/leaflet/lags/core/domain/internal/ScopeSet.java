@@ -0,0 +1,178 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, bitset-backed set of scopes. Each bit represents the integer ID assigned to a scope (permission) name by
+ * the permission dictionary, so subset, intersection and size checks are simple word operations, without comparing
+ * the scope names themselves.
+ *
+ * A scope set may also mark that it was created from scope names not known by the dictionary. Since the dictionary
+ * registers every permission a client or a user can have, such a set can never be the subset of another one.
+ *
+ * @author Peter Smith
+ */
+public final class ScopeSet {
+
+    /**
+     * Empty scope set.
+     */
+    public static final ScopeSet EMPTY = new ScopeSet(new long[0], false);
+
+    private static final int WORD_SIZE = Long.SIZE;
+
+    private final long[] words;
+    private final boolean containsUnknown;
+
+    private ScopeSet(long[] words, boolean containsUnknown) {
+        this.words = words;
+        this.containsUnknown = containsUnknown;
+    }
+
+    /**
+     * Creates a {@link ScopeSet} from the given scope IDs. Negative IDs mark scopes unknown by the dictionary.
+     *
+     * @param scopeIDs IDs of the scopes
+     * @return created {@link ScopeSet}
+     */
+    public static ScopeSet of(int... scopeIDs) {
+
+        int maxID = Arrays.stream(scopeIDs).max().orElse(-1);
+        long[] words = new long[maxID / WORD_SIZE + 1];
+        boolean containsUnknown = false;
+        for (int scopeID : scopeIDs) {
+            if (scopeID < 0) {
+                containsUnknown = true;
+            } else {
+                words[scopeID / WORD_SIZE] |= 1L << scopeID;
+            }
+        }
+
+        return new ScopeSet(words, containsUnknown);
+    }
+
+    /**
+     * Checks whether the scope identified by the given ID is contained by this set.
+     *
+     * @param scopeID ID of the scope
+     * @return {@code true} if the scope is contained, {@code false} otherwise (including negative IDs)
+     */
+    public boolean contains(int scopeID) {
+
+        return scopeID >= 0
+                && scopeID / WORD_SIZE < words.length
+                && (words[scopeID / WORD_SIZE] & (1L << scopeID)) != 0;
+    }
+
+    /**
+     * Checks whether every scope of this set is contained by the given other set.
+     *
+     * @param other {@link ScopeSet} to check against
+     * @return {@code true} if this set is a subset of the given other set, {@code false} otherwise
+     */
+    public boolean isSubsetOf(ScopeSet other) {
+
+        if (containsUnknown) {
+            return false;
+        }
+
+        for (int index = 0; index < words.length; index++) {
+            if ((words[index] & ~other.wordAt(index)) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the intersection of this and the given other set. Unknown scopes are never part of an intersection.
+     *
+     * @param other {@link ScopeSet} to intersect with
+     * @return intersection as {@link ScopeSet}
+     */
+    public ScopeSet intersect(ScopeSet other) {
+
+        long[] intersection = new long[Math.min(words.length, other.words.length)];
+        for (int index = 0; index < intersection.length; index++) {
+            intersection[index] = words[index] & other.words[index];
+        }
+
+        return new ScopeSet(intersection, false);
+    }
+
+    /**
+     * Returns the number of known scopes in this set.
+     *
+     * @return number of known scopes
+     */
+    public int size() {
+        return Arrays.stream(words)
+                .mapToInt(Long::bitCount)
+                .sum();
+    }
+
+    /**
+     * Checks whether this set contains no scopes at all (neither known, nor unknown ones).
+     *
+     * @return {@code true} if this set is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return !containsUnknown && size() == 0;
+    }
+
+    /**
+     * Checks whether this set was created from any scope unknown by the dictionary.
+     *
+     * @return {@code true} if unknown scopes were present, {@code false} otherwise
+     */
+    public boolean containsUnknown() {
+        return containsUnknown;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ScopeSet otherScopeSet)) {
+            return false;
+        }
+
+        if (containsUnknown != otherScopeSet.containsUnknown) {
+            return false;
+        }
+
+        for (int index = 0; index < Math.max(words.length, otherScopeSet.words.length); index++) {
+            if (wordAt(index) != otherScopeSet.wordAt(index)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+
+        int lastNonZeroWord = words.length - 1;
+        while (lastNonZeroWord >= 0 && words[lastNonZeroWord] == 0L) {
+            lastNonZeroWord--;
+        }
+
+        return 31 * Arrays.hashCode(Arrays.copyOf(words, lastNonZeroWord + 1)) + Boolean.hashCode(containsUnknown);
+    }
+
+    @Override
+    public String toString() {
+        return "ScopeSet{size=" + size() + ", containsUnknown=" + containsUnknown + "}";
+    }
+
+    private long wordAt(int index) {
+
+        return index < words.length
+                ? words[index]
+                : 0L;
+    }
+}
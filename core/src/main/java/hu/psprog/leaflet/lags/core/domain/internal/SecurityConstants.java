@@ -16,6 +16,9 @@ public interface SecurityConstants {
     String PATH_ACCESS_DENIED = "/access-denied";
     String PATH_UNKNOWN_ERROR = "/unknown-error";
     String PATH_OAUTH_USERINFO = "/oauth/userinfo";
+    String PATH_OAUTH_REPLICATION_PUSH = "/oauth/replication/push";
+    String PATH_OAUTH_REPLICATION_CATCH_UP = "/oauth/replication/catch-up";
+    String PATH_WELL_KNOWN_STATUS_LIST = "/.well-known/status-list";
 
     String QUERY_PARAMETER_TOKEN = "token";
     String RECLAIM_ROLE = "RECLAIM";
@@ -0,0 +1,13 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import com.nimbusds.jose.JWSSigner;
+
+/**
+ * Domain class representing the key currently used for signing the issued tokens.
+ *
+ * @param keyID key ID ("kid") of the key, to be set as the header value of the signed tokens
+ * @param signer {@link JWSSigner} instance signing with the key
+ * @author Peter Smith
+ */
+public record SigningKey(String keyID, JWSSigner signer) {
+}
@@ -91,6 +91,15 @@ public class TokenClaims {
         return (Date) this.claims.get(OAuthConstants.Token.EXPIRATION);
     }
 
+    /**
+     * Returns the "iat" claim value.
+     *
+     * @return "iat" claim value
+     */
+    public Date getIssuedAt() {
+        return (Date) this.claims.get(OAuthConstants.Token.ISSUED_AT);
+    }
+
     /**
      * Returns the "aud" claim value.
      *
@@ -202,6 +211,17 @@ public class TokenClaims {
             return this;
         }
 
+        /**
+         * Adds the "iat" claim.
+         *
+         * @param issuedAt token issue date
+         * @return builder instance
+         */
+        public TokenClaimsBuilder issuedAt(Date issuedAt) {
+            this.claims.put(OAuthConstants.Token.ISSUED_AT, issuedAt);
+            return this;
+        }
+
         /**
          * Adds the "aud" claim.
          *
@@ -0,0 +1,83 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import java.util.Objects;
+
+/**
+ * Result of parsing an access token: either the extracted claims of a valid token, or the reason of the failure.
+ *
+ * @param claims extracted claims as {@link TokenClaims} (successful parsing only)
+ * @param failureReason reason of the failure as {@link FailureReason} (failed parsing only)
+ * @author Peter Smith
+ */
+public record TokenParsingResult(TokenClaims claims, FailureReason failureReason) {
+
+    /**
+     * Creates a successful parsing result.
+     *
+     * @param claims extracted claims as {@link TokenClaims}
+     * @return created {@link TokenParsingResult}
+     */
+    public static TokenParsingResult success(TokenClaims claims) {
+        return new TokenParsingResult(claims, null);
+    }
+
+    /**
+     * Creates a failed parsing result.
+     *
+     * @param failureReason reason of the failure as {@link FailureReason}
+     * @return created {@link TokenParsingResult}
+     */
+    public static TokenParsingResult failure(FailureReason failureReason) {
+        return new TokenParsingResult(null, failureReason);
+    }
+
+    /**
+     * Indicates whether the token has been parsed successfully.
+     *
+     * @return {@code true} if the token is valid, {@code false} otherwise
+     */
+    public boolean isSuccessful() {
+        return Objects.isNull(failureReason);
+    }
+
+    /**
+     * Reasons of access token parsing failures.
+     */
+    public enum FailureReason {
+
+        /**
+         * Token is not a well-formed JWT.
+         */
+        MALFORMED("Malformed token"),
+
+        /**
+         * Signature of the token could not be verified.
+         */
+        INVALID_SIGNATURE("Invalid signature"),
+
+        /**
+         * Token has already expired.
+         */
+        EXPIRED("Token expired"),
+
+        /**
+         * Token is not active according to the token tracker (revoked, or not tracked in full tracking mode).
+         */
+        REVOKED("Token is not active"),
+
+        /**
+         * Token has been rejected for any other reason.
+         */
+        UNKNOWN("Token rejected");
+
+        private final String description;
+
+        FailureReason(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
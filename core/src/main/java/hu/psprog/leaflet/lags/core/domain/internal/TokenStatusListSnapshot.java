@@ -0,0 +1,13 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+/**
+ * Domain class representing a point-in-time state of the token status list.
+ *
+ * @param listID ID of the status list (regenerated on every startup)
+ * @param version version of the status list, incremented on every change of a status bit
+ * @param bits number of bits representing the status of a single token
+ * @param encodedList ZLIB compressed, base64url encoded status bits
+ * @author Peter Smith
+ */
+public record TokenStatusListSnapshot(String listID, long version, int bits, String encodedList) {
+}
@@ -0,0 +1,131 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Domain class identifying a principal whose tokens can be looked up (and revoked) together.
+ * A principal can be identified by the exact "sub" claim of its tokens, by a user ID, or by a client ID.
+ *
+ * @author Peter Smith
+ */
+public record TokenSubject(Type type, String value) {
+
+    private static final String USER_ID_SEPARATOR = "|uid=";
+    private static final String REVOCATION_ID_PREFIX = "rev:";
+    private static final int REVOCATION_ID_VALUE_OFFSET = REVOCATION_ID_PREFIX.length() + 2;
+
+    /**
+     * Creates a {@link TokenSubject} matching the tokens issued with the given "sub" claim.
+     *
+     * @param subject "sub" claim value
+     * @return created {@link TokenSubject}
+     */
+    public static TokenSubject ofSubject(String subject) {
+        return new TokenSubject(Type.SUBJECT, subject);
+    }
+
+    /**
+     * Creates a {@link TokenSubject} matching every token issued to the given user, regardless of the client.
+     *
+     * @param userID ID of the user
+     * @return created {@link TokenSubject}
+     */
+    public static TokenSubject ofUser(Long userID) {
+        return new TokenSubject(Type.USER_ID, String.valueOf(userID));
+    }
+
+    /**
+     * Creates a {@link TokenSubject} matching every token issued by the given client, either on its own behalf or on
+     * behalf of a user.
+     *
+     * @param clientID ID of the client
+     * @return created {@link TokenSubject}
+     */
+    public static TokenSubject ofClient(String clientID) {
+        return new TokenSubject(Type.CLIENT_ID, clientID);
+    }
+
+    /**
+     * Extracts every {@link TokenSubject} the given "sub" claim value belongs to.
+     * Subjects of user tokens are formatted as "clientID|uid=userID", while subjects of client tokens only contain the
+     * client ID.
+     *
+     * @param subject "sub" claim value
+     * @return set of matching {@link TokenSubject} objects, or empty set if the subject is not specified
+     */
+    public static Set<TokenSubject> extract(String subject) {
+
+        if (Objects.isNull(subject)) {
+            return Set.of();
+        }
+
+        int separatorIndex = subject.indexOf(USER_ID_SEPARATOR);
+        if (separatorIndex < 0) {
+            return Set.of(ofSubject(subject), new TokenSubject(Type.CLIENT_ID, subject));
+        }
+
+        return Set.of(ofSubject(subject),
+                new TokenSubject(Type.CLIENT_ID, subject.substring(0, separatorIndex)),
+                new TokenSubject(Type.USER_ID, subject.substring(separatorIndex + USER_ID_SEPARATOR.length())));
+    }
+
+    /**
+     * Parses the given revocation record ID, created by {@link TokenSubject#toRevocationID()}.
+     *
+     * @param revocationID ID of a subject revocation record
+     * @return parsed {@link TokenSubject} wrapped as {@link Optional}, or empty Optional if the ID is not a subject revocation record ID
+     */
+    public static Optional<TokenSubject> fromRevocationID(String revocationID) {
+
+        if (Objects.isNull(revocationID) || !revocationID.startsWith(REVOCATION_ID_PREFIX) || revocationID.length() < REVOCATION_ID_VALUE_OFFSET) {
+            return Optional.empty();
+        }
+
+        char code = revocationID.charAt(REVOCATION_ID_PREFIX.length());
+
+        return Arrays.stream(Type.values())
+                .filter(type -> type.code == code)
+                .findFirst()
+                .map(type -> new TokenSubject(type, revocationID.substring(REVOCATION_ID_VALUE_OFFSET)));
+    }
+
+    /**
+     * Creates the ID of the record, under which the revocation of every token of this subject is tracked
+     * (formatted as "rev:[type code]:[value]", so it never collides with a UUID formatted token ID).
+     *
+     * @return ID of the subject revocation record
+     */
+    public String toRevocationID() {
+        return REVOCATION_ID_PREFIX + type.code + ':' + value;
+    }
+
+    /**
+     * Types of token subject identifiers.
+     */
+    public enum Type {
+
+        /**
+         * Exact "sub" claim value.
+         */
+        SUBJECT('S'),
+
+        /**
+         * User ID, parsed from the "sub" claim of user tokens.
+         */
+        USER_ID('U'),
+
+        /**
+         * Client ID, parsed from the "sub" claim.
+         */
+        CLIENT_ID('C');
+
+        private final char code;
+
+        Type(char code) {
+            this.code = code;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import java.util.Date;
+
+/**
+ * Event published by the token tracker on every mutation of the tracked tokens.
+ *
+ * @param type type of the mutation
+ * @param accessTokenInfo affected token (stored and revoked events), or the subject revocation record (subject revoked events)
+ * @param threshold expiration threshold of the clean-up (expired events only)
+ * @param replicated flag indicating whether the mutation was received from another service instance
+ * @author Peter Smith
+ */
+public record TokenTrackingEvent(Type type, AccessTokenInfo accessTokenInfo, Date threshold, boolean replicated) {
+
+    /**
+     * Creates an event for a newly tracked token.
+     *
+     * @param accessTokenInfo tracked token as {@link AccessTokenInfo}
+     * @param replicated flag indicating whether the mutation was received from another service instance
+     * @return created {@link TokenTrackingEvent}
+     */
+    public static TokenTrackingEvent stored(AccessTokenInfo accessTokenInfo, boolean replicated) {
+        return new TokenTrackingEvent(Type.STORED, accessTokenInfo, null, replicated);
+    }
+
+    /**
+     * Creates an event for a revoked token.
+     *
+     * @param accessTokenInfo revoked token as {@link AccessTokenInfo}
+     * @param replicated flag indicating whether the mutation was received from another service instance
+     * @return created {@link TokenTrackingEvent}
+     */
+    public static TokenTrackingEvent revoked(AccessTokenInfo accessTokenInfo, boolean replicated) {
+        return new TokenTrackingEvent(Type.REVOKED, accessTokenInfo, null, replicated);
+    }
+
+    /**
+     * Creates an event for the revocation of every token of a subject issued before the revocation.
+     *
+     * @param subjectRevocation subject revocation record as {@link AccessTokenInfo}, identified by {@link TokenSubject#toRevocationID()}
+     * @param replicated flag indicating whether the mutation was received from another service instance
+     * @return created {@link TokenTrackingEvent}
+     */
+    public static TokenTrackingEvent subjectRevoked(AccessTokenInfo subjectRevocation, boolean replicated) {
+        return new TokenTrackingEvent(Type.SUBJECT_REVOKED, subjectRevocation, null, replicated);
+    }
+
+    /**
+     * Creates an event for a clean-up of the expired tokens.
+     *
+     * @param threshold expiration threshold of the clean-up
+     * @param replicated flag indicating whether the mutation was received from another service instance
+     * @return created {@link TokenTrackingEvent}
+     */
+    public static TokenTrackingEvent expired(Date threshold, boolean replicated) {
+        return new TokenTrackingEvent(Type.EXPIRED, null, threshold, replicated);
+    }
+
+    /**
+     * Types of token tracking mutations.
+     */
+    public enum Type {
+
+        /**
+         * A token has been issued and tracked.
+         */
+        STORED,
+
+        /**
+         * A token has been revoked.
+         */
+        REVOKED,
+
+        /**
+         * Every token of a subject issued before the revocation has been revoked (denylist mode only).
+         */
+        SUBJECT_REVOKED,
+
+        /**
+         * Tokens expired before the threshold have been cleaned up.
+         */
+        EXPIRED
+    }
+}
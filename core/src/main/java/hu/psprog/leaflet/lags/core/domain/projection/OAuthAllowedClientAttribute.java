@@ -0,0 +1,18 @@
+package hu.psprog.leaflet.lags.core.domain.projection;
+
+import hu.psprog.leaflet.lags.core.domain.entity.OAuthAllowedClient;
+
+import java.util.UUID;
+
+/**
+ * Read-only projection of a single permission of an {@link OAuthAllowedClient} relation, used on the authentication path.
+ * Relations without any permission are represented by a single projection with null permission.
+ *
+ * @param applicationID ID of the owner application
+ * @param allowedClientID ID of the relation
+ * @param targetApplicationName name of the target application of the relation
+ * @param permission name of the permission allowed by the relation, or null if the relation has no permissions
+ * @author Peter Smith
+ */
+public record OAuthAllowedClientAttribute(UUID applicationID, UUID allowedClientID, String targetApplicationName, String permission) {
+}
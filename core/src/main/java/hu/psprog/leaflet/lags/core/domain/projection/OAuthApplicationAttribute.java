@@ -0,0 +1,16 @@
+package hu.psprog.leaflet.lags.core.domain.projection;
+
+import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
+
+import java.util.UUID;
+
+/**
+ * Read-only projection of a single value of a multi-valued {@link OAuthApplication} attribute (a permission name or a
+ * callback URL), used on the authentication path.
+ *
+ * @param applicationID ID of the owner application
+ * @param value attribute value
+ * @author Peter Smith
+ */
+public record OAuthApplicationAttribute(UUID applicationID, String value) {
+}
@@ -0,0 +1,21 @@
+package hu.psprog.leaflet.lags.core.domain.projection;
+
+import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
+import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
+
+import java.util.UUID;
+
+/**
+ * Read-only projection of the scalar attributes of an {@link OAuthApplication}, used on the authentication path.
+ *
+ * @param id ID of the application
+ * @param name name of the application (internal registration identifier)
+ * @param applicationType type of the application
+ * @param clientId OAuth2 client ID of the application
+ * @param clientSecret (encrypted) OAuth2 client secret of the application
+ * @param audience OAuth2 audience of the application
+ * @author Peter Smith
+ */
+public record OAuthApplicationSummary(UUID id, String name, ApplicationType applicationType, String clientId,
+                                      String clientSecret, String audience) {
+}
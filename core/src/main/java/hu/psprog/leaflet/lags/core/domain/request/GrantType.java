@@ -15,7 +15,8 @@ public enum GrantType {
 
     AUTHORIZATION_CODE("authorization_code"),
     CLIENT_CREDENTIALS("client_credentials"),
-    PASSWORD("password");
+    PASSWORD("password"),
+    REFRESH_TOKEN("refresh_token");
 
     private final String grantTypeName;
 
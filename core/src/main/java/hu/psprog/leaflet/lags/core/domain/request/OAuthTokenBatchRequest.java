@@ -0,0 +1,37 @@
+package hu.psprog.leaflet.lags.core.domain.request;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * OAuth2 batch token request model, requesting an access token for each of the given audiences at once.
+ *
+ * @author Peter Smith
+ */
+@Data
+@Builder
+public class OAuthTokenBatchRequest implements OAuthRequest {
+
+    private final GrantType grantType;
+    private final String clientID;
+    private final List<String> audiences;
+    private final List<String> scope;
+
+    /**
+     * Creates the single-audience {@link OAuthTokenRequest} of the given audience.
+     *
+     * @param audience audience to create the token request for
+     * @return created {@link OAuthTokenRequest} object
+     */
+    public OAuthTokenRequest forAudience(String audience) {
+
+        return OAuthTokenRequest.builder()
+                .grantType(grantType)
+                .clientID(clientID)
+                .audience(audience)
+                .scope(scope)
+                .build();
+    }
+}
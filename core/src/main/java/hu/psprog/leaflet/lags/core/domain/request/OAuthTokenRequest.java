@@ -22,4 +22,5 @@ public class OAuthTokenRequest implements OAuthRequest {
     private final List<String> scope;
     private final String authorizationCode;
     private final String redirectURI;
+    private final String refreshToken;
 }
@@ -0,0 +1,19 @@
+package hu.psprog.leaflet.lags.core.domain.request;
+
+import lombok.Builder;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/**
+ * Request model representing a batch token introspection request.
+ *
+ * @param tokens access tokens to be introspected
+ * @author Peter Smith
+ */
+@Builder
+@Jacksonized
+public record TokenIntrospectionBatchRequest(
+
+        List<String> tokens
+) { }
@@ -0,0 +1,15 @@
+package hu.psprog.leaflet.lags.core.domain.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response model for a failed audience of a batch token request.
+ *
+ * @param errorCode OAuth2 error code of the failure
+ * @param errorDescription description of the failure
+ * @author Peter Smith
+ */
+public record OAuthTokenBatchError(
+        @JsonProperty("error") String errorCode,
+        @JsonProperty("error_description") String errorDescription
+) { }
@@ -0,0 +1,13 @@
+package hu.psprog.leaflet.lags.core.domain.response;
+
+import java.util.Map;
+
+/**
+ * Response model of a batch token request.
+ *
+ * @param tokens issued access tokens as {@link OAuthTokenResponse} objects, mapped by their audience
+ * @param errors failures as {@link OAuthTokenBatchError} objects, mapped by the audience they were requested for
+ * @author Peter Smith
+ */
+public record OAuthTokenBatchResponse(Map<String, OAuthTokenResponse> tokens, Map<String, OAuthTokenBatchError> errors) {
+}
@@ -1,5 +1,7 @@
 package hu.psprog.leaflet.lags.core.domain.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Builder;
 import lombok.Data;
@@ -10,7 +12,7 @@ import lombok.Data;
  * @author Peter Smith
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class OAuthTokenResponse {
 
     @JsonProperty("access_token")
@@ -21,6 +23,16 @@ public class OAuthTokenResponse {
 
     private final String scope;
 
+    @JsonProperty("refresh_token")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String refreshToken;
+
     @JsonProperty("token_type")
     private final String tokenType = "Bearer";
+
+    /**
+     * ID ("jti") of the issued access token, for internal use only (not part of the response).
+     */
+    @JsonIgnore
+    private final String tokenID;
 }
@@ -0,0 +1,16 @@
+package hu.psprog.leaflet.lags.core.domain.response;
+
+import java.util.Date;
+
+/**
+ * Domain class representing a single entry of the revocation event stream.
+ * The event ID can be used by the subscribers to resume the stream after the last received event.
+ *
+ * @param eventID ID of the event (unique in the stream)
+ * @param jti ID of the revoked token
+ * @param subject subject of the revoked token
+ * @param expiresAt expiration of the revoked token (after which it does not need to be denylisted anymore)
+ * @author Peter Smith
+ */
+public record RevocationEvent(String eventID, String jti, String subject, Date expiresAt) {
+}
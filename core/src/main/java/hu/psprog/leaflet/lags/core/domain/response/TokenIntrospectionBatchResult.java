@@ -0,0 +1,12 @@
+package hu.psprog.leaflet.lags.core.domain.response;
+
+import java.util.List;
+
+/**
+ * Domain class representing the results of a batch token introspection request.
+ *
+ * @param results introspection results as {@link TokenIntrospectionResult} objects, in the order of the introspected tokens
+ * @author Peter Smith
+ */
+public record TokenIntrospectionBatchResult(List<TokenIntrospectionResult> results) {
+}
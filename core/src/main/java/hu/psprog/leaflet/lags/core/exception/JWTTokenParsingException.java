@@ -10,4 +10,8 @@ public class JWTTokenParsingException extends RuntimeException {
     public JWTTokenParsingException(Throwable cause) {
         super(cause);
     }
+
+    public JWTTokenParsingException(String message) {
+        super(message);
+    }
 }
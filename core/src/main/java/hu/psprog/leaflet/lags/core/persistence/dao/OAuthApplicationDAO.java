@@ -4,6 +4,7 @@ import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -63,6 +64,14 @@ public interface OAuthApplicationDAO {
      */
     Optional<OAuthApplication> findByAudience(String audience);
 
+    /**
+     * Retrieves the {@link OAuthApplication} records assigned to any of the given audiences.
+     *
+     * @param audiences OAuth audiences of the registrations
+     * @return list of the identified {@link OAuthApplication} records
+     */
+    List<OAuthApplication> findAllByAudiences(Collection<String> audiences);
+
     /**
      * Retrieves the related resource server application definitions for the given target application.
      *
@@ -0,0 +1,41 @@
+package hu.psprog.leaflet.lags.core.persistence.dao;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * DAO interface for the read-optimized {@link OAuthClient} model of the OAuth application registrations, used on the
+ * authentication path. Implementations should load the clients with a fixed number of queries, regardless of the
+ * number of the requested clients and the size of their attribute collections.
+ *
+ * @author Peter Smith
+ */
+public interface OAuthClientReadModelDAO {
+
+    /**
+     * Retrieves an {@link OAuthClient} by its assigned client ID.
+     *
+     * @param clientID OAuth client ID of the registration
+     * @return identified {@link OAuthClient} wrapped as {@link Optional} or empty {@link Optional} if none found
+     */
+    Optional<OAuthClient> findByClientID(String clientID);
+
+    /**
+     * Retrieves an {@link OAuthClient} by its assigned audience.
+     *
+     * @param audience OAuth audience of the registration
+     * @return identified {@link OAuthClient} wrapped as {@link Optional} or empty {@link Optional} if none found
+     */
+    Optional<OAuthClient> findByAudience(String audience);
+
+    /**
+     * Retrieves the {@link OAuthClient} objects assigned to any of the given audiences.
+     *
+     * @param audiences OAuth audiences of the registrations
+     * @return list of the identified {@link OAuthClient} objects
+     */
+    List<OAuthClient> findAllByAudiences(Collection<String> audiences);
+}
@@ -8,8 +8,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Implementation of {@link AccessTokenDAO}.
@@ -23,7 +26,7 @@ public class AccessTokenDAOImpl implements AccessTokenDAO {
     private final AccessTokenRepository accessTokenRepository;
 
     @Autowired
-    public AccessTokenDAOImpl(@Qualifier("inMemoryAccessTokenRepository") AccessTokenRepository accessTokenRepository) {
+    public AccessTokenDAOImpl(@Qualifier(AccessTokenRepository.TRACKING_STORAGE) AccessTokenRepository accessTokenRepository) {
         this.accessTokenRepository = accessTokenRepository;
     }
 
@@ -37,16 +40,31 @@ public class AccessTokenDAOImpl implements AccessTokenDAO {
         return accessTokenRepository.retrieveByJTI(jti);
     }
 
+    @Override
+    public List<AccessTokenInfo> retrieveByJTIs(Collection<String> jtis) {
+        return accessTokenRepository.retrieveByJTIs(jtis);
+    }
+
     @Override
     public List<AccessTokenInfo> getAllAccessTokenInfo() {
         return accessTokenRepository.getAllAccessTokenInfo();
     }
 
+    @Override
+    public void forEachAccessTokenInfo(TokenStatus status, Consumer<AccessTokenInfo> consumer) {
+        accessTokenRepository.forEachAccessTokenInfo(status, consumer);
+    }
+
     @Override
     public void deleteByJTI(String jti) {
         accessTokenRepository.deleteByJTI(jti);
     }
 
+    @Override
+    public int deleteExpiredBefore(Date threshold) {
+        return accessTokenRepository.deleteExpiredBefore(threshold);
+    }
+
     @Override
     public void updateStatusByJTI(String jti, TokenStatus newStatus) {
         accessTokenRepository.updateStatusByJTI(jti, newStatus);
@@ -9,6 +9,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -59,6 +60,11 @@ public class OAuthApplicationDAOImpl implements OAuthApplicationDAO {
         return oAuthApplicationRepository.findByAudience(audience);
     }
 
+    @Override
+    public List<OAuthApplication> findAllByAudiences(Collection<String> audiences) {
+        return oAuthApplicationRepository.findAllByAudienceIn(audiences);
+    }
+
     @Override
     public List<OAuthApplication> findResourceServersForTargetApplication(UUID targetApplicationID) {
         return oAuthApplicationRepository.findAllByAllowedClientsTargetApplicationId(targetApplicationID);
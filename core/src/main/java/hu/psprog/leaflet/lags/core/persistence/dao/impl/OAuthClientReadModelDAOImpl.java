@@ -0,0 +1,123 @@
+package hu.psprog.leaflet.lags.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthAllowedClientAttribute;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationAttribute;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationSummary;
+import hu.psprog.leaflet.lags.core.persistence.dao.OAuthClientReadModelDAO;
+import hu.psprog.leaflet.lags.core.persistence.repository.OAuthClientProjectionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Default implementation of {@link OAuthClientReadModelDAO}.
+ * Assembles the {@link OAuthClient} objects from the DTO projections returned by {@link OAuthClientProjectionRepository},
+ * so the eager associations of the admin-facing entity graph are never loaded on the authentication path. Every lookup
+ * (including the batch one) is served by one query for the applications themselves and one query per attribute
+ * collection, five queries in total.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class OAuthClientReadModelDAOImpl implements OAuthClientReadModelDAO {
+
+    private final OAuthClientProjectionRepository oAuthClientProjectionRepository;
+
+    @Autowired
+    public OAuthClientReadModelDAOImpl(OAuthClientProjectionRepository oAuthClientProjectionRepository) {
+        this.oAuthClientProjectionRepository = oAuthClientProjectionRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OAuthClient> findByClientID(String clientID) {
+
+        return assemble(oAuthClientProjectionRepository.findSummariesByClientIds(List.of(clientID))).stream()
+                .findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OAuthClient> findByAudience(String audience) {
+
+        return assemble(oAuthClientProjectionRepository.findSummariesByAudiences(List.of(audience))).stream()
+                .findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OAuthClient> findAllByAudiences(Collection<String> audiences) {
+        return assemble(oAuthClientProjectionRepository.findSummariesByAudiences(audiences));
+    }
+
+    private List<OAuthClient> assemble(List<OAuthApplicationSummary> summaries) {
+
+        if (summaries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<UUID> applicationIDs = summaries.stream()
+                .map(OAuthApplicationSummary::id)
+                .toList();
+
+        Map<UUID, List<String>> requiredScopes = groupValues(oAuthClientProjectionRepository.findRequiredPermissions(applicationIDs));
+        Map<UUID, List<String>> registeredScopes = groupValues(oAuthClientProjectionRepository.findRegisteredPermissions(applicationIDs));
+        Map<UUID, List<String>> callbacks = groupValues(oAuthClientProjectionRepository.findCallbacks(applicationIDs));
+        Map<UUID, List<OAuthClientAllowRelation>> allowedClients = groupRelations(oAuthClientProjectionRepository.findAllowedClients(applicationIDs));
+
+        return summaries.stream()
+                .map(summary -> OAuthClient.builder()
+                        .applicationType(summary.applicationType())
+                        .clientName(summary.name())
+                        .clientId(summary.clientId())
+                        .clientSecret(summary.clientSecret())
+                        .audience(summary.audience())
+                        .allowedClients(allowedClients.getOrDefault(summary.id(), Collections.emptyList()))
+                        .allowedCallbacks(callbacks.getOrDefault(summary.id(), Collections.emptyList()))
+                        .registeredScopes(registeredScopes.getOrDefault(summary.id(), Collections.emptyList()))
+                        .requiredScopes(requiredScopes.getOrDefault(summary.id(), Collections.emptyList()))
+                        .build())
+                .toList();
+    }
+
+    private Map<UUID, List<String>> groupValues(List<OAuthApplicationAttribute> attributes) {
+
+        return attributes.stream()
+                .collect(Collectors.groupingBy(OAuthApplicationAttribute::applicationID, LinkedHashMap::new,
+                        Collectors.mapping(OAuthApplicationAttribute::value, Collectors.toList())));
+    }
+
+    private Map<UUID, List<OAuthClientAllowRelation>> groupRelations(List<OAuthAllowedClientAttribute> attributes) {
+
+        return attributes.stream()
+                .collect(Collectors.groupingBy(OAuthAllowedClientAttribute::applicationID, LinkedHashMap::new,
+                        Collectors.collectingAndThen(
+                                Collectors.groupingBy(OAuthAllowedClientAttribute::allowedClientID, LinkedHashMap::new, Collectors.toList()),
+                                relations -> relations.values().stream()
+                                        .map(this::mapRelation)
+                                        .toList())));
+    }
+
+    private OAuthClientAllowRelation mapRelation(List<OAuthAllowedClientAttribute> relationAttributes) {
+
+        return OAuthClientAllowRelation.builder()
+                .name(relationAttributes.getFirst().targetApplicationName())
+                .allowedScopes(relationAttributes.stream()
+                        .map(OAuthAllowedClientAttribute::permission)
+                        .filter(Objects::nonNull)
+                        .toList())
+                .build();
+    }
+}
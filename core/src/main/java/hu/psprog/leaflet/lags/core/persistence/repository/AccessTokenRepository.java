@@ -3,8 +3,11 @@ package hu.psprog.leaflet.lags.core.persistence.repository;
 import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository managing followed OAuth2 access tokens.
@@ -13,6 +16,12 @@ import java.util.Optional;
  */
 public interface AccessTokenRepository {
 
+    /**
+     * Qualifier of the storage implementations, of which the active one is selected by the
+     * oauth2-config.token-tracking.storage configuration parameter.
+     */
+    String TRACKING_STORAGE = "accessTokenTrackingStorage";
+
     /**
      * Stores the given {@link AccessTokenInfo} object into the tracking repository.
      *
@@ -28,6 +37,22 @@ public interface AccessTokenRepository {
      */
     Optional<AccessTokenInfo> retrieveByJTI(String jti);
 
+    /**
+     * Retrieves the stored {@link AccessTokenInfo} records by the given token IDs (JTIs).
+     * Missing records are omitted from the result. The default implementation retrieves the records one by one,
+     * implementations able to look up multiple records at once should override it.
+     *
+     * @param jtis token IDs (JTI values of the tokens)
+     * @return list of the stored {@link AccessTokenInfo} records
+     */
+    default List<AccessTokenInfo> retrieveByJTIs(Collection<String> jtis) {
+
+        return jtis.stream()
+                .map(this::retrieveByJTI)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
     /**
      * Retrieves all stored access token meta-information records.
      *
@@ -35,6 +60,21 @@ public interface AccessTokenRepository {
      */
     List<AccessTokenInfo> getAllAccessTokenInfo();
 
+    /**
+     * Passes every stored {@link AccessTokenInfo} record of the given status to the given consumer.
+     * The default implementation filters the result of {@link #getAllAccessTokenInfo()}, implementations backed by
+     * external storage should override it to read the records in pages, instead of loading them all at once.
+     *
+     * @param status {@link TokenStatus} of the records to be visited
+     * @param consumer {@link Consumer} to pass the records to
+     */
+    default void forEachAccessTokenInfo(TokenStatus status, Consumer<AccessTokenInfo> consumer) {
+
+        getAllAccessTokenInfo().stream()
+                .filter(accessTokenInfo -> status == accessTokenInfo.getStatus())
+                .forEach(consumer);
+    }
+
     /**
      * Deletes a stored {@link AccessTokenInfo} record by the given token ID (JTI).
      *
@@ -42,6 +82,15 @@ public interface AccessTokenRepository {
      */
     void deleteByJTI(String jti);
 
+    /**
+     * Deletes every stored {@link AccessTokenInfo} record expired before the given point in time.
+     * Implementations are expected to be able to locate the expired records without iterating over every stored record.
+     *
+     * @param threshold point in time as {@link Date} to delete the expired records for
+     * @return number of deleted records
+     */
+    int deleteExpiredBefore(Date threshold);
+
     /**
      * Updates the status of a stored {@link AccessTokenInfo} record by the given token ID (JTI) to the given one.
      *
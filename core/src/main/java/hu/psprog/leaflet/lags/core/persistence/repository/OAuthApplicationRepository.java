@@ -4,6 +4,7 @@ import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,6 +41,14 @@ public interface OAuthApplicationRepository extends JpaRepository<OAuthApplicati
      */
     Optional<OAuthApplication> findByAudience(String audience);
 
+    /**
+     * Retrieves the {@link OAuthApplication} records assigned to any of the given audiences.
+     *
+     * @param audiences OAuth audiences of the registrations
+     * @return list of the identified {@link OAuthApplication} records
+     */
+    List<OAuthApplication> findAllByAudienceIn(Collection<String> audiences);
+
     /**
      * Retrieves the related resource server application definitions for the given target application.
      *
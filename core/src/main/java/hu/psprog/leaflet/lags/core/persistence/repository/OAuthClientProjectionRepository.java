@@ -0,0 +1,86 @@
+package hu.psprog.leaflet.lags.core.persistence.repository;
+
+import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthAllowedClientAttribute;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationAttribute;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationSummary;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only JPA repository interface for {@link OAuthApplication} projections, used on the authentication path.
+ * Every query selects only the needed columns into DTO projections, so none of the eager associations of the entity
+ * (and of the related applications) gets loaded.
+ *
+ * @author Peter Smith
+ */
+@Repository
+public interface OAuthClientProjectionRepository extends org.springframework.data.repository.Repository<OAuthApplication, UUID> {
+
+    String SUMMARY_SELECT = "select new hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationSummary("
+            + "a.id, a.name, a.applicationType, a.clientId, a.clientSecret, a.audience) from OAuthApplication a ";
+
+    /**
+     * Retrieves the summary of the applications assigned to any of the given client IDs.
+     *
+     * @param clientIDs OAuth client IDs of the registrations
+     * @return list of {@link OAuthApplicationSummary} projections
+     */
+    @Query(SUMMARY_SELECT + "where a.clientId in :clientIDs")
+    List<OAuthApplicationSummary> findSummariesByClientIds(@Param("clientIDs") Collection<String> clientIDs);
+
+    /**
+     * Retrieves the summary of the applications assigned to any of the given audiences.
+     *
+     * @param audiences OAuth audiences of the registrations
+     * @return list of {@link OAuthApplicationSummary} projections
+     */
+    @Query(SUMMARY_SELECT + "where a.audience in :audiences")
+    List<OAuthApplicationSummary> findSummariesByAudiences(@Param("audiences") Collection<String> audiences);
+
+    /**
+     * Retrieves the names of the required permissions of the given applications.
+     *
+     * @param applicationIDs IDs of the applications
+     * @return list of {@link OAuthApplicationAttribute} projections
+     */
+    @Query("select new hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationAttribute(a.id, p.name) "
+            + "from OAuthApplication a join a.requiredPermissions p where a.id in :applicationIDs")
+    List<OAuthApplicationAttribute> findRequiredPermissions(@Param("applicationIDs") Collection<UUID> applicationIDs);
+
+    /**
+     * Retrieves the names of the registered permissions of the given applications.
+     *
+     * @param applicationIDs IDs of the applications
+     * @return list of {@link OAuthApplicationAttribute} projections
+     */
+    @Query("select new hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationAttribute(a.id, p.name) "
+            + "from OAuthApplication a join a.registeredPermissions p where a.id in :applicationIDs")
+    List<OAuthApplicationAttribute> findRegisteredPermissions(@Param("applicationIDs") Collection<UUID> applicationIDs);
+
+    /**
+     * Retrieves the callback URLs of the given applications.
+     *
+     * @param applicationIDs IDs of the applications
+     * @return list of {@link OAuthApplicationAttribute} projections
+     */
+    @Query("select new hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationAttribute(a.id, c.url) "
+            + "from OAuthApplication a join a.callbacks c where a.id in :applicationIDs")
+    List<OAuthApplicationAttribute> findCallbacks(@Param("applicationIDs") Collection<UUID> applicationIDs);
+
+    /**
+     * Retrieves the allowed client relations of the given applications, one projection per allowed permission.
+     *
+     * @param applicationIDs IDs of the applications
+     * @return list of {@link OAuthAllowedClientAttribute} projections
+     */
+    @Query("select new hu.psprog.leaflet.lags.core.domain.projection.OAuthAllowedClientAttribute(a.id, ac.id, t.name, p.name) "
+            + "from OAuthApplication a join a.allowedClients ac join ac.targetApplication t left join ac.permissions p "
+            + "where a.id in :applicationIDs")
+    List<OAuthAllowedClientAttribute> findAllowedClients(@Param("applicationIDs") Collection<UUID> applicationIDs);
+}
@@ -0,0 +1,65 @@
+package hu.psprog.leaflet.lags.core.persistence.repository;
+
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Repository managing the issued refresh tokens.
+ * Implementations are not required to store the refresh tokens themselves, they only need to be able to identify them.
+ *
+ * @author Peter Smith
+ */
+public interface RefreshTokenRepository {
+
+    /**
+     * Retrieves a stored {@link RefreshTokenInfo} object by its refresh token.
+     *
+     * @param refreshToken refresh token value
+     * @return populated {@link Optional} with {@link RefreshTokenInfo} object if found, empty {@link Optional} otherwise
+     */
+    Optional<RefreshTokenInfo> getRefreshToken(String refreshToken);
+
+    /**
+     * Saves a new {@link RefreshTokenInfo} object, identified by the given refresh token.
+     *
+     * @param refreshToken refresh token value
+     * @param refreshTokenInfo {@link RefreshTokenInfo} object to be stored
+     */
+    void saveRefreshToken(String refreshToken, RefreshTokenInfo refreshTokenInfo);
+
+    /**
+     * Flags the identified refresh token as used. The check and the update must be atomic, so a refresh token can only
+     * be used once, even if it is presented multiple times concurrently.
+     *
+     * @param refreshToken refresh token value
+     * @return {@code true} if the refresh token has been flagged by this call, {@code false} if it is missing or already used
+     */
+    boolean markRefreshTokenUsed(String refreshToken);
+
+    /**
+     * Removes the used flag of the identified refresh token, so it can be presented again. Used to roll back the
+     * consumption of a refresh token, when the renewed access token could not be issued.
+     *
+     * @param refreshToken refresh token value
+     * @return {@code true} if the used flag has been removed by this call, {@code false} if the token is missing or not used
+     */
+    boolean restoreRefreshToken(String refreshToken);
+
+    /**
+     * Deletes every refresh token of the given family.
+     *
+     * @param familyID ID of the refresh token family
+     * @return number of deleted refresh tokens
+     */
+    int deleteRefreshTokenFamily(String familyID);
+
+    /**
+     * Deletes the refresh tokens expired before the given threshold.
+     *
+     * @param threshold expiration threshold
+     * @return number of deleted refresh tokens
+     */
+    int deleteExpiredRefreshTokens(Date threshold);
+}
@@ -0,0 +1,80 @@
+package hu.psprog.leaflet.lags.core.persistence.repository;
+
+import hu.psprog.leaflet.lags.core.domain.entity.TrackedAccessToken;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Spring Data JPA Repository interface for tracked access tokens.
+ *
+ * @author Peter Smith
+ */
+@Repository
+public interface TrackedAccessTokenRepository extends JpaRepository<TrackedAccessToken, String> {
+
+    /**
+     * Retrieves at most the given number of tracked access tokens having a JTI greater than the given one, ordered by
+     * their JTI. Used to read the tracked access tokens in pages.
+     *
+     * @param jti JTI of the last token of the previous page (empty string for the first page)
+     * @param limit maximum number of tokens to be retrieved as {@link Limit}
+     * @return list of {@link TrackedAccessToken} entities
+     */
+    List<TrackedAccessToken> findByJtiGreaterThanOrderByJtiAsc(String jti, Limit limit);
+
+    /**
+     * Retrieves at most the given number of tracked access tokens of the given status, having a JTI greater than the
+     * given one, ordered by their JTI. Used to read the tracked access tokens in pages.
+     *
+     * @param status {@link TokenStatus} of the tokens to be retrieved
+     * @param jti JTI of the last token of the previous page (empty string for the first page)
+     * @param limit maximum number of tokens to be retrieved as {@link Limit}
+     * @return list of {@link TrackedAccessToken} entities
+     */
+    List<TrackedAccessToken> findByStatusAndJtiGreaterThanOrderByJtiAsc(TokenStatus status, String jti, Limit limit);
+
+    /**
+     * Updates the status and the revocation date of the identified tracked access token.
+     *
+     * @param jti token ID (JTI value of the token)
+     * @param status new status as {@link TokenStatus}
+     * @param revokedAt revocation date
+     * @return number of updated rows
+     */
+    @Modifying
+    @Transactional
+    @Query("update TrackedAccessToken t set t.status = :status, t.revokedAt = :revokedAt where t.jti = :jti")
+    int updateStatus(@Param("jti") String jti, @Param("status") TokenStatus status, @Param("revokedAt") Date revokedAt);
+
+    /**
+     * Retrieves the JTI of at most the given number of tracked access tokens expired before the given threshold.
+     * Executed as a ranged query over the indexed expiration column.
+     *
+     * @param threshold point in time to look up the expired tokens for
+     * @param limit maximum number of JTIs to be retrieved as {@link Limit}
+     * @return list of the JTIs of the expired tokens
+     */
+    @Query("select t.jti from TrackedAccessToken t where t.expiresAt < :threshold")
+    List<String> findExpiredJTIs(@Param("threshold") Date threshold, Limit limit);
+
+    /**
+     * Deletes the identified tracked access tokens, in its own transaction.
+     *
+     * @param jtis token IDs (JTI values of the tokens)
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from TrackedAccessToken t where t.jti in :jtis")
+    int deleteByJTIs(@Param("jtis") Collection<String> jtis);
+}
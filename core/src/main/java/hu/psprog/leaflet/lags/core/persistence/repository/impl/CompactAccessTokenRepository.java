@@ -0,0 +1,573 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.persistence.repository.AccessTokenRepository;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Memory-compact in-memory implementation of {@link AccessTokenRepository}.
+ * Token information records are stored in a primitive open-addressing (linear probing) hash table, where each record
+ * occupies a single slot across a set of parallel arrays:
+ *  - the UUID formatted token ID (JTI) is stored as two longs;
+ *  - the status is stored as a byte (0 marking an empty slot);
+ *  - issue, expiration and revocation dates are stored as epoch-second ints (interpreted as unsigned values);
+ *  - the subject is interned in a reference counted side dictionary, and only its ID is stored in the table.
+ * Dates are stored with second precision, which matches the precision of the JWT timestamp claims.
+ * Token IDs not in canonical UUID format are kept in a regular map as a fallback.
+ *
+ * Expired records are located via per-minute expiration buckets (a primitive equivalent of {@link ExpiryIndex} for the
+ * table, and an {@link ExpiryIndex} for the fallback map), so the clean-up only visits the records of the expired
+ * buckets instead of scanning the whole table.
+ *
+ * Enabled by setting oauth2-config.token-tracking.storage to compact.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Qualifier(AccessTokenRepository.TRACKING_STORAGE)
+@ConditionalOnProperty(name = "oauth2-config.token-tracking.storage", havingValue = "compact")
+@Slf4j
+public class CompactAccessTokenRepository implements AccessTokenRepository {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CLEAN_UP_CHUNK_SIZE = 4096;
+    private static final float LOAD_FACTOR = 0.7F;
+    private static final byte STATUS_EMPTY = 0;
+    private static final int NO_SUBJECT = -1;
+    private static final int NO_TIMESTAMP = 0;
+    private static final long EXPIRY_BUCKET_WIDTH_SECONDS = 60L;
+    private static final TokenStatus[] TOKEN_STATUSES = TokenStatus.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SubjectDictionary subjectDictionary = new SubjectDictionary();
+    private final ExpiryBuckets expiryBuckets = new ExpiryBuckets();
+    private final Map<String, AccessTokenInfo> fallbackStorage = new HashMap<>();
+    private final ExpiryIndex<String> fallbackExpiryIndex = new ExpiryIndex<>();
+
+    private long[] jtiMostSignificantBits;
+    private long[] jtiLeastSignificantBits;
+    private byte[] statuses;
+    private int[] subjectIDs;
+    private int[] issuedAtSeconds;
+    private int[] expiresAtSeconds;
+    private int[] revokedAtSeconds;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public CompactAccessTokenRepository() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void save(AccessTokenInfo accessTokenInfo) {
+
+        UUID jti = parseJTI(accessTokenInfo.getId());
+
+        lock.writeLock().lock();
+        try {
+            if (Objects.isNull(jti)) {
+                doSaveFallback(accessTokenInfo);
+            } else {
+                doSave(jti, accessTokenInfo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<AccessTokenInfo> retrieveByJTI(String jti) {
+
+        UUID parsedJTI = parseJTI(jti);
+
+        lock.readLock().lock();
+        try {
+            if (Objects.isNull(parsedJTI)) {
+                return Optional.ofNullable(fallbackStorage.get(jti));
+            }
+
+            int slot = findSlot(parsedJTI.getMostSignificantBits(), parsedJTI.getLeastSignificantBits());
+
+            return slot >= 0
+                    ? Optional.of(materialize(slot))
+                    : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<AccessTokenInfo> getAllAccessTokenInfo() {
+
+        lock.readLock().lock();
+        try {
+            List<AccessTokenInfo> accessTokenInfoList = new ArrayList<>(size + fallbackStorage.size());
+            for (int slot = 0; slot < statuses.length; slot++) {
+                if (statuses[slot] != STATUS_EMPTY) {
+                    accessTokenInfoList.add(materialize(slot));
+                }
+            }
+            accessTokenInfoList.addAll(fallbackStorage.values());
+
+            return accessTokenInfoList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteByJTI(String jti) {
+
+        UUID parsedJTI = parseJTI(jti);
+
+        lock.writeLock().lock();
+        try {
+            if (Objects.isNull(parsedJTI)) {
+                AccessTokenInfo removedAccessTokenInfo = fallbackStorage.remove(jti);
+                if (Objects.nonNull(removedAccessTokenInfo)) {
+                    fallbackExpiryIndex.remove(jti, toInstant(removedAccessTokenInfo.getExpiresAt()));
+                }
+            } else {
+                int slot = findSlot(parsedJTI.getMostSignificantBits(), parsedJTI.getLeastSignificantBits());
+                if (slot >= 0) {
+                    deleteSlot(slot);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only the expiration buckets whose whole time window has passed are visited (thus records are removed at most one
+     * bucket width later than their actual expiration). The entries of a bucket are processed in bounded chunks, and
+     * the write lock is released between the chunks, so lookups and saves are never blocked for the whole clean-up.
+     * Bucket entries are verified against the table, so the entries of deleted or re-saved tokens are simply skipped.
+     */
+    @Override
+    public int deleteExpiredBefore(Date threshold) {
+
+        long thresholdSeconds = toEpochSeconds(threshold.getTime());
+        int deletedCount = 0;
+        ExpiryBucket expiredBucket;
+
+        while (Objects.nonNull(expiredBucket = pollExpiredBucket(thresholdSeconds))) {
+            int index = 0;
+            while (index < expiredBucket.size) {
+                lock.writeLock().lock();
+                try {
+                    int chunkEnd = Math.min(index + CLEAN_UP_CHUNK_SIZE, expiredBucket.size);
+                    for (; index < chunkEnd; index++) {
+                        int slot = findSlot(expiredBucket.mostSignificantBits(index), expiredBucket.leastSignificantBits(index));
+                        if (slot >= 0 && isExpired(expiresAtSeconds[slot], thresholdSeconds)) {
+                            deleteSlot(slot);
+                            deletedCount++;
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            int fallbackStorageSize = fallbackStorage.size();
+            fallbackExpiryIndex.drainExpired(threshold.toInstant(), jti -> fallbackStorage.computeIfPresent(jti,
+                    (key, accessTokenInfo) -> isExpired(accessTokenInfo, threshold) ? null : accessTokenInfo));
+            deletedCount += fallbackStorageSize - fallbackStorage.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return deletedCount;
+    }
+
+    @Override
+    public void updateStatusByJTI(String jti, TokenStatus newStatus) {
+
+        UUID parsedJTI = parseJTI(jti);
+        Date revokedAt = new Date();
+
+        lock.writeLock().lock();
+        try {
+            if (Objects.isNull(parsedJTI)) {
+                AccessTokenInfo accessTokenInfo = fallbackStorage.get(jti);
+                if (Objects.nonNull(accessTokenInfo)) {
+                    accessTokenInfo.setStatus(newStatus);
+                    accessTokenInfo.setRevokedAt(revokedAt);
+                }
+            } else {
+                int slot = findSlot(parsedJTI.getMostSignificantBits(), parsedJTI.getLeastSignificantBits());
+                if (slot >= 0) {
+                    statuses[slot] = toStatusByte(newStatus);
+                    revokedAtSeconds[slot] = toEpochSecondInt(revokedAt);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doSave(UUID jti, AccessTokenInfo accessTokenInfo) {
+
+        long mostSignificantBits = jti.getMostSignificantBits();
+        long leastSignificantBits = jti.getLeastSignificantBits();
+
+        int expiresAt = toEpochSecondInt(accessTokenInfo.getExpiresAt());
+        int slot = findSlot(mostSignificantBits, leastSignificantBits);
+        if (slot >= 0) {
+            subjectDictionary.release(subjectIDs[slot]);
+            if (expiresAtSeconds[slot] != expiresAt) {
+                expiryBuckets.add(mostSignificantBits, leastSignificantBits, expiresAt);
+            }
+        } else {
+            if (size + 1 > resizeThreshold) {
+                resize();
+                slot = findSlot(mostSignificantBits, leastSignificantBits);
+            }
+            slot = ~slot;
+            jtiMostSignificantBits[slot] = mostSignificantBits;
+            jtiLeastSignificantBits[slot] = leastSignificantBits;
+            size++;
+            expiryBuckets.add(mostSignificantBits, leastSignificantBits, expiresAt);
+        }
+
+        statuses[slot] = toStatusByte(accessTokenInfo.getStatus());
+        subjectIDs[slot] = subjectDictionary.intern(accessTokenInfo.getSubject());
+        issuedAtSeconds[slot] = toEpochSecondInt(accessTokenInfo.getIssuedAt());
+        expiresAtSeconds[slot] = expiresAt;
+        revokedAtSeconds[slot] = toEpochSecondInt(accessTokenInfo.getRevokedAt());
+    }
+
+    private void doSaveFallback(AccessTokenInfo accessTokenInfo) {
+
+        AccessTokenInfo previousAccessTokenInfo = fallbackStorage.put(accessTokenInfo.getId(), accessTokenInfo);
+        if (Objects.nonNull(previousAccessTokenInfo)) {
+            fallbackExpiryIndex.remove(previousAccessTokenInfo.getId(), toInstant(previousAccessTokenInfo.getExpiresAt()));
+        }
+        fallbackExpiryIndex.add(accessTokenInfo.getId(), toInstant(accessTokenInfo.getExpiresAt()));
+    }
+
+    private ExpiryBucket pollExpiredBucket(long thresholdSeconds) {
+
+        lock.writeLock().lock();
+        try {
+            return expiryBuckets.pollExpired(thresholdSeconds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int findSlot(long mostSignificantBits, long leastSignificantBits) {
+
+        int slot = hash(mostSignificantBits, leastSignificantBits);
+        while (statuses[slot] != STATUS_EMPTY) {
+            if (jtiMostSignificantBits[slot] == mostSignificantBits && jtiLeastSignificantBits[slot] == leastSignificantBits) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return ~slot;
+    }
+
+    private void deleteSlot(int slot) {
+
+        subjectDictionary.release(subjectIDs[slot]);
+
+        int gap = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            if (statuses[current] == STATUS_EMPTY) {
+                break;
+            }
+
+            int home = hash(jtiMostSignificantBits[current], jtiLeastSignificantBits[current]);
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                moveSlot(current, gap);
+                gap = current;
+            }
+        }
+
+        statuses[gap] = STATUS_EMPTY;
+        size--;
+    }
+
+    private void moveSlot(int source, int target) {
+
+        jtiMostSignificantBits[target] = jtiMostSignificantBits[source];
+        jtiLeastSignificantBits[target] = jtiLeastSignificantBits[source];
+        statuses[target] = statuses[source];
+        subjectIDs[target] = subjectIDs[source];
+        issuedAtSeconds[target] = issuedAtSeconds[source];
+        expiresAtSeconds[target] = expiresAtSeconds[source];
+        revokedAtSeconds[target] = revokedAtSeconds[source];
+    }
+
+    private void resize() {
+
+        long[] oldJTIMostSignificantBits = jtiMostSignificantBits;
+        long[] oldJTILeastSignificantBits = jtiLeastSignificantBits;
+        byte[] oldStatuses = statuses;
+        int[] oldSubjectIDs = subjectIDs;
+        int[] oldIssuedAtSeconds = issuedAtSeconds;
+        int[] oldExpiresAtSeconds = expiresAtSeconds;
+        int[] oldRevokedAtSeconds = revokedAtSeconds;
+
+        allocate(oldStatuses.length * 2);
+        log.info("Compact access token repository resized to capacity={}", statuses.length);
+
+        for (int oldSlot = 0; oldSlot < oldStatuses.length; oldSlot++) {
+            if (oldStatuses[oldSlot] != STATUS_EMPTY) {
+                int slot = ~findSlot(oldJTIMostSignificantBits[oldSlot], oldJTILeastSignificantBits[oldSlot]);
+                jtiMostSignificantBits[slot] = oldJTIMostSignificantBits[oldSlot];
+                jtiLeastSignificantBits[slot] = oldJTILeastSignificantBits[oldSlot];
+                statuses[slot] = oldStatuses[oldSlot];
+                subjectIDs[slot] = oldSubjectIDs[oldSlot];
+                issuedAtSeconds[slot] = oldIssuedAtSeconds[oldSlot];
+                expiresAtSeconds[slot] = oldExpiresAtSeconds[oldSlot];
+                revokedAtSeconds[slot] = oldRevokedAtSeconds[oldSlot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+
+        jtiMostSignificantBits = new long[capacity];
+        jtiLeastSignificantBits = new long[capacity];
+        statuses = new byte[capacity];
+        subjectIDs = new int[capacity];
+        issuedAtSeconds = new int[capacity];
+        expiresAtSeconds = new int[capacity];
+        revokedAtSeconds = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private AccessTokenInfo materialize(int slot) {
+
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(new UUID(jtiMostSignificantBits[slot], jtiLeastSignificantBits[slot]).toString())
+                .subject(subjectDictionary.resolve(subjectIDs[slot]))
+                .issuedAt(toDate(issuedAtSeconds[slot]))
+                .expiresAt(toDate(expiresAtSeconds[slot]))
+                .build());
+        accessTokenInfo.setStatus(TOKEN_STATUSES[statuses[slot] - 1]);
+        accessTokenInfo.setRevokedAt(toDate(revokedAtSeconds[slot]));
+
+        return accessTokenInfo;
+    }
+
+    private int hash(long mostSignificantBits, long leastSignificantBits) {
+
+        long hash = (mostSignificantBits * 0x9E3779B97F4A7C15L) ^ leastSignificantBits;
+
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static UUID parseJTI(String jti) {
+
+        if (Objects.isNull(jti) || jti.length() != 36) {
+            return null;
+        }
+
+        try {
+            UUID uuid = UUID.fromString(jti);
+            return uuid.toString().equals(jti)
+                    ? uuid
+                    : null;
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private static boolean isExpired(int expiresAt, long thresholdSeconds) {
+        return expiresAt != NO_TIMESTAMP && Integer.toUnsignedLong(expiresAt) < thresholdSeconds;
+    }
+
+    private static boolean isExpired(AccessTokenInfo accessTokenInfo, Date threshold) {
+        return Objects.nonNull(accessTokenInfo.getExpiresAt()) && accessTokenInfo.getExpiresAt().before(threshold);
+    }
+
+    private static byte toStatusByte(TokenStatus status) {
+
+        return (byte) (Objects.nonNull(status)
+                ? status.ordinal() + 1
+                : TokenStatus.ACTIVE.ordinal() + 1);
+    }
+
+    private static int toEpochSecondInt(Date date) {
+
+        return Objects.nonNull(date)
+                ? (int) toEpochSeconds(date.getTime())
+                : NO_TIMESTAMP;
+    }
+
+    private static long toEpochSeconds(long epochMillis) {
+        return Math.floorDiv(epochMillis, 1000L);
+    }
+
+    private static Instant toInstant(Date date) {
+
+        return Objects.nonNull(date)
+                ? date.toInstant()
+                : null;
+    }
+
+    private static Date toDate(int epochSeconds) {
+
+        return epochSeconds != NO_TIMESTAMP
+                ? new Date(Integer.toUnsignedLong(epochSeconds) * 1000L)
+                : null;
+    }
+
+    /**
+     * Reference counted dictionary of the token subjects.
+     * Subject IDs are reused after all the tokens referencing them are removed.
+     * Must only be modified while holding the write lock of the repository.
+     */
+    private static final class SubjectDictionary {
+
+        private final Map<String, Integer> subjectIDs = new HashMap<>();
+        private final List<String> subjects = new ArrayList<>();
+        private final Deque<Integer> releasedSubjectIDs = new ArrayDeque<>();
+        private int[] referenceCounts = new int[16];
+
+        int intern(String subject) {
+
+            if (Objects.isNull(subject)) {
+                return NO_SUBJECT;
+            }
+
+            Integer subjectID = subjectIDs.get(subject);
+            if (Objects.isNull(subjectID)) {
+                subjectID = register(subject);
+            }
+            referenceCounts[subjectID]++;
+
+            return subjectID;
+        }
+
+        String resolve(int subjectID) {
+
+            return subjectID != NO_SUBJECT
+                    ? subjects.get(subjectID)
+                    : null;
+        }
+
+        void release(int subjectID) {
+
+            if (subjectID != NO_SUBJECT && --referenceCounts[subjectID] == 0) {
+                subjectIDs.remove(subjects.get(subjectID));
+                subjects.set(subjectID, null);
+                releasedSubjectIDs.push(subjectID);
+            }
+        }
+
+        private int register(String subject) {
+
+            int subjectID;
+            if (releasedSubjectIDs.isEmpty()) {
+                subjectID = subjects.size();
+                subjects.add(subject);
+                if (subjectID == referenceCounts.length) {
+                    referenceCounts = Arrays.copyOf(referenceCounts, referenceCounts.length * 2);
+                }
+            } else {
+                subjectID = releasedSubjectIDs.pop();
+                subjects.set(subjectID, subject);
+            }
+            subjectIDs.put(subject, subjectID);
+
+            return subjectID;
+        }
+    }
+
+    /**
+     * Primitive equivalent of {@link ExpiryIndex} for the UUID formatted token IDs, grouping them into per-minute
+     * buckets by their expiration. The token IDs are stored instead of the slots, as entries move between the slots on
+     * deletion and resize. Entries are not removed on deleting or re-saving a token, they are verified against the
+     * table instead, once their bucket is drained.
+     * Must only be accessed while holding the write lock of the repository.
+     */
+    private static final class ExpiryBuckets {
+
+        private final NavigableMap<Long, ExpiryBucket> buckets = new TreeMap<>();
+
+        void add(long mostSignificantBits, long leastSignificantBits, int expiresAt) {
+
+            if (expiresAt != NO_TIMESTAMP) {
+                buckets.computeIfAbsent(toBucketID(Integer.toUnsignedLong(expiresAt)), bucketID -> new ExpiryBucket())
+                        .add(mostSignificantBits, leastSignificantBits);
+            }
+        }
+
+        ExpiryBucket pollExpired(long thresholdSeconds) {
+
+            Map.Entry<Long, ExpiryBucket> head = buckets.firstEntry();
+
+            return Objects.nonNull(head) && head.getKey() < toBucketID(thresholdSeconds)
+                    ? buckets.pollFirstEntry().getValue()
+                    : null;
+        }
+
+        private static long toBucketID(long epochSeconds) {
+            return Math.floorDiv(epochSeconds, EXPIRY_BUCKET_WIDTH_SECONDS);
+        }
+    }
+
+    /**
+     * Single bucket of {@link ExpiryBuckets}, storing the token IDs as interleaved pairs of longs.
+     */
+    private static final class ExpiryBucket {
+
+        private long[] jtiBits = new long[32];
+        private int size;
+
+        void add(long mostSignificantBits, long leastSignificantBits) {
+
+            if (size * 2 == jtiBits.length) {
+                jtiBits = Arrays.copyOf(jtiBits, jtiBits.length * 2);
+            }
+            jtiBits[size * 2] = mostSignificantBits;
+            jtiBits[size * 2 + 1] = leastSignificantBits;
+            size++;
+        }
+
+        long mostSignificantBits(int index) {
+            return jtiBits[index * 2];
+        }
+
+        long leastSignificantBits(int index) {
+            return jtiBits[index * 2 + 1];
+        }
+    }
+}
@@ -3,9 +3,13 @@ package hu.psprog.leaflet.lags.core.persistence.repository.impl;
 import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
 import hu.psprog.leaflet.lags.core.persistence.repository.AccessTokenRepository;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -13,21 +17,32 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * In-memory implementation of {@link AccessTokenRepository}.
+ * Stored records are also registered in an {@link ExpiryIndex}, so expired records can be removed without scanning
+ * the whole storage.
  *
  * @author Peter Smith
  */
 @Component
+@Qualifier(AccessTokenRepository.TRACKING_STORAGE)
+@ConditionalOnProperty(name = "oauth2-config.token-tracking.storage", havingValue = "in-memory", matchIfMissing = true)
 @Slf4j
 public class InMemoryAccessTokenRepository implements AccessTokenRepository {
 
     private final Map<String, AccessTokenInfo> accessTokenInfoStorage = new ConcurrentHashMap<>();
+    private final ExpiryIndex<String> expiryIndex = new ExpiryIndex<>();
 
     @Override
     public void save(AccessTokenInfo accessTokenInfo) {
-        accessTokenInfoStorage.put(accessTokenInfo.getId(), accessTokenInfo);
+
+        AccessTokenInfo previousAccessTokenInfo = accessTokenInfoStorage.put(accessTokenInfo.getId(), accessTokenInfo);
+        if (Objects.nonNull(previousAccessTokenInfo) && previousAccessTokenInfo != accessTokenInfo) {
+            expiryIndex.remove(previousAccessTokenInfo.getId(), toInstant(previousAccessTokenInfo.getExpiresAt()));
+        }
+        expiryIndex.add(accessTokenInfo.getId(), toInstant(accessTokenInfo.getExpiresAt()));
     }
 
     @Override
@@ -42,7 +57,33 @@ public class InMemoryAccessTokenRepository implements AccessTokenRepository {
 
     @Override
     public void deleteByJTI(String jti) {
-        accessTokenInfoStorage.remove(jti);
+
+        AccessTokenInfo accessTokenInfo = accessTokenInfoStorage.remove(jti);
+        if (Objects.nonNull(accessTokenInfo)) {
+            expiryIndex.remove(jti, toInstant(accessTokenInfo.getExpiresAt()));
+        }
+    }
+
+    @Override
+    public int deleteExpiredBefore(Date threshold) {
+
+        AtomicInteger deletedCount = new AtomicInteger(0);
+        expiryIndex.drainExpired(threshold.toInstant(), jti -> {
+            if (Objects.nonNull(accessTokenInfoStorage.remove(jti))) {
+                deletedCount.incrementAndGet();
+            }
+        });
+
+        return deletedCount.get();
+    }
+
+    /**
+     * Returns the number of stored records, without copying them.
+     *
+     * @return number of stored records
+     */
+    public int size() {
+        return accessTokenInfoStorage.size();
     }
 
     @Override
@@ -57,4 +98,11 @@ public class InMemoryAccessTokenRepository implements AccessTokenRepository {
             save(accessTokenInfo);
         }
     }
+
+    private Instant toInstant(Date date) {
+
+        return Objects.nonNull(date)
+                ? date.toInstant()
+                : null;
+    }
 }
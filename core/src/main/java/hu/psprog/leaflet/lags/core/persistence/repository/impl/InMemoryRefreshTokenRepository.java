@@ -0,0 +1,138 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
+import hu.psprog.leaflet.lags.core.persistence.repository.RefreshTokenRepository;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
+import hu.psprog.leaflet.lags.core.service.util.TokenDigestUtil;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory implementation of {@link RefreshTokenRepository}.
+ * Refresh tokens are identified by their SHA-256 digest, so the tokens themselves are never stored. The information
+ * shared by the tokens of a family (client, audience, scope, user and the absolute expiration) is stored only once per
+ * family, while the tokens themselves only hold their family ID, expiration and used flag. The family carries the
+ * scope of its latest token: the earlier tokens of the family have already been used, and are only kept until they
+ * expire (for reuse detection). Expired tokens are located by an {@link ExpiryIndex} on clean-up, while the tokens of
+ * a family are listed by the family itself, thus neither operation requires scanning the repository.
+ *
+ * The repository is local to the service instance: refresh tokens are neither shared, nor replicated between the
+ * instances, thus a refresh token issued by one instance is rejected by every other one.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class InMemoryRefreshTokenRepository implements RefreshTokenRepository {
+
+    private final Map<String, RefreshTokenEntry> refreshTokenStorage = new ConcurrentHashMap<>();
+    private final Map<String, RefreshTokenFamily> familyStorage = new ConcurrentHashMap<>();
+    private final ExpiryIndex<String> expiryIndex = new ExpiryIndex<>();
+
+    @Override
+    public Optional<RefreshTokenInfo> getRefreshToken(String refreshToken) {
+
+        return Optional.ofNullable(refreshTokenStorage.get(TokenDigestUtil.createDigest(refreshToken)))
+                .flatMap(entry -> Optional.ofNullable(familyStorage.get(entry.familyID()))
+                        .map(family -> toRefreshTokenInfo(entry, family)));
+    }
+
+    @Override
+    public void saveRefreshToken(String refreshToken, RefreshTokenInfo refreshTokenInfo) {
+
+        String digest = TokenDigestUtil.createDigest(refreshToken);
+        RefreshTokenEntry entry = new RefreshTokenEntry(refreshTokenInfo.familyID(), refreshTokenInfo.expiresAt().getTime(), refreshTokenInfo.used());
+
+        familyStorage.compute(refreshTokenInfo.familyID(), (familyID, family) -> {
+            Set<String> digests = Objects.isNull(family)
+                    ? ConcurrentHashMap.newKeySet()
+                    : family.digests();
+            digests.add(digest);
+            return new RefreshTokenFamily(refreshTokenInfo.clientID(), refreshTokenInfo.audience(), refreshTokenInfo.scope(),
+                    refreshTokenInfo.userInfo(), refreshTokenInfo.familyExpiresAt(), digests);
+        });
+        refreshTokenStorage.put(digest, entry);
+        expiryIndex.add(digest, Instant.ofEpochMilli(entry.expiresAt()));
+    }
+
+    @Override
+    public boolean markRefreshTokenUsed(String refreshToken) {
+        return updateUsedFlag(refreshToken, true);
+    }
+
+    @Override
+    public boolean restoreRefreshToken(String refreshToken) {
+        return updateUsedFlag(refreshToken, false);
+    }
+
+    @Override
+    public int deleteRefreshTokenFamily(String familyID) {
+
+        RefreshTokenFamily family = familyStorage.remove(familyID);
+        if (Objects.isNull(family)) {
+            return 0;
+        }
+
+        family.digests().forEach(digest -> {
+            RefreshTokenEntry entry = refreshTokenStorage.remove(digest);
+            if (Objects.nonNull(entry)) {
+                expiryIndex.remove(digest, Instant.ofEpochMilli(entry.expiresAt()));
+            }
+        });
+
+        return family.digests().size();
+    }
+
+    @Override
+    public int deleteExpiredRefreshTokens(Date threshold) {
+
+        return expiryIndex.drainExpired(threshold.toInstant(), digest -> {
+            RefreshTokenEntry entry = refreshTokenStorage.remove(digest);
+            if (Objects.nonNull(entry)) {
+                familyStorage.computeIfPresent(entry.familyID(), (familyID, family) -> {
+                    family.digests().remove(digest);
+                    return family.digests().isEmpty() ? null : family;
+                });
+            }
+        });
+    }
+
+    private boolean updateUsedFlag(String refreshToken, boolean used) {
+
+        String digest = TokenDigestUtil.createDigest(refreshToken);
+        RefreshTokenEntry entry = refreshTokenStorage.get(digest);
+
+        return Objects.nonNull(entry)
+                && entry.used() != used
+                && refreshTokenStorage.replace(digest, entry, new RefreshTokenEntry(entry.familyID(), entry.expiresAt(), used));
+    }
+
+    private RefreshTokenInfo toRefreshTokenInfo(RefreshTokenEntry entry, RefreshTokenFamily family) {
+
+        return RefreshTokenInfo.builder()
+                .familyID(entry.familyID())
+                .clientID(family.clientID())
+                .audience(family.audience())
+                .scope(family.scope())
+                .userInfo(family.userInfo())
+                .expiresAt(new Date(entry.expiresAt()))
+                .familyExpiresAt(family.familyExpiresAt())
+                .used(entry.used())
+                .build();
+    }
+
+    private record RefreshTokenEntry(String familyID, long expiresAt, boolean used) {
+    }
+
+    private record RefreshTokenFamily(String clientID, String audience, List<String> scope, UserInfo userInfo,
+                                      Date familyExpiresAt, Set<String> digests) {
+    }
+}
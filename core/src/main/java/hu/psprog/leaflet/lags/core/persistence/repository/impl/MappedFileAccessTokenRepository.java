@@ -0,0 +1,486 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.persistence.repository.AccessTokenRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable implementation of {@link AccessTokenRepository}, backed by memory-mapped, append-only segment files.
+ *
+ * Every modification is appended as a record to the currently active segment file:
+ *  - a store record holding every information of a newly tracked token;
+ *  - a small status record on status changes (e.g. revocation) of an already tracked token;
+ *  - a delete record on explicit removal of a tracked token.
+ * Each record is protected by a CRC32 checksum, so a partially written record (e.g. on a crash) terminates the replay
+ * of its segment instead of corrupting the index. Once the active segment is full, it is sealed, and a new segment
+ * is started. Lookups are served from an in-memory index, which is rebuilt on startup by replaying the segments in
+ * their creation order, skipping the already expired tokens - this way a restart does not invalidate the issued tokens.
+ *
+ * Compaction happens in the background along with the scheduled clean-up of the expired tokens: a sealed segment is
+ * deleted as soon as every token referenced by its records has expired. Since token lifetimes are short compared to
+ * the time needed to fill up a segment, segments expire as a whole and never have to be rewritten.
+ *
+ * Enabled by setting oauth2-config.token-tracking.storage to mapped-file. The segment files are stored in the directory
+ * specified by oauth2-config.token-tracking.storage-directory.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Qualifier(AccessTokenRepository.TRACKING_STORAGE)
+@ConditionalOnProperty(name = "oauth2-config.token-tracking.storage", havingValue = "mapped-file")
+@Slf4j
+public class MappedFileAccessTokenRepository implements AccessTokenRepository {
+
+    private static final String SEGMENT_FILE_PREFIX = "token-tracking-";
+    private static final String SEGMENT_FILE_EXTENSION = ".seg";
+    private static final String SEGMENT_FILE_NAME_PATTERN = SEGMENT_FILE_PREFIX + "%020d" + SEGMENT_FILE_EXTENSION;
+
+    private static final byte RECORD_END = 0;
+    private static final byte RECORD_STORE = 1;
+    private static final byte RECORD_STATUS = 2;
+    private static final byte RECORD_DELETE = 3;
+    private static final int RECORD_OVERHEAD = Byte.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+
+    private final InMemoryAccessTokenRepository index = new InMemoryAccessTokenRepository();
+    private final List<Segment> sealedSegments = new ArrayList<>();
+    private final Lock writeLock = new ReentrantLock();
+    private final Path storageDirectory;
+    private final int segmentSize;
+
+    private Segment activeSegment;
+
+    @Autowired
+    public MappedFileAccessTokenRepository(OAuthConfigurationProperties oAuthConfigurationProperties) {
+
+        TokenTrackingSettings tokenTrackingSettings = oAuthConfigurationProperties.getTokenTracking();
+        if (Objects.isNull(tokenTrackingSettings.getStorageDirectory())) {
+            throw new IllegalStateException("Storage directory must be specified for mapped-file token tracking storage");
+        }
+
+        this.storageDirectory = tokenTrackingSettings.getStorageDirectory();
+        this.segmentSize = Math.toIntExact(tokenTrackingSettings.getSegmentSize().toBytes());
+    }
+
+    /**
+     * Rebuilds the in-memory index from the existing segment files, then opens a new active segment.
+     */
+    @PostConstruct
+    public void initialize() {
+
+        try {
+            Files.createDirectories(storageDirectory);
+            long lastSequence = 0;
+            for (Path segmentFile : listSegmentFiles()) {
+                Segment segment = replay(segmentFile);
+                sealedSegments.add(segment);
+                lastSequence = Math.max(lastSequence, segment.sequence);
+            }
+            activeSegment = openSegment(lastSequence + 1);
+        } catch (IOException exception) {
+            throw new IllegalStateException(String.format("Failed to initialize token tracking storage in directory=[%s]", storageDirectory), exception);
+        }
+
+        log.info("Token tracking storage initialized from {} segment(s), tracking {} token(s)", sealedSegments.size(), index.size());
+    }
+
+    /**
+     * Flushes and closes the active segment.
+     */
+    @PreDestroy
+    public void close() {
+
+        writeLock.lock();
+        try {
+            if (Objects.nonNull(activeSegment)) {
+                activeSegment.seal();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void save(AccessTokenInfo accessTokenInfo) {
+
+        writeLock.lock();
+        try {
+            if (index.retrieveByJTI(accessTokenInfo.getId()).isPresent()) {
+                append(RECORD_STATUS, encodeStatusRecord(accessTokenInfo), accessTokenInfo.getExpiresAt());
+            } else {
+                append(RECORD_STORE, encodeStoreRecord(accessTokenInfo), accessTokenInfo.getExpiresAt());
+            }
+            index.save(accessTokenInfo);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<AccessTokenInfo> retrieveByJTI(String jti) {
+        return index.retrieveByJTI(jti);
+    }
+
+    @Override
+    public List<AccessTokenInfo> getAllAccessTokenInfo() {
+        return index.getAllAccessTokenInfo();
+    }
+
+    @Override
+    public void deleteByJTI(String jti) {
+
+        writeLock.lock();
+        try {
+            index.retrieveByJTI(jti).ifPresent(accessTokenInfo -> {
+                append(RECORD_DELETE, encodeDeleteRecord(accessTokenInfo), accessTokenInfo.getExpiresAt());
+                index.deleteByJTI(jti);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Also deletes the sealed segment files, of which every referenced token is expired before the given threshold.
+     */
+    @Override
+    public int deleteExpiredBefore(Date threshold) {
+
+        writeLock.lock();
+        try {
+            int deletedCount = index.deleteExpiredBefore(threshold);
+            sealedSegments.removeIf(segment -> segment.deleteIfExpired(threshold.getTime()));
+
+            return deletedCount;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateStatusByJTI(String jti, TokenStatus newStatus) {
+
+        writeLock.lock();
+        try {
+            index.retrieveByJTI(jti).ifPresent(accessTokenInfo -> {
+                accessTokenInfo.setStatus(newStatus);
+                accessTokenInfo.setRevokedAt(new Date());
+
+                save(accessTokenInfo);
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void append(byte recordType, ByteBuffer payload, Date expiresAt) {
+
+        int recordLength = RECORD_OVERHEAD + payload.limit();
+        if (recordLength + Byte.BYTES > segmentSize) {
+            throw new IllegalStateException(String.format("Token tracking record of %d bytes exceeds the segment size", recordLength));
+        }
+
+        if (activeSegment.buffer.remaining() < recordLength + Byte.BYTES) {
+            rollSegment();
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.array(), 0, payload.limit());
+
+        activeSegment.buffer.put(recordType);
+        activeSegment.buffer.putInt(payload.limit());
+        activeSegment.buffer.put(payload.array(), 0, payload.limit());
+        activeSegment.buffer.putInt((int) checksum.getValue());
+        activeSegment.registerExpiration(expiresAt);
+    }
+
+    private void rollSegment() {
+
+        activeSegment.seal();
+        sealedSegments.add(activeSegment);
+        try {
+            activeSegment = openSegment(activeSegment.sequence + 1);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to open new token tracking segment", exception);
+        }
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+
+        Path segmentFile = storageDirectory.resolve(String.format(SEGMENT_FILE_NAME_PATTERN, sequence));
+        FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        log.debug("Opened token tracking segment [{}]", segmentFile.getFileName());
+
+        return new Segment(sequence, segmentFile, channel, buffer);
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+
+        try (Stream<Path> files = Files.list(storageDirectory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_FILE_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_FILE_EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Segment replay(Path segmentFile) throws IOException {
+
+        String fileName = segmentFile.getFileName().toString();
+        long sequence = Long.parseLong(fileName.substring(SEGMENT_FILE_PREFIX.length(), fileName.length() - SEGMENT_FILE_EXTENSION.length()));
+        Segment segment = new Segment(sequence, segmentFile, null, null);
+        long now = System.currentTimeMillis();
+
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() > RECORD_OVERHEAD) {
+                byte recordType = buffer.get();
+                if (recordType == RECORD_END) {
+                    break;
+                }
+
+                int payloadLength = buffer.getInt();
+                if (payloadLength < 0 || payloadLength + Integer.BYTES > buffer.remaining()) {
+                    log.warn("Truncated record found in token tracking segment [{}], skipping the rest of the segment", fileName);
+                    break;
+                }
+
+                ByteBuffer payload = buffer.slice(buffer.position(), payloadLength);
+                buffer.position(buffer.position() + payloadLength);
+                CRC32 checksum = new CRC32();
+                checksum.update(payload.duplicate());
+                if ((int) checksum.getValue() != buffer.getInt()) {
+                    log.warn("Corrupted record found in token tracking segment [{}], skipping the rest of the segment", fileName);
+                    break;
+                }
+
+                applyRecord(recordType, payload, segment, now);
+            }
+        }
+
+        return segment;
+    }
+
+    private void applyRecord(byte recordType, ByteBuffer payload, Segment segment, long now) {
+
+        switch (recordType) {
+            case RECORD_STORE -> {
+                AccessTokenInfo accessTokenInfo = decodeStoreRecord(payload);
+                segment.registerExpiration(accessTokenInfo.getExpiresAt());
+                if (Objects.isNull(accessTokenInfo.getExpiresAt()) || accessTokenInfo.getExpiresAt().getTime() >= now) {
+                    index.save(accessTokenInfo);
+                }
+            }
+            case RECORD_STATUS -> {
+                String jti = readString(payload);
+                TokenStatus status = TokenStatus.values()[payload.get()];
+                Date revokedAt = readDate(payload);
+                segment.registerExpiration(readDate(payload));
+                index.retrieveByJTI(jti).ifPresent(accessTokenInfo -> {
+                    accessTokenInfo.setStatus(status);
+                    accessTokenInfo.setRevokedAt(revokedAt);
+                });
+            }
+            case RECORD_DELETE -> {
+                String jti = readString(payload);
+                segment.registerExpiration(readDate(payload));
+                index.deleteByJTI(jti);
+            }
+            default -> log.warn("Unknown record type={} found in token tracking segment [{}]", recordType, segment.path.getFileName());
+        }
+    }
+
+    private ByteBuffer encodeStoreRecord(AccessTokenInfo accessTokenInfo) {
+
+        byte[] jti = toBytes(accessTokenInfo.getId());
+        byte[] subject = toBytes(accessTokenInfo.getSubject());
+        ByteBuffer payload = ByteBuffer.allocate(sizeOf(jti) + sizeOf(subject) + Long.BYTES * 3 + Byte.BYTES);
+        writeString(payload, jti);
+        writeString(payload, subject);
+        writeDate(payload, accessTokenInfo.getIssuedAt());
+        writeDate(payload, accessTokenInfo.getExpiresAt());
+        payload.put((byte) accessTokenInfo.getStatus().ordinal());
+        writeDate(payload, accessTokenInfo.getRevokedAt());
+
+        return payload.flip();
+    }
+
+    private AccessTokenInfo decodeStoreRecord(ByteBuffer payload) {
+
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(readString(payload))
+                .subject(readString(payload))
+                .issuedAt(readDate(payload))
+                .expiresAt(readDate(payload))
+                .build());
+        accessTokenInfo.setStatus(TokenStatus.values()[payload.get()]);
+        accessTokenInfo.setRevokedAt(readDate(payload));
+
+        return accessTokenInfo;
+    }
+
+    private ByteBuffer encodeStatusRecord(AccessTokenInfo accessTokenInfo) {
+
+        byte[] jti = toBytes(accessTokenInfo.getId());
+        ByteBuffer payload = ByteBuffer.allocate(sizeOf(jti) + Byte.BYTES + Long.BYTES * 2);
+        writeString(payload, jti);
+        payload.put((byte) accessTokenInfo.getStatus().ordinal());
+        writeDate(payload, accessTokenInfo.getRevokedAt());
+        writeDate(payload, accessTokenInfo.getExpiresAt());
+
+        return payload.flip();
+    }
+
+    private ByteBuffer encodeDeleteRecord(AccessTokenInfo accessTokenInfo) {
+
+        byte[] jti = toBytes(accessTokenInfo.getId());
+        ByteBuffer payload = ByteBuffer.allocate(sizeOf(jti) + Long.BYTES);
+        writeString(payload, jti);
+        writeDate(payload, accessTokenInfo.getExpiresAt());
+
+        return payload.flip();
+    }
+
+    private static byte[] toBytes(String value) {
+
+        return Objects.nonNull(value)
+                ? value.getBytes(StandardCharsets.UTF_8)
+                : null;
+    }
+
+    private static int sizeOf(byte[] value) {
+
+        return Integer.BYTES + (Objects.nonNull(value)
+                ? value.length
+                : 0);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] value) {
+
+        if (Objects.isNull(value)) {
+            buffer.putInt(NO_STRING);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+
+        int length = buffer.getInt();
+        if (length == NO_STRING) {
+            return null;
+        }
+
+        byte[] value = new byte[length];
+        buffer.get(value);
+
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(ByteBuffer buffer, Date date) {
+        buffer.putLong(Objects.nonNull(date) ? date.getTime() : NO_DATE);
+    }
+
+    private static Date readDate(ByteBuffer buffer) {
+
+        long value = buffer.getLong();
+
+        return value != NO_DATE
+                ? new Date(value)
+                : null;
+    }
+
+    /**
+     * Meta-information of a single segment file. Only the active segment keeps its file mapped.
+     */
+    private static final class Segment {
+
+        private final long sequence;
+        private final Path path;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long maxExpiresAt = Long.MIN_VALUE;
+
+        private Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private void registerExpiration(Date expiresAt) {
+
+            // records of tokens without expiration keep the segment alive
+            long expiration = Objects.nonNull(expiresAt)
+                    ? expiresAt.getTime()
+                    : Long.MAX_VALUE;
+            maxExpiresAt = Math.max(maxExpiresAt, expiration);
+        }
+
+        private void seal() {
+
+            if (Objects.isNull(channel)) {
+                return;
+            }
+
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException exception) {
+                log.error("Failed to close token tracking segment [{}]", path.getFileName(), exception);
+            }
+            channel = null;
+            buffer = null;
+        }
+
+        private boolean deleteIfExpired(long threshold) {
+
+            if (maxExpiresAt >= threshold) {
+                return false;
+            }
+
+            try {
+                Files.deleteIfExists(path);
+                log.info("Compacted expired token tracking segment [{}]", path.getFileName());
+                return true;
+            } catch (IOException exception) {
+                log.warn("Failed to delete expired token tracking segment [{}]", path.getFileName(), exception);
+                return false;
+            }
+        }
+    }
+}
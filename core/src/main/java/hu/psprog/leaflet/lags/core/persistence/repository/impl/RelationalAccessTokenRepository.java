@@ -0,0 +1,337 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingSettings;
+import hu.psprog.leaflet.lags.core.domain.entity.TrackedAccessToken;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.persistence.repository.AccessTokenRepository;
+import hu.psprog.leaflet.lags.core.persistence.repository.TrackedAccessTokenRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Relational database implementation of {@link AccessTokenRepository}, allowing multiple service instances to share
+ * the tracked tokens. Tokens are stored in the tracked access tokens table, keyed by their JTI and indexed by their
+ * expiration.
+ *
+ * Newly tracked tokens are collected in a write-behind buffer, and inserted in JDBC batches by a background flusher
+ * thread, either when the buffer reaches the configured batch size, or on the next scheduled flush. Buffered tokens are
+ * visible to the lookups of this instance immediately, but other instances only see them after the flush (within the
+ * configured flush interval). The buffer is bounded: while it is full (e.g. the database is unavailable or too slow),
+ * new tokens are inserted directly. Status changes of buffered tokens are applied on the buffered record, otherwise
+ * they are executed as single updates. Records conflicting with an already stored one never downgrade a revoked token
+ * to active, but a revoked record is always merged into the stored one.
+ * Expired tokens are deleted in limited size chunks (the JTIs of a chunk are looked up by a ranged query over the
+ * indexed expiration column, then deleted by their JTI), so a large clean-up does not lock the table for a long time. Tokens are visited in pages ordered by their JTI, so
+ * the whole table is never loaded at once.
+ *
+ * Enabled by setting oauth2-config.token-tracking.storage to relational.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Qualifier(AccessTokenRepository.TRACKING_STORAGE)
+@ConditionalOnProperty(name = "oauth2-config.token-tracking.storage", havingValue = "relational")
+@Slf4j
+public class RelationalAccessTokenRepository implements AccessTokenRepository {
+
+    private static final String INSERT_TRACKED_ACCESS_TOKEN = "INSERT INTO leaflet_tracked_access_tokens "
+            + "(jti, subject, issued_at, expires_at, status, revoked_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int READ_PAGE_SIZE = 1000;
+    private static final String FLUSHER_THREAD_NAME = "tracked-access-token-flusher";
+
+    private final Map<String, AccessTokenInfo> writeBehindBuffer = new ConcurrentHashMap<>();
+    private final Lock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final TrackedAccessTokenRepository trackedAccessTokenRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor flusher;
+    private final int batchSize;
+    private final int bufferLimit;
+    private final int deleteChunkSize;
+
+    @Autowired
+    public RelationalAccessTokenRepository(TrackedAccessTokenRepository trackedAccessTokenRepository, JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager, OAuthConfigurationProperties oAuthConfigurationProperties) {
+        this(trackedAccessTokenRepository, jdbcTemplate, transactionManager, oAuthConfigurationProperties, Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                .name(FLUSHER_THREAD_NAME)
+                .daemon()
+                .factory()));
+    }
+
+    RelationalAccessTokenRepository(TrackedAccessTokenRepository trackedAccessTokenRepository, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager, OAuthConfigurationProperties oAuthConfigurationProperties,
+                                    Executor flusher) {
+
+        TokenTrackingSettings tokenTrackingSettings = oAuthConfigurationProperties.getTokenTracking();
+        this.trackedAccessTokenRepository = trackedAccessTokenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flusher = flusher;
+        this.batchSize = tokenTrackingSettings.getWriteBehindBatchSize();
+        this.bufferLimit = tokenTrackingSettings.getWriteBehindBufferLimit();
+        this.deleteChunkSize = tokenTrackingSettings.getDeleteChunkSize();
+    }
+
+    @Override
+    public void save(AccessTokenInfo accessTokenInfo) {
+
+        if (TokenStatus.ACTIVE == accessTokenInfo.getStatus() && Objects.isNull(accessTokenInfo.getRevokedAt())) {
+            if (writeBehindBuffer.size() >= bufferLimit) {
+                log.warn("Write-behind buffer is full, inserting tracked access token identified by JTI={} directly", accessTokenInfo.getId());
+                insertOrMerge(accessTokenInfo);
+            } else {
+                writeBehindBuffer.put(accessTokenInfo.getId(), accessTokenInfo);
+                requestFlushOnFullBatch();
+            }
+        } else {
+            saveStatus(accessTokenInfo);
+        }
+    }
+
+    @Override
+    public Optional<AccessTokenInfo> retrieveByJTI(String jti) {
+
+        AccessTokenInfo bufferedAccessTokenInfo = writeBehindBuffer.get(jti);
+
+        return Objects.nonNull(bufferedAccessTokenInfo)
+                ? Optional.of(bufferedAccessTokenInfo)
+                : trackedAccessTokenRepository.findById(jti).map(this::toAccessTokenInfo);
+    }
+
+    @Override
+    public List<AccessTokenInfo> retrieveByJTIs(Collection<String> jtis) {
+
+        List<AccessTokenInfo> accessTokenInfoList = new ArrayList<>();
+        List<String> unbufferedJTIs = new ArrayList<>();
+        jtis.forEach(jti -> {
+            AccessTokenInfo bufferedAccessTokenInfo = writeBehindBuffer.get(jti);
+            if (Objects.nonNull(bufferedAccessTokenInfo)) {
+                accessTokenInfoList.add(bufferedAccessTokenInfo);
+            } else {
+                unbufferedJTIs.add(jti);
+            }
+        });
+
+        if (!unbufferedJTIs.isEmpty()) {
+            trackedAccessTokenRepository.findAllById(unbufferedJTIs).stream()
+                    .map(this::toAccessTokenInfo)
+                    .forEach(accessTokenInfoList::add);
+        }
+
+        return accessTokenInfoList;
+    }
+
+    @Override
+    public List<AccessTokenInfo> getAllAccessTokenInfo() {
+
+        List<AccessTokenInfo> accessTokenInfoList = new ArrayList<>(writeBehindBuffer.values());
+        readPages(lastJTI -> trackedAccessTokenRepository.findByJtiGreaterThanOrderByJtiAsc(lastJTI, Limit.of(READ_PAGE_SIZE)),
+                accessTokenInfoList::add);
+
+        return accessTokenInfoList;
+    }
+
+    @Override
+    public void forEachAccessTokenInfo(TokenStatus status, Consumer<AccessTokenInfo> consumer) {
+
+        writeBehindBuffer.values().stream()
+                .filter(accessTokenInfo -> status == accessTokenInfo.getStatus())
+                .forEach(consumer);
+        readPages(lastJTI -> trackedAccessTokenRepository.findByStatusAndJtiGreaterThanOrderByJtiAsc(status, lastJTI, Limit.of(READ_PAGE_SIZE)),
+                consumer);
+    }
+
+    @Override
+    public void deleteByJTI(String jti) {
+
+        flushLock.lock();
+        try {
+            if (Objects.isNull(writeBehindBuffer.remove(jti))) {
+                trackedAccessTokenRepository.deleteById(jti);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteExpiredBefore(Date threshold) {
+
+        int deletedCount = 0;
+        List<String> expiredJTIs;
+        do {
+            expiredJTIs = trackedAccessTokenRepository.findExpiredJTIs(threshold, Limit.of(deleteChunkSize));
+            if (!expiredJTIs.isEmpty()) {
+                deletedCount += trackedAccessTokenRepository.deleteByJTIs(expiredJTIs);
+            }
+        } while (expiredJTIs.size() == deleteChunkSize);
+
+        return deletedCount;
+    }
+
+    @Override
+    public void updateStatusByJTI(String jti, TokenStatus newStatus) {
+
+        retrieveByJTI(jti).ifPresent(accessTokenInfo -> {
+            accessTokenInfo.setStatus(newStatus);
+            accessTokenInfo.setRevokedAt(new Date());
+
+            saveStatus(accessTokenInfo);
+        });
+    }
+
+    /**
+     * Writes the buffered token records into the database in JDBC batches.
+     * Executed periodically, based on the oauth2-config.token-tracking.write-behind-interval configuration parameter.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${oauth2-config.token-tracking.write-behind-interval:PT0.2S}")
+    public void flush() {
+
+        flushLock.lock();
+        try {
+            if (writeBehindBuffer.isEmpty()) {
+                return;
+            }
+
+            List<AccessTokenInfo> bufferedAccessTokenInfoList = new ArrayList<>(writeBehindBuffer.values());
+            insertBatch(bufferedAccessTokenInfoList);
+            bufferedAccessTokenInfoList.forEach(accessTokenInfo -> writeBehindBuffer.remove(accessTokenInfo.getId(), accessTokenInfo));
+            log.debug("Flushed {} tracked access token(s) to the database", bufferedAccessTokenInfoList.size());
+
+        } catch (DataAccessException exception) {
+            log.error("Failed to flush tracked access tokens, will retry on the next flush", exception);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void requestFlushOnFullBatch() {
+
+        if (writeBehindBuffer.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    private void readPages(Function<String, List<TrackedAccessToken>> pageReader, Consumer<AccessTokenInfo> consumer) {
+
+        String lastJTI = StringUtils.EMPTY;
+        List<TrackedAccessToken> page;
+        do {
+            page = pageReader.apply(lastJTI);
+            page.stream()
+                    .filter(trackedAccessToken -> !writeBehindBuffer.containsKey(trackedAccessToken.getJti()))
+                    .map(this::toAccessTokenInfo)
+                    .forEach(consumer);
+            if (!page.isEmpty()) {
+                lastJTI = page.getLast().getJti();
+            }
+        } while (page.size() == READ_PAGE_SIZE);
+    }
+
+    private void saveStatus(AccessTokenInfo accessTokenInfo) {
+
+        flushLock.lock();
+        try {
+            if (writeBehindBuffer.containsKey(accessTokenInfo.getId())) {
+                writeBehindBuffer.put(accessTokenInfo.getId(), accessTokenInfo);
+            } else if (trackedAccessTokenRepository.updateStatus(accessTokenInfo.getId(), accessTokenInfo.getStatus(), accessTokenInfo.getRevokedAt()) == 0) {
+                writeBehindBuffer.put(accessTokenInfo.getId(), accessTokenInfo);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void insertBatch(List<AccessTokenInfo> accessTokenInfoList) {
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_TRACKED_ACCESS_TOKEN, accessTokenInfoList, batchSize,
+                    RelationalAccessTokenRepository::setInsertParameters));
+        } catch (DuplicateKeyException exception) {
+            log.warn("Batch contains already tracked access token(s), falling back to individual inserts");
+            accessTokenInfoList.forEach(this::insertOrMerge);
+        }
+    }
+
+    private void insertOrMerge(AccessTokenInfo accessTokenInfo) {
+
+        try {
+            jdbcTemplate.update(INSERT_TRACKED_ACCESS_TOKEN, preparedStatement -> setInsertParameters(preparedStatement, accessTokenInfo));
+        } catch (DuplicateKeyException exception) {
+            // the stored record is only overwritten by a revocation, so an already revoked token never becomes active again
+            if (TokenStatus.REVOKED == accessTokenInfo.getStatus()) {
+                trackedAccessTokenRepository.updateStatus(accessTokenInfo.getId(), accessTokenInfo.getStatus(), accessTokenInfo.getRevokedAt());
+            }
+        }
+    }
+
+    private AccessTokenInfo toAccessTokenInfo(TrackedAccessToken trackedAccessToken) {
+
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(trackedAccessToken.getJti())
+                .subject(trackedAccessToken.getSubject())
+                .issuedAt(trackedAccessToken.getIssuedAt())
+                .expiresAt(trackedAccessToken.getExpiresAt())
+                .build());
+        accessTokenInfo.setStatus(trackedAccessToken.getStatus());
+        accessTokenInfo.setRevokedAt(trackedAccessToken.getRevokedAt());
+
+        return accessTokenInfo;
+    }
+
+    private static void setInsertParameters(PreparedStatement preparedStatement, AccessTokenInfo accessTokenInfo) throws SQLException {
+
+        preparedStatement.setString(1, accessTokenInfo.getId());
+        preparedStatement.setString(2, accessTokenInfo.getSubject());
+        preparedStatement.setTimestamp(3, toTimestamp(accessTokenInfo.getIssuedAt()));
+        preparedStatement.setTimestamp(4, toTimestamp(accessTokenInfo.getExpiresAt()));
+        preparedStatement.setString(5, accessTokenInfo.getStatus().name());
+        preparedStatement.setTimestamp(6, toTimestamp(accessTokenInfo.getRevokedAt()));
+    }
+
+    private static Timestamp toTimestamp(Date date) {
+
+        return Objects.nonNull(date)
+                ? new Timestamp(date.getTime())
+                : null;
+    }
+}
@@ -0,0 +1,139 @@
+package hu.psprog.leaflet.lags.core.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.psprog.leaflet.lags.core.domain.config.ClientCredentialCacheSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import hu.psprog.leaflet.lags.core.service.util.CacheInvalidationGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@link DaoAuthenticationProvider} implementation caching the successfully verified OAuth client credentials, so
+ * repeated authentications of the same client do not need to run the (intentionally slow) password encoder again.
+ *
+ * Entries are keyed by the HMAC-SHA256 of the client ID and the presented secret, computed with a random key generated
+ * on startup, thus the cache never holds the secrets themselves, nor any value usable without the key. Each entry
+ * stores the encoded secret it was verified against: a cache hit is only accepted if the currently registered encoded
+ * secret is still the same, otherwise the full verification runs again. Secret regeneration, status change and deletion
+ * of any application invalidate the whole cache, once the change is committed (on other service instances as well, if
+ * token tracking replication is enabled). A verification overlapping such an invalidation still authenticates the
+ * client, but its result is not cached, as it may rely on the old secret. Hit and miss statistics are exposed as cache
+ * metrics, tagged with the "client-credential" cache name.
+ *
+ * @author Peter Smith
+ */
+@Slf4j
+public class CachingClientCredentialAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private static final String CACHE_NAME = "client-credential";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HMAC_KEY_LENGTH = 32;
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final Set<OAuthApplicationChangeEvent.Type> INVALIDATING_CHANGES = EnumSet.of(
+            OAuthApplicationChangeEvent.Type.SECRET_REGENERATED,
+            OAuthApplicationChangeEvent.Type.STATUS_CHANGED,
+            OAuthApplicationChangeEvent.Type.DELETED);
+
+    private final Cache<String, String> verifiedCredentials;
+    private final SecretKeySpec hmacKey;
+    private final CacheInvalidationGuard<String> invalidationGuard = new CacheInvalidationGuard<>();
+
+    public CachingClientCredentialAuthenticationProvider(UserDetailsService userDetailsService,
+                                                         ClientCredentialCacheSettings clientCredentialCacheSettings,
+                                                         MeterRegistry meterRegistry) {
+        super(userDetailsService);
+
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(clientCredentialCacheSettings.getMaximumSize())
+                .expireAfterWrite(clientCredentialCacheSettings.getTimeToLive())
+                .recordStats()
+                .build();
+        this.hmacKey = createHmacKey();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, CACHE_NAME);
+    }
+
+    /**
+     * Invalidates every cached credential after the secret regeneration, the status change or the deletion of an
+     * application is committed. Other changes do not affect the credentials, thus they are ignored.
+     *
+     * @param event {@link OAuthApplicationChangeEvent} describing the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onApplicationChange(OAuthApplicationChangeEvent event) {
+
+        if (!INVALIDATING_CHANGES.contains(event.type())) {
+            return;
+        }
+
+        invalidationGuard.invalidateAll(verifiedCredentials::invalidateAll);
+
+        log.info("Client credential cache invalidated on {}change={} of application={}", event.replicated() ? "replicated " : "", event.type(), event.applicationID());
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication) {
+
+        if (Objects.isNull(authentication.getCredentials())) {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+            return;
+        }
+
+        String cacheKey = createCacheKey(userDetails.getUsername(), authentication.getCredentials().toString());
+        String verifiedEncodedSecret = verifiedCredentials.getIfPresent(cacheKey);
+        if (Objects.nonNull(verifiedEncodedSecret) && Objects.equals(verifiedEncodedSecret, userDetails.getPassword())) {
+            return;
+        }
+
+        long invalidationCountBeforeVerification = invalidationGuard.getInvalidationCount();
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        cacheIfNotInvalidated(cacheKey, userDetails.getPassword(), invalidationCountBeforeVerification);
+    }
+
+    private void cacheIfNotInvalidated(String cacheKey, String encodedSecret, long invalidationCountBeforeVerification) {
+
+        if (Objects.isNull(encodedSecret)) {
+            return;
+        }
+
+        invalidationGuard.runIfNotInvalidatedSince(invalidationCountBeforeVerification, () -> verifiedCredentials.put(cacheKey, encodedSecret));
+    }
+
+    private String createCacheKey(String clientID, String clientSecret) {
+
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            byte[] digest = mac.doFinal((clientID + KEY_SEPARATOR + clientSecret).getBytes(StandardCharsets.UTF_8));
+
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static SecretKeySpec createHmacKey() {
+
+        byte[] key = new byte[HMAC_KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+
+        return new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+}
@@ -0,0 +1,117 @@
+package hu.psprog.leaflet.lags.core.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import hu.psprog.leaflet.lags.core.domain.config.BearerTokenCacheSettings;
+import hu.psprog.leaflet.lags.core.service.util.CacheExpiryUtil;
+import hu.psprog.leaflet.lags.core.service.util.TokenDigestUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * {@link JwtDecoder} implementation caching the verified bearer tokens, keyed by the SHA-256 digest of the token.
+ * Parsing, signature verification and the static validations (e.g. expiration) are done by the delegate decoder,
+ * only once per token. Entries live until the token expires (capped by the configured maximum time to live).
+ *
+ * Also acts as the authentication converter of the resource server: the granted authorities extracted from a cached
+ * token are kept in the same cache entry, so they are only extracted once per token. The authentication token itself
+ * is created on every conversion, as it is modified (request details are attached) during the authentication.
+ *
+ * The validations depending on mutable state (i.e. the tracking status of the token) are done by the given dynamic
+ * validator on every decoding, including the cache hits, thus a revoked token is rejected right away. Hit and miss
+ * statistics are exposed as cache metrics, tagged with the "bearer-token" cache name.
+ *
+ * @author Peter Smith
+ */
+public class CachingJwtDecoder implements JwtDecoder, Converter<Jwt, AbstractAuthenticationToken> {
+
+    private static final String CACHE_NAME = "bearer-token";
+    private static final String INACTIVE_TOKEN_MESSAGE = "Token is not active";
+
+    private final JwtDecoder delegate;
+    private final OAuth2TokenValidator<Jwt> dynamicValidator;
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+    private final Cache<String, CachedJwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate, OAuth2TokenValidator<Jwt> dynamicValidator,
+                             Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter,
+                             BearerTokenCacheSettings bearerTokenCacheSettings, MeterRegistry meterRegistry) {
+
+        Duration maximumTimeToLive = bearerTokenCacheSettings.getMaximumTimeToLive();
+
+        this.delegate = delegate;
+        this.dynamicValidator = dynamicValidator;
+        this.authoritiesConverter = authoritiesConverter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(bearerTokenCacheSettings.getMaximumSize())
+                .expireAfter(Expiry.writing((String cacheKey, CachedJwt cachedJwt) ->
+                        CacheExpiryUtil.getTimeToLive(cachedJwt.jwt.getExpiresAt(), maximumTimeToLive)))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+
+        Jwt jwt = cache.get(TokenDigestUtil.createDigest(token), cacheKey -> new CachedJwt(delegate.decode(token))).jwt;
+
+        OAuth2TokenValidatorResult validatorResult = dynamicValidator.validate(jwt);
+        if (validatorResult.hasErrors()) {
+            throw new JwtValidationException(INACTIVE_TOKEN_MESSAGE, validatorResult.getErrors());
+        }
+
+        return jwt;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+
+        CachedJwt cachedJwt = cache.getIfPresent(TokenDigestUtil.createDigest(jwt.getTokenValue()));
+        Collection<GrantedAuthority> authorities = Objects.nonNull(cachedJwt) && cachedJwt.jwt == jwt
+                ? cachedJwt.getAuthorities(authoritiesConverter)
+                : authoritiesConverter.convert(jwt);
+
+        return new JwtAuthenticationToken(jwt, authorities, jwt.getSubject());
+    }
+
+    /**
+     * Cache entry holding a verified token and its lazily extracted granted authorities.
+     */
+    private static final class CachedJwt {
+
+        private final Jwt jwt;
+        private volatile Collection<GrantedAuthority> authorities;
+
+        private CachedJwt(Jwt jwt) {
+            this.jwt = jwt;
+        }
+
+        private Collection<GrantedAuthority> getAuthorities(Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter) {
+
+            Collection<GrantedAuthority> currentAuthorities = authorities;
+            if (Objects.isNull(currentAuthorities)) {
+                currentAuthorities = authoritiesConverter.convert(jwt);
+                authorities = currentAuthorities;
+            }
+
+            return currentAuthorities;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package hu.psprog.leaflet.lags.core.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.JWTProcessor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@link JwtDecoder} implementation able to decode an already parsed {@link SignedJWT} as well, so callers inspecting
+ * the claims of the token before verifying it (e.g. to reject expired tokens early) do not have to parse it twice.
+ * The signature is verified by the given {@link JWTProcessor}, then the claims are validated by the given validator.
+ *
+ * Failures are reported the same way as by {@link org.springframework.security.oauth2.jwt.NimbusJwtDecoder}: malformed
+ * tokens and invalid signatures as {@link BadJwtException} (the latter caused by a {@link BadJOSEException}), while
+ * claim validation failures as {@link JwtValidationException}.
+ *
+ * @author Peter Smith
+ */
+public class SignedJwtDecoder implements JwtDecoder {
+
+    private static final String MALFORMED_TOKEN_MESSAGE = "Malformed token: %s";
+    private static final String INVALID_TOKEN_MESSAGE = "Invalid token: %s";
+    private static final String VALIDATION_FAILED_MESSAGE = "Token validation failed";
+
+    private final JWTProcessor<SecurityContext> jwtProcessor;
+    private final OAuth2TokenValidator<Jwt> validator;
+    private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter = MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+    public SignedJwtDecoder(JWTProcessor<SecurityContext> jwtProcessor, OAuth2TokenValidator<Jwt> validator) {
+        this.jwtProcessor = jwtProcessor;
+        this.validator = validator;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+
+        SignedJWT signedJWT;
+        try {
+            signedJWT = SignedJWT.parse(token);
+        } catch (ParseException exception) {
+            throw new BadJwtException(MALFORMED_TOKEN_MESSAGE.formatted(exception.getMessage()), exception);
+        }
+
+        return decode(signedJWT);
+    }
+
+    /**
+     * Verifies the signature and validates the claims of the given parsed token.
+     *
+     * @param signedJWT parsed token as {@link SignedJWT}
+     * @return verified token as {@link Jwt}
+     * @throws JwtException if the token is malformed, its signature is invalid or its claims are invalid
+     */
+    public Jwt decode(SignedJWT signedJWT) throws JwtException {
+
+        Jwt jwt = createJwt(signedJWT, process(signedJWT));
+
+        OAuth2TokenValidatorResult validatorResult = validator.validate(jwt);
+        if (validatorResult.hasErrors()) {
+            throw new JwtValidationException(VALIDATION_FAILED_MESSAGE, validatorResult.getErrors());
+        }
+
+        return jwt;
+    }
+
+    private JWTClaimsSet process(SignedJWT signedJWT) {
+
+        try {
+            return jwtProcessor.process(signedJWT, null);
+        } catch (BadJOSEException exception) {
+            throw new BadJwtException(INVALID_TOKEN_MESSAGE.formatted(exception.getMessage()), exception);
+        } catch (JOSEException exception) {
+            throw new JwtException(INVALID_TOKEN_MESSAGE.formatted(exception.getMessage()), exception);
+        }
+    }
+
+    private Jwt createJwt(SignedJWT signedJWT, JWTClaimsSet claimsSet) {
+
+        Map<String, Object> claims = claimSetConverter.convert(claimsSet.getClaims());
+
+        return Jwt.withTokenValue(signedJWT.getParsedString())
+                .headers(headers -> headers.putAll(signedJWT.getHeader().toJSONObject()))
+                .claims(claimsMap -> claimsMap.putAll(claims))
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package hu.psprog.leaflet.lags.core.security.signature;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.impl.AlgorithmSupportMessage;
+import com.nimbusds.jose.crypto.impl.BaseJWSProvider;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+
+/**
+ * {@link JWSSigner} implementation for Ed25519 keys, backed by the JCA provider of the JDK.
+ * The Ed25519 signer shipped with Nimbus JOSE requires Google Tink, which is not used by the application.
+ *
+ * @author Peter Smith
+ */
+public class Ed25519JCASigner extends BaseJWSProvider implements JWSSigner {
+
+    static final String JCA_ALGORITHM = "Ed25519";
+
+    private final PrivateKey privateKey;
+
+    public Ed25519JCASigner(PrivateKey privateKey) {
+        super(SignatureAlgorithmFamily.ED25519.getAlgorithms());
+        this.privateKey = privateKey;
+    }
+
+    @Override
+    public Base64URL sign(JWSHeader header, byte[] signingInput) throws JOSEException {
+
+        if (!supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+            throw new JOSEException(AlgorithmSupportMessage.unsupportedJWSAlgorithm(header.getAlgorithm(), supportedJWSAlgorithms()));
+        }
+
+        try {
+            Signature signature = Signature.getInstance(JCA_ALGORITHM);
+            signature.initSign(privateKey);
+            signature.update(signingInput);
+
+            return Base64URL.encode(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException("Failed to create Ed25519 signature", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package hu.psprog.leaflet.lags.core.security.signature;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.impl.AlgorithmSupportMessage;
+import com.nimbusds.jose.crypto.impl.BaseJWSProvider;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+
+/**
+ * {@link JWSVerifier} implementation for Ed25519 keys, backed by the JCA provider of the JDK.
+ *
+ * @author Peter Smith
+ */
+public class Ed25519JCAVerifier extends BaseJWSProvider implements JWSVerifier {
+
+    private final PublicKey publicKey;
+
+    public Ed25519JCAVerifier(PublicKey publicKey) {
+        super(SignatureAlgorithmFamily.ED25519.getAlgorithms());
+        this.publicKey = publicKey;
+    }
+
+    @Override
+    public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException {
+
+        if (!supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+            throw new JOSEException(AlgorithmSupportMessage.unsupportedJWSAlgorithm(header.getAlgorithm(), supportedJWSAlgorithms()));
+        }
+
+        try {
+            Signature verifier = Signature.getInstance(Ed25519JCASigner.JCA_ALGORITHM);
+            verifier.initVerify(publicKey);
+            verifier.update(signingInput);
+
+            return verifier.verify(signature.decode());
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+}
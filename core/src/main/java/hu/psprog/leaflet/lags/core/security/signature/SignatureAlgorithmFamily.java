@@ -0,0 +1,44 @@
+package hu.psprog.leaflet.lags.core.security.signature;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Supported asymmetric JWT signature algorithm families.
+ * Each family defines the JCA key algorithm of its keys, used when loading the keys from key files.
+ *
+ * @author Peter Smith
+ */
+@Getter
+public enum SignatureAlgorithmFamily {
+
+    RSA("RSA", JWSAlgorithm.Family.RSA),
+    EC("EC", Set.of(JWSAlgorithm.ES256, JWSAlgorithm.ES384, JWSAlgorithm.ES512)),
+    ED25519("Ed25519", Set.of(JWSAlgorithm.EdDSA, JWSAlgorithm.Ed25519));
+
+    private final String keyAlgorithm;
+    private final Set<JWSAlgorithm> algorithms;
+
+    SignatureAlgorithmFamily(String keyAlgorithm, Set<JWSAlgorithm> algorithms) {
+        this.keyAlgorithm = keyAlgorithm;
+        this.algorithms = algorithms;
+    }
+
+    /**
+     * Returns the family of the given signature algorithm.
+     *
+     * @param algorithm JWT signature algorithm as {@link JWSAlgorithm}
+     * @return the {@link SignatureAlgorithmFamily} of the given algorithm
+     * @throws IllegalArgumentException if the given algorithm is not supported
+     */
+    public static SignatureAlgorithmFamily forAlgorithm(JWSAlgorithm algorithm) {
+
+        return Arrays.stream(values())
+                .filter(family -> family.algorithms.contains(algorithm))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Unsupported signature algorithm [%s]", algorithm)));
+    }
+}
@@ -0,0 +1,175 @@
+package hu.psprog.leaflet.lags.core.security.signature;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.proc.JWTProcessor;
+
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Factory creating the JWT signing and verification components for the configured signature algorithm.
+ *
+ * @author Peter Smith
+ */
+public final class SignatureComponentFactory {
+
+    private static final int ED25519_PUBLIC_KEY_LENGTH = 32;
+
+    private SignatureComponentFactory() { }
+
+    /**
+     * Creates a {@link JWSSigner} for the given signature algorithm.
+     *
+     * @param algorithm JWT signature algorithm as {@link JWSAlgorithm}
+     * @param privateKey private key to sign the tokens with (its type must match the family of the algorithm)
+     * @return created {@link JWSSigner} instance
+     */
+    public static JWSSigner createSigner(JWSAlgorithm algorithm, PrivateKey privateKey) {
+
+        try {
+            return switch (SignatureAlgorithmFamily.forAlgorithm(algorithm)) {
+                case RSA -> new RSASSASigner(privateKey);
+                case EC -> new ECDSASigner((ECPrivateKey) privateKey);
+                case ED25519 -> new Ed25519JCASigner(privateKey);
+            };
+        } catch (JOSEException e) {
+            throw new IllegalStateException(String.format("Failed to create signer for algorithm [%s]", algorithm), e);
+        }
+    }
+
+    /**
+     * Creates a {@link JWSVerifier} for the given signature algorithm.
+     *
+     * @param algorithm JWT signature algorithm as {@link JWSAlgorithm}
+     * @param publicKey public key to verify the token signatures with (its type must match the family of the algorithm)
+     * @return created {@link JWSVerifier} instance
+     */
+    public static JWSVerifier createVerifier(JWSAlgorithm algorithm, PublicKey publicKey) {
+
+        try {
+            return switch (SignatureAlgorithmFamily.forAlgorithm(algorithm)) {
+                case RSA -> new RSASSAVerifier((RSAPublicKey) publicKey);
+                case EC -> new ECDSAVerifier((ECPublicKey) publicKey);
+                case ED25519 -> new Ed25519JCAVerifier(publicKey);
+            };
+        } catch (JOSEException e) {
+            throw new IllegalStateException(String.format("Failed to create verifier for algorithm [%s]", algorithm), e);
+        }
+    }
+
+    /**
+     * Creates the public {@link JWK} representation of the given public key, to be published in the JWK set.
+     *
+     * @param algorithm JWT signature algorithm as {@link JWSAlgorithm}
+     * @param publicKey public key to be published
+     * @param keyID key ID ("kid") of the key
+     * @return created {@link JWK} instance
+     */
+    public static JWK createJWK(JWSAlgorithm algorithm, PublicKey publicKey, String keyID) {
+
+        return switch (SignatureAlgorithmFamily.forAlgorithm(algorithm)) {
+            case RSA -> new RSAKey.Builder((RSAPublicKey) publicKey)
+                    .keyID(keyID)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(algorithm)
+                    .build();
+            case EC -> {
+                ECPublicKey ecPublicKey = (ECPublicKey) publicKey;
+                yield new ECKey.Builder(Curve.forECParameterSpec(ecPublicKey.getParams()), ecPublicKey)
+                        .keyID(keyID)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(algorithm)
+                        .build();
+            }
+            case ED25519 -> new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(extractRawEd25519PublicKey(publicKey)))
+                    .keyID(keyID)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(algorithm)
+                    .build();
+        };
+    }
+
+    /**
+     * Creates a {@link JWTProcessor} verifying the signature of the tokens with the public key resolved by the key ID
+     * ("kid") header of the token. Tokens signed with any other algorithm than the given one, or by an unknown key are
+     * rejected. Claims are not verified by the processor, claims validation is left to the decoder using it.
+     *
+     * @param algorithm JWT signature algorithm as {@link JWSAlgorithm}
+     * @param verificationKeyResolver {@link Function} returning the public key of the given key ID, or {@code null} for an unknown key
+     * @return created {@link JWTProcessor} instance
+     */
+    public static JWTProcessor<SecurityContext> createJWTProcessor(JWSAlgorithm algorithm, Function<String, PublicKey> verificationKeyResolver) {
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector((header, context) -> {
+            PublicKey publicKey = algorithm.equals(header.getAlgorithm()) && Objects.nonNull(header.getKeyID())
+                    ? verificationKeyResolver.apply(header.getKeyID())
+                    : null;
+            return Objects.nonNull(publicKey)
+                    ? List.of(publicKey)
+                    : List.of();
+        });
+        jwtProcessor.setJWSVerifierFactory(new ConfiguredAlgorithmJWSVerifierFactory(algorithm));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+        return jwtProcessor;
+    }
+
+    private static byte[] extractRawEd25519PublicKey(PublicKey publicKey) {
+
+        byte[] encodedKey = publicKey.getEncoded();
+
+        return Arrays.copyOfRange(encodedKey, encodedKey.length - ED25519_PUBLIC_KEY_LENGTH, encodedKey.length);
+    }
+
+    private record ConfiguredAlgorithmJWSVerifierFactory(JWSAlgorithm algorithm) implements JWSVerifierFactory {
+
+        @Override
+        public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+
+            if (!algorithm.equals(header.getAlgorithm()) || !(key instanceof PublicKey publicKey)) {
+                throw new JOSEException(String.format("Unsupported signature algorithm [%s]", header.getAlgorithm()));
+            }
+
+            return createVerifier(algorithm, publicKey);
+        }
+
+        @Override
+        public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+            return Set.of(algorithm);
+        }
+
+        @Override
+        public JCAContext getJCAContext() {
+            return new JCAContext();
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package hu.psprog.leaflet.lags.core.service;
 
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthAuthorizationResponse;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
+import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionBatchResult;
 import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult;
 import hu.psprog.leaflet.lags.core.domain.response.UserInfoResponse;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.List;
+
 /**
  * OAuth2 authorization related operations.
  *
@@ -36,6 +42,17 @@ public interface OAuthAuthorizationService {
      */
     OAuthTokenResponse authorize(OAuthTokenRequest oAuthTokenRequest);
 
+    /**
+     * Attempts processing and authorizing the provided {@link OAuthTokenBatchRequest}, issuing an access token for each
+     * requested audience with a single client authentication. Only client credentials grant is supported. Failures of
+     * the individual audiences do not fail the whole request, but are returned along with the issued tokens.
+     *
+     * @param oAuthTokenBatchRequest {@link OAuthTokenBatchRequest} object containing the batch token request parameters
+     * @return issued access tokens and the failures, mapped by audience, as {@link OAuthTokenBatchResponse}
+     * @throws OAuthTokenRequestException if the request itself is invalid (unsupported grant, too many audiences, unknown source client)
+     */
+    OAuthTokenBatchResponse authorize(OAuthTokenBatchRequest oAuthTokenBatchRequest);
+
     /**
      * Verifies if the given token is followed by LAGS.
      * If so, the status and some additional information of the token are returned.
@@ -46,6 +63,16 @@ public interface OAuthAuthorizationService {
      */
     TokenIntrospectionResult introspect(String accessToken);
 
+    /**
+     * Introspects the given tokens at once, the same way as {@link OAuthAuthorizationService#introspect(String)} does.
+     * The results are returned in the same order as the tokens are given.
+     *
+     * @param accessTokens the tokens to be introspected
+     * @return introspection results as {@link TokenIntrospectionBatchResult}
+     * @throws OAuthTokenRequestException if the number of tokens exceeds the configured batch limit
+     */
+    TokenIntrospectionBatchResult introspect(List<String> accessTokens);
+
     /**
      * Extracts user information from the given access token.
      *
@@ -66,7 +66,7 @@ public class PasswordResetConfirmationAccountRequestHandler implements AccountRe
             log.warn("User account identified by email [{}] does not exist", claims.getEmail());
         }
 
-        tokenTracker.revokeToken(claims.getTokenID());
+        tokenTracker.revokeToken(claims);
         SecurityContextHolder.clearContext();
 
         return null;
@@ -1,8 +1,10 @@
 package hu.psprog.leaflet.lags.core.service.factory;
 
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenBatchContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 
 /**
@@ -27,4 +29,23 @@ public interface OAuthRequestContextFactory {
      * @return created {@link OAuthTokenRequestContext} object
      */
     OAuthTokenRequestContext createContext(OAuthTokenRequest oAuthTokenRequest);
+
+    /**
+     * Creates an {@link OAuthTokenBatchContext} object from the given {@link OAuthTokenBatchRequest}, resolving the
+     * source client and every requested target client with a single registry lookup.
+     *
+     * @param oAuthTokenBatchRequest {@link OAuthTokenBatchRequest} object to resolve the clients of
+     * @return created {@link OAuthTokenBatchContext} object
+     */
+    OAuthTokenBatchContext createBatchContext(OAuthTokenBatchRequest oAuthTokenBatchRequest);
+
+    /**
+     * Creates an {@link OAuthTokenRequestContext} object from the given {@link OAuthTokenRequest}, using the clients
+     * already resolved in the given {@link OAuthTokenBatchContext}.
+     *
+     * @param oAuthTokenRequest {@link OAuthTokenRequest} object to be wrapped as {@link OAuthTokenRequestContext}
+     * @param oAuthTokenBatchContext {@link OAuthTokenBatchContext} holding the resolved clients of the batch request
+     * @return created {@link OAuthTokenRequestContext} object
+     */
+    OAuthTokenRequestContext createContext(OAuthTokenRequest oAuthTokenRequest, OAuthTokenBatchContext oAuthTokenBatchContext);
 }
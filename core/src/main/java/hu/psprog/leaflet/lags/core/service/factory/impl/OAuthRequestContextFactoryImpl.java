@@ -1,17 +1,20 @@
 package hu.psprog.leaflet.lags.core.service.factory.impl;
 
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
-import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenBatchContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
 import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
 import hu.psprog.leaflet.lags.core.persistence.repository.OngoingAuthorizationRepository;
+import hu.psprog.leaflet.lags.core.persistence.repository.RefreshTokenRepository;
 import hu.psprog.leaflet.lags.core.service.factory.OAuthRequestContextFactory;
 import hu.psprog.leaflet.lags.core.service.registry.OAuthClientRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,11 +34,14 @@ public class OAuthRequestContextFactoryImpl implements OAuthRequestContextFactor
 
     private final OAuthClientRegistry oAuthClientRegistry;
     private final OngoingAuthorizationRepository ongoingAuthorizationRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
 
     @Autowired
-    public OAuthRequestContextFactoryImpl(OAuthClientRegistry oAuthClientRegistry, OngoingAuthorizationRepository ongoingAuthorizationRepository) {
+    public OAuthRequestContextFactoryImpl(OAuthClientRegistry oAuthClientRegistry, OngoingAuthorizationRepository ongoingAuthorizationRepository,
+                                          RefreshTokenRepository refreshTokenRepository) {
         this.oAuthClientRegistry = oAuthClientRegistry;
         this.ongoingAuthorizationRepository = ongoingAuthorizationRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
     }
 
     @Override
@@ -52,8 +58,31 @@ public class OAuthRequestContextFactoryImpl implements OAuthRequestContextFactor
     public OAuthTokenRequestContext createContext(OAuthTokenRequest oAuthTokenRequest) {
 
         OAuthClient sourceClient = getSourceOAuthClient(oAuthTokenRequest, OAuthTokenRequestException::new);
-        OAuthClient targetClient = getTargetOAuthClient(oAuthTokenRequest);
-        OAuthClientAllowRelation relation = getRelation(sourceClient, targetClient);
+        OAuthClient targetClient = getTargetOAuthClient(oAuthTokenRequest, oAuthClientRegistry.getClientByAudience(oAuthTokenRequest.getAudience()));
+
+        return createTokenRequestContext(oAuthTokenRequest, sourceClient, targetClient);
+    }
+
+    @Override
+    public OAuthTokenBatchContext createBatchContext(OAuthTokenBatchRequest oAuthTokenBatchRequest) {
+
+        return new OAuthTokenBatchContext(
+                getSourceOAuthClient(oAuthTokenBatchRequest, OAuthTokenRequestException::new),
+                oAuthClientRegistry.getClientsByAudiences(oAuthTokenBatchRequest.getAudiences()));
+    }
+
+    @Override
+    public OAuthTokenRequestContext createContext(OAuthTokenRequest oAuthTokenRequest, OAuthTokenBatchContext oAuthTokenBatchContext) {
+
+        OAuthClient targetClient = getTargetOAuthClient(oAuthTokenRequest,
+                Optional.ofNullable(oAuthTokenBatchContext.targetClients().get(oAuthTokenRequest.getAudience())));
+
+        return createTokenRequestContext(oAuthTokenRequest, oAuthTokenBatchContext.sourceClient(), targetClient);
+    }
+
+    private OAuthTokenRequestContext createTokenRequestContext(OAuthTokenRequest oAuthTokenRequest, OAuthClient sourceClient, OAuthClient targetClient) {
+
+        OAuthClientRelation relation = getRelation(sourceClient, targetClient);
 
         return OAuthTokenRequestContext.builder()
                 .request(oAuthTokenRequest)
@@ -62,6 +91,8 @@ public class OAuthRequestContextFactoryImpl implements OAuthRequestContextFactor
                 .relation(relation)
                 .ongoingAuthorization(Optional.ofNullable(oAuthTokenRequest.getAuthorizationCode())
                         .flatMap(ongoingAuthorizationRepository::getOngoingAuthorizationByCode))
+                .refreshToken(Optional.ofNullable(oAuthTokenRequest.getRefreshToken())
+                        .flatMap(refreshTokenRepository::getRefreshToken))
                 .build();
     }
 
@@ -72,18 +103,16 @@ public class OAuthRequestContextFactoryImpl implements OAuthRequestContextFactor
                         String.format("OAuth client by ID [%s] is not registered", oAuthRequest.getClientID())));
     }
 
-    private OAuthClient getTargetOAuthClient(OAuthTokenRequest oAuthTokenRequest) {
+    private OAuthClient getTargetOAuthClient(OAuthTokenRequest oAuthTokenRequest, Optional<OAuthClient> targetClient) {
 
-        return oAuthClientRegistry.getClientByAudience(oAuthTokenRequest.getAudience())
+        return targetClient
                 .orElseThrow(() -> new OAuthTokenRequestException(OAuthErrorCode.UNAUTHORIZED_CLIENT,
                         String.format("Requested access for non-registered OAuth client [%s]", oAuthTokenRequest.getAudience())));
     }
 
-    private OAuthClientAllowRelation getRelation(OAuthClient sourceClient, OAuthClient targetClient) {
+    private OAuthClientRelation getRelation(OAuthClient sourceClient, OAuthClient targetClient) {
 
-        return targetClient.getAllowedClients().stream()
-                .filter(relation -> relation.getName().equals(sourceClient.getClientName()))
-                .findFirst()
+        return oAuthClientRegistry.getRelation(sourceClient, targetClient)
                 .orElseThrow(() -> new OAuthTokenRequestException(OAuthErrorCode.UNAUTHORIZED_CLIENT,
                         String.format("Target client [%s] does not allow access for source client [%s]", targetClient.getClientName(), sourceClient.getClientName())));
     }
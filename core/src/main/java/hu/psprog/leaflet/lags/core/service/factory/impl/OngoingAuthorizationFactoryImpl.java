@@ -6,11 +6,13 @@ import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestCont
 import hu.psprog.leaflet.lags.core.domain.internal.OngoingAuthorization;
 import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
 import hu.psprog.leaflet.lags.core.service.factory.OngoingAuthorizationFactory;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import hu.psprog.leaflet.lags.core.service.util.ScopeNegotiator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -23,23 +25,29 @@ public class OngoingAuthorizationFactoryImpl implements OngoingAuthorizationFact
 
     private final ScopeNegotiator scopeNegotiator;
     private final OAuthConfigurationProperties oAuthConfigurationProperties;
+    private final PermissionDictionary permissionDictionary;
 
     @Autowired
-    public OngoingAuthorizationFactoryImpl(ScopeNegotiator scopeNegotiator, OAuthConfigurationProperties oAuthConfigurationProperties) {
+    public OngoingAuthorizationFactoryImpl(ScopeNegotiator scopeNegotiator, OAuthConfigurationProperties oAuthConfigurationProperties,
+                                           PermissionDictionary permissionDictionary) {
         this.scopeNegotiator = scopeNegotiator;
         this.oAuthConfigurationProperties = oAuthConfigurationProperties;
+        this.permissionDictionary = permissionDictionary;
     }
 
     @Override
     public OngoingAuthorization createOngoingAuthorization(OAuthAuthorizationRequestContext context) {
 
+        List<String> scope = scopeNegotiator.getScope(context);
+
         return OngoingAuthorization.builder()
                 .authorizationCode(UUID.randomUUID().toString())
                 .clientID(context.getRequest().getClientID())
                 .redirectURI(context.getRequest().getRedirectURI())
                 .userInfo(createUserInfo(context.getAuthenticatedUser()))
                 .expiration(getExpiration())
-                .scope(scopeNegotiator.getScope(context))
+                .scope(scope)
+                .scopeSet(permissionDictionary.encode(scope))
                 .build();
     }
 
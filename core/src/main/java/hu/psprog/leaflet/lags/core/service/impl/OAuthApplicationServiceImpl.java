@@ -2,6 +2,8 @@ package hu.psprog.leaflet.lags.core.service.impl;
 
 import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
 import hu.psprog.leaflet.lags.core.domain.internal.ManagedResourceType;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthApplicationRegistrationRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthApplicationRegistrationResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthApplicationResponse;
@@ -12,10 +14,12 @@ import hu.psprog.leaflet.lags.core.mapper.OAuthApplicationMapper;
 import hu.psprog.leaflet.lags.core.mapper.OAuthApplicationRegistrationRequestMapper;
 import hu.psprog.leaflet.lags.core.persistence.dao.OAuthApplicationDAO;
 import hu.psprog.leaflet.lags.core.service.OAuthApplicationService;
+import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
 import hu.psprog.leaflet.lags.core.service.util.PaginationUtil;
 import hu.psprog.leaflet.lags.core.service.util.SecretGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -29,6 +33,7 @@ import java.util.function.Supplier;
 
 /**
  * Default implementation of {@link OAuthApplicationService}.
+ * Every change of the applications is published as {@link OAuthApplicationChangeEvent}.
  *
  * @author Peter Smith
  */
@@ -41,17 +46,22 @@ public class OAuthApplicationServiceImpl implements OAuthApplicationService {
     private final OAuthApplicationDAO oAuthApplicationDAO;
     private final OAuthApplicationMapper oAuthApplicationMapper;
     private final OAuthApplicationRegistrationRequestMapper oAuthApplicationRegistrationRequestMapper;
+    private final TokenTracker tokenTracker;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Autowired
     public OAuthApplicationServiceImpl(PasswordEncoder passwordEncoder, SecretGenerator secretGenerator,
                                        OAuthApplicationDAO oAuthApplicationDAO, OAuthApplicationMapper oAuthApplicationMapper,
-                                       OAuthApplicationRegistrationRequestMapper oAuthApplicationRegistrationRequestMapper) {
+                                       OAuthApplicationRegistrationRequestMapper oAuthApplicationRegistrationRequestMapper,
+                                       TokenTracker tokenTracker, ApplicationEventPublisher applicationEventPublisher) {
 
         this.passwordEncoder = passwordEncoder;
         this.secretGenerator = secretGenerator;
         this.oAuthApplicationDAO = oAuthApplicationDAO;
         this.oAuthApplicationMapper = oAuthApplicationMapper;
         this.oAuthApplicationRegistrationRequestMapper = oAuthApplicationRegistrationRequestMapper;
+        this.tokenTracker = tokenTracker;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     @Transactional
@@ -64,6 +74,7 @@ public class OAuthApplicationServiceImpl implements OAuthApplicationService {
         UUID savedApplicationID = exceptionAwareCall(() -> oAuthApplicationDAO.save(application).getId());
 
         log.info("OAuth application {} ({}) registered successfully", request.name(), request.clientID());
+        publishChange(savedApplicationID, OAuthApplicationChangeEvent.Type.CREATED);
 
         return OAuthApplicationRegistrationResponse.builder()
                 .clientSecret(unencryptedSecret)
@@ -84,6 +95,7 @@ public class OAuthApplicationServiceImpl implements OAuthApplicationService {
         exceptionAwareCall(() -> oAuthApplicationDAO.save(newApplicationData));
 
         log.info("OAuth application {} ({}) updated successfully", request.name(), request.clientID());
+        publishChange(applicationID, OAuthApplicationChangeEvent.Type.UPDATED);
 
         return OAuthApplicationRegistrationResponse.builder()
                 .id(applicationID)
@@ -117,6 +129,7 @@ public class OAuthApplicationServiceImpl implements OAuthApplicationService {
         exceptionAwareCall(() -> oAuthApplicationDAO.save(currentApplicationData));
 
         log.info("Status of OAuth application {} ({}) updated successfully to enabled={}", currentApplicationData.getName(), currentApplicationData.getClientId(), enabled);
+        publishChange(applicationID, OAuthApplicationChangeEvent.Type.STATUS_CHANGED);
 
         return getApplication(applicationID);
     }
@@ -132,6 +145,9 @@ public class OAuthApplicationServiceImpl implements OAuthApplicationService {
         exceptionAwareCall(() -> oAuthApplicationDAO.save(application));
 
         log.info("Secret of OAuth application {} ({}) regenerated successfully", application.getName(), application.getClientId());
+        publishChange(applicationID, OAuthApplicationChangeEvent.Type.SECRET_REGENERATED);
+
+        tokenTracker.revokeAllForSubject(TokenSubject.ofClient(application.getClientId()));
 
         return OAuthApplicationRegistrationResponse.builder()
                 .clientSecret(unencryptedSecret)
@@ -145,6 +161,11 @@ public class OAuthApplicationServiceImpl implements OAuthApplicationService {
         exceptionAwareCall(() -> oAuthApplicationDAO.delete(applicationID));
 
         log.info("OAuth application {} deleted successfully", applicationID);
+        publishChange(applicationID, OAuthApplicationChangeEvent.Type.DELETED);
+    }
+
+    private void publishChange(UUID applicationID, OAuthApplicationChangeEvent.Type type) {
+        applicationEventPublisher.publishEvent(new OAuthApplicationChangeEvent(applicationID, type));
     }
 
     private <T> T findRequiredApplication(UUID applicationID, Function<OAuthApplication, T> mapperFunction) {
@@ -1,37 +1,48 @@
 package hu.psprog.leaflet.lags.core.service.impl;
 
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenBatchContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
-import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthAuthorizationResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchError;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
+import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionBatchResult;
 import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult;
 import hu.psprog.leaflet.lags.core.domain.response.UserInfoResponse;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
-import hu.psprog.leaflet.lags.core.persistence.dao.AccessTokenDAO;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
 import hu.psprog.leaflet.lags.core.service.OAuthAuthorizationService;
 import hu.psprog.leaflet.lags.core.service.factory.OAuthRequestContextFactory;
 import hu.psprog.leaflet.lags.core.service.processor.GrantFlowProcessor;
+import hu.psprog.leaflet.lags.core.service.token.RefreshTokenHandler;
 import hu.psprog.leaflet.lags.core.service.token.TokenHandler;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenIntrospectionCache;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenReuseCache;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult.FAILED_INTROSPECTION_RESULT;
-
 /**
  * Implementation of {@link OAuthAuthorizationService}.
  * This implementation relies on the registered OAuth2 client (the one requesting the authorization) to be pre-authenticated.
@@ -42,20 +53,32 @@ import static hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResu
 @Slf4j
 public class OAuthAuthorizationServiceImpl implements OAuthAuthorizationService {
 
+    private static final String UNKNOWN_ERROR_DESCRIPTION = "Unknown error";
+
     private final Map<GrantType, GrantFlowProcessor> grantFlowProcessorMap;
     private final TokenHandler tokenHandler;
-    private final AccessTokenDAO accessTokenDAO;
+    private final TokenIntrospectionCache tokenIntrospectionCache;
+    private final TokenReuseCache tokenReuseCache;
+    private final RefreshTokenHandler refreshTokenHandler;
     private final OAuthRequestContextFactory oAuthRequestContextFactory;
+    private final int introspectionBatchLimit;
+    private final int tokenBatchLimit;
 
     @Autowired
     public OAuthAuthorizationServiceImpl(List<GrantFlowProcessor> grantFlowProcessors, TokenHandler tokenHandler,
-                                         AccessTokenDAO accessTokenDAO, OAuthRequestContextFactory oAuthRequestContextFactory) {
+                                         TokenIntrospectionCache tokenIntrospectionCache, TokenReuseCache tokenReuseCache,
+                                         RefreshTokenHandler refreshTokenHandler, OAuthRequestContextFactory oAuthRequestContextFactory,
+                                         OAuthConfigurationProperties oAuthConfigurationProperties) {
 
         this.grantFlowProcessorMap = grantFlowProcessors.stream()
                 .collect(Collectors.toMap(GrantFlowProcessor::forGrantType, Function.identity()));
         this.tokenHandler = tokenHandler;
-        this.accessTokenDAO = accessTokenDAO;
+        this.tokenIntrospectionCache = tokenIntrospectionCache;
+        this.tokenReuseCache = tokenReuseCache;
+        this.refreshTokenHandler = refreshTokenHandler;
         this.oAuthRequestContextFactory = oAuthRequestContextFactory;
+        this.introspectionBatchLimit = oAuthConfigurationProperties.getIntrospectionBatchLimit();
+        this.tokenBatchLimit = oAuthConfigurationProperties.getTokenBatchLimit();
     }
 
     @Override
@@ -78,26 +101,70 @@ public class OAuthAuthorizationServiceImpl implements OAuthAuthorizationService
         TokenClaims claims = getResponsibleGrantFlowProcessor(oAuthTokenRequest)
                 .processTokenRequest(context);
 
-        return tokenHandler.generateToken(oAuthTokenRequest, claims);
+        try {
+            OAuthTokenResponse tokenResponse = tokenReuseCache.getOrIssue(oAuthTokenRequest, claims, () -> tokenHandler.generateToken(oAuthTokenRequest, claims));
+
+            return refreshTokenHandler.issueRefreshToken(context, claims)
+                    .map(refreshToken -> tokenResponse.toBuilder()
+                            .refreshToken(refreshToken)
+                            .build())
+                    .orElse(tokenResponse);
+        } catch (RuntimeException exception) {
+            // the consumed refresh token must stay usable, otherwise the retry would be treated as reuse
+            refreshTokenHandler.restoreRefreshToken(context);
+            throw exception;
+        }
+    }
+
+    @Override
+    public OAuthTokenBatchResponse authorize(OAuthTokenBatchRequest oAuthTokenBatchRequest) {
+
+        verifyBatchRequest(oAuthTokenBatchRequest);
+        OAuthTokenBatchContext batchContext = oAuthRequestContextFactory.createBatchContext(oAuthTokenBatchRequest);
+        GrantFlowProcessor grantFlowProcessor = getResponsibleGrantFlowProcessor(oAuthTokenBatchRequest);
+        log.info("OAuth batch access token requested - grant={}; client={}; audiences={}",
+                oAuthTokenBatchRequest.getGrantType(), oAuthTokenBatchRequest.getClientID(), oAuthTokenBatchRequest.getAudiences());
+
+        Map<String, Future<OAuthTokenResponse>> pendingTokens = new LinkedHashMap<>();
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            oAuthTokenBatchRequest.getAudiences().stream()
+                    .distinct()
+                    .forEach(audience -> pendingTokens.put(audience, executorService.submit(() ->
+                            issueToken(oAuthTokenBatchRequest.forAudience(audience), batchContext, grantFlowProcessor))));
+        }
+
+        Map<String, OAuthTokenResponse> tokens = new LinkedHashMap<>();
+        Map<String, OAuthTokenBatchError> errors = new LinkedHashMap<>();
+        pendingTokens.forEach((audience, pendingToken) -> {
+            if (pendingToken.state() == Future.State.SUCCESS) {
+                tokens.put(audience, pendingToken.resultNow());
+            } else {
+                errors.put(audience, createBatchError(audience, pendingToken.exceptionNow()));
+            }
+        });
+
+        return new OAuthTokenBatchResponse(tokens, errors);
     }
 
     @Override
     public TokenIntrospectionResult introspect(String accessToken) {
 
-        TokenIntrospectionResult introspectionResult;
-        try {
-            TokenClaims claims = tokenHandler.parseToken(accessToken);
-            introspectionResult = TokenIntrospectionResult.builder()
-                    .active(isTokenActive(claims))
-                    .clientID(claims.getClientID())
-                    .username(claims.getUsername())
-                    .expiration(claims.getExpiration())
-                    .build();
-        } catch (Exception e) {
-            introspectionResult = FAILED_INTROSPECTION_RESULT;
+        return tokenIntrospectionCache.introspect(accessToken, tokenHandler::tryParseToken);
+    }
+
+    @Override
+    public TokenIntrospectionBatchResult introspect(List<String> accessTokens) {
+
+        if (Objects.isNull(accessTokens) || accessTokens.size() > introspectionBatchLimit) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_REQUEST,
+                    String.format("Batch introspection request must contain at most %d token(s)", introspectionBatchLimit));
         }
 
-        return introspectionResult;
+        if (accessTokens.stream().anyMatch(StringUtils::isBlank)) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_REQUEST, "Batch introspection request must not contain empty token(s)");
+        }
+
+        return new TokenIntrospectionBatchResult(tokenIntrospectionCache.introspectAll(accessTokens, tokenHandler::parseTokens));
     }
 
     @Override
@@ -112,11 +179,37 @@ public class OAuthAuthorizationServiceImpl implements OAuthAuthorizationService
                 .build();
     }
 
-    private boolean isTokenActive(TokenClaims claims) {
+    private void verifyBatchRequest(OAuthTokenBatchRequest oAuthTokenBatchRequest) {
+
+        if (oAuthTokenBatchRequest.getGrantType() != GrantType.CLIENT_CREDENTIALS) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.UNSUPPORTED_GRANT_TYPE,
+                    String.format("Batch token request is not supported for OAuth authorization flow [%s]", oAuthTokenBatchRequest.getGrantType()));
+        }
+
+        List<String> audiences = oAuthTokenBatchRequest.getAudiences();
+        if (Objects.isNull(audiences) || audiences.isEmpty() || audiences.size() > tokenBatchLimit) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_REQUEST,
+                    String.format("Batch token request must contain at least 1 and at most %d audience(s)", tokenBatchLimit));
+        }
+    }
+
+    private OAuthTokenResponse issueToken(OAuthTokenRequest oAuthTokenRequest, OAuthTokenBatchContext batchContext, GrantFlowProcessor grantFlowProcessor) {
+
+        OAuthTokenRequestContext context = oAuthRequestContextFactory.createContext(oAuthTokenRequest, batchContext);
+        TokenClaims claims = grantFlowProcessor.processTokenRequest(context);
+
+        return tokenReuseCache.getOrIssue(oAuthTokenRequest, claims, () -> tokenHandler.generateToken(oAuthTokenRequest, claims));
+    }
+
+    private OAuthTokenBatchError createBatchError(String audience, Throwable exception) {
+
+        if (exception instanceof OAuthAuthorizationException oAuthAuthorizationException) {
+            log.warn("Failed to issue access token for audience={}: {}", audience, exception.getMessage());
+            return new OAuthTokenBatchError(oAuthAuthorizationException.getErrorCode().getErrorCode(), exception.getMessage());
+        }
 
-        return accessTokenDAO.retrieveByJTI(claims.getTokenID())
-                .map(accessTokenInfo -> TokenStatus.ACTIVE == accessTokenInfo.getStatus())
-                .orElse(false);
+        log.error("Failed to issue access token for audience={}", audience, exception);
+        return new OAuthTokenBatchError(OAuthErrorCode.SERVER_ERROR.getErrorCode(), UNKNOWN_ERROR_DESCRIPTION);
     }
 
     private GrantFlowProcessor getResponsibleGrantFlowProcessor(OAuthRequest oAuthRequest) {
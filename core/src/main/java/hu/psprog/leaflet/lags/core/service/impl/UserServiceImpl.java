@@ -6,6 +6,7 @@ import hu.psprog.leaflet.lags.core.domain.entity.SupportedLocale;
 import hu.psprog.leaflet.lags.core.domain.entity.User;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.domain.internal.ManagedResourceType;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
 import hu.psprog.leaflet.lags.core.domain.request.PasswordResetRequestModel;
 import hu.psprog.leaflet.lags.core.domain.request.UserRequest;
 import hu.psprog.leaflet.lags.core.domain.response.PasswordUpdateModel;
@@ -20,6 +21,7 @@ import hu.psprog.leaflet.lags.core.persistence.dao.UserDAO;
 import hu.psprog.leaflet.lags.core.service.UserManagementService;
 import hu.psprog.leaflet.lags.core.service.UserProfileService;
 import hu.psprog.leaflet.lags.core.service.account.AccountRequestHandler;
+import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
 import hu.psprog.leaflet.lags.core.service.util.PaginationUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,14 +53,17 @@ public class UserServiceImpl implements UserManagementService, UserProfileServic
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final AccountRequestHandler<PasswordResetRequestModel, Void> passwordResetRequestAccountRequestHandler;
+    private final TokenTracker tokenTracker;
 
     @Autowired
     public UserServiceImpl(UserDAO userDAO, UserMapper userMapper, PasswordEncoder passwordEncoder,
-                           AccountRequestHandler<PasswordResetRequestModel, Void> passwordResetRequestAccountRequestHandler) {
+                           AccountRequestHandler<PasswordResetRequestModel, Void> passwordResetRequestAccountRequestHandler,
+                           TokenTracker tokenTracker) {
         this.userDAO = userDAO;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
         this.passwordResetRequestAccountRequestHandler = passwordResetRequestAccountRequestHandler;
+        this.tokenTracker = tokenTracker;
     }
 
     @Override
@@ -102,6 +107,8 @@ public class UserServiceImpl implements UserManagementService, UserProfileServic
 
         log.info("Role of user {} ({}) has been updated to {}", currentUserData.getEmail(), userID, roleID);
 
+        tokenTracker.revokeAllForSubject(TokenSubject.ofUser(userID));
+
         return userMapper.map(currentUserData);
     }
 
@@ -116,6 +123,10 @@ public class UserServiceImpl implements UserManagementService, UserProfileServic
 
         log.info("Status of user {} ({}) updated successfully to enabled={}", currentUserData.getEmail(), userID, enabled);
 
+        if (!enabled) {
+            tokenTracker.revokeAllForSubject(TokenSubject.ofUser(userID));
+        }
+
         return userMapper.map(currentUserData);
     }
 
@@ -219,6 +230,8 @@ public class UserServiceImpl implements UserManagementService, UserProfileServic
 
                 log.warn("User '{}' ({}) has been deleted", user.getUsername(), user.getId());
 
+                tokenTracker.revokeAllForSubject(TokenSubject.ofUser(user.getId()));
+
                 operationResult = ProfileOperationResult.SUCCESS;
             }
 
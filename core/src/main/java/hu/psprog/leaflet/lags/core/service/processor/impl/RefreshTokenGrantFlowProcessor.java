@@ -0,0 +1,108 @@
+package hu.psprog.leaflet.lags.core.service.processor.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import hu.psprog.leaflet.lags.core.service.registry.OAuthRequestVerifierRegistry;
+import hu.psprog.leaflet.lags.core.service.token.RefreshTokenHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * {@link AbstractGrantFlowProcessor} implementation for refresh token grant OAuth2 authorization flow processing.
+ * Renewing the access token only requires a lookup of the refresh token and of the user (no user authentication or
+ * browser redirection is involved).
+ *
+ * Flow specific processing includes:
+ *  - applying the originally granted scope, if the scope is not specified in the request;
+ *  - looking up the user the refresh token has been issued to (the user must still be enabled, and must have the same role);
+ *  - updating the subject claim to include the user ID and adding some further JWT claims (username, role, user display name, user ID);
+ *  - consuming the refresh token (every refresh token can only be used once, reuse revokes the whole token family).
+ *
+ * The refresh token is consumed as the last step, so a failing user lookup (e.g. a transient database error) leaves
+ * it usable, and the retry is not treated as reuse. The consumption is rolled back if the renewed access token cannot
+ * be issued.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class RefreshTokenGrantFlowProcessor extends AbstractGrantFlowProcessor {
+
+    private final RefreshTokenHandler refreshTokenHandler;
+    private final UserDetailsService userDetailsService;
+
+    @Autowired
+    public RefreshTokenGrantFlowProcessor(OAuthRequestVerifierRegistry oAuthRequestVerifierRegistry, RefreshTokenHandler refreshTokenHandler,
+                                          @Qualifier("allLocalUserUserDetailsService") UserDetailsService userDetailsService) {
+        super(oAuthRequestVerifierRegistry);
+        this.refreshTokenHandler = refreshTokenHandler;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public GrantType forGrantType() {
+        return GrantType.REFRESH_TOKEN;
+    }
+
+    @Override
+    protected void doFlowSpecificTokenRequestContextProcessing(OAuthTokenRequestContext context) {
+
+        if (context.getRequest().getScope().isEmpty()) {
+            context.getRefreshToken()
+                    .ifPresent(refreshTokenInfo -> context.getRequest().getScope().addAll(refreshTokenInfo.scope()));
+        }
+    }
+
+    @Override
+    public TokenClaims processTokenRequest(OAuthTokenRequestContext context) {
+
+        TokenClaims claims = super.processTokenRequest(context);
+        refreshTokenHandler.consumeRefreshToken(context);
+
+        return claims;
+    }
+
+    @Override
+    protected TokenClaims.TokenClaimsBuilder generateCustomClaims(OAuthTokenRequestContext context) {
+
+        ExtendedUser user = getCurrentUser(context.getRequiredRefreshToken());
+
+        return super.generateCustomClaims(context)
+                .subject(formatSubject(context, user))
+                .email(user.getUsername())
+                .role(user.getRole())
+                .username(user.getName())
+                .userID(user.getId());
+    }
+
+    private ExtendedUser getCurrentUser(RefreshTokenInfo refreshTokenInfo) {
+
+        UserInfo userInfo = refreshTokenInfo.userInfo();
+        ExtendedUser user;
+        try {
+            user = (ExtendedUser) userDetailsService.loadUserByUsername(userInfo.getEmail());
+        } catch (UsernameNotFoundException exception) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_GRANT, "User of the refresh token does not exist anymore");
+        }
+
+        if (!user.isEnabled() || !Objects.equals(user.getId(), userInfo.getId()) || !Objects.equals(user.getRole(), userInfo.getRole())) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_GRANT, "User of the refresh token has changed, re-authentication is required");
+        }
+
+        return user;
+    }
+
+    private String formatSubject(OAuthTokenRequestContext context, ExtendedUser user) {
+        return String.format("%s|uid=%s", context.getSourceClient().getClientId(), user.getId());
+    }
+}
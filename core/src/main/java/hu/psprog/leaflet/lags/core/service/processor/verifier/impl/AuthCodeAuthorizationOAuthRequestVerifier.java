@@ -2,16 +2,18 @@ package hu.psprog.leaflet.lags.core.service.processor.verifier.impl;
 
 import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
 import hu.psprog.leaflet.lags.core.domain.request.AuthorizationResponseType;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
 import hu.psprog.leaflet.lags.core.service.processor.verifier.OAuthRequestVerifier;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -29,6 +31,13 @@ public class AuthCodeAuthorizationOAuthRequestVerifier implements OAuthRequestVe
 
     private static final List<GrantType> GRANT_TYPES = List.of(GrantType.AUTHORIZATION_CODE);
 
+    private final PermissionDictionary permissionDictionary;
+
+    @Autowired
+    public AuthCodeAuthorizationOAuthRequestVerifier(PermissionDictionary permissionDictionary) {
+        this.permissionDictionary = permissionDictionary;
+    }
+
     @Override
     public void verify(OAuthAuthorizationRequestContext context) {
 
@@ -68,9 +77,10 @@ public class AuthCodeAuthorizationOAuthRequestVerifier implements OAuthRequestVe
     private void verifyScope(OAuthAuthorizationRequestContext context) {
 
         if (!StringUtils.isEmpty(context.getRequest().getScope())) {
-            List<GrantedAuthority> requestedScopes = AuthorityUtils.createAuthorityList(context.getRequest().getScopeAsArray());
+            ScopeSet userAuthorities = context.getAuthenticatedUser().getAuthoritySet(permissionDictionary::encode);
+            ScopeSet requestedScope = permissionDictionary.lookup(Arrays.asList(context.getRequest().getScopeAsArray()));
 
-            if (!context.getAuthenticatedUser().getAuthorities().containsAll(requestedScopes)) {
+            if (!requestedScope.isSubsetOf(userAuthorities)) {
                 throw new OAuthAuthorizationException(OAuthErrorCode.INVALID_SCOPE, "Requested scope is broader than the user's authority range.");
             }
         }
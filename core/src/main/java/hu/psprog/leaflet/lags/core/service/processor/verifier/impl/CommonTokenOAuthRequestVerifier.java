@@ -6,6 +6,8 @@ import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -25,6 +27,13 @@ public class CommonTokenOAuthRequestVerifier extends OAuthTokenRequestFieldExist
 
     private static final List<GrantType> GRANT_TYPES = List.of(GrantType.values());
 
+    private final PermissionDictionary permissionDictionary;
+
+    @Autowired
+    public CommonTokenOAuthRequestVerifier(PermissionDictionary permissionDictionary) {
+        this.permissionDictionary = permissionDictionary;
+    }
+
     @Override
     public void verify(OAuthTokenRequestContext context) {
 
@@ -47,7 +56,7 @@ public class CommonTokenOAuthRequestVerifier extends OAuthTokenRequestFieldExist
 
     private void verifyScope(OAuthTokenRequestContext context) {
 
-        boolean requestedScopeIsAllowed = context.getRelation().getAllowedScopes().containsAll(context.getRequest().getScope());
+        boolean requestedScopeIsAllowed = context.getRelation().allowsAll(permissionDictionary.lookup(context.getRequest().getScope()));
         if (!requestedScopeIsAllowed) {
             throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_SCOPE, String.format("Target client [%s] does not allow the requested scope [%s] for source client [%s]",
                     context.getTargetClient().getClientName(), context.getRequest().getScope(), context.getSourceClient().getClientName()));
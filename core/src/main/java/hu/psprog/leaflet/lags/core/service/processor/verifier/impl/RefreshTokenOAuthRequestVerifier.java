@@ -0,0 +1,72 @@
+package hu.psprog.leaflet.lags.core.service.processor.verifier.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthConstants;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link OAuthTokenRequestFieldExistenceVerifier} implementation for OAuth Refresh Token flow token requests.
+ * The implementation verifies the following aspects:
+ *  - Existence of the Refresh Token field;
+ *  - Existence of the {@link RefreshTokenInfo} object (the refresh token must be known);
+ *  - Client ID and Audience (stored ones in the {@link RefreshTokenInfo} must be the same as the requested ones);
+ *  - Expiration of the refresh token (expired tokens must be rejected);
+ *  - Scope (requested scope must be the same or a subset of the originally granted scope).
+ *
+ * @author Peter Smith
+ */
+@Component
+public class RefreshTokenOAuthRequestVerifier extends OAuthTokenRequestFieldExistenceVerifier {
+
+    private static final List<GrantType> GRANT_TYPES = List.of(GrantType.REFRESH_TOKEN);
+
+    @Override
+    public void verify(OAuthTokenRequestContext context) {
+
+        verifyFieldExistence(context.getRequest(), Map.of(
+                OAuthConstants.Request.REFRESH_TOKEN, OAuthTokenRequest::getRefreshToken
+        ));
+
+        RefreshTokenInfo refreshTokenInfo = context.getRequiredRefreshToken();
+        verifyClient(refreshTokenInfo, context.getRequest());
+        verifyExpiration(refreshTokenInfo);
+        verifyScope(refreshTokenInfo, context.getRequest());
+    }
+
+    @Override
+    public List<GrantType> forGrantType() {
+        return GRANT_TYPES;
+    }
+
+    private void verifyClient(RefreshTokenInfo refreshTokenInfo, OAuthTokenRequest oAuthTokenRequest) {
+
+        if (!refreshTokenInfo.clientID().equals(oAuthTokenRequest.getClientID())
+                || !refreshTokenInfo.audience().equals(oAuthTokenRequest.getAudience())) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_GRANT, "Refresh token belongs to a different client or audience.");
+        }
+    }
+
+    private void verifyExpiration(RefreshTokenInfo refreshTokenInfo) {
+
+        if (refreshTokenInfo.expiresAt().before(new Date())) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_GRANT, "Refresh token has already expired.");
+        }
+    }
+
+    private void verifyScope(RefreshTokenInfo refreshTokenInfo, OAuthTokenRequest oAuthTokenRequest) {
+
+        if (!refreshTokenInfo.scope().containsAll(oAuthTokenRequest.getScope())) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_SCOPE, String.format("Requested scope [%s] exceeds the originally granted scope",
+                    oAuthTokenRequest.getScope()));
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package hu.psprog.leaflet.lags.core.service.registry;
 
-import java.security.PrivateKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import hu.psprog.leaflet.lags.core.domain.internal.SigningKey;
+
 import java.security.PublicKey;
 
 /**
  * Interface for components handling encryption/decryption/signature keys.
+ * Implementations may replace the registered keys at runtime, thus the returned keys should not be retained by the
+ * callers.
  *
  * @author Peter Smith
  */
 public interface KeyRegistry {
 
     /**
-     * Returns the registered private key as {@link PrivateKey} object.
+     * Returns the key to be used for signing new tokens, along with its key ID.
+     *
+     * @return current signing key as {@link SigningKey}
+     */
+    SigningKey getSigningKey();
+
+    /**
+     * Returns the public key registered under the given key ID, to be used for verifying the signature of the tokens
+     * signed by the current or any of the previous still registered keys.
      *
-     * @return the registered private key
+     * @param keyID key ID ("kid") of the key
+     * @return registered public key as {@link PublicKey} object, or {@code null} if no key is registered with the given ID
      */
-    PrivateKey getPrivateKey();
+    PublicKey getVerificationKey(String keyID);
 
     /**
-     * Returns the registered publey key as {@link PublicKey} object.
+     * Returns the public part of every registered key in JWK set format, the current signing key being the first.
      *
-     * @return the registered public key
+     * @return registered public keys as {@link JWKSet}
      */
-    PublicKey getPublicKey();
+    JWKSet getJWKSet();
 }
@@ -1,7 +1,10 @@
 package hu.psprog.leaflet.lags.core.service.registry;
 
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -26,4 +29,23 @@ public interface OAuthClientRegistry {
      * @return registered {@link OAuthClient} wrapped as {@link Optional}, or empty Optional if not found
      */
     Optional<OAuthClient> getClientByAudience(String audience);
+
+    /**
+     * Retrieves the registered OAuth2 clients by their audiences, with a single lookup.
+     * Audiences without registered client are omitted from the returned map.
+     *
+     * @param audiences audiences of the OAuth2 clients
+     * @return registered {@link OAuthClient} objects mapped by their audience
+     */
+    Map<String, OAuthClient> getClientsByAudiences(Collection<String> audiences);
+
+    /**
+     * Retrieves the relation between the given source and target clients from the relation index of the registry,
+     * keyed by the client ID of the source and the audience of the target client.
+     *
+     * @param sourceClient source client as {@link OAuthClient}
+     * @param targetClient target client as {@link OAuthClient}
+     * @return {@link OAuthClientRelation} wrapped as {@link Optional}, or empty Optional if the target client does not allow access for the source client
+     */
+    Optional<OAuthClientRelation> getRelation(OAuthClient sourceClient, OAuthClient targetClient);
 }
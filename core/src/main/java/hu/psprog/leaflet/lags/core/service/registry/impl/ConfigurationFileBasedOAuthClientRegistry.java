@@ -2,17 +2,25 @@ package hu.psprog.leaflet.lags.core.service.registry.impl;
 
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
 import hu.psprog.leaflet.lags.core.service.registry.OAuthClientRegistry;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * {@link OAuthClientRegistry} implementation using a Spring Boot application configuration file as its data source.
+ * Since the registrations cannot change at runtime, the relation index is built once, on startup.
  *
  * @author Peter Smith
  */
@@ -22,10 +30,13 @@ import java.util.function.Function;
 public class ConfigurationFileBasedOAuthClientRegistry implements OAuthClientRegistry {
 
     private final OAuthConfigurationProperties oAuthConfigurationProperties;
+    private final Map<String, Map<String, OAuthClientRelation>> relationIndex;
 
     @Autowired
-    public ConfigurationFileBasedOAuthClientRegistry(OAuthConfigurationProperties oAuthConfigurationProperties) {
+    public ConfigurationFileBasedOAuthClientRegistry(OAuthConfigurationProperties oAuthConfigurationProperties,
+                                                     PermissionDictionary permissionDictionary) {
         this.oAuthConfigurationProperties = oAuthConfigurationProperties;
+        this.relationIndex = buildRelationIndex(oAuthConfigurationProperties, permissionDictionary);
         log.warn("Application is running is legacy registration mode, please consider switching over to dynamic registration mode");
     }
 
@@ -39,10 +50,41 @@ public class ConfigurationFileBasedOAuthClientRegistry implements OAuthClientReg
         return getClient(OAuthClient::getAudience, audience);
     }
 
+    @Override
+    public Map<String, OAuthClient> getClientsByAudiences(Collection<String> audiences) {
+
+        return oAuthConfigurationProperties.getClients().stream()
+                .filter(oAuthClient -> audiences.contains(oAuthClient.getAudience()))
+                .collect(Collectors.toMap(OAuthClient::getAudience, Function.identity(), (first, second) -> first));
+    }
+
+    @Override
+    public Optional<OAuthClientRelation> getRelation(OAuthClient sourceClient, OAuthClient targetClient) {
+
+        return Optional.ofNullable(relationIndex.get(targetClient.getAudience()))
+                .map(relationsOfTarget -> relationsOfTarget.get(sourceClient.getClientId()));
+    }
+
     private Optional<OAuthClient> getClient(Function<OAuthClient, String> clientParameterMapperFunction, String identifier) {
 
         return oAuthConfigurationProperties.getClients().stream()
                 .filter(oAuthClient -> identifier.equals(clientParameterMapperFunction.apply(oAuthClient)))
                 .findFirst();
     }
+
+    private static Map<String, Map<String, OAuthClientRelation>> buildRelationIndex(OAuthConfigurationProperties oAuthConfigurationProperties,
+                                                                                    PermissionDictionary permissionDictionary) {
+
+        Map<String, Map<String, OAuthClientRelation>> relationIndex = new HashMap<>();
+        oAuthConfigurationProperties.getClients().stream()
+                .filter(targetClient -> Objects.nonNull(targetClient.getAudience()))
+                .forEach(targetClient -> oAuthConfigurationProperties.getClients().stream()
+                        .filter(sourceClient -> Objects.nonNull(sourceClient.getClientId()))
+                        .forEach(sourceClient -> OAuthClientRelation.resolve(sourceClient, targetClient, permissionDictionary::encode)
+                                .ifPresent(relation -> relationIndex
+                                        .computeIfAbsent(targetClient.getAudience(), audience -> new HashMap<>())
+                                        .putIfAbsent(sourceClient.getClientId(), relation))));
+
+        return relationIndex;
+    }
 }
@@ -1,17 +1,25 @@
 package hu.psprog.leaflet.lags.core.service.registry.impl;
 
-import hu.psprog.leaflet.lags.core.conversion.OAuthClientConverter;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
-import hu.psprog.leaflet.lags.core.persistence.dao.OAuthApplicationDAO;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
+import hu.psprog.leaflet.lags.core.persistence.dao.OAuthClientReadModelDAO;
 import hu.psprog.leaflet.lags.core.service.registry.OAuthClientRegistry;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * {@link OAuthClientRegistry} implementation to handle OAuth application registrations stored in the database.
+ * Clients are loaded through the read-optimized {@link OAuthClientReadModelDAO}, using a fixed number of queries per lookup,
+ * and are kept in {@link OAuthClientCache}, so repeated lookups of the same client do not reach the database.
+ * The same cache holds the relation index, rebuilt entry by entry after the applications change.
  *
  * @author Peter Smith
  */
@@ -19,26 +27,40 @@ import java.util.Optional;
 @ConditionalOnProperty(name = "oauth2-config.enable-legacy-registration", havingValue = "false", matchIfMissing = true)
 public class DynamicOAuthClientRegistry implements OAuthClientRegistry {
 
-    private final OAuthApplicationDAO oAuthApplicationDAO;
-    private final OAuthClientConverter oAuthClientConverter;
+    private final OAuthClientReadModelDAO oAuthClientReadModelDAO;
+    private final OAuthClientCache oAuthClientCache;
+    private final PermissionDictionary permissionDictionary;
 
     @Autowired
-    public DynamicOAuthClientRegistry(OAuthApplicationDAO oAuthApplicationDAO, OAuthClientConverter oAuthClientConverter) {
-        this.oAuthApplicationDAO = oAuthApplicationDAO;
-        this.oAuthClientConverter = oAuthClientConverter;
+    public DynamicOAuthClientRegistry(OAuthClientReadModelDAO oAuthClientReadModelDAO, OAuthClientCache oAuthClientCache,
+                                      PermissionDictionary permissionDictionary) {
+        this.oAuthClientReadModelDAO = oAuthClientReadModelDAO;
+        this.oAuthClientCache = oAuthClientCache;
+        this.permissionDictionary = permissionDictionary;
     }
 
     @Override
     public Optional<OAuthClient> getClientByClientID(String clientID) {
 
-        return oAuthApplicationDAO.findByClientID(clientID)
-                .map(oAuthClientConverter::convert);
+        return oAuthClientCache.getByClientID(clientID, oAuthClientReadModelDAO::findByClientID);
     }
 
     @Override
     public Optional<OAuthClient> getClientByAudience(String audience) {
 
-        return oAuthApplicationDAO.findByAudience(audience)
-                .map(oAuthClientConverter::convert);
+        return oAuthClientCache.getByAudience(audience, oAuthClientReadModelDAO::findByAudience);
+    }
+
+    @Override
+    public Map<String, OAuthClient> getClientsByAudiences(Collection<String> audiences) {
+
+        return oAuthClientCache.getAllByAudiences(audiences, keys -> oAuthClientReadModelDAO.findAllByAudiences(keys).stream()
+                .collect(Collectors.toMap(OAuthClient::getAudience, Function.identity())));
+    }
+
+    @Override
+    public Optional<OAuthClientRelation> getRelation(OAuthClient sourceClient, OAuthClient targetClient) {
+        return oAuthClientCache.getRelation(sourceClient, targetClient, (source, target) ->
+                OAuthClientRelation.resolve(source, target, permissionDictionary::encode));
     }
 }
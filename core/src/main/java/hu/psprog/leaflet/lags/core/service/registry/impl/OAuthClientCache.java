@@ -0,0 +1,204 @@
+package hu.psprog.leaflet.lags.core.service.registry.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hu.psprog.leaflet.lags.core.domain.config.ClientRegistryCacheSettings;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
+import hu.psprog.leaflet.lags.core.service.util.CacheInvalidationGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the converted {@link OAuthClient} snapshots, indexed by both client ID and audience.
+ * Also holds the relation index, mapping the (source client ID, target audience) pairs to their resolved
+ * {@link OAuthClientRelation}. Only registered clients and existing relations are cached, lookups of unknown clients
+ * and missing relations always reach the given loader.
+ *
+ * Since the snapshots reference other applications (by their allowed client relations), every change of any
+ * application invalidates the whole cache (including the relation index), once the change is committed (on other
+ * service instances as well, if token tracking replication is enabled). The index is then rebuilt entry by entry, as
+ * the relations are requested again. Snapshots and relations loaded before a concurrent invalidation are returned to
+ * the caller, but never cached, since they may already be outdated. Hit and miss statistics are exposed as cache
+ * metrics, tagged with the "oauth-clients" cache name and the index.
+ *
+ * @author Peter Smith
+ */
+@Slf4j
+@Component
+public class OAuthClientCache {
+
+    private static final String CACHE_NAME = "oauth-clients";
+    private static final String INDEX_TAG = "index";
+
+    private final Cache<String, OAuthClient> clientsByClientID;
+    private final Cache<String, OAuthClient> clientsByAudience;
+    private final Cache<RelationKey, OAuthClientRelation> relations;
+    private final CacheInvalidationGuard<String> invalidationGuard = new CacheInvalidationGuard<>();
+
+    @Autowired
+    public OAuthClientCache(OAuthConfigurationProperties oAuthConfigurationProperties, MeterRegistry meterRegistry) {
+
+        ClientRegistryCacheSettings clientRegistryCacheSettings = oAuthConfigurationProperties.getClientRegistryCache();
+
+        this.clientsByClientID = createCache(clientRegistryCacheSettings);
+        this.clientsByAudience = createCache(clientRegistryCacheSettings);
+        this.relations = createCache(clientRegistryCacheSettings);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, clientsByClientID, CACHE_NAME, INDEX_TAG, "client-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, clientsByAudience, CACHE_NAME, INDEX_TAG, "audience");
+        CaffeineCacheMetrics.monitor(meterRegistry, relations, CACHE_NAME, INDEX_TAG, "relation");
+    }
+
+    /**
+     * Returns the cached client identified by the given client ID, or loads it with the given loader and caches it.
+     *
+     * @param clientID client ID of the OAuth2 client
+     * @param loader loader {@link Function} implementation returning the client by its client ID
+     * @return registered {@link OAuthClient} wrapped as {@link Optional}, or empty Optional if not found
+     */
+    public Optional<OAuthClient> getByClientID(String clientID, Function<String, Optional<OAuthClient>> loader) {
+        return get(clientsByClientID, clientID, loader);
+    }
+
+    /**
+     * Returns the cached client identified by the given audience, or loads it with the given loader and caches it.
+     *
+     * @param audience audience of the OAuth2 client
+     * @param loader loader {@link Function} implementation returning the client by its audience
+     * @return registered {@link OAuthClient} wrapped as {@link Optional}, or empty Optional if not found
+     */
+    public Optional<OAuthClient> getByAudience(String audience, Function<String, Optional<OAuthClient>> loader) {
+        return get(clientsByAudience, audience, loader);
+    }
+
+    /**
+     * Returns the cached clients identified by the given audiences. Clients missing from the cache are loaded by a
+     * single call of the given batch loader, passing only the audiences not found in the cache.
+     *
+     * @param audiences audiences of the OAuth2 clients
+     * @param batchLoader loader {@link Function} implementation returning the clients mapped by their audience
+     * @return registered {@link OAuthClient} objects mapped by their audience
+     */
+    public Map<String, OAuthClient> getAllByAudiences(Collection<String> audiences,
+                                                      Function<Collection<String>, Map<String, OAuthClient>> batchLoader) {
+
+        Map<String, OAuthClient> clients = new HashMap<>(clientsByAudience.getAllPresent(audiences));
+        List<String> missingAudiences = audiences.stream()
+                .filter(audience -> !clients.containsKey(audience))
+                .distinct()
+                .toList();
+
+        if (!missingAudiences.isEmpty()) {
+            long invalidationCountBeforeLoading = invalidationGuard.getInvalidationCount();
+            Map<String, OAuthClient> loadedClients = batchLoader.apply(missingAudiences);
+            loadedClients.values().forEach(client -> cacheClient(client, invalidationCountBeforeLoading));
+            clients.putAll(loadedClients);
+        }
+
+        return clients;
+    }
+
+    /**
+     * Returns the cached relation between the given source and target clients, or resolves it with the given loader
+     * and caches it.
+     *
+     * @param sourceClient source client as {@link OAuthClient}
+     * @param targetClient target client as {@link OAuthClient}
+     * @param loader loader {@link BiFunction} implementation resolving the relation of the given clients
+     * @return {@link OAuthClientRelation} wrapped as {@link Optional}, or empty Optional if the target client does not allow access for the source client
+     */
+    public Optional<OAuthClientRelation> getRelation(OAuthClient sourceClient, OAuthClient targetClient,
+                                                     BiFunction<OAuthClient, OAuthClient, Optional<OAuthClientRelation>> loader) {
+
+        if (Objects.isNull(sourceClient.getClientId()) || Objects.isNull(targetClient.getAudience())) {
+            return loader.apply(sourceClient, targetClient);
+        }
+
+        RelationKey key = new RelationKey(sourceClient.getClientId(), targetClient.getAudience());
+        OAuthClientRelation cachedRelation = relations.getIfPresent(key);
+        if (Objects.nonNull(cachedRelation)) {
+            return Optional.of(cachedRelation);
+        }
+
+        long invalidationCountBeforeLoading = invalidationGuard.getInvalidationCount();
+        Optional<OAuthClientRelation> loadedRelation = loader.apply(sourceClient, targetClient);
+        loadedRelation.ifPresent(relation -> invalidationGuard.runIfNotInvalidatedSince(invalidationCountBeforeLoading, () -> relations.put(key, relation)));
+
+        return loadedRelation;
+    }
+
+    /**
+     * Invalidates every cached client after the given change of an application is committed.
+     *
+     * @param event {@link OAuthApplicationChangeEvent} describing the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onApplicationChange(OAuthApplicationChangeEvent event) {
+
+        invalidationGuard.invalidateAll(() -> {
+            clientsByClientID.invalidateAll();
+            clientsByAudience.invalidateAll();
+            relations.invalidateAll();
+        });
+
+        log.info("OAuth client cache invalidated on {}change={} of application={}", event.replicated() ? "replicated " : "", event.type(), event.applicationID());
+    }
+
+    private Optional<OAuthClient> get(Cache<String, OAuthClient> cache, String key, Function<String, Optional<OAuthClient>> loader) {
+
+        if (Objects.isNull(key)) {
+            return loader.apply(null);
+        }
+
+        OAuthClient cachedClient = cache.getIfPresent(key);
+        if (Objects.nonNull(cachedClient)) {
+            return Optional.of(cachedClient);
+        }
+
+        long invalidationCountBeforeLoading = invalidationGuard.getInvalidationCount();
+        Optional<OAuthClient> loadedClient = loader.apply(key);
+        loadedClient.ifPresent(client -> cacheClient(client, invalidationCountBeforeLoading));
+
+        return loadedClient;
+    }
+
+    private void cacheClient(OAuthClient client, long invalidationCountBeforeLoading) {
+
+        invalidationGuard.runIfNotInvalidatedSince(invalidationCountBeforeLoading, () -> {
+            if (Objects.nonNull(client.getClientId())) {
+                clientsByClientID.put(client.getClientId(), client);
+            }
+            if (Objects.nonNull(client.getAudience())) {
+                clientsByAudience.put(client.getAudience(), client);
+            }
+        });
+    }
+
+    private static <K, V> Cache<K, V> createCache(ClientRegistryCacheSettings clientRegistryCacheSettings) {
+
+        return Caffeine.newBuilder()
+                .maximumSize(clientRegistryCacheSettings.getMaximumSize())
+                .expireAfterWrite(clientRegistryCacheSettings.getTimeToLive())
+                .recordStats()
+                .build();
+    }
+
+    private record RelationKey(String sourceClientID, String targetAudience) {
+    }
+}
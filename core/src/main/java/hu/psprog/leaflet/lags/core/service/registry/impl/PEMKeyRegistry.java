@@ -0,0 +1,375 @@
+package hu.psprog.leaflet.lags.core.service.registry.impl;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthTokenSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.SigningKey;
+import hu.psprog.leaflet.lags.core.security.signature.SignatureAlgorithmFamily;
+import hu.psprog.leaflet.lags.core.security.signature.SignatureComponentFactory;
+import hu.psprog.leaflet.lags.core.service.registry.KeyRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.KeySpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link KeyRegistry} implementation for PEM encoded RSA, EC and Ed25519 keys.
+ * Can be used for signing JWT tokens.
+ *
+ * Upon instantiation this implementation loads the private (PKCS#8) and public (X.509) keys defined by
+ * {@code oauth2-config.token.private-key-file} and {@code oauth2-config.token.public-key-file} configuration
+ * parameters, registered under the key ID defined by {@code oauth2-config.token.key-id}. The type of the keys is
+ * determined by the {@code oauth2-config.token.signature-algorithm} parameter.
+ *
+ * If {@code oauth2-config.token.key-directory} is configured, the key pairs are loaded from the given directory
+ * instead, named as {@code <kid>.private.pem} and {@code <kid>.public.pem}. The directory is watched for changes, and
+ * reloaded without restart: every complete key pair is registered for verification (and published in the JWK set),
+ * while the key pair with the most recently modified private key file becomes the signing key. A key added while the
+ * service is running is only published at first, and becomes the signing key once
+ * {@code oauth2-config.token.key-activation-delay} has elapsed (the previous signing key keeps signing meanwhile), so
+ * the resource servers can refresh their cached JWK set before receiving tokens signed by the new key. The registered
+ * keys are replaced atomically, so a key ID is never paired with a different signing key, and the previous keys keep
+ * verifying the tokens they have signed until their files are removed. Key pairs of not matching private and public
+ * keys are rejected.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Slf4j
+public class PEMKeyRegistry implements KeyRegistry {
+
+    private static final String PRIVATE_KEY_FILE_SUFFIX = ".private.pem";
+    private static final String PUBLIC_KEY_FILE_SUFFIX = ".public.pem";
+    private static final String WATCHER_THREAD_NAME = "key-directory-watcher";
+    private static final long CHANGE_SETTLE_TIME_IN_MILLISECONDS = 500;
+    private static final Payload KEY_PAIR_CHECK_PAYLOAD = new Payload("key-pair-check");
+
+    private final OAuthConfigurationProperties oAuthConfigurationProperties;
+
+    private final Map<String, Instant> keyActivationTimes = new HashMap<>();
+
+    private volatile RegisteredKeys registeredKeys;
+    private WatchService watchService;
+
+    @Autowired
+    public PEMKeyRegistry(OAuthConfigurationProperties oAuthConfigurationProperties) {
+        this.oAuthConfigurationProperties = oAuthConfigurationProperties;
+    }
+
+    @PostConstruct
+    public void readKeys() {
+
+        OAuthTokenSettings tokenSettings = oAuthConfigurationProperties.getToken();
+        if (Objects.isNull(tokenSettings.getKeyDirectory())) {
+            registeredKeys = createRegisteredKeys(List.of(loadKeyPair(tokenSettings.getKeyID(),
+                    tokenSettings.getPrivateKeyFile(), tokenSettings.getPublicKeyFile())));
+        } else {
+            reloadKeys();
+            if (Objects.isNull(registeredKeys)) {
+                throw new IllegalStateException(String.format("No valid key pair found in key directory [%s]", tokenSettings.getKeyDirectory()));
+            }
+            startWatching(tokenSettings.getKeyDirectory());
+        }
+    }
+
+    /**
+     * Stops watching the key directory.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException {
+
+        if (Objects.nonNull(watchService)) {
+            watchService.close();
+        }
+    }
+
+    @Override
+    public SigningKey getSigningKey() {
+
+        RegisteredKeys currentKeys = registeredKeys;
+
+        return Objects.nonNull(currentKeys.pendingSigningKey()) && !Instant.now().isBefore(currentKeys.pendingSigningKeyActivatesAt())
+                ? currentKeys.pendingSigningKey()
+                : currentKeys.signingKey();
+    }
+
+    @Override
+    public PublicKey getVerificationKey(String keyID) {
+        return registeredKeys.verificationKeys().get(keyID);
+    }
+
+    @Override
+    public JWKSet getJWKSet() {
+        return registeredKeys.jwkSet();
+    }
+
+    /**
+     * Loads every complete key pair from the key directory, and replaces the registered keys with them. Key pairs
+     * failing to load (e.g. a key file still being written, or not matching keys) are skipped, and the registered keys
+     * are left untouched if none of the key pairs could be loaded. Keys found on the first load are activated for
+     * signing immediately, while the ones added later are activated after the configured delay.
+     */
+    void reloadKeys() {
+
+        Path keyDirectory = oAuthConfigurationProperties.getToken().getKeyDirectory();
+        List<KeyPairEntry> keyPairs = new ArrayList<>();
+
+        try (Stream<Path> keyFiles = Files.list(keyDirectory)) {
+            List<Path> privateKeyFiles = keyFiles
+                    .filter(keyFile -> keyFile.getFileName().toString().endsWith(PRIVATE_KEY_FILE_SUFFIX))
+                    .sorted(Comparator.comparing(this::getLastModifiedTime).reversed()
+                            .thenComparing(Comparator.comparing(Path::getFileName).reversed()))
+                    .toList();
+
+            for (Path privateKeyFile : privateKeyFiles) {
+                String keyID = privateKeyFile.getFileName().toString().replace(PRIVATE_KEY_FILE_SUFFIX, "");
+                Path publicKeyFile = keyDirectory.resolve(keyID + PUBLIC_KEY_FILE_SUFFIX);
+                try {
+                    keyPairs.add(loadKeyPair(keyID, privateKeyFile, publicKeyFile));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    log.warn("Skipping key pair [{}]: {}", keyID, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list key directory [{}]", keyDirectory, e);
+        }
+
+        if (keyPairs.isEmpty()) {
+            log.error("No valid key pair found in key directory [{}], keeping the currently registered keys", keyDirectory);
+        } else {
+            updateKeyActivationTimes(keyPairs);
+            registeredKeys = createRegisteredKeys(keyPairs);
+            log.info("Registered {} key pair(s), signing with key [{}]", keyPairs.size(), registeredKeys.signingKey().keyID());
+            if (Objects.nonNull(registeredKeys.pendingSigningKey())) {
+                log.info("Key [{}] is going to be activated for signing at {}", registeredKeys.pendingSigningKey().keyID(),
+                        registeredKeys.pendingSigningKeyActivatesAt());
+            }
+        }
+    }
+
+    private void startWatching(Path keyDirectory) {
+
+        try {
+            watchService = keyDirectory.getFileSystem().newWatchService();
+            keyDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to watch key directory [%s]", keyDirectory), e);
+        }
+
+        Thread.ofPlatform()
+                .name(WATCHER_THREAD_NAME)
+                .daemon()
+                .start(this::watchKeyDirectory);
+    }
+
+    private void watchKeyDirectory() {
+
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                do {
+                    watchKey.pollEvents();
+                    watchKey.reset();
+                    watchKey = watchService.poll(CHANGE_SETTLE_TIME_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+                } while (Objects.nonNull(watchKey));
+                try {
+                    reloadKeys();
+                } catch (RuntimeException e) {
+                    log.error("Failed to reload keys from key directory, keeping the currently registered keys", e);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.info("Stopped watching key directory");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void updateKeyActivationTimes(List<KeyPairEntry> keyPairs) {
+
+        boolean initialLoad = Objects.isNull(registeredKeys);
+        Instant activatesAt = Instant.now().plus(oAuthConfigurationProperties.getToken().getKeyActivationDelay());
+
+        keyActivationTimes.keySet().retainAll(keyPairs.stream().map(KeyPairEntry::keyID).toList());
+        keyPairs.forEach(keyPair -> keyActivationTimes.putIfAbsent(keyPair.keyID(), initialLoad ? Instant.EPOCH : activatesAt));
+    }
+
+    private RegisteredKeys createRegisteredKeys(List<KeyPairEntry> keyPairs) {
+
+        JWSAlgorithm signatureAlgorithm = oAuthConfigurationProperties.getToken().getSignatureAlgorithm();
+        Instant now = Instant.now();
+        KeyPairEntry newestKeyPair = keyPairs.getFirst();
+        Instant newestKeyActivatesAt = keyActivationTimes.getOrDefault(newestKeyPair.keyID(), Instant.EPOCH);
+
+        // the most recent already active key keeps signing until the newest one is activated (if there is no such key,
+        // the newest one has to be used right away)
+        KeyPairEntry signingKeyPair = newestKeyPair;
+        SigningKey pendingSigningKey = null;
+        if (now.isBefore(newestKeyActivatesAt)) {
+            KeyPairEntry activeKeyPair = keyPairs.stream()
+                    .filter(keyPair -> !now.isBefore(keyActivationTimes.getOrDefault(keyPair.keyID(), Instant.EPOCH)))
+                    .findFirst()
+                    .orElse(null);
+            if (Objects.nonNull(activeKeyPair)) {
+                signingKeyPair = activeKeyPair;
+                pendingSigningKey = new SigningKey(newestKeyPair.keyID(), SignatureComponentFactory.createSigner(signatureAlgorithm, newestKeyPair.privateKey()));
+            } else {
+                log.warn("No active signing key left, activating key [{}] without delay", newestKeyPair.keyID());
+            }
+        }
+
+        Map<String, PublicKey> verificationKeys = keyPairs.stream()
+                .collect(Collectors.toMap(KeyPairEntry::keyID, KeyPairEntry::publicKey, (first, second) -> first, LinkedHashMap::new));
+        List<JWK> jwks = verificationKeys.entrySet().stream()
+                .map(entry -> SignatureComponentFactory.createJWK(signatureAlgorithm, entry.getValue(), entry.getKey()))
+                .toList();
+
+        return new RegisteredKeys(
+                new SigningKey(signingKeyPair.keyID(), SignatureComponentFactory.createSigner(signatureAlgorithm, signingKeyPair.privateKey())),
+                pendingSigningKey,
+                newestKeyActivatesAt,
+                Map.copyOf(verificationKeys),
+                new JWKSet(jwks));
+    }
+
+    private KeyPairEntry loadKeyPair(String keyID, Path privateKeyFile, Path publicKeyFile) {
+
+        String keyAlgorithm = getKeyAlgorithm();
+        KeyPairEntry keyPair = new KeyPairEntry(keyID, loadPrivateKey(keyAlgorithm, privateKeyFile), loadPublicKey(keyAlgorithm, publicKeyFile));
+        verifyKeyPair(keyPair);
+
+        return keyPair;
+    }
+
+    private void verifyKeyPair(KeyPairEntry keyPair) {
+
+        JWSAlgorithm signatureAlgorithm = oAuthConfigurationProperties.getToken().getSignatureAlgorithm();
+        JWSObject probe = new JWSObject(new JWSHeader(signatureAlgorithm), KEY_PAIR_CHECK_PAYLOAD);
+
+        boolean matching;
+        try {
+            probe.sign(SignatureComponentFactory.createSigner(signatureAlgorithm, keyPair.privateKey()));
+            matching = probe.verify(SignatureComponentFactory.createVerifier(signatureAlgorithm, keyPair.publicKey()));
+        } catch (JOSEException e) {
+            matching = false;
+        }
+
+        if (!matching) {
+            throw new IllegalArgumentException(String.format("Private and public keys of key pair [%s] do not match", keyPair.keyID()));
+        }
+    }
+
+    private String getKeyAlgorithm() {
+
+        return SignatureAlgorithmFamily.forAlgorithm(oAuthConfigurationProperties.getToken().getSignatureAlgorithm())
+                .getKeyAlgorithm();
+    }
+
+    private FileTime getLastModifiedTime(Path keyFile) {
+
+        try {
+            return Files.getLastModifiedTime(keyFile);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private PrivateKey loadPrivateKey(String keyAlgorithm, Path keyFile) {
+
+        log.info("Loading private {} key from path [{}]", keyAlgorithm, keyFile.toString());
+
+        return loadKey(keyAlgorithm, keyFile, (keyFactory, pkcs8EncodedKeySpec) -> {
+            try {
+                return keyFactory.generatePrivate(pkcs8EncodedKeySpec);
+            } catch (InvalidKeySpecException e) {
+                throw new IllegalArgumentException("Failed to generate private key from key file", e);
+            }
+        }, PKCS8EncodedKeySpec::new);
+    }
+
+    private PublicKey loadPublicKey(String keyAlgorithm, Path keyFile) {
+
+        log.info("Loading public {} key from path [{}]", keyAlgorithm, keyFile.toString());
+
+        return loadKey(keyAlgorithm, keyFile, (keyFactory, x509EncodedKeySpec) -> {
+            try {
+                return keyFactory.generatePublic(x509EncodedKeySpec);
+            } catch (InvalidKeySpecException e) {
+                throw new IllegalArgumentException("Failed to generate public key from key file", e);
+            }
+        }, X509EncodedKeySpec::new);
+    }
+
+    private <K extends Key> K loadKey(String keyAlgorithm, Path keyFile, BiFunction<KeyFactory, KeySpec, K> keyGeneratorFunction,
+                                      Function<byte[], KeySpec> keySpecFunction) {
+
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm);
+            byte[] encodedKeyContent = getEncodedKeyContent(keyFile);
+            KeySpec keySpec = keySpecFunction.apply(encodedKeyContent);
+
+            return keyGeneratorFunction.apply(keyFactory, keySpec);
+
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException(String.format("Failed to load %s keyfile=[%s]", keyAlgorithm, keyFile.getFileName()));
+        }
+    }
+
+    private byte[] getEncodedKeyContent(Path keyFilePath) throws IOException {
+
+        List<String> keyLines = Files.readAllLines(keyFilePath);
+        String keyContent = keyLines.stream()
+                .limit(keyLines.size() - 1)
+                .skip(1)
+                .collect(Collectors.joining());
+
+        return Base64.getDecoder().decode(keyContent);
+    }
+
+    private record KeyPairEntry(String keyID, PrivateKey privateKey, PublicKey publicKey) {
+    }
+
+    private record RegisteredKeys(SigningKey signingKey, SigningKey pendingSigningKey, Instant pendingSigningKeyActivatesAt,
+                                  Map<String, PublicKey> verificationKeys, JWKSet jwkSet) {
+    }
+}
@@ -0,0 +1,32 @@
+package hu.psprog.leaflet.lags.core.service.replication;
+
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicationBatch;
+
+import java.util.Map;
+
+/**
+ * Transport layer of the token tracking replication, delivering mutations between the service instances.
+ * Implementations are expected to throw an exception if the peer could not be reached, so the caller can rely on the
+ * anti-entropy catch-up to deliver the failed mutations later.
+ *
+ * @author Peter Smith
+ */
+public interface ReplicationTransport {
+
+    /**
+     * Pushes a batch of mutations to the given peer.
+     *
+     * @param peer address of the peer
+     * @param replicationBatch {@link ReplicationBatch} containing the mutations to be pushed
+     */
+    void push(String peer, ReplicationBatch replicationBatch);
+
+    /**
+     * Requests the mutations not yet applied by this node from the given peer.
+     *
+     * @param peer address of the peer
+     * @param appliedSequences highest sequence number applied by this node, per origin node
+     * @return {@link ReplicationBatch} containing the missing mutations, as known by the peer
+     */
+    ReplicationBatch catchUp(String peer, Map<String, Long> appliedSequences);
+}
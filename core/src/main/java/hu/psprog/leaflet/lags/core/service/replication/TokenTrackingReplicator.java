@@ -0,0 +1,48 @@
+package hu.psprog.leaflet.lags.core.service.replication;
+
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicationBatch;
+
+import java.util.Map;
+
+/**
+ * Replication of the token tracking mutations between multiple service instances.
+ * Every node assigns a sequence number to its own mutations, and pushes them to its peers. Received mutations are
+ * applied on the local token tracker, and kept in a log until the affected token expires, so the node is able to serve
+ * catch-up requests of its peers for the mutations they missed (e.g. after a network partition or a restart).
+ *
+ * @author Peter Smith
+ */
+public interface TokenTrackingReplicator {
+
+    /**
+     * Returns the ID of this node.
+     *
+     * @return ID of the node
+     */
+    String getNodeID();
+
+    /**
+     * Applies the mutations pushed by a peer.
+     *
+     * @param replicationBatch {@link ReplicationBatch} containing the pushed mutations
+     */
+    void receive(ReplicationBatch replicationBatch);
+
+    /**
+     * Collects the mutations known by this node, not yet applied by the requesting peer.
+     *
+     * @param appliedSequences highest sequence number applied by the requesting peer, per origin node
+     * @return {@link ReplicationBatch} containing the missing mutations
+     */
+    ReplicationBatch catchUp(Map<String, Long> appliedSequences);
+
+    /**
+     * Pushes the pending local mutations to every peer.
+     */
+    void pushPendingMutations();
+
+    /**
+     * Executes an anti-entropy round, requesting the missed mutations from every peer.
+     */
+    void synchronize();
+}
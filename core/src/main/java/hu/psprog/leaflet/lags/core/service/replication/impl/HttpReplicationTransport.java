@@ -0,0 +1,68 @@
+package hu.psprog.leaflet.lags.core.service.replication.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.ReplicationSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicationBatch;
+import hu.psprog.leaflet.lags.core.service.replication.ReplicationTransport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH_OAUTH_REPLICATION_CATCH_UP;
+import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH_OAUTH_REPLICATION_PUSH;
+
+/**
+ * HTTP based implementation of {@link ReplicationTransport}.
+ * Peers are called on their replication endpoints, authenticating with the credentials of the OAuth application
+ * configured for the replication (via HTTP Basic authentication, the same way as clients authenticate on the token
+ * endpoint).
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2-config.token-tracking.replication.enabled", havingValue = "true")
+public class HttpReplicationTransport implements ReplicationTransport {
+
+    private final RestClient restClient;
+
+    @Autowired
+    public HttpReplicationTransport(OAuthConfigurationProperties oAuthConfigurationProperties) {
+
+        ReplicationSettings replicationSettings = oAuthConfigurationProperties.getTokenTracking().getReplication();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(replicationSettings.getRequestTimeout());
+        requestFactory.setReadTimeout(replicationSettings.getRequestTimeout());
+
+        this.restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .defaultHeaders(headers -> headers.setBasicAuth(replicationSettings.getClientID(), replicationSettings.getClientSecret()))
+                .build();
+    }
+
+    @Override
+    public void push(String peer, ReplicationBatch replicationBatch) {
+
+        restClient.post()
+                .uri(peer + PATH_OAUTH_REPLICATION_PUSH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(replicationBatch)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    @Override
+    public ReplicationBatch catchUp(String peer, Map<String, Long> appliedSequences) {
+
+        return restClient.post()
+                .uri(peer + PATH_OAUTH_REPLICATION_CATCH_UP)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(appliedSequences)
+                .retrieve()
+                .body(ReplicationBatch.class);
+    }
+}
@@ -0,0 +1,95 @@
+package hu.psprog.leaflet.lags.core.service.replication.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicatedMutation;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Log of the replicated token tracking mutations, ordered by sequence number per origin node.
+ * Mutations are only kept while they are relevant: stored and revoked mutations until the affected token expires,
+ * clean-up mutations until a newer clean-up supersedes them, application change mutations until their given end of
+ * relevance. Thus the log is bounded by the number of live tokens,
+ * and a catch-up from the log always results in the complete live state. Irrelevant mutations are located by an
+ * {@link ExpiryIndex}, so pruning the log does not require scanning it.
+ *
+ * @author Peter Smith
+ */
+class ReplicationLog {
+
+    private final Map<String, ConcurrentNavigableMap<Long, ReplicatedMutation>> mutationsByOrigin = new ConcurrentHashMap<>();
+    private final ExpiryIndex<ReplicatedMutation> expiryIndex = new ExpiryIndex<>();
+
+    /**
+     * Appends the given mutation to the log of its origin node.
+     *
+     * @param mutation {@link ReplicatedMutation} to be appended
+     */
+    void append(ReplicatedMutation mutation) {
+
+        mutationsByOrigin.computeIfAbsent(mutation.originNodeID(), originNodeID -> new ConcurrentSkipListMap<>())
+                .put(mutation.sequence(), mutation);
+
+        Date relevantUntil = getRelevantUntil(mutation);
+        if (Objects.nonNull(relevantUntil)) {
+            expiryIndex.add(mutation, relevantUntil.toInstant());
+        }
+    }
+
+    /**
+     * Collects the logged mutations having higher sequence number than the given ones, per origin node.
+     * Every mutation of an origin node missing from the given map is returned.
+     *
+     * @param appliedSequences highest applied sequence number per origin node
+     * @return list of the missing {@link ReplicatedMutation} objects, ordered by sequence number per origin node
+     */
+    List<ReplicatedMutation> getMutationsAfter(Map<String, Long> appliedSequences) {
+
+        List<ReplicatedMutation> mutations = new ArrayList<>();
+        mutationsByOrigin.forEach((originNodeID, originMutations) ->
+                mutations.addAll(originMutations.tailMap(appliedSequences.getOrDefault(originNodeID, 0L), false).values()));
+
+        return mutations;
+    }
+
+    /**
+     * Removes the mutations not relevant anymore: stored and revoked mutations of tokens expired before the threshold,
+     * as well as clean-up mutations with a threshold before the given one. As the underlying {@link ExpiryIndex} works
+     * with per-minute buckets, mutations are removed at most a minute later.
+     *
+     * @param threshold expiration threshold
+     * @return number of removed mutations
+     */
+    int prune(Date threshold) {
+
+        return expiryIndex.drainExpired(threshold.toInstant(), mutation ->
+                mutationsByOrigin.get(mutation.originNodeID()).remove(mutation.sequence(), mutation));
+    }
+
+    /**
+     * Returns the number of logged mutations.
+     *
+     * @return number of logged mutations
+     */
+    int size() {
+
+        return mutationsByOrigin.values().stream()
+                .mapToInt(Map::size)
+                .sum();
+    }
+
+    private Date getRelevantUntil(ReplicatedMutation mutation) {
+
+        return mutation.type() == TokenTrackingEvent.Type.EXPIRED
+                ? mutation.threshold()
+                : mutation.expiresAt();
+    }
+}
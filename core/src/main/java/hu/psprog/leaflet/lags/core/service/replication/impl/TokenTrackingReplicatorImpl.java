@@ -0,0 +1,341 @@
+package hu.psprog.leaflet.lags.core.service.replication.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.ReplicationSettings;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingMode;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicatedMutation;
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicationBatch;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.service.replication.ReplicationTransport;
+import hu.psprog.leaflet.lags.core.service.replication.TokenTrackingReplicator;
+import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Implementation of {@link TokenTrackingReplicator}.
+ * Local mutations are collected from the {@link TokenTrackingEvent}s published by the token tracker, numbered, logged
+ * and queued for the next push. Received mutations are applied on the token tracker, which publishes them as
+ * replicated events, so they are never pushed again. A node only advances its complete sequence number of an origin
+ * node over contiguous mutations: mutations received after a gap are still applied (as applying them is idempotent and
+ * order independent), and remembered until the gap is closed.
+ *
+ * Gaps are closed by the anti-entropy rounds: the node requests every mutation after its complete sequence numbers,
+ * and the peer responds with every such mutation of its log, along with its own complete sequence numbers. As the peer
+ * has applied (and logged) every mutation up to those, and the pruned ones are not relevant anymore, the node can
+ * advance its complete sequence numbers to the ones of the peer, once it has applied the whole returned range.
+ *
+ * Changes of the OAuth applications are replicated the same way, so the client caches of every node are invalidated
+ * on them: committed local changes are logged and pushed as mutations, while the received ones are published as
+ * replicated {@link OAuthApplicationChangeEvent}s. These mutations are only kept in the log until the client caches
+ * would expire the affected entries anyway.
+ *
+ * In denylist mode only the revocations (of single tokens or whole subjects) and the clean-ups are replicated, as the
+ * issued tokens are not tracked at all, so the replication traffic does not grow with the issued tokens.
+ *
+ * Node IDs are generated on every startup (prefixed by the configured node name), so a restarted node never reuses the
+ * sequence numbers of its previous run.
+ *
+ * Enabled by setting oauth2-config.token-tracking.replication.enabled to true.
+ *
+ * @author Peter Smith
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2-config.token-tracking.replication.enabled", havingValue = "true")
+@Slf4j
+public class TokenTrackingReplicatorImpl implements TokenTrackingReplicator {
+
+    private static final Comparator<ReplicatedMutation> MUTATION_ORDER = Comparator.comparing(ReplicatedMutation::originNodeID)
+            .thenComparingLong(ReplicatedMutation::sequence);
+
+    private final TokenTracker tokenTracker;
+    private final ReplicationTransport replicationTransport;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final List<String> peers;
+    private final String nodeID;
+    private final Duration applicationChangeRetention;
+    private final boolean denylistMode;
+    private final ReplicationLog replicationLog = new ReplicationLog();
+    private final Queue<ReplicatedMutation> pendingMutations = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> completeSequences = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Long>> appliedAfterGap = new HashMap<>();
+    private final Object sequenceLock = new Object();
+    private long sequence;
+
+    @Autowired
+    public TokenTrackingReplicatorImpl(TokenTracker tokenTracker, ReplicationTransport replicationTransport,
+                                       ApplicationEventPublisher applicationEventPublisher,
+                                       OAuthConfigurationProperties oAuthConfigurationProperties) {
+
+        ReplicationSettings replicationSettings = oAuthConfigurationProperties.getTokenTracking().getReplication();
+        Duration clientRegistryCacheTimeToLive = oAuthConfigurationProperties.getClientRegistryCache().getTimeToLive();
+        Duration clientCredentialCacheTimeToLive = oAuthConfigurationProperties.getClientCredentialCache().getTimeToLive();
+
+        this.tokenTracker = tokenTracker;
+        this.replicationTransport = replicationTransport;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.peers = replicationSettings.getPeers();
+        this.nodeID = String.format("%s-%s", replicationSettings.getNodeName(), UUID.randomUUID());
+        this.applicationChangeRetention = clientRegistryCacheTimeToLive.compareTo(clientCredentialCacheTimeToLive) > 0
+                ? clientRegistryCacheTimeToLive
+                : clientCredentialCacheTimeToLive;
+        this.denylistMode = oAuthConfigurationProperties.getTokenTracking().getMode() == TokenTrackingMode.DENYLIST;
+    }
+
+    /**
+     * Registers the local token tracking mutations for replication.
+     * Replicated events (mutations received from other nodes) are ignored, as well as the stored tokens in denylist mode.
+     *
+     * @param event {@link TokenTrackingEvent} describing the mutation
+     */
+    @EventListener
+    public void onTokenTrackingEvent(TokenTrackingEvent event) {
+
+        if (event.replicated() || (denylistMode && event.type() == TokenTrackingEvent.Type.STORED)) {
+            return;
+        }
+
+        if (event.type() == TokenTrackingEvent.Type.EXPIRED) {
+            replicationLog.prune(event.threshold());
+        }
+
+        synchronized (sequenceLock) {
+            appendLocalMutation(toMutation(event, ++sequence));
+        }
+    }
+
+    /**
+     * Registers the committed local changes of the OAuth applications for replication.
+     * Replicated events (changes received from other nodes) are ignored.
+     *
+     * @param event {@link OAuthApplicationChangeEvent} describing the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onApplicationChange(OAuthApplicationChangeEvent event) {
+
+        if (event.replicated()) {
+            return;
+        }
+
+        synchronized (sequenceLock) {
+            appendLocalMutation(ReplicatedMutation.builder()
+                    .originNodeID(nodeID)
+                    .sequence(++sequence)
+                    .expiresAt(Date.from(Instant.now().plus(applicationChangeRetention)))
+                    .applicationID(event.applicationID())
+                    .applicationChangeType(event.type())
+                    .build());
+        }
+    }
+
+    @Override
+    public String getNodeID() {
+        return nodeID;
+    }
+
+    @Override
+    public void receive(ReplicationBatch replicationBatch) {
+
+        log.debug("Received {} mutation(s) from node {}", replicationBatch.mutations().size(), replicationBatch.senderNodeID());
+        applyMutations(replicationBatch.mutations());
+    }
+
+    @Override
+    public ReplicationBatch catchUp(Map<String, Long> appliedSequences) {
+
+        // complete sequences must be captured first, so the returned mutations cover every one of them
+        Map<String, Long> currentlyCompleteSequences = getCompleteSequences();
+
+        return new ReplicationBatch(nodeID, replicationLog.getMutationsAfter(appliedSequences), currentlyCompleteSequences);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${oauth2-config.token-tracking.replication.push-interval:PT0.1S}")
+    public void pushPendingMutations() {
+
+        List<ReplicatedMutation> mutations = new ArrayList<>();
+        ReplicatedMutation mutation;
+        while (Objects.nonNull(mutation = pendingMutations.poll())) {
+            mutations.add(mutation);
+        }
+
+        if (!mutations.isEmpty()) {
+            ReplicationBatch replicationBatch = new ReplicationBatch(nodeID, mutations, getCompleteSequences());
+            peers.forEach(peer -> push(peer, replicationBatch));
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${oauth2-config.token-tracking.replication.anti-entropy-interval:PT30S}")
+    public void synchronize() {
+
+        peers.forEach(this::catchUpWith);
+    }
+
+    private void push(String peer, ReplicationBatch replicationBatch) {
+
+        try {
+            replicationTransport.push(peer, replicationBatch);
+        } catch (Exception exception) {
+            log.warn("Failed to push {} mutation(s) to peer {}, peer will catch up on the next anti-entropy round: {}",
+                    replicationBatch.mutations().size(), peer, exception.getMessage());
+        }
+    }
+
+    private void catchUpWith(String peer) {
+
+        try {
+            ReplicationBatch replicationBatch = replicationTransport.catchUp(peer, getCompleteSequences());
+            applyCatchUp(replicationBatch);
+
+            if (!replicationBatch.mutations().isEmpty()) {
+                log.info("Caught up with peer {}, applied {} missed mutation(s)", peer, replicationBatch.mutations().size());
+            }
+        } catch (Exception exception) {
+            log.warn("Failed to catch up with peer {}: {}", peer, exception.getMessage());
+        }
+    }
+
+    private synchronized void applyMutations(List<ReplicatedMutation> mutations) {
+
+        mutations.stream()
+                .filter(mutation -> !nodeID.equals(mutation.originNodeID()))
+                .sorted(MUTATION_ORDER)
+                .forEach(this::applyMutation);
+    }
+
+    private synchronized void applyCatchUp(ReplicationBatch replicationBatch) {
+
+        applyMutations(replicationBatch.mutations());
+        replicationBatch.completeSequences().forEach((originNodeID, peerCompleteSequence) -> {
+            if (!nodeID.equals(originNodeID) && peerCompleteSequence > completeSequences.getOrDefault(originNodeID, 0L)) {
+                advanceCompleteSequence(originNodeID, peerCompleteSequence);
+            }
+        });
+    }
+
+    private void applyMutation(ReplicatedMutation mutation) {
+
+        String originNodeID = mutation.originNodeID();
+        long completeSequence = completeSequences.getOrDefault(originNodeID, 0L);
+        NavigableSet<Long> appliedSequences = appliedAfterGap.computeIfAbsent(originNodeID, key -> new TreeSet<>());
+        if (mutation.sequence() <= completeSequence || appliedSequences.contains(mutation.sequence())) {
+            return;
+        }
+
+        if (Objects.nonNull(mutation.applicationChangeType())) {
+            applicationEventPublisher.publishEvent(new OAuthApplicationChangeEvent(mutation.applicationID(), mutation.applicationChangeType(), true));
+        } else {
+            tokenTracker.applyReplicatedEvent(toEvent(mutation));
+        }
+        replicationLog.append(mutation);
+
+        if (mutation.sequence() == completeSequence + 1) {
+            advanceCompleteSequence(originNodeID, mutation.sequence());
+        } else {
+            appliedSequences.add(mutation.sequence());
+            log.debug("Gap detected in mutations of node {} (complete up to {}, received {})", originNodeID, completeSequence, mutation.sequence());
+        }
+    }
+
+    private void advanceCompleteSequence(String originNodeID, long sequence) {
+
+        NavigableSet<Long> appliedSequences = appliedAfterGap.computeIfAbsent(originNodeID, key -> new TreeSet<>());
+        appliedSequences.headSet(sequence, true).clear();
+
+        long completeSequence = sequence;
+        while (appliedSequences.remove(completeSequence + 1)) {
+            completeSequence++;
+        }
+
+        completeSequences.put(originNodeID, completeSequence);
+    }
+
+    private void appendLocalMutation(ReplicatedMutation mutation) {
+
+        replicationLog.append(mutation);
+        pendingMutations.add(mutation);
+    }
+
+    private Map<String, Long> getCompleteSequences() {
+
+        Map<String, Long> currentlyCompleteSequences = new HashMap<>(completeSequences);
+        currentlyCompleteSequences.put(nodeID, getSequence());
+
+        return currentlyCompleteSequences;
+    }
+
+    private long getSequence() {
+
+        synchronized (sequenceLock) {
+            return sequence;
+        }
+    }
+
+    private ReplicatedMutation toMutation(TokenTrackingEvent event, long mutationSequence) {
+
+        ReplicatedMutation.ReplicatedMutationBuilder builder = ReplicatedMutation.builder()
+                .originNodeID(nodeID)
+                .sequence(mutationSequence)
+                .type(event.type())
+                .threshold(event.threshold());
+
+        AccessTokenInfo accessTokenInfo = event.accessTokenInfo();
+        if (Objects.nonNull(accessTokenInfo)) {
+            builder.jti(accessTokenInfo.getId())
+                    .subject(accessTokenInfo.getSubject())
+                    .issuedAt(accessTokenInfo.getIssuedAt())
+                    .expiresAt(accessTokenInfo.getExpiresAt())
+                    .revokedAt(accessTokenInfo.getRevokedAt());
+        }
+
+        return builder.build();
+    }
+
+    private TokenTrackingEvent toEvent(ReplicatedMutation mutation) {
+
+        if (mutation.type() == TokenTrackingEvent.Type.EXPIRED) {
+            return TokenTrackingEvent.expired(mutation.threshold(), true);
+        }
+
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(mutation.jti())
+                .subject(mutation.subject())
+                .issuedAt(mutation.issuedAt())
+                .expiresAt(mutation.expiresAt())
+                .build());
+
+        if (mutation.type() == TokenTrackingEvent.Type.REVOKED || mutation.type() == TokenTrackingEvent.Type.SUBJECT_REVOKED) {
+            accessTokenInfo.setStatus(TokenStatus.REVOKED);
+            accessTokenInfo.setRevokedAt(mutation.revokedAt());
+        }
+
+        return new TokenTrackingEvent(mutation.type(), accessTokenInfo, null, true);
+    }
+}
@@ -0,0 +1,47 @@
+package hu.psprog.leaflet.lags.core.service.token;
+
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+
+import java.util.Optional;
+
+/**
+ * Handler for issuing and consuming rotating, single-use OAuth2 refresh tokens.
+ *
+ * @author Peter Smith
+ */
+public interface RefreshTokenHandler {
+
+    /**
+     * Issues a new refresh token for the processed token request, if refresh tokens are enabled and the grant flow of
+     * the request supports them (i.e. authorization code, password and refresh token flows). Refresh tokens issued on
+     * the refresh token flow belong to the same family as the consumed one.
+     *
+     * @param context {@link OAuthTokenRequestContext} object of the processed token request
+     * @param claims claims of the issued access token as {@link TokenClaims}
+     * @return issued refresh token wrapped in {@link Optional}, or empty {@link Optional} if no refresh token is issued
+     */
+    Optional<String> issueRefreshToken(OAuthTokenRequestContext context, TokenClaims claims);
+
+    /**
+     * Consumes the refresh token of the given token request context. Presenting an already used refresh token
+     * indicates that the token has been leaked, in which case the whole family of the refresh token, as well as the
+     * live access tokens of the same user-client pair are revoked.
+     *
+     * @param context {@link OAuthTokenRequestContext} object of the processed refresh token request
+     * @return the consumed refresh token as {@link RefreshTokenInfo}
+     * @throws OAuthTokenRequestException if the refresh token is unknown or has already been used
+     */
+    RefreshTokenInfo consumeRefreshToken(OAuthTokenRequestContext context);
+
+    /**
+     * Rolls back the consumption of the refresh token of the given token request context, if the request has been
+     * processed on the refresh token flow. Must be called when the renewed tokens could not be issued (e.g. signing
+     * failed), so the client can retry the request with the same refresh token, without triggering reuse detection.
+     *
+     * @param context {@link OAuthTokenRequestContext} object of the failed token request
+     */
+    void restoreRefreshToken(OAuthTokenRequestContext context);
+}
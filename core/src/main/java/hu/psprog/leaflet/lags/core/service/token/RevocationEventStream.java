@@ -0,0 +1,34 @@
+package hu.psprog.leaflet.lags.core.service.token;
+
+import hu.psprog.leaflet.lags.core.domain.response.RevocationEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Stream of the token revocation events, letting resource servers maintain a local denylist of the revoked tokens
+ * instead of introspecting every received token.
+ *
+ * @author Peter Smith
+ */
+public interface RevocationEventStream {
+
+    /**
+     * Subscribes to the revocation events. The subscriber first receives every retained event following the given
+     * event ID (or every retained event, if the ID is not specified or unknown), then every new event as they occur.
+     * Events are delivered asynchronously and in order, independently of the other subscribers.
+     * Subscriber throwing an exception is automatically unsubscribed. Subscriber not keeping up with the new events is
+     * dropped, in which case the given drop handler is called, so the subscriber can close its connection.
+     *
+     * @param lastEventID ID of the last event received by the subscriber (can be null)
+     * @param subscriber {@link Consumer} implementation receiving the {@link RevocationEvent} objects
+     * @param dropHandler {@link Runnable} called when the subscriber is dropped
+     */
+    void subscribe(String lastEventID, Consumer<RevocationEvent> subscriber, Runnable dropHandler);
+
+    /**
+     * Removes the given subscriber. Does nothing if the subscriber is not subscribed.
+     *
+     * @param subscriber subscriber to be removed
+     */
+    void unsubscribe(Consumer<RevocationEvent> subscriber);
+}
@@ -1,11 +1,14 @@
 package hu.psprog.leaflet.lags.core.service.token;
 
 import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
 import hu.psprog.leaflet.lags.core.exception.JWTTokenParsingException;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.List;
+
 /**
  * Handler for generating and parsing tokens OAuth2 access tokens.
  * Implementations should be able to generate an OAuth2 compatible access token and wrap them as {@link OAuthTokenResponse}
@@ -44,6 +47,25 @@ public interface TokenHandler {
      */
     TokenClaims parseToken(String accessToken);
 
+    /**
+     * Parses the given access token without throwing an exception on failure. On success, the returned result contains
+     * the payload contents of the token (i.e. the claims), otherwise the reason of the failure.
+     *
+     * @param accessToken the access token to be parsed
+     * @return parsing result as {@link TokenParsingResult}
+     */
+    TokenParsingResult tryParseToken(String accessToken);
+
+    /**
+     * Parses the given access tokens, the same way as {@link TokenHandler#tryParseToken(String)} does. Signatures are
+     * verified in parallel, while the tracking status of the tokens is checked with a single lookup. The returned list
+     * contains the result of each token in the same order as the given tokens.
+     *
+     * @param accessTokens the access tokens to be parsed
+     * @return list of the parsing results as {@link TokenParsingResult}
+     */
+    List<TokenParsingResult> parseTokens(List<String> accessTokens);
+
     /**
      * Returns the payload contents of the already resolved token (i.e. the claims).
      *
@@ -0,0 +1,50 @@
+package hu.psprog.leaflet.lags.core.service.token;
+
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatusListSnapshot;
+
+/**
+ * Compressed bitstring status list of the issued tokens. Every issued token is assigned a slot in the list (referenced
+ * by the token via its status claim), which is flagged when the token gets revoked. Resource servers can periodically
+ * download the list and check the status of the received tokens locally, instead of introspecting them.
+ *
+ * @author Peter Smith
+ */
+public interface TokenStatusList {
+
+    /**
+     * Returns whether the status list is maintained. If not, the issued tokens must not reference the status list.
+     *
+     * @return {@code true} if the status list is maintained, {@code false} otherwise
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the ID of the currently published status list.
+     *
+     * @return ID of the status list
+     */
+    String getListID();
+
+    /**
+     * Returns the URI of the currently published status list, to be referenced by the issued tokens.
+     *
+     * @return URI of the status list
+     */
+    String getListURI();
+
+    /**
+     * Assigns a free slot of the status list to the given token. The slot is released after the token expires.
+     *
+     * @param storeAccessTokenInfoRequest {@link StoreAccessTokenInfoRequest} describing the issued token
+     * @return index of the assigned slot
+     */
+    int allocateIndex(StoreAccessTokenInfoRequest storeAccessTokenInfoRequest);
+
+    /**
+     * Returns the current state of the status list.
+     *
+     * @return current state as {@link TokenStatusListSnapshot}
+     */
+    TokenStatusListSnapshot getSnapshot();
+}
@@ -2,8 +2,13 @@ package hu.psprog.leaflet.lags.core.service.token;
 
 import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
 import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Token tracking related operations.
@@ -31,6 +36,25 @@ public interface TokenTracker {
      */
     Optional<AccessTokenInfo> retrieveTokenInfo(String jti);
 
+    /**
+     * Checks whether the token described by the given claims can be considered as active.
+     * In full tracking mode, a token is active if it is tracked and its status is active. In denylist mode, every
+     * token neither recorded as revoked, nor issued before the revocation of its subject is considered active.
+     *
+     * @param claims {@link TokenClaims} of the token (at least the ID, the subject and the issue date)
+     * @return {@code true} if the token is active, {@code false} otherwise
+     */
+    boolean isTokenActive(TokenClaims claims);
+
+    /**
+     * Selects the active tokens out of the given ones, with a single lookup against the token tracking repository.
+     * Tokens are considered active by the same rules as in case of {@link TokenTracker#isTokenActive(TokenClaims)}.
+     *
+     * @param claims {@link TokenClaims} of the tokens
+     * @return set of the active token IDs
+     */
+    Set<String> filterActiveTokens(Collection<TokenClaims> claims);
+
     /**
      * Sets the identified token's status flag to revoked.
      *
@@ -39,7 +63,39 @@ public interface TokenTracker {
     void revokeToken(String jti);
 
     /**
-     * Iterates over the expired stored tokens and deletes them from the token tracking repository.
+     * Sets the status flag of the token described by the given claims to revoked.
+     * Unlike {@link TokenTracker#revokeToken(String)}, this method is able to record the revocation of an untracked
+     * token in denylist mode, as the claims provide the expiration of the token to keep the record until.
+     *
+     * @param claims {@link TokenClaims} of the token to be revoked
+     */
+    void revokeToken(TokenClaims claims);
+
+    /**
+     * Revokes every live token belonging to the given subject (exact subject, user or client).
+     * Already revoked tokens are skipped. Tokens are located via a secondary index, without scanning the token
+     * tracking repository. In denylist mode the live tokens are not known, thus the revocation is recorded for the
+     * subject itself, rejecting every token of the subject issued before.
+     *
+     * @param tokenSubject {@link TokenSubject} identifying the principal whose tokens should be revoked
+     * @return number of revoked tokens (always 0 in denylist mode, as the revoked tokens are not known)
+     */
+    int revokeAllForSubject(TokenSubject tokenSubject);
+
+    /**
+     * Applies a token tracking mutation received from another service instance.
+     * Mutations are applied idempotently and in any order: a stored token is only recorded if it is not yet tracked,
+     * a revocation is recorded even if the token is not yet tracked, a subject revocation only replaces an earlier one,
+     * and a clean-up never removes tokens not yet expired according to the local clock. The applied mutation is
+     * published as a replicated {@link TokenTrackingEvent}.
+     *
+     * @param event {@link TokenTrackingEvent} describing the mutation to be applied
+     */
+    void applyReplicatedEvent(TokenTrackingEvent event);
+
+    /**
+     * Deletes the expired stored tokens from the token tracking repository.
+     * Expected to be called frequently, as the repository is able to locate the expired entries without a full scan.
      */
     void cleanUpExpiredToken();
 }
@@ -1,38 +1,55 @@
 package hu.psprog.leaflet.lags.core.service.token.impl;
 
 import com.nimbusds.jose.JOSEException;
-import com.nimbusds.jose.JOSEObjectType;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSObject;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.SignedJWT;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthConstants;
+import hu.psprog.leaflet.lags.core.domain.internal.SigningKey;
 import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult.FailureReason;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
 import hu.psprog.leaflet.lags.core.exception.JWTTokenParsingException;
 import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import hu.psprog.leaflet.lags.core.security.SignedJwtDecoder;
+import hu.psprog.leaflet.lags.core.service.registry.KeyRegistry;
 import hu.psprog.leaflet.lags.core.service.token.TokenHandler;
+import hu.psprog.leaflet.lags.core.service.token.TokenStatusList;
 import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenTemplateCache.DynamicClaims;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenTemplateCache.EncodedHeader;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
 import org.springframework.stereotype.Component;
 
-import java.util.Calendar;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.util.Date;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT token based implementation of {@link TokenHandler}.
+ * Parsing never relies on exceptions for the common failure cases: tokens are parsed only once, malformed and expired
+ * tokens are rejected before the signature is verified, and the tracking status is checked after the signature
+ * verification (instead of as part of the token validation). Failures are recorded via {@link TokenParsingFailureRecorder}.
  *
  * @author Peter Smith
  */
@@ -40,18 +57,33 @@ import java.util.UUID;
 @Slf4j
 public class JWTTokenHandler implements TokenHandler {
 
+    private static final char TOKEN_PART_SEPARATOR = '.';
+    private static final int TOKEN_PART_SEPARATOR_COUNT = 2;
+    private static final int NO_STATUS_LIST_INDEX = -1;
+
     private final OAuthConfigurationProperties oAuthConfigurationProperties;
     private final TokenTracker tokenTracker;
-    private final JwtDecoder jwtDecoder;
-    private final JWSSigner jwsSigner;
+    private final TokenStatusList tokenStatusList;
+    private final TokenParsingFailureRecorder tokenParsingFailureRecorder;
+    private final SignedJwtDecoder untrackedJwtDecoder;
+    private final KeyRegistry keyRegistry;
+    private final TokenSigningExecutor tokenSigningExecutor;
+    private final TokenTemplateCache tokenTemplateCache;
 
     @Autowired
     public JWTTokenHandler(OAuthConfigurationProperties oAuthConfigurationProperties, TokenTracker tokenTracker,
-                           JwtDecoder jwtDecoder, JWSSigner jwsSigner) {
+                           TokenStatusList tokenStatusList, TokenParsingFailureRecorder tokenParsingFailureRecorder,
+                           @Qualifier("untrackedJwtDecoder") SignedJwtDecoder untrackedJwtDecoder, KeyRegistry keyRegistry,
+                           TokenSigningExecutor tokenSigningExecutor) {
         this.oAuthConfigurationProperties = oAuthConfigurationProperties;
         this.tokenTracker = tokenTracker;
-        this.jwtDecoder = jwtDecoder;
-        this.jwsSigner = jwsSigner;
+        this.tokenStatusList = tokenStatusList;
+        this.tokenParsingFailureRecorder = tokenParsingFailureRecorder;
+        this.untrackedJwtDecoder = untrackedJwtDecoder;
+        this.keyRegistry = keyRegistry;
+        this.tokenSigningExecutor = tokenSigningExecutor;
+        this.tokenTemplateCache = new TokenTemplateCache(oAuthConfigurationProperties.getToken().getSignatureAlgorithm(),
+                oAuthConfigurationProperties.getToken().getIssuer());
     }
 
     @Override
@@ -62,23 +94,62 @@ public class JWTTokenHandler implements TokenHandler {
     @Override
     public OAuthTokenResponse generateToken(OAuthTokenRequest oAuthTokenRequest, TokenClaims claims, int customExpirationInSeconds) {
 
+        StoreAccessTokenInfoRequest storeAccessTokenInfoRequest = createAccessTokenInfoRequest(claims, customExpirationInSeconds);
+
         return OAuthTokenResponse.builder()
-                .accessToken(createToken(oAuthTokenRequest, claims, customExpirationInSeconds))
+                .accessToken(createToken(oAuthTokenRequest, claims, storeAccessTokenInfoRequest))
                 .scope(claims.getScope())
                 .expiresIn(customExpirationInSeconds)
+                .tokenID(storeAccessTokenInfoRequest.getId())
                 .build();
     }
 
     @Override
     public TokenClaims parseToken(String accessToken) {
 
-        try {
-            return extractClaims(jwtDecoder.decode(accessToken));
+        TokenParsingResult tokenParsingResult = tryParseToken(accessToken);
+        if (!tokenParsingResult.isSuccessful()) {
+            throw new JWTTokenParsingException(tokenParsingResult.failureReason().getDescription());
+        }
 
-        } catch (RuntimeException exception) {
-            log.error("Failed to parse access token", exception);
-            throw new JWTTokenParsingException(exception);
+        return tokenParsingResult.claims();
+    }
+
+    @Override
+    public TokenParsingResult tryParseToken(String accessToken) {
+
+        TokenParsingResult tokenParsingResult = verifyToken(accessToken);
+        if (tokenParsingResult.isSuccessful() && !tokenTracker.isTokenActive(tokenParsingResult.claims())) {
+            tokenParsingResult = recordFailure(FailureReason.REVOKED, tokenParsingResult.claims().getTokenID());
         }
+
+        return tokenParsingResult;
+    }
+
+    @Override
+    public List<TokenParsingResult> parseTokens(List<String> accessTokens) {
+
+        List<Future<TokenParsingResult>> pendingVerifications;
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            pendingVerifications = accessTokens.stream()
+                    .map(accessToken -> executorService.submit(() -> verifyToken(accessToken)))
+                    .toList();
+        }
+
+        List<TokenParsingResult> verifiedTokens = pendingVerifications.stream()
+                .map(Future::resultNow)
+                .toList();
+
+        Set<String> activeTokenIDs = tokenTracker.filterActiveTokens(verifiedTokens.stream()
+                .filter(TokenParsingResult::isSuccessful)
+                .map(TokenParsingResult::claims)
+                .toList());
+
+        return verifiedTokens.stream()
+                .map(verifiedToken -> verifiedToken.isSuccessful() && !activeTokenIDs.contains(verifiedToken.claims().getTokenID())
+                        ? recordFailure(FailureReason.REVOKED, verifiedToken.claims().getTokenID())
+                        : verifiedToken)
+                .toList();
     }
 
     @Override
@@ -91,6 +162,9 @@ public class JWTTokenHandler implements TokenHandler {
                 .clientID(jwt.getSubject())
                 .scope(jwt.getClaimAsString(OAuthConstants.Token.SCOPE))
                 .expiration(Date.from(Objects.requireNonNull(jwt.getExpiresAt())))
+                .issuedAt(Optional.ofNullable(jwt.getIssuedAt())
+                        .map(Date::from)
+                        .orElse(null))
                 .audience(jwt.getAudience()
                         .stream()
                         .findFirst()
@@ -102,10 +176,89 @@ public class JWTTokenHandler implements TokenHandler {
                 .build();
     }
 
-    private String createToken(OAuthTokenRequest oAuthTokenRequest, TokenClaims claims, int expirationInSeconds) {
+    private TokenParsingResult verifyToken(String accessToken) {
+
+        if (!isWellFormed(accessToken)) {
+            return recordFailure(FailureReason.MALFORMED, "unexpected token structure");
+        }
+
+        SignedJWT signedJWT;
+        Date expiration;
+        try {
+            signedJWT = SignedJWT.parse(accessToken);
+            expiration = signedJWT.getJWTClaimsSet().getExpirationTime();
+        } catch (ParseException exception) {
+            return recordFailure(FailureReason.MALFORMED, exception.getMessage());
+        }
 
-        StoreAccessTokenInfoRequest storeAccessTokenInfoRequest = createAccessTokenInfoRequest(claims, expirationInSeconds);
-        String accessToken = createAccessToken(oAuthTokenRequest, claims, storeAccessTokenInfoRequest);
+        if (isExpired(expiration)) {
+            return recordFailure(FailureReason.EXPIRED, expiration.toString());
+        }
+
+        try {
+            return TokenParsingResult.success(extractClaims(untrackedJwtDecoder.decode(signedJWT)));
+
+        } catch (JwtValidationException exception) {
+            // the token may have expired since the check above
+            return recordFailure(isExpired(expiration)
+                    ? FailureReason.EXPIRED
+                    : FailureReason.UNKNOWN, exception.getMessage());
+
+        } catch (BadJwtException exception) {
+            return recordFailure(exception.getCause() instanceof BadJOSEException
+                    ? FailureReason.INVALID_SIGNATURE
+                    : FailureReason.MALFORMED, exception.getMessage());
+
+        } catch (RuntimeException exception) {
+            return recordFailure(FailureReason.UNKNOWN, exception.getMessage());
+        }
+    }
+
+    private boolean isWellFormed(String accessToken) {
+
+        if (StringUtils.isEmpty(accessToken)) {
+            return false;
+        }
+
+        int separatorCount = 0;
+        for (int index = 0; index < accessToken.length(); index++) {
+            char character = accessToken.charAt(index);
+            if (character == TOKEN_PART_SEPARATOR) {
+                separatorCount++;
+            } else if (!isBase64URLCharacter(character)) {
+                return false;
+            }
+        }
+
+        return separatorCount == TOKEN_PART_SEPARATOR_COUNT;
+    }
+
+    private boolean isBase64URLCharacter(char character) {
+
+        return (character >= 'A' && character <= 'Z')
+                || (character >= 'a' && character <= 'z')
+                || (character >= '0' && character <= '9')
+                || character == '-'
+                || character == '_';
+    }
+
+    private boolean isExpired(Date expiration) {
+        return Objects.nonNull(expiration) && expiration.before(new Date());
+    }
+
+    private TokenParsingResult recordFailure(FailureReason failureReason, String details) {
+
+        tokenParsingFailureRecorder.record(failureReason, details);
+
+        return TokenParsingResult.failure(failureReason);
+    }
+
+    private String createToken(OAuthTokenRequest oAuthTokenRequest, TokenClaims claims, StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
+
+        int statusListIndex = tokenStatusList.isEnabled()
+                ? tokenStatusList.allocateIndex(storeAccessTokenInfoRequest)
+                : NO_STATUS_LIST_INDEX;
+        String accessToken = createAccessToken(oAuthTokenRequest, claims, storeAccessTokenInfoRequest, statusListIndex);
 
         log.info("Access token issued for client={} with JTI={}", oAuthTokenRequest.getClientID(), storeAccessTokenInfoRequest.getId());
         tokenTracker.storeTokenInfo(storeAccessTokenInfoRequest);
@@ -126,50 +279,29 @@ public class JWTTokenHandler implements TokenHandler {
     }
 
     private Date generateExpiration(Date issuedAt, int expirationInSeconds) {
-
-        Calendar calendar = new Calendar.Builder()
-                .setInstant(issuedAt)
-                .build();
-
-        calendar.add(Calendar.SECOND, expirationInSeconds);
-
-        return calendar.getTime();
+        return new Date(issuedAt.getTime() + TimeUnit.SECONDS.toMillis(expirationInSeconds));
     }
 
-    private String createAccessToken(OAuthTokenRequest oAuthTokenRequest, TokenClaims claims, StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
+    private String createAccessToken(OAuthTokenRequest oAuthTokenRequest, TokenClaims claims, StoreAccessTokenInfoRequest storeAccessTokenInfoRequest,
+                                     int statusListIndex) {
 
-        JWSHeader jwsHeader = new JWSHeader.Builder(oAuthConfigurationProperties.getToken().getSignatureAlgorithm())
-                .type(JOSEObjectType.JWT)
-                .keyID(oAuthConfigurationProperties.getToken().getKeyID())
-                .build();
-
-        Payload payload = createPayload(oAuthTokenRequest, claims, storeAccessTokenInfoRequest);
-        JWSObject jwsObject = new JWSObject(jwsHeader, payload);
+        SigningKey signingKey = keyRegistry.getSigningKey();
+        EncodedHeader header = tokenTemplateCache.getHeader(signingKey.keyID());
+        DynamicClaims dynamicClaims = new DynamicClaims(storeAccessTokenInfoRequest.getId(),
+                convertToSeconds(storeAccessTokenInfoRequest.getIssuedAt()), convertToSeconds(storeAccessTokenInfoRequest.getExpiresAt()),
+                statusListIndex);
+        String signingInput = tokenTemplateCache.createSigningInput(header, claims, oAuthTokenRequest.getAudience(),
+                tokenStatusList.isEnabled() ? tokenStatusList.getListURI() : null, dynamicClaims);
 
+        Base64URL signature;
         try {
-            jwsObject.sign(jwsSigner);
+            signature = tokenSigningExecutor.sign(header.header(), signingInput.getBytes(StandardCharsets.US_ASCII), signingKey.signer());
         } catch (JOSEException exception) {
             log.error("Failed to sign token", exception);
             throw new OAuthTokenRequestException(OAuthErrorCode.SERVER_ERROR, exception.getMessage());
         }
 
-        return jwsObject.serialize();
-    }
-
-    private Payload createPayload(OAuthTokenRequest oAuthTokenRequest, TokenClaims claims, StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
-
-        long expiresAt = convertToSeconds(storeAccessTokenInfoRequest.getExpiresAt());
-        long issuedAt = convertToSeconds(storeAccessTokenInfoRequest.getIssuedAt());
-
-        Map<String, Object> rawClaims = claims.getClaimsAsMap();
-        rawClaims.put(OAuthConstants.Token.AUDIENCE, oAuthTokenRequest.getAudience());
-        rawClaims.put(OAuthConstants.Token.EXPIRATION, expiresAt);
-        rawClaims.put(OAuthConstants.Token.JTI, storeAccessTokenInfoRequest.getId());
-        rawClaims.put(OAuthConstants.Token.ISSUED_AT, issuedAt);
-        rawClaims.put(OAuthConstants.Token.ISSUER, oAuthConfigurationProperties.getToken().getIssuer());
-        rawClaims.put(OAuthConstants.Token.NOT_BEFORE, issuedAt);
-
-        return new Payload(rawClaims);
+        return signingInput + TOKEN_PART_SEPARATOR + signature;
     }
 
     private long convertToSeconds(Date dateClaim) {
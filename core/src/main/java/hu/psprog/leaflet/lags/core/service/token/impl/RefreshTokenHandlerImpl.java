@@ -0,0 +1,170 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.RefreshTokenSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import hu.psprog.leaflet.lags.core.persistence.repository.RefreshTokenRepository;
+import hu.psprog.leaflet.lags.core.service.token.RefreshTokenHandler;
+import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Implementation of {@link RefreshTokenHandler}.
+ * Refresh tokens are opaque, 256-bit secure random strings, stored via {@link RefreshTokenRepository}. Rotated refresh
+ * tokens inherit the absolute expiration of their family, so a family cannot be kept alive forever by rotating it.
+ * Expired refresh tokens are removed along with the expired access tokens, on every local clean-up of the token tracker.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Slf4j
+public class RefreshTokenHandlerImpl implements RefreshTokenHandler {
+
+    private static final Set<GrantType> SUPPORTED_GRANT_TYPES = Set.of(GrantType.AUTHORIZATION_CODE, GrantType.PASSWORD, GrantType.REFRESH_TOKEN);
+    private static final int REFRESH_TOKEN_LENGTH = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenTracker tokenTracker;
+    private final boolean enabled;
+    private final Duration expiration;
+    private final Duration absoluteExpiration;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Base64.Encoder base64Encoder = Base64.getUrlEncoder().withoutPadding();
+
+    @Autowired
+    public RefreshTokenHandlerImpl(RefreshTokenRepository refreshTokenRepository, TokenTracker tokenTracker,
+                                   OAuthConfigurationProperties oAuthConfigurationProperties) {
+
+        RefreshTokenSettings refreshTokenSettings = oAuthConfigurationProperties.getRefreshToken();
+
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenTracker = tokenTracker;
+        this.enabled = refreshTokenSettings.isEnabled();
+        this.expiration = refreshTokenSettings.getExpiration();
+        this.absoluteExpiration = refreshTokenSettings.getAbsoluteExpiration();
+
+        if (enabled && oAuthConfigurationProperties.getTokenTracking().getReplication().isEnabled()) {
+            log.warn("Refresh tokens are not replicated - refresh tokens issued by this instance are rejected by its peers");
+        }
+    }
+
+    @Override
+    public Optional<String> issueRefreshToken(OAuthTokenRequestContext context, TokenClaims claims) {
+
+        OAuthTokenRequest request = context.getRequest();
+        if (!enabled || !SUPPORTED_GRANT_TYPES.contains(request.getGrantType())) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        boolean continuesFamily = request.getGrantType() == GrantType.REFRESH_TOKEN;
+        String familyID = continuesFamily
+                ? context.getRequiredRefreshToken().familyID()
+                : UUID.randomUUID().toString();
+        Date familyExpiresAt = continuesFamily
+                ? context.getRequiredRefreshToken().familyExpiresAt()
+                : new Date(now + absoluteExpiration.toMillis());
+        Date expiresAt = new Date(Math.min(now + expiration.toMillis(), familyExpiresAt.getTime()));
+
+        RefreshTokenInfo refreshTokenInfo = RefreshTokenInfo.builder()
+                .familyID(familyID)
+                .clientID(request.getClientID())
+                .audience(request.getAudience())
+                .scope(List.copyOf(request.getScope()))
+                .userInfo(UserInfo.builder()
+                        .id(claims.getUserID())
+                        .username(claims.getUsername())
+                        .email(claims.getEmail())
+                        .role(claims.getRole())
+                        .build())
+                .expiresAt(expiresAt)
+                .familyExpiresAt(familyExpiresAt)
+                .build();
+
+        String refreshToken = generateRefreshToken();
+        refreshTokenRepository.saveRefreshToken(refreshToken, refreshTokenInfo);
+        log.info("Refresh token issued for client={} in family={}", request.getClientID(), familyID);
+
+        return Optional.of(refreshToken);
+    }
+
+    @Override
+    public RefreshTokenInfo consumeRefreshToken(OAuthTokenRequestContext context) {
+
+        RefreshTokenInfo refreshTokenInfo = context.getRequiredRefreshToken();
+        if (!refreshTokenRepository.markRefreshTokenUsed(context.getRequest().getRefreshToken())) {
+            revokeFamily(refreshTokenInfo);
+            throw new OAuthTokenRequestException(OAuthErrorCode.INVALID_GRANT, "Refresh token has already been used");
+        }
+
+        return refreshTokenInfo;
+    }
+
+    @Override
+    public void restoreRefreshToken(OAuthTokenRequestContext context) {
+
+        OAuthTokenRequest request = context.getRequest();
+        if (request.getGrantType() == GrantType.REFRESH_TOKEN
+                && Objects.nonNull(request.getRefreshToken())
+                && refreshTokenRepository.restoreRefreshToken(request.getRefreshToken())) {
+            log.warn("Refresh token of client={} restored after failed token issuance", request.getClientID());
+        }
+    }
+
+    /**
+     * Removes the expired refresh tokens on every local clean-up of the expired access tokens.
+     *
+     * @param event {@link TokenTrackingEvent} describing the mutation
+     */
+    @EventListener
+    public void onTokenTrackingEvent(TokenTrackingEvent event) {
+
+        if (event.type() == TokenTrackingEvent.Type.EXPIRED && !event.replicated()) {
+            int deletedCount = refreshTokenRepository.deleteExpiredRefreshTokens(event.threshold());
+            log.debug("Removed {} expired refresh token(s)", deletedCount);
+        }
+    }
+
+    private void revokeFamily(RefreshTokenInfo refreshTokenInfo) {
+
+        int deletedCount = refreshTokenRepository.deleteRefreshTokenFamily(refreshTokenInfo.familyID());
+        int revokedCount = tokenTracker.revokeAllForSubject(TokenSubject.ofSubject(formatSubject(refreshTokenInfo)));
+
+        log.warn("Refresh token reuse detected in family={} of client={} - revoked {} refresh token(s) and {} access token(s)",
+                refreshTokenInfo.familyID(), refreshTokenInfo.clientID(), deletedCount, revokedCount);
+    }
+
+    private String formatSubject(RefreshTokenInfo refreshTokenInfo) {
+        return String.format("%s|uid=%s", refreshTokenInfo.clientID(), refreshTokenInfo.userInfo().getId());
+    }
+
+    private String generateRefreshToken() {
+
+        byte[] randomBytes = new byte[REFRESH_TOKEN_LENGTH];
+        secureRandom.nextBytes(randomBytes);
+
+        return base64Encoder.encodeToString(randomBytes);
+    }
+}
@@ -0,0 +1,287 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.response.RevocationEvent;
+import hu.psprog.leaflet.lags.core.persistence.dao.AccessTokenDAO;
+import hu.psprog.leaflet.lags.core.service.token.RevocationEventStream;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link RevocationEventStream}.
+ * Revocations (including the ones replicated from other service instances) are collected from the
+ * {@link TokenTrackingEvent}s published by the token tracker, and retained until the revoked token expires (or for the
+ * configured retention, if the token has no expiration), thus a subscriber starting from the beginning of the stream
+ * always receives the complete denylist. On startup the stream is initialized with the revoked tokens restored by the
+ * token tracking repository.
+ *
+ * Every subscriber has its own bounded queue of the new events, drained by its own delivery task (running on a virtual
+ * thread), so a slow subscriber never delays the others. A subscriber not keeping up with the new events (its queue
+ * being full) is dropped, and expected to reconnect, resuming from its last received event.
+ *
+ * Event IDs consist of a random stream ID (generated on every startup) and a sequential offset. An event ID of a
+ * different stream (e.g. issued before a restart, or by another service instance) restarts the stream from the
+ * beginning.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Slf4j
+public class RevocationEventStreamImpl implements RevocationEventStream {
+
+    private static final String EVENT_ID_SEPARATOR = ":";
+    private static final String DELIVERY_THREAD_NAME_PREFIX = "revocation-event-delivery-";
+
+    private final AccessTokenDAO accessTokenDAO;
+    private final Executor deliveryExecutor;
+    private final int subscriberQueueSize;
+    private final Duration eventRetention;
+    private final String streamID = UUID.randomUUID().toString();
+    private final ConcurrentNavigableMap<Long, RevocationEvent> events = new ConcurrentSkipListMap<>();
+    private final ExpiryIndex<Long> expiryIndex = new ExpiryIndex<>();
+    private final Map<Consumer<RevocationEvent>, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private long lastOffset;
+
+    @Autowired
+    public RevocationEventStreamImpl(AccessTokenDAO accessTokenDAO, OAuthConfigurationProperties oAuthConfigurationProperties) {
+        this(accessTokenDAO, oAuthConfigurationProperties, Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name(DELIVERY_THREAD_NAME_PREFIX, 0)
+                .factory()));
+    }
+
+    RevocationEventStreamImpl(AccessTokenDAO accessTokenDAO, OAuthConfigurationProperties oAuthConfigurationProperties, Executor deliveryExecutor) {
+
+        TokenTrackingSettings tokenTrackingSettings = oAuthConfigurationProperties.getTokenTracking();
+        this.accessTokenDAO = accessTokenDAO;
+        this.deliveryExecutor = deliveryExecutor;
+        this.subscriberQueueSize = tokenTrackingSettings.getRevocationStreamSubscriberQueueSize();
+        this.eventRetention = tokenTrackingSettings.getRevocationEventRetention();
+    }
+
+    /**
+     * Registers the not yet expired revoked tokens restored by the token tracking repository.
+     * Only the revoked tokens are read from the repository (in pages, if the repository supports it). Subject
+     * revocation records are skipped, as they do not identify a single token.
+     */
+    @PostConstruct
+    public void initializeStream() {
+
+        Date now = new Date();
+        List<AccessTokenInfo> revokedTokens = new ArrayList<>();
+        accessTokenDAO.forEachAccessTokenInfo(TokenStatus.REVOKED, accessTokenInfo -> {
+            boolean notExpired = Objects.isNull(accessTokenInfo.getExpiresAt()) || accessTokenInfo.getExpiresAt().after(now);
+            if (notExpired && TokenSubject.fromRevocationID(accessTokenInfo.getId()).isEmpty()) {
+                revokedTokens.add(accessTokenInfo);
+            }
+        });
+
+        revokedTokens.stream()
+                .sorted(Comparator.comparing(AccessTokenInfo::getRevokedAt, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .forEach(this::append);
+
+        log.info("Revocation event stream initialized with {} revoked token(s)", events.size());
+    }
+
+    /**
+     * Stops the delivery tasks.
+     */
+    @PreDestroy
+    public void shutdown() {
+
+        if (deliveryExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Appends the revoked tokens to the stream and removes the expired ones.
+     * Only local clean-ups are considered, since the replicated ones are already covered by the local clean-up schedule.
+     *
+     * @param event {@link TokenTrackingEvent} describing the mutation
+     */
+    @EventListener
+    public void onTokenTrackingEvent(TokenTrackingEvent event) {
+
+        if (event.type() == TokenTrackingEvent.Type.REVOKED) {
+            append(event.accessTokenInfo());
+        } else if (event.type() == TokenTrackingEvent.Type.EXPIRED && !event.replicated()) {
+            int removedCount = expiryIndex.drainExpired(event.threshold().toInstant(), events::remove);
+            log.debug("Removed {} expired event(s) from the revocation event stream", removedCount);
+        }
+    }
+
+    @Override
+    public void subscribe(String lastEventID, Consumer<RevocationEvent> subscriber, Runnable dropHandler) {
+
+        Subscription subscription = new Subscription(subscriber, dropHandler, parseOffset(lastEventID), subscriberQueueSize);
+        subscriptions.put(subscriber, subscription);
+        scheduleDelivery(subscription);
+    }
+
+    @Override
+    public void unsubscribe(Consumer<RevocationEvent> subscriber) {
+        subscriptions.remove(subscriber);
+    }
+
+    private synchronized void append(AccessTokenInfo accessTokenInfo) {
+
+        long offset = ++lastOffset;
+        RevocationEvent event = new RevocationEvent(streamID + EVENT_ID_SEPARATOR + offset,
+                accessTokenInfo.getId(), accessTokenInfo.getSubject(), accessTokenInfo.getExpiresAt());
+
+        events.put(offset, event);
+        Instant retainedUntil = Objects.nonNull(accessTokenInfo.getExpiresAt())
+                ? accessTokenInfo.getExpiresAt().toInstant()
+                : Instant.now().plus(eventRetention);
+        expiryIndex.add(offset, retainedUntil);
+
+        subscriptions.values().forEach(subscription -> enqueue(subscription, new QueuedEvent(offset, event)));
+    }
+
+    private void enqueue(Subscription subscription, QueuedEvent queuedEvent) {
+
+        if (subscription.queue.offer(queuedEvent)) {
+            scheduleDelivery(subscription);
+        } else {
+            log.warn("Revocation event stream subscriber is too slow (more than {} pending events), dropping subscriber", subscriberQueueSize);
+            drop(subscription);
+        }
+    }
+
+    private void scheduleDelivery(Subscription subscription) {
+
+        if (subscription.deliveryScheduled.compareAndSet(false, true)) {
+            deliveryExecutor.execute(() -> deliver(subscription));
+        }
+    }
+
+    private void deliver(Subscription subscription) {
+
+        try {
+            if (!subscription.backlogDelivered) {
+                subscription.backlogDelivered = true;
+                for (Map.Entry<Long, RevocationEvent> event : events.tailMap(subscription.lastDeliveredOffset, false).entrySet()) {
+                    if (!deliver(subscription, event.getKey(), event.getValue())) {
+                        return;
+                    }
+                }
+            }
+
+            QueuedEvent queuedEvent;
+            while (Objects.nonNull(queuedEvent = subscription.queue.poll())) {
+                if (!deliver(subscription, queuedEvent.offset(), queuedEvent.event())) {
+                    return;
+                }
+            }
+        } finally {
+            subscription.deliveryScheduled.set(false);
+        }
+
+        // events queued while the delivery was finishing must not wait for the next event
+        if (!subscription.queue.isEmpty() && isSubscribed(subscription)) {
+            scheduleDelivery(subscription);
+        }
+    }
+
+    private boolean deliver(Subscription subscription, long offset, RevocationEvent event) {
+
+        if (!isSubscribed(subscription)) {
+            return false;
+        }
+
+        boolean delivered = true;
+        if (offset > subscription.lastDeliveredOffset) {
+            try {
+                subscription.subscriber.accept(event);
+                subscription.lastDeliveredOffset = offset;
+            } catch (RuntimeException exception) {
+                log.debug("Failed to deliver revocation event, removing subscriber: {}", exception.getMessage());
+                subscriptions.remove(subscription.subscriber, subscription);
+                delivered = false;
+            }
+        }
+
+        return delivered;
+    }
+
+    private void drop(Subscription subscription) {
+
+        if (subscriptions.remove(subscription.subscriber, subscription)) {
+            subscription.queue.clear();
+            subscription.dropHandler.run();
+        }
+    }
+
+    private boolean isSubscribed(Subscription subscription) {
+        return subscriptions.get(subscription.subscriber) == subscription;
+    }
+
+    private long parseOffset(String lastEventID) {
+
+        long offset = 0;
+        if (Objects.nonNull(lastEventID) && lastEventID.startsWith(streamID + EVENT_ID_SEPARATOR)) {
+            try {
+                offset = Long.parseLong(lastEventID.substring(streamID.length() + EVENT_ID_SEPARATOR.length()));
+            } catch (NumberFormatException exception) {
+                log.warn("Invalid revocation event ID [{}], restarting stream", lastEventID);
+            }
+        }
+
+        return offset;
+    }
+
+    private record QueuedEvent(long offset, RevocationEvent event) {
+    }
+
+    /**
+     * Subscriber state. The delivery fields are only accessed by the delivery task of the subscriber, of which at most
+     * one is scheduled at a time. Tracking the last delivered offset prevents duplicates, when an event is already part
+     * of the backlog of a new subscriber, but it is also queued for the subscriber after its registration.
+     */
+    private static final class Subscription {
+
+        private final Consumer<RevocationEvent> subscriber;
+        private final Runnable dropHandler;
+        private final Queue<QueuedEvent> queue;
+        private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+        private long lastDeliveredOffset;
+        private boolean backlogDelivered;
+
+        private Subscription(Consumer<RevocationEvent> subscriber, Runnable dropHandler, long lastDeliveredOffset, int queueSize) {
+            this.subscriber = subscriber;
+            this.dropHandler = dropHandler;
+            this.lastDeliveredOffset = lastDeliveredOffset;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the subject revocations recorded in denylist mode. As the live tokens are not tracked in that
+ * mode, revoking every token of a {@link TokenSubject} is recorded as a single entry, rejecting every token of the
+ * subject issued before the revocation. Thus the size of the denylist only grows with the revocations, not with the
+ * issued tokens.
+ *
+ * An entry is kept until every token issued before the revocation has expired, located by an {@link ExpiryIndex}.
+ * Repeated revocations of the same subject only keep the latest one.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class SubjectDenylist {
+
+    private final Map<TokenSubject, Revocation> revocations = new ConcurrentHashMap<>();
+    private final ExpiryIndex<TokenSubject> expiryIndex = new ExpiryIndex<>();
+
+    /**
+     * Records the revocation of the tokens of the given subject issued before the given revocation date.
+     * Does nothing if a later revocation of the subject is already recorded.
+     *
+     * @param tokenSubject {@link TokenSubject} whose tokens are revoked
+     * @param revokedAt date of the revocation
+     * @param expiresAt date by which every token issued before the revocation has expired
+     */
+    public void add(TokenSubject tokenSubject, Date revokedAt, Date expiresAt) {
+
+        Revocation revocation = new Revocation(revokedAt, expiresAt);
+        revocations.compute(tokenSubject, (key, currentRevocation) -> {
+            if (Objects.nonNull(currentRevocation) && !currentRevocation.revokedAt().before(revokedAt)) {
+                return currentRevocation;
+            }
+
+            if (Objects.nonNull(currentRevocation)) {
+                expiryIndex.remove(key, currentRevocation.expiresAt().toInstant());
+            }
+            expiryIndex.add(key, expiresAt.toInstant());
+
+            return revocation;
+        });
+    }
+
+    /**
+     * Checks whether the token of the given subject, issued at the given date, is revoked by any of the subjects it
+     * belongs to. As the "iat" claim only has a precision of seconds, tokens issued within the same second as the
+     * revocation are considered revoked as well. Tokens without an issue date are considered revoked, if any of their
+     * subjects is revoked.
+     *
+     * @param subject "sub" claim of the token
+     * @param issuedAt "iat" claim of the token
+     * @return {@code true} if the token is revoked, {@code false} otherwise
+     */
+    public boolean isRevoked(String subject, Date issuedAt) {
+
+        if (revocations.isEmpty()) {
+            return false;
+        }
+
+        return TokenSubject.extract(subject).stream()
+                .map(revocations::get)
+                .filter(Objects::nonNull)
+                .anyMatch(revocation -> Objects.isNull(issuedAt) || !issuedAt.after(revocation.revokedAt()));
+    }
+
+    /**
+     * Removes the revocations, by which every token issued before has expired before the given threshold.
+     *
+     * @param threshold expiration threshold as {@link Date}
+     * @return number of removed entries
+     */
+    public int removeExpired(Date threshold) {
+
+        return expiryIndex.drainExpired(threshold.toInstant(), tokenSubject -> revocations.computeIfPresent(tokenSubject,
+                (key, revocation) -> revocation.expiresAt().after(threshold) ? revocation : null));
+    }
+
+    /**
+     * Returns the number of revoked subjects.
+     *
+     * @return number of revoked subjects
+     */
+    public int size() {
+        return revocations.size();
+    }
+
+    private record Revocation(Date revokedAt, Date expiresAt) {
+    }
+}
@@ -0,0 +1,123 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index of the live tracked tokens, mapping each {@link TokenSubject} (exact subject, user ID and client ID)
+ * to the set of token IDs issued for it. Lets the token tracker find every token of a principal without scanning the
+ * whole token tracking repository.
+ *
+ * Entries are registered when a token is stored, and removed when the token is revoked or expires. Expired entries
+ * are located by an {@link ExpiryIndex}, so the periodic clean-up only visits the entries actually expiring. Only the
+ * ID, the subject and the expiration of the tokens are kept, as nothing else is needed to revoke them.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class SubjectTokenIndex {
+
+    private final Map<String, IndexedToken> tokens = new ConcurrentHashMap<>();
+    private final Map<TokenSubject, Set<String>> tokenIDsBySubject = new ConcurrentHashMap<>();
+    private final ExpiryIndex<String> expiryIndex = new ExpiryIndex<>();
+
+    /**
+     * Registers the given token under every subject it belongs to.
+     * Does nothing if the token is already indexed.
+     *
+     * @param storeAccessTokenInfoRequest {@link StoreAccessTokenInfoRequest} object describing the token to be indexed
+     */
+    public void add(StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
+
+        IndexedToken indexedToken = new IndexedToken(storeAccessTokenInfoRequest.getId(), storeAccessTokenInfoRequest.getSubject(),
+                storeAccessTokenInfoRequest.getExpiresAt());
+
+        if (Objects.isNull(tokens.putIfAbsent(indexedToken.jti(), indexedToken))) {
+            TokenSubject.extract(indexedToken.subject()).forEach(tokenSubject -> tokenIDsBySubject.compute(tokenSubject, (key, tokenIDs) -> {
+                Set<String> updatedTokenIDs = Objects.isNull(tokenIDs) ? ConcurrentHashMap.newKeySet() : tokenIDs;
+                updatedTokenIDs.add(indexedToken.jti());
+                return updatedTokenIDs;
+            }));
+            if (Objects.nonNull(indexedToken.expiresAt())) {
+                expiryIndex.add(indexedToken.jti(), indexedToken.expiresAt().toInstant());
+            }
+        }
+    }
+
+    /**
+     * Removes the identified token from the index.
+     * Does nothing if the token is not indexed.
+     *
+     * @param jti token ID
+     */
+    public void remove(String jti) {
+
+        IndexedToken indexedToken = tokens.remove(jti);
+        if (Objects.nonNull(indexedToken)) {
+            removeFromSubjects(indexedToken);
+            if (Objects.nonNull(indexedToken.expiresAt())) {
+                expiryIndex.remove(jti, indexedToken.expiresAt().toInstant());
+            }
+        }
+    }
+
+    /**
+     * Returns the currently indexed tokens belonging to the given subject.
+     *
+     * @param tokenSubject {@link TokenSubject} to look up the tokens of
+     * @return list of the indexed tokens as {@link IndexedToken} objects, or empty list if there's none
+     */
+    public List<IndexedToken> getTokens(TokenSubject tokenSubject) {
+
+        return tokenIDsBySubject.getOrDefault(tokenSubject, Set.of()).stream()
+                .map(tokens::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Removes the tokens expired before the given threshold from the index.
+     *
+     * @param threshold expiration threshold as {@link Date}
+     * @return number of removed entries
+     */
+    public int removeExpired(Date threshold) {
+        return expiryIndex.drainExpired(threshold.toInstant(), this::remove);
+    }
+
+    /**
+     * Returns the number of indexed tokens.
+     *
+     * @return number of indexed tokens
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    private void removeFromSubjects(IndexedToken indexedToken) {
+
+        TokenSubject.extract(indexedToken.subject()).forEach(tokenSubject -> tokenIDsBySubject.computeIfPresent(tokenSubject, (key, tokenIDs) -> {
+            tokenIDs.remove(indexedToken.jti());
+            return tokenIDs.isEmpty() ? null : tokenIDs;
+        }));
+    }
+
+    /**
+     * Indexed token, holding only the information needed to revoke it.
+     *
+     * @param jti token ID
+     * @param subject subject of the token
+     * @param expiresAt expiration of the token
+     */
+    public record IndexedToken(String jti, String subject, Date expiresAt) {
+    }
+}
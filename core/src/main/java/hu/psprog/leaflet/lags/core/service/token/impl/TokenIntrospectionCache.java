@@ -0,0 +1,190 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import hu.psprog.leaflet.lags.core.domain.config.IntrospectionCacheSettings;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult;
+import hu.psprog.leaflet.lags.core.service.util.CacheExpiryUtil;
+import hu.psprog.leaflet.lags.core.service.util.CacheInvalidationGuard;
+import hu.psprog.leaflet.lags.core.service.util.TokenDigestUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult.FAILED_INTROSPECTION_RESULT;
+
+/**
+ * Bounded cache of the token introspection results, keyed by the SHA-256 digest of the introspected token.
+ * Entries live until the token expires (capped by the configured maximum time to live), unless the token is revoked
+ * (locally or by another service instance), in which case the entry is evicted immediately.
+ *
+ * Introspection results computed while a revocation happens are returned, but never cached, so a result of a token
+ * revoked during its introspection cannot outlive the revocation. Hit and miss statistics are exposed as cache metrics,
+ * tagged with the "introspection" cache name.
+ *
+ * @author Peter Smith
+ */
+@Component
+public class TokenIntrospectionCache {
+
+    private static final String CACHE_NAME = "introspection";
+
+    private final Cache<String, CachedIntrospectionResult> cache;
+    private final CacheInvalidationGuard<String> invalidationGuard = new CacheInvalidationGuard<>();
+
+    @Autowired
+    public TokenIntrospectionCache(OAuthConfigurationProperties oAuthConfigurationProperties, MeterRegistry meterRegistry) {
+
+        IntrospectionCacheSettings introspectionCacheSettings = oAuthConfigurationProperties.getIntrospectionCache();
+        Duration maximumTimeToLive = introspectionCacheSettings.getMaximumTimeToLive();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(introspectionCacheSettings.getMaximumSize())
+                .expireAfter(Expiry.writing((String cacheKey, CachedIntrospectionResult cachedResult) -> getTimeToLive(cachedResult, maximumTimeToLive)))
+                .evictionListener((String cacheKey, CachedIntrospectionResult cachedResult, RemovalCause cause) -> {
+                    if (Objects.nonNull(cachedResult)) {
+                        invalidationGuard.release(cachedResult.jti(), cacheKey);
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached introspection result of the given token, or parses the token with the given parser and caches
+     * the result. Tokens successfully parsed by the parser are considered active, therefore the parser must also
+     * validate the tracking status of the token. Failed parsing results in an inactive introspection result, which is
+     * not cached.
+     *
+     * @param accessToken access token to be introspected
+     * @param tokenParser parser {@link Function} implementation returning the {@link TokenParsingResult} of the token
+     * @return introspection result as {@link TokenIntrospectionResult}
+     */
+    public TokenIntrospectionResult introspect(String accessToken, Function<String, TokenParsingResult> tokenParser) {
+
+        String cacheKey = TokenDigestUtil.createDigest(accessToken);
+        CachedIntrospectionResult cachedResult = cache.getIfPresent(cacheKey);
+
+        if (Objects.isNull(cachedResult)) {
+            long invalidationCountBeforeParsing = invalidationGuard.getInvalidationCount();
+            TokenParsingResult tokenParsingResult = tokenParser.apply(accessToken);
+            if (!tokenParsingResult.isSuccessful()) {
+                return FAILED_INTROSPECTION_RESULT;
+            }
+            cachedResult = cacheResult(cacheKey, tokenParsingResult.claims(), invalidationCountBeforeParsing);
+        }
+
+        return cachedResult.result();
+    }
+
+    /**
+     * Returns the introspection results of the given tokens in the same order as the tokens are given. Results missing
+     * from the cache are computed by a single call of the given batch parser, passing only the tokens not found in the
+     * cache. The parser must return the {@link TokenParsingResult} of each token in the order of the given tokens.
+     * Results of the invalid or inactive tokens are not cached.
+     *
+     * @param accessTokens access tokens to be introspected
+     * @param batchParser parser {@link Function} implementation returning the parsing results of the tokens
+     * @return list of introspection results as {@link TokenIntrospectionResult}
+     */
+    public List<TokenIntrospectionResult> introspectAll(List<String> accessTokens,
+                                                       Function<List<String>, List<TokenParsingResult>> batchParser) {
+
+        List<String> cacheKeys = accessTokens.stream()
+                .map(TokenDigestUtil::createDigest)
+                .toList();
+        Map<String, CachedIntrospectionResult> cachedResults = new HashMap<>(cache.getAllPresent(cacheKeys));
+
+        List<Integer> missingIndices = IntStream.range(0, accessTokens.size())
+                .filter(index -> !cachedResults.containsKey(cacheKeys.get(index)))
+                .boxed()
+                .toList();
+
+        if (!missingIndices.isEmpty()) {
+            long invalidationCountBeforeParsing = invalidationGuard.getInvalidationCount();
+            List<TokenParsingResult> tokenParsingResults = batchParser.apply(missingIndices.stream()
+                    .map(accessTokens::get)
+                    .toList());
+
+            for (int index = 0; index < missingIndices.size(); index++) {
+                String cacheKey = cacheKeys.get(missingIndices.get(index));
+                TokenParsingResult tokenParsingResult = tokenParsingResults.get(index);
+                if (tokenParsingResult.isSuccessful()) {
+                    cachedResults.put(cacheKey, cacheResult(cacheKey, tokenParsingResult.claims(), invalidationCountBeforeParsing));
+                }
+            }
+        }
+
+        return cacheKeys.stream()
+                .map(cachedResults::get)
+                .map(cachedResult -> Objects.nonNull(cachedResult)
+                        ? cachedResult.result()
+                        : FAILED_INTROSPECTION_RESULT)
+                .toList();
+    }
+
+    /**
+     * Evicts the cached introspection result of the revoked tokens. As the tokens of a revoked subject (denylist mode)
+     * are not known, every result is evicted on a subject revocation.
+     *
+     * @param event {@link TokenTrackingEvent} describing the mutation
+     */
+    @EventListener
+    public void onTokenTrackingEvent(TokenTrackingEvent event) {
+
+        if (event.type() == TokenTrackingEvent.Type.REVOKED) {
+            invalidationGuard.invalidate(event.accessTokenInfo().getId())
+                    .ifPresent(cache::invalidate);
+        } else if (event.type() == TokenTrackingEvent.Type.SUBJECT_REVOKED) {
+            invalidationGuard.invalidateAll(cache::invalidateAll);
+        }
+    }
+
+    private CachedIntrospectionResult cacheResult(String cacheKey, TokenClaims claims, long invalidationCountBeforeParsing) {
+
+        CachedIntrospectionResult cachedResult = new CachedIntrospectionResult(claims.getTokenID(), createIntrospectionResult(claims));
+        invalidationGuard.runIfNotInvalidatedSince(invalidationCountBeforeParsing, claims.getTokenID(), cacheKey,
+                () -> cache.put(cacheKey, cachedResult));
+
+        return cachedResult;
+    }
+
+    private TokenIntrospectionResult createIntrospectionResult(TokenClaims claims) {
+
+        return TokenIntrospectionResult.builder()
+                .active(true)
+                .clientID(claims.getClientID())
+                .username(claims.getUsername())
+                .expiration(claims.getExpiration())
+                .build();
+    }
+
+    private Duration getTimeToLive(CachedIntrospectionResult cachedResult, Duration maximumTimeToLive) {
+
+        Date expiration = cachedResult.result().expiration();
+
+        return CacheExpiryUtil.getTimeToLive(Objects.nonNull(expiration) ? expiration.toInstant() : null, maximumTimeToLive);
+    }
+
+    private record CachedIntrospectionResult(String jti, TokenIntrospectionResult result) {
+    }
+}
@@ -0,0 +1,59 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult.FailureReason;
+import hu.psprog.leaflet.lags.core.service.util.LogThrottle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the access token parsing failures as metrics (counted per failure reason, tagged with the reason), and logs
+ * them without stack traces, rate limited per failure reason. This way a flood of invalid tokens neither fills up the
+ * logs, nor costs noticeably more than processing valid tokens.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Slf4j
+public class TokenParsingFailureRecorder {
+
+    private static final String METER_NAME = "token.parsing.failures";
+    private static final String TAG_REASON = "reason";
+    private static final Duration LOG_INTERVAL = Duration.ofSeconds(10);
+
+    private final Map<FailureReason, Counter> counters = new EnumMap<>(FailureReason.class);
+    private final Map<FailureReason, LogThrottle> logThrottles = new EnumMap<>(FailureReason.class);
+
+    @Autowired
+    public TokenParsingFailureRecorder(MeterRegistry meterRegistry) {
+
+        for (FailureReason failureReason : FailureReason.values()) {
+            counters.put(failureReason, Counter.builder(METER_NAME)
+                    .tag(TAG_REASON, failureReason.name().toLowerCase(Locale.ROOT))
+                    .description("Number of access tokens failed to be parsed")
+                    .register(meterRegistry));
+            logThrottles.put(failureReason, new LogThrottle(LOG_INTERVAL));
+        }
+    }
+
+    /**
+     * Records a parsing failure of the given reason.
+     *
+     * @param failureReason reason of the failure as {@link FailureReason}
+     * @param details details of the failure (e.g. message of the underlying exception)
+     */
+    public void record(FailureReason failureReason, String details) {
+
+        counters.get(failureReason).increment();
+        logThrottles.get(failureReason).log(suppressedCount ->
+                log.warn("Failed to parse access token: {} [{}] ({} similar failure(s) suppressed)",
+                        failureReason.getDescription(), details, suppressedCount));
+    }
+}
@@ -0,0 +1,169 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.TokenReuseSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
+import hu.psprog.leaflet.lags.core.service.util.CacheInvalidationGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the client credentials tokens issued for the applications opted in for token reuse, keyed by the
+ * requesting client, the audience and the granted scope. A cached token is returned (with its remaining lifetime as
+ * expiration) until the configured fraction of its lifetime passes, unless the token is revoked (locally or by another
+ * service instance), in which case the entry is evicted immediately.
+ *
+ * Concurrent requests of the same client, audience and scope are coalesced, so only one of them issues a new token,
+ * which is then returned to the others as well. A token issued while a revocation happens is handed out to the
+ * requests waiting for it, but it is never reused: it expires from the cache immediately. Hit and miss statistics are
+ * exposed as cache metrics, tagged with the "token-reuse" cache name.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Slf4j
+public class TokenReuseCache {
+
+    private static final String CACHE_NAME = "token-reuse";
+
+    private final Set<String> clientIDs;
+    private final Cache<ReuseKey, CachedToken> cache;
+    private final CacheInvalidationGuard<ReuseKey> invalidationGuard = new CacheInvalidationGuard<>();
+
+    @Autowired
+    public TokenReuseCache(OAuthConfigurationProperties oAuthConfigurationProperties, MeterRegistry meterRegistry) {
+
+        TokenReuseSettings tokenReuseSettings = oAuthConfigurationProperties.getTokenReuse();
+        double maximumLifetimeFraction = tokenReuseSettings.getMaximumLifetimeFraction();
+
+        this.clientIDs = Set.copyOf(tokenReuseSettings.getClientIDs());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tokenReuseSettings.getMaximumSize())
+                .expireAfter(Expiry.writing((ReuseKey cacheKey, CachedToken cachedToken) -> getTimeToLive(cachedToken, maximumLifetimeFraction)))
+                .evictionListener((ReuseKey cacheKey, CachedToken cachedToken, RemovalCause cause) -> {
+                    if (Objects.nonNull(cachedToken)) {
+                        invalidationGuard.release(cachedToken.jti(), cacheKey);
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached token issued for the same client, audience and scope, or issues a new one with the given
+     * token issuer and caches it. Token requests of other grant types than client credentials, as well as the ones of
+     * the applications not opted in for token reuse are always passed to the token issuer.
+     *
+     * @param oAuthTokenRequest token request as {@link OAuthTokenRequest}
+     * @param claims claims of the requested token as {@link TokenClaims}
+     * @param tokenIssuer {@link Supplier} implementation issuing a new token
+     * @return the cached or the newly issued token as {@link OAuthTokenResponse}
+     */
+    public OAuthTokenResponse getOrIssue(OAuthTokenRequest oAuthTokenRequest, TokenClaims claims, Supplier<OAuthTokenResponse> tokenIssuer) {
+
+        if (oAuthTokenRequest.getGrantType() != GrantType.CLIENT_CREDENTIALS || !clientIDs.contains(oAuthTokenRequest.getClientID())) {
+            return tokenIssuer.get();
+        }
+
+        ReuseKey cacheKey = new ReuseKey(oAuthTokenRequest.getClientID(), oAuthTokenRequest.getAudience(), claims.getScope());
+        AtomicBoolean issued = new AtomicBoolean();
+        CachedToken cachedToken = cache.get(cacheKey, key -> {
+            issued.set(true);
+            return issueToken(key, tokenIssuer);
+        });
+
+        OAuthTokenResponse tokenResponse;
+        if (issued.get()) {
+            tokenResponse = cachedToken.tokenResponse();
+        } else {
+            log.info("Reusing access token for client={} with JTI={}", oAuthTokenRequest.getClientID(), cachedToken.jti());
+            tokenResponse = createResponse(cachedToken);
+        }
+
+        return tokenResponse;
+    }
+
+    /**
+     * Evicts the revoked tokens. As the tokens of a revoked subject (denylist mode) are not known, every token is
+     * evicted on a subject revocation.
+     *
+     * @param event {@link TokenTrackingEvent} describing the mutation
+     */
+    @EventListener
+    public void onTokenTrackingEvent(TokenTrackingEvent event) {
+
+        if (event.type() == TokenTrackingEvent.Type.REVOKED) {
+            String jti = event.accessTokenInfo().getId();
+            // waits for the token being issued for the same key, then evicts it only if it is the revoked one
+            invalidationGuard.invalidate(jti).ifPresent(cacheKey ->
+                    cache.asMap().computeIfPresent(cacheKey, (key, cachedToken) -> jti.equals(cachedToken.jti()) ? null : cachedToken));
+        } else if (event.type() == TokenTrackingEvent.Type.SUBJECT_REVOKED) {
+            invalidationGuard.invalidateAll(cache::invalidateAll);
+        }
+    }
+
+    private CachedToken issueToken(ReuseKey cacheKey, Supplier<OAuthTokenResponse> tokenIssuer) {
+
+        long invalidationCountBeforeIssuing = invalidationGuard.getInvalidationCount();
+        long issuedAt = System.currentTimeMillis();
+        OAuthTokenResponse tokenResponse = tokenIssuer.get();
+        String jti = tokenResponse.getTokenID();
+        boolean reusable = Objects.nonNull(jti) && invalidationGuard.registerIfNotInvalidatedSince(invalidationCountBeforeIssuing, jti, cacheKey);
+
+        return new CachedToken(jti, tokenResponse, issuedAt, issuedAt + TimeUnit.SECONDS.toMillis(tokenResponse.getExpiresIn()), reusable);
+    }
+
+    private OAuthTokenResponse createResponse(CachedToken cachedToken) {
+
+        long remainingMillis = cachedToken.expiresAt() - System.currentTimeMillis();
+
+        return OAuthTokenResponse.builder()
+                .accessToken(cachedToken.tokenResponse().getAccessToken())
+                .scope(cachedToken.tokenResponse().getScope())
+                .expiresIn((int) TimeUnit.MILLISECONDS.toSeconds(Math.max(remainingMillis, 0)))
+                .tokenID(cachedToken.jti())
+                .build();
+    }
+
+    private Duration getTimeToLive(CachedToken cachedToken, double maximumLifetimeFraction) {
+
+        if (!cachedToken.reusable()) {
+            return Duration.ZERO;
+        }
+
+        long lifetime = cachedToken.expiresAt() - cachedToken.issuedAt();
+        long reusableUntil = cachedToken.issuedAt() + (long) (lifetime * maximumLifetimeFraction);
+        long timeToLive = reusableUntil - System.currentTimeMillis();
+
+        return timeToLive > 0
+                ? Duration.ofMillis(timeToLive)
+                : Duration.ZERO;
+    }
+
+    private record ReuseKey(String clientID, String audience, String scope) {
+    }
+
+    private record CachedToken(String jti, OAuthTokenResponse tokenResponse, long issuedAt, long expiresAt, boolean reusable) {
+    }
+}
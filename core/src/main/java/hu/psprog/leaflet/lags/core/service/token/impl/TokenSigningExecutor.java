@@ -0,0 +1,131 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.util.Base64URL;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.SigningExecutorSettings;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated, bounded executor signing the issued tokens, keeping the CPU heavy signature calculation off the request
+ * handling threads. Requesting threads hand the signing over to the executor and wait for its completion (virtual
+ * threads are unmounted meanwhile), so a burst of token requests can only occupy as many CPU cores as the configured
+ * parallelism, leaving the rest of the application responsive. Once the queue of the executor is full, further token
+ * requests are rejected immediately with temporarily_unavailable error.
+ *
+ * Queue depth, time spent waiting in the queue, signing time and number of rejections are exposed as metrics.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Slf4j
+public class TokenSigningExecutor {
+
+    private static final String THREAD_NAME_PREFIX = "token-signer-";
+
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Timer signingTimer;
+    private final Counter rejectionCounter;
+
+    @Autowired
+    public TokenSigningExecutor(OAuthConfigurationProperties oAuthConfigurationProperties, MeterRegistry meterRegistry) {
+
+        SigningExecutorSettings signingExecutorSettings = oAuthConfigurationProperties.getSigningExecutor();
+        this.executor = new ThreadPoolExecutor(signingExecutorSettings.getParallelism(), signingExecutorSettings.getParallelism(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(signingExecutorSettings.getQueueCapacity()),
+                Thread.ofPlatform()
+                        .name(THREAD_NAME_PREFIX, 0)
+                        .daemon()
+                        .factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("token.signing.queue.depth", executor, threadPoolExecutor -> threadPoolExecutor.getQueue().size())
+                .description("Number of tokens waiting for signing")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("token.signing.wait")
+                .description("Time spent by the tokens waiting for signing")
+                .register(meterRegistry);
+        this.signingTimer = Timer.builder("token.signing.duration")
+                .description("Time spent on signing the tokens")
+                .register(meterRegistry);
+        this.rejectionCounter = Counter.builder("token.signing.rejections")
+                .description("Number of token signing requests rejected due to full signing queue")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Signs the given signing input with the given signer on the signing executor, waiting for the completion.
+     *
+     * @param header {@link JWSHeader} of the token to be signed
+     * @param signingInput signing input of the token (encoded header and payload)
+     * @param signer {@link JWSSigner} to sign the token with
+     * @return the created signature as {@link Base64URL}
+     * @throws JOSEException if signing fails
+     * @throws OAuthTokenRequestException with temporarily_unavailable error if the signing queue is full
+     */
+    public Base64URL sign(JWSHeader header, byte[] signingInput, JWSSigner signer) throws JOSEException {
+
+        long submittedAt = System.nanoTime();
+        Future<Base64URL> result;
+        try {
+            result = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return signer.sign(header, signingInput);
+                } finally {
+                    signingTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            rejectionCounter.increment();
+            throw new OAuthTokenRequestException(OAuthErrorCode.TEMPORARILY_UNAVAILABLE, "Token signing capacity exhausted, please try again later");
+        }
+
+        return awaitCompletion(result);
+    }
+
+    /**
+     * Stops the signing threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Base64URL awaitCompletion(Future<Base64URL> result) throws JOSEException {
+
+        try {
+            return result.get();
+        } catch (InterruptedException exception) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OAuthTokenRequestException(OAuthErrorCode.SERVER_ERROR, "Interrupted while waiting for token signing");
+        } catch (ExecutionException exception) {
+            switch (exception.getCause()) {
+                case JOSEException joseException -> throw joseException;
+                case RuntimeException runtimeException -> throw runtimeException;
+                default -> throw new IllegalStateException("Failed to sign token", exception.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingMode;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatusListSnapshot;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.service.token.TokenStatusList;
+import hu.psprog.leaflet.lags.core.service.util.ExpiryIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH_WELL_KNOWN_STATUS_LIST;
+
+/**
+ * Implementation of {@link TokenStatusList}.
+ * The status list is only maintained in full token tracking mode: in denylist mode the issued tokens are not tracked
+ * at all, so the tokens do not reference a status list either.
+ *
+ * Slots are assigned without locking: a released slot is reused if its quarantine has passed, otherwise the list is
+ * extended by a new one, so the list stays about as short as the peak number of live tokens. A slot is released (and
+ * its status bit cleared) by the first clean-up following the expiration of its token, located by an
+ * {@link ExpiryIndex}, thus a slot is never reused while its previous token is still valid. Released slots are
+ * quarantined for the maximum age of the published list plus the token lifetime, so a list cached by a resource server
+ * never reports the status of the previous token of a slot for a newly issued one. The size of the published list
+ * never shrinks, so a token is never referencing a slot out of a recently published list.
+ *
+ * The version of the list is only increased when a status bit changes. Extending the list only appends cleared bits,
+ * so a new snapshot is encoded for the extended list under the same version.
+ *
+ * Slot assignments are kept in memory only, and are local to the service instance, therefore a new list ID is
+ * generated on every startup, invalidating the status references of the tokens issued before. The list is referenced
+ * by the tokens under {@code oauth2-config.token-tracking.status-list-base-uri} (defaulting to the issuer URI), which
+ * must address the issuing instance itself when multiple service instances are running.
+ *
+ * @author Peter Smith
+ */
+@Component
+@Slf4j
+public class TokenStatusListImpl implements TokenStatusList {
+
+    private static final int STATUS_BITS = 1;
+    private static final int COMPRESSION_BUFFER_SIZE = 4096;
+
+    private final boolean enabled;
+    private final String listID = UUID.randomUUID().toString();
+    private final String listURI;
+    private final Duration slotQuarantine;
+    private final Map<String, Integer> slotsByJTI = new ConcurrentHashMap<>();
+    private final ExpiryIndex<String> expiryIndex = new ExpiryIndex<>();
+    private final Queue<ReleasedSlot> releasedSlots = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger listSize = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final BitSet revokedSlots = new BitSet();
+    private TokenStatusListSnapshot snapshot;
+    private int snapshotListSize;
+
+    @Autowired
+    public TokenStatusListImpl(OAuthConfigurationProperties oAuthConfigurationProperties) {
+
+        TokenTrackingSettings tokenTrackingSettings = oAuthConfigurationProperties.getTokenTracking();
+        String baseURI = Objects.requireNonNullElse(tokenTrackingSettings.getStatusListBaseURI(), oAuthConfigurationProperties.getToken().getIssuer());
+        this.enabled = tokenTrackingSettings.getMode() == TokenTrackingMode.FULL;
+        this.listURI = String.format("%s%s/%s", baseURI, PATH_WELL_KNOWN_STATUS_LIST, listID);
+        this.slotQuarantine = tokenTrackingSettings.getStatusListMaxAge()
+                .plusSeconds(oAuthConfigurationProperties.getToken().getExpiration());
+
+        if (enabled && tokenTrackingSettings.getReplication().isEnabled() && Objects.isNull(tokenTrackingSettings.getStatusListBaseURI())) {
+            log.warn("Token status list is published under the shared issuer URI, while replication is enabled - "
+                    + "status-list-base-uri should address this service instance");
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String getListID() {
+        return listID;
+    }
+
+    @Override
+    public String getListURI() {
+        return listURI;
+    }
+
+    @Override
+    public int allocateIndex(StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
+
+        int slot = pollReusableSlot();
+        if (slot < 0) {
+            slot = listSize.getAndIncrement();
+        }
+
+        slotsByJTI.put(storeAccessTokenInfoRequest.getId(), slot);
+        expiryIndex.add(storeAccessTokenInfoRequest.getId(), storeAccessTokenInfoRequest.getExpiresAt().toInstant());
+
+        return slot;
+    }
+
+    @Override
+    public synchronized TokenStatusListSnapshot getSnapshot() {
+
+        long currentVersion = version.get();
+        int currentListSize = listSize.get();
+        if (Objects.isNull(snapshot) || snapshot.version() != currentVersion || snapshotListSize != currentListSize) {
+            snapshot = new TokenStatusListSnapshot(listID, currentVersion, STATUS_BITS, encodeStatusBits(currentListSize));
+            snapshotListSize = currentListSize;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Flags the slots of the revoked tokens (including the ones revoked by other service instances), and releases the
+     * slots of the expired tokens.
+     *
+     * @param event {@link TokenTrackingEvent} describing the mutation
+     */
+    @EventListener
+    public void onTokenTrackingEvent(TokenTrackingEvent event) {
+
+        if (event.type() == TokenTrackingEvent.Type.REVOKED) {
+            Integer slot = slotsByJTI.get(event.accessTokenInfo().getId());
+            if (Objects.nonNull(slot)) {
+                updateStatusBit(slot, true);
+            }
+        } else if (event.type() == TokenTrackingEvent.Type.EXPIRED && !event.replicated()) {
+            Instant reusableAt = Instant.now().plus(slotQuarantine);
+            AtomicInteger releasedCount = new AtomicInteger();
+            expiryIndex.drainExpired(event.threshold().toInstant(), jti -> {
+                Integer slot = slotsByJTI.remove(jti);
+                if (Objects.nonNull(slot)) {
+                    updateStatusBit(slot, false);
+                    releasedSlots.offer(new ReleasedSlot(slot, reusableAt));
+                    releasedCount.incrementAndGet();
+                }
+            });
+            log.debug("Released {} status list slot(s) of expired tokens", releasedCount.get());
+        }
+    }
+
+    private int pollReusableSlot() {
+
+        ReleasedSlot releasedSlot = releasedSlots.peek();
+        if (Objects.isNull(releasedSlot) || releasedSlot.reusableAt().isAfter(Instant.now())) {
+            return -1;
+        }
+
+        releasedSlot = releasedSlots.poll();
+        if (Objects.nonNull(releasedSlot) && releasedSlot.reusableAt().isAfter(Instant.now())) {
+            // a concurrent allocation took the reusable head, the polled slot is put back to wait for its quarantine
+            releasedSlots.offer(releasedSlot);
+            releasedSlot = null;
+        }
+
+        return Objects.nonNull(releasedSlot)
+                ? releasedSlot.slot()
+                : -1;
+    }
+
+    private synchronized void updateStatusBit(int slot, boolean revoked) {
+
+        if (revokedSlots.get(slot) != revoked) {
+            revokedSlots.set(slot, revoked);
+            version.incrementAndGet();
+        }
+    }
+
+    private String encodeStatusBits(int currentListSize) {
+
+        byte[] statusBytes = Arrays.copyOf(revokedSlots.toByteArray(), (currentListSize + Byte.SIZE - 1) / Byte.SIZE);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(statusBytes);
+        deflater.finish();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        byte[] buffer = new byte[COMPRESSION_BUFFER_SIZE];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(compressed.toByteArray());
+    }
+
+    private record ReleasedSlot(int slot, Instant reusableAt) {
+    }
+}
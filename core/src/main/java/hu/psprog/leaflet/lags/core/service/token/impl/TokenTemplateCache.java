@@ -0,0 +1,150 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthConstants;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the pre-encoded parts of the issued JWT access tokens.
+ *
+ * The header of the tokens only depends on the signing key, thus it is encoded once per key ID. Most of the claims
+ * (issuer, audience, subject, scope and user related claims) are identical for the tokens issued to the same
+ * client/user for the same audience, therefore those are serialized once into a payload template, which only needs the
+ * per-token claims (token ID, issue/expiration timestamps, status list index) to be appended. Templates are keyed by
+ * the static claims, and the least recently used ones are evicted once the cache is full. The status claim is omitted,
+ * if no status list URI is specified.
+ *
+ * @author Peter Smith
+ */
+public class TokenTemplateCache {
+
+    private static final long MAXIMUM_TEMPLATE_COUNT = 1_000;
+    private static final int DYNAMIC_CLAIMS_LENGTH = 128;
+    private static final char SEGMENT_SEPARATOR = '.';
+    private static final Base64.Encoder BASE64URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Set<String> DYNAMIC_CLAIMS = Set.of(OAuthConstants.Token.JTI, OAuthConstants.Token.ISSUED_AT,
+            OAuthConstants.Token.NOT_BEFORE, OAuthConstants.Token.EXPIRATION, OAuthConstants.Token.STATUS);
+
+    private final JWSAlgorithm signatureAlgorithm;
+    private final String issuer;
+    private final Map<String, EncodedHeader> headers = new ConcurrentHashMap<>();
+    private final Cache<TemplateKey, String> payloadTemplates = Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_TEMPLATE_COUNT)
+            .build();
+
+    public TokenTemplateCache(JWSAlgorithm signatureAlgorithm, String issuer) {
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.issuer = issuer;
+    }
+
+    /**
+     * Returns the header of the tokens signed by the given key, along with its Base64URL encoded form.
+     *
+     * @param keyID key ID ("kid") of the signing key
+     * @return header as {@link EncodedHeader}
+     */
+    public EncodedHeader getHeader(String keyID) {
+        return headers.computeIfAbsent(keyID, this::createHeader);
+    }
+
+    /**
+     * Creates the signing input of a token (encoded header and payload, separated by a dot).
+     *
+     * @param header encoded header of the token, as returned by {@link #getHeader(String)}
+     * @param claims static claims of the token
+     * @param audience audience of the token
+     * @param statusListURI URI of the status list, the token's status is tracked in (or {@code null} if its status is not tracked in a status list)
+     * @param dynamicClaims per-token claims as {@link DynamicClaims}
+     * @return signing input of the token
+     */
+    public String createSigningInput(EncodedHeader header, TokenClaims claims, String audience, String statusListURI,
+                                     DynamicClaims dynamicClaims) {
+
+        String payloadTemplate = payloadTemplates.get(new TemplateKey(claims.getClaimsAsMap(), audience, statusListURI),
+                this::createPayloadTemplate);
+
+        StringBuilder payloadBuilder = new StringBuilder(payloadTemplate.length() + DYNAMIC_CLAIMS_LENGTH)
+                .append(payloadTemplate);
+        if (Objects.nonNull(statusListURI)) {
+            payloadBuilder.append(dynamicClaims.statusListIndex()).append("}},");
+        }
+
+        String payload = payloadBuilder
+                .append('"').append(OAuthConstants.Token.JTI).append("\":\"").append(dynamicClaims.tokenID())
+                .append("\",\"").append(OAuthConstants.Token.ISSUED_AT).append("\":").append(dynamicClaims.issuedAt())
+                .append(",\"").append(OAuthConstants.Token.NOT_BEFORE).append("\":").append(dynamicClaims.issuedAt())
+                .append(",\"").append(OAuthConstants.Token.EXPIRATION).append("\":").append(dynamicClaims.expiresAt())
+                .append('}')
+                .toString();
+
+        return header.encoded() + SEGMENT_SEPARATOR + BASE64URL_ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private EncodedHeader createHeader(String keyID) {
+
+        JWSHeader header = new JWSHeader.Builder(signatureAlgorithm)
+                .type(JOSEObjectType.JWT)
+                .keyID(keyID)
+                .build();
+
+        return new EncodedHeader(header, header.toBase64URL().toString());
+    }
+
+    private String createPayloadTemplate(TemplateKey templateKey) {
+
+        Map<String, Object> staticClaims = new LinkedHashMap<>(templateKey.claims());
+        staticClaims.keySet().removeAll(DYNAMIC_CLAIMS);
+        staticClaims.put(OAuthConstants.Token.AUDIENCE, templateKey.audience());
+        staticClaims.put(OAuthConstants.Token.ISSUER, issuer);
+
+        String serializedStaticClaims = JSONObjectUtils.toJSONString(staticClaims);
+        String staticPart = serializedStaticClaims.substring(0, serializedStaticClaims.length() - 1)
+                + (staticClaims.isEmpty() ? "" : ",");
+        if (Objects.isNull(templateKey.statusListURI())) {
+            return staticPart;
+        }
+
+        String statusListURI = JSONObjectUtils.toJSONString(Map.of(OAuthConstants.Token.STATUS_LIST_URI, templateKey.statusListURI()));
+
+        return staticPart
+                + "\"" + OAuthConstants.Token.STATUS + "\":{\"" + OAuthConstants.Token.STATUS_LIST + "\":"
+                + statusListURI.substring(0, statusListURI.length() - 1)
+                + ",\"" + OAuthConstants.Token.STATUS_LIST_INDEX + "\":";
+    }
+
+    /**
+     * Pre-encoded token header.
+     *
+     * @param header the header as {@link JWSHeader}
+     * @param encoded Base64URL encoded form of the header
+     */
+    public record EncodedHeader(JWSHeader header, String encoded) {
+    }
+
+    /**
+     * Per-token claims of an issued token.
+     *
+     * @param tokenID token ID ("jti")
+     * @param issuedAt issue timestamp in epoch seconds (used as "iat" and "nbf")
+     * @param expiresAt expiration timestamp in epoch seconds ("exp")
+     * @param statusListIndex index of the token in the status list (ignored if the token does not reference a status list)
+     */
+    public record DynamicClaims(String tokenID, long issuedAt, long expiresAt, int statusListIndex) {
+    }
+
+    private record TemplateKey(Map<String, Object> claims, String audience, String statusListURI) {
+    }
+}
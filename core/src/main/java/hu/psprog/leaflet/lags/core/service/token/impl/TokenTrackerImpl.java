@@ -1,22 +1,48 @@
 package hu.psprog.leaflet.lags.core.service.token.impl;
 
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthTokenSettings;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingMode;
 import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
 import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
 import hu.psprog.leaflet.lags.core.persistence.dao.AccessTokenDAO;
 import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of {@link TokenTracker}.
+ * Depending on the oauth2-config.token-tracking.mode configuration parameter, either tracks every issued token (full
+ * mode), or only records the revoked ones (denylist mode).
+ * In full mode, live tokens are also registered in a {@link SubjectTokenIndex}, so every token of a user or client can
+ * be revoked at once. In denylist mode nothing is recorded on issuing a token, thus revoking every token of a subject
+ * is recorded as a single subject revocation record instead (see {@link SubjectDenylist}), rejecting every token of the
+ * subject issued before the revocation. The record is kept until every such token has expired, i.e. for the longest
+ * token lifetime known by the tracker (the configured one, or any longer one issued since startup).
+ * Every mutation (store, revoke, clean-up) is published as a {@link TokenTrackingEvent}, except storing the tokens in
+ * denylist mode.
  *
  * @author Peter Smith
  */
@@ -25,20 +51,49 @@ import java.util.Optional;
 public class TokenTrackerImpl implements TokenTracker {
 
     private final AccessTokenDAO accessTokenDAO;
+    private final SubjectTokenIndex subjectTokenIndex;
+    private final SubjectDenylist subjectDenylist;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final boolean denylistMode;
+    private final AtomicLong maximumTokenLifetime;
 
     @Autowired
-    public TokenTrackerImpl(AccessTokenDAO accessTokenDAO) {
+    public TokenTrackerImpl(AccessTokenDAO accessTokenDAO, SubjectTokenIndex subjectTokenIndex, SubjectDenylist subjectDenylist,
+                            ApplicationEventPublisher applicationEventPublisher, OAuthConfigurationProperties oAuthConfigurationProperties) {
         this.accessTokenDAO = accessTokenDAO;
+        this.subjectTokenIndex = subjectTokenIndex;
+        this.subjectDenylist = subjectDenylist;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.denylistMode = oAuthConfigurationProperties.getTokenTracking().getMode() == TokenTrackingMode.DENYLIST;
+        this.maximumTokenLifetime = new AtomicLong(Optional.ofNullable(oAuthConfigurationProperties.getToken())
+                .map(OAuthTokenSettings::getExpiration)
+                .map(TimeUnit.SECONDS::toMillis)
+                .orElse(0L));
+    }
+
+    /**
+     * Registers the active tokens restored by the token tracking repository in the subject index (full mode), or the
+     * restored subject revocations in the subject denylist (denylist mode).
+     * The tokens are visited one by one (read in pages by the repositories backed by external storage), so the
+     * tracked tokens are never loaded all at once.
+     */
+    @PostConstruct
+    public void initializeSubjectIndex() {
+
+        if (denylistMode) {
+            accessTokenDAO.forEachAccessTokenInfo(TokenStatus.REVOKED, this::registerSubjectRevocation);
+            log.info("Subject denylist initialized with {} revoked subject(s)", subjectDenylist.size());
+        } else {
+            accessTokenDAO.forEachAccessTokenInfo(TokenStatus.ACTIVE, subjectTokenIndex::add);
+            log.info("Subject index initialized with {} active token(s)", subjectTokenIndex.size());
+        }
     }
 
     @Override
     public void storeTokenInfo(StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
 
-        if (accessTokenDAO.retrieveByJTI(storeAccessTokenInfoRequest.getId()).isPresent()) {
-            log.warn("Access token info is already stored for token identified by JTI={}", storeAccessTokenInfoRequest.getId());
-        } else {
-            accessTokenDAO.save(new AccessTokenInfo(storeAccessTokenInfoRequest));
-            log.info("Tracking access token identified by JTI={}", storeAccessTokenInfoRequest.getId());
+        if (doStoreTokenInfo(storeAccessTokenInfoRequest)) {
+            applicationEventPublisher.publishEvent(TokenTrackingEvent.stored(new AccessTokenInfo(storeAccessTokenInfoRequest), false));
         }
     }
 
@@ -47,6 +102,25 @@ public class TokenTrackerImpl implements TokenTracker {
         return accessTokenDAO.retrieveByJTI(jti);
     }
 
+    @Override
+    public boolean isTokenActive(TokenClaims claims) {
+        return isTokenActive(claims, accessTokenDAO.retrieveByJTI(claims.getTokenID()));
+    }
+
+    @Override
+    public Set<String> filterActiveTokens(Collection<TokenClaims> claims) {
+
+        Map<String, AccessTokenInfo> trackedTokens = accessTokenDAO.retrieveByJTIs(claims.stream()
+                        .map(TokenClaims::getTokenID)
+                        .toList()).stream()
+                .collect(Collectors.toMap(AccessTokenInfo::getId, Function.identity(), (first, second) -> first));
+
+        return claims.stream()
+                .filter(tokenClaims -> isTokenActive(tokenClaims, Optional.ofNullable(trackedTokens.get(tokenClaims.getTokenID()))))
+                .map(TokenClaims::getTokenID)
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public void revokeToken(String jti) {
 
@@ -63,19 +137,161 @@ public class TokenTrackerImpl implements TokenTracker {
     }
 
     @Override
-    @Scheduled(fixedRateString = "PT1H")
+    public void revokeToken(TokenClaims claims) {
+
+        if (denylistMode && accessTokenDAO.retrieveByJTI(claims.getTokenID()).isEmpty()) {
+            AccessTokenInfo accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                    .id(claims.getTokenID())
+                    .subject(claims.getSubject())
+                    .expiresAt(claims.getExpiration())
+                    .build());
+            doRevokeToken(accessTokenInfo);
+            log.info("Token identified by JTI={} has been recorded as revoked.", claims.getTokenID());
+        } else {
+            revokeToken(claims.getTokenID());
+        }
+    }
+
+    @Override
+    public int revokeAllForSubject(TokenSubject tokenSubject) {
+
+        if (denylistMode) {
+            doRevokeSubject(tokenSubject);
+            log.info("Revoked every token of subject {}={} issued until now", tokenSubject.type(), tokenSubject.value());
+            return 0;
+        }
+
+        List<SubjectTokenIndex.IndexedToken> indexedTokens = subjectTokenIndex.getTokens(tokenSubject);
+        int revokedCount = 0;
+        for (SubjectTokenIndex.IndexedToken indexedToken : indexedTokens) {
+            Optional<AccessTokenInfo> accessTokenInfo = accessTokenDAO.retrieveByJTI(indexedToken.jti());
+            if (accessTokenInfo.isPresent() && TokenStatus.ACTIVE == accessTokenInfo.get().getStatus()) {
+                doRevokeToken(accessTokenInfo.get());
+                revokedCount++;
+            } else {
+                subjectTokenIndex.remove(indexedToken.jti());
+            }
+        }
+
+        log.info("Revoked {} token(s) of subject {}={}", revokedCount, tokenSubject.type(), tokenSubject.value());
+
+        return revokedCount;
+    }
+
+    @Override
+    public void applyReplicatedEvent(TokenTrackingEvent event) {
+
+        boolean applied = switch (event.type()) {
+            case STORED -> applyReplicatedStore(event.accessTokenInfo());
+            case REVOKED -> applyReplicatedRevocation(event.accessTokenInfo());
+            case SUBJECT_REVOKED -> applyReplicatedSubjectRevocation(event.accessTokenInfo());
+            case EXPIRED -> {
+                Date now = new Date();
+                doCleanUpExpiredToken(event.threshold().before(now) ? event.threshold() : now);
+                yield true;
+            }
+        };
+
+        if (applied) {
+            applicationEventPublisher.publishEvent(new TokenTrackingEvent(event.type(), event.accessTokenInfo(), event.threshold(), true));
+        }
+    }
+
+    @Override
+    @Scheduled(fixedRateString = "PT1M")
     public void cleanUpExpiredToken() {
 
-        log.info("Started cleaning up access token repository...");
+        Date threshold = new Date();
+        doCleanUpExpiredToken(threshold);
+        applicationEventPublisher.publishEvent(TokenTrackingEvent.expired(threshold, false));
+    }
 
-        Date currentDate = new Date();
+    private boolean doStoreTokenInfo(StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
 
-        accessTokenDAO.getAllAccessTokenInfo().stream()
-                .filter(accessTokenInfo -> accessTokenInfo.getExpiresAt().before(currentDate))
-                .map(AccessTokenInfo::getId)
-                .forEach(accessTokenDAO::deleteByJTI);
+        boolean stored = false;
+        if (denylistMode) {
+            registerTokenLifetime(storeAccessTokenInfoRequest);
+            log.debug("Token tracking is in denylist mode, skipped tracking token identified by JTI={}", storeAccessTokenInfoRequest.getId());
+        } else {
+            // JTIs are random UUIDs, and duplicates are merged by the storage, so the token is not looked up before saving
+            accessTokenDAO.save(new AccessTokenInfo(storeAccessTokenInfoRequest));
+            subjectTokenIndex.add(storeAccessTokenInfoRequest);
+            log.info("Tracking access token identified by JTI={}", storeAccessTokenInfoRequest.getId());
+            stored = true;
+        }
 
-        log.info("Access token repository clean-up finished.");
+        return stored;
+    }
+
+    private boolean applyReplicatedStore(AccessTokenInfo replicatedAccessTokenInfo) {
+
+        if (denylistMode) {
+            return doStoreTokenInfo(replicatedAccessTokenInfo);
+        }
+
+        // replicated mutations may arrive out of order, so a token already revoked by a later mutation must not be overwritten
+        Optional<AccessTokenInfo> trackedAccessTokenInfo = accessTokenDAO.retrieveByJTI(replicatedAccessTokenInfo.getId());
+        boolean applied = trackedAccessTokenInfo.isEmpty();
+        if (applied) {
+            doStoreTokenInfo(replicatedAccessTokenInfo);
+        } else {
+            // the token may have been stored by another instance sharing the same storage, still it has to be indexed
+            if (TokenStatus.ACTIVE == trackedAccessTokenInfo.get().getStatus()) {
+                subjectTokenIndex.add(replicatedAccessTokenInfo);
+            }
+            log.debug("Access token info is already stored for token identified by JTI={}", replicatedAccessTokenInfo.getId());
+        }
+
+        return applied;
+    }
+
+    private boolean applyReplicatedRevocation(AccessTokenInfo replicatedAccessTokenInfo) {
+
+        Optional<AccessTokenInfo> accessTokenInfo = accessTokenDAO.retrieveByJTI(replicatedAccessTokenInfo.getId());
+        boolean applied = accessTokenInfo.isEmpty() || TokenStatus.ACTIVE == accessTokenInfo.get().getStatus();
+        if (applied) {
+            AccessTokenInfo revokedAccessTokenInfo = accessTokenInfo.orElse(replicatedAccessTokenInfo);
+            revokedAccessTokenInfo.setStatus(TokenStatus.REVOKED);
+            revokedAccessTokenInfo.setRevokedAt(replicatedAccessTokenInfo.getRevokedAt());
+            accessTokenDAO.save(revokedAccessTokenInfo);
+            subjectTokenIndex.remove(revokedAccessTokenInfo.getId());
+            log.info("Replicated revocation of token identified by JTI={}", revokedAccessTokenInfo.getId());
+        }
+
+        return applied;
+    }
+
+    private boolean applyReplicatedSubjectRevocation(AccessTokenInfo replicatedSubjectRevocation) {
+
+        Optional<AccessTokenInfo> subjectRevocation = accessTokenDAO.retrieveByJTI(replicatedSubjectRevocation.getId());
+        boolean applied = subjectRevocation.isEmpty()
+                || Objects.isNull(subjectRevocation.get().getRevokedAt())
+                || subjectRevocation.get().getRevokedAt().before(replicatedSubjectRevocation.getRevokedAt());
+        if (applied) {
+            accessTokenDAO.save(replicatedSubjectRevocation);
+            registerSubjectRevocation(replicatedSubjectRevocation);
+            log.info("Replicated revocation of subject identified by ID={}", replicatedSubjectRevocation.getId());
+        }
+
+        return applied;
+    }
+
+    private void doCleanUpExpiredToken(Date threshold) {
+
+        log.debug("Started cleaning up access token repository...");
+
+        int deletedCount = accessTokenDAO.deleteExpiredBefore(threshold);
+        if (denylistMode) {
+            subjectDenylist.removeExpired(threshold);
+        } else {
+            subjectTokenIndex.removeExpired(threshold);
+        }
+
+        if (deletedCount > 0) {
+            log.info("Access token repository clean-up finished, removed {} expired entries.", deletedCount);
+        } else {
+            log.debug("Access token repository clean-up finished, no expired entries found.");
+        }
     }
 
     private void verifyActiveToken(AccessTokenInfo accessTokenInfo) {
@@ -87,10 +303,51 @@ public class TokenTrackerImpl implements TokenTracker {
         }
     }
 
+    private boolean isTokenActive(TokenClaims claims, Optional<AccessTokenInfo> trackedAccessTokenInfo) {
+
+        boolean active = trackedAccessTokenInfo
+                .map(accessTokenInfo -> TokenStatus.ACTIVE == accessTokenInfo.getStatus())
+                .orElse(denylistMode);
+
+        return active && !(denylistMode && subjectDenylist.isRevoked(claims.getSubject(), claims.getIssuedAt()));
+    }
+
+    private void registerTokenLifetime(StoreAccessTokenInfoRequest storeAccessTokenInfoRequest) {
+
+        if (Objects.nonNull(storeAccessTokenInfoRequest.getIssuedAt()) && Objects.nonNull(storeAccessTokenInfoRequest.getExpiresAt())) {
+            long tokenLifetime = storeAccessTokenInfoRequest.getExpiresAt().getTime() - storeAccessTokenInfoRequest.getIssuedAt().getTime();
+            maximumTokenLifetime.accumulateAndGet(tokenLifetime, Math::max);
+        }
+    }
+
+    private void registerSubjectRevocation(AccessTokenInfo subjectRevocation) {
+
+        TokenSubject.fromRevocationID(subjectRevocation.getId())
+                .ifPresent(tokenSubject -> subjectDenylist.add(tokenSubject, subjectRevocation.getRevokedAt(), subjectRevocation.getExpiresAt()));
+    }
+
+    private void doRevokeSubject(TokenSubject tokenSubject) {
+
+        Date revokedAt = new Date();
+        AccessTokenInfo subjectRevocation = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(tokenSubject.toRevocationID())
+                .subject(tokenSubject.value())
+                .expiresAt(new Date(revokedAt.getTime() + maximumTokenLifetime.get()))
+                .build());
+        subjectRevocation.setStatus(TokenStatus.REVOKED);
+        subjectRevocation.setRevokedAt(revokedAt);
+
+        accessTokenDAO.save(subjectRevocation);
+        registerSubjectRevocation(subjectRevocation);
+        applicationEventPublisher.publishEvent(TokenTrackingEvent.subjectRevoked(subjectRevocation, false));
+    }
+
     private void doRevokeToken(AccessTokenInfo accessTokenInfo) {
 
         accessTokenInfo.setStatus(TokenStatus.REVOKED);
         accessTokenInfo.setRevokedAt(new Date());
         accessTokenDAO.save(accessTokenInfo);
+        subjectTokenIndex.remove(accessTokenInfo.getId());
+        applicationEventPublisher.publishEvent(TokenTrackingEvent.revoked(accessTokenInfo, false));
     }
 }
@@ -1,6 +1,6 @@
 package hu.psprog.leaflet.lags.core.service.token.validator;
 
-import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
 import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
@@ -8,6 +8,9 @@ import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.Date;
+import java.util.Optional;
+
 /**
  * {@link OAuth2TokenValidator} implementation to check if the tokens is not yet revoked.
  *
@@ -24,9 +27,16 @@ public class TrackedStatusTokenValidator implements OAuth2TokenValidator<Jwt> {
     @Override
     public OAuth2TokenValidatorResult validate(Jwt token) {
 
-        return tokenTracker.retrieveTokenInfo(token.getId())
-                .filter(accessTokenInfo -> accessTokenInfo.getStatus() == TokenStatus.ACTIVE)
-                .map(accessTokenInfo -> OAuth2TokenValidatorResult.success())
-                .orElseGet(() -> OAuth2TokenValidatorResult.failure(new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN)));
+        TokenClaims claims = TokenClaims.builder()
+                .tokenID(token.getId())
+                .subject(token.getSubject())
+                .issuedAt(Optional.ofNullable(token.getIssuedAt())
+                        .map(Date::from)
+                        .orElse(null))
+                .build();
+
+        return tokenTracker.isTokenActive(claims)
+                ? OAuth2TokenValidatorResult.success()
+                : OAuth2TokenValidatorResult.failure(new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN));
     }
 }
@@ -3,6 +3,7 @@ package hu.psprog.leaflet.lags.core.service.userdetails;
 import hu.psprog.leaflet.lags.core.domain.entity.User;
 import hu.psprog.leaflet.lags.core.persistence.dao.UserDAO;
 import hu.psprog.leaflet.lags.core.service.registry.RoleToAuthorityMappingRegistry;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -17,8 +18,9 @@ import java.util.function.Predicate;
 public class AllLocalUserUserDetailsService extends LocalUserUserDetailsService {
 
     @Autowired
-    public AllLocalUserUserDetailsService(UserDAO userDAO, RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry) {
-        super(userDAO, roleToAuthorityMappingRegistry);
+    public AllLocalUserUserDetailsService(UserDAO userDAO, RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry,
+                                          PermissionDictionary permissionDictionary) {
+        super(userDAO, roleToAuthorityMappingRegistry, permissionDictionary);
     }
 
     @Override
@@ -4,10 +4,13 @@ import hu.psprog.leaflet.lags.core.domain.entity.User;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.persistence.dao.UserDAO;
 import hu.psprog.leaflet.lags.core.service.registry.RoleToAuthorityMappingRegistry;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 /**
@@ -22,10 +25,13 @@ abstract class LocalUserUserDetailsService implements UserDetailsService {
 
     private final UserDAO userDAO;
     private final RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry;
+    private final PermissionDictionary permissionDictionary;
 
-    public LocalUserUserDetailsService(UserDAO userDAO, RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry) {
+    public LocalUserUserDetailsService(UserDAO userDAO, RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry,
+                                       PermissionDictionary permissionDictionary) {
         this.userDAO = userDAO;
         this.roleToAuthorityMappingRegistry = roleToAuthorityMappingRegistry;
+        this.permissionDictionary = permissionDictionary;
     }
 
     /**
@@ -38,7 +44,7 @@ abstract class LocalUserUserDetailsService implements UserDetailsService {
      *  - id -> id
      *  - enabled -> enabled
      *  - role -> role
-     *  - scopes available for the user by their role -> authorities
+     *  - scopes available for the user by their role -> authorities (also encoded as authoritySet)
      *
      * @param email email address of the user
      * @return identified user converted to {@link ExtendedUser} object
@@ -49,18 +55,28 @@ abstract class LocalUserUserDetailsService implements UserDetailsService {
 
         return userDAO.findByEmail(email)
                 .filter(userFilter())
-                .map(user -> ExtendedUser.builder()
-                        .username(email)
-                        .password(user.getPassword())
-                        .name(user.getUsername())
-                        .id(user.getId())
-                        .enabled(user.isEnabled())
-                        .role(user.getRole().getName())
-                        .authorities(roleToAuthorityMappingRegistry.getAuthoritiesForRole(user.getRole()))
-                        .build())
+                .map(user -> createExtendedUser(email, user))
                 .orElseThrow(() -> new UsernameNotFoundException(String.format(USERNAME_NOT_FOUND_MESSAGE_PATTERN, email)));
     }
 
+    private ExtendedUser createExtendedUser(String email, User user) {
+
+        List<GrantedAuthority> authorities = roleToAuthorityMappingRegistry.getAuthoritiesForRole(user.getRole());
+
+        return ExtendedUser.builder()
+                .username(email)
+                .password(user.getPassword())
+                .name(user.getUsername())
+                .id(user.getId())
+                .enabled(user.isEnabled())
+                .role(user.getRole().getName())
+                .authorities(authorities)
+                .authoritySet(permissionDictionary.encode(authorities.stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .toList()))
+                .build();
+    }
+
     /**
      * Determines whether the found user should be considered for authentication. Will be called right after retrieving
      * the user account from the database (if any).
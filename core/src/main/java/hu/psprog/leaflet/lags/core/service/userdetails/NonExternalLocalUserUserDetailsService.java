@@ -4,6 +4,7 @@ import hu.psprog.leaflet.lags.core.domain.entity.AccountType;
 import hu.psprog.leaflet.lags.core.domain.entity.User;
 import hu.psprog.leaflet.lags.core.persistence.dao.UserDAO;
 import hu.psprog.leaflet.lags.core.service.registry.RoleToAuthorityMappingRegistry;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -19,8 +20,9 @@ import java.util.function.Predicate;
 public class NonExternalLocalUserUserDetailsService extends LocalUserUserDetailsService {
 
     @Autowired
-    public NonExternalLocalUserUserDetailsService(UserDAO userDAO, RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry) {
-        super(userDAO, roleToAuthorityMappingRegistry);
+    public NonExternalLocalUserUserDetailsService(UserDAO userDAO, RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry,
+                                                  PermissionDictionary permissionDictionary) {
+        super(userDAO, roleToAuthorityMappingRegistry, permissionDictionary);
     }
 
     @Override
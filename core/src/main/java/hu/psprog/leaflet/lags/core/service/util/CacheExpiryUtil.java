@@ -0,0 +1,39 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Utility for calculating the time to live of cache entries holding expiring values (e.g. verified tokens).
+ *
+ * @author Peter Smith
+ */
+public final class CacheExpiryUtil {
+
+    private CacheExpiryUtil() { }
+
+    /**
+     * Calculates the time left until the given expiration, capped by the given maximum time to live.
+     * Values without expiration live for the maximum time to live, while already expired values are not cached at all.
+     *
+     * @param expiresAt expiration of the cached value as {@link Instant}, may be {@code null}
+     * @param maximumTimeToLive maximum time to live of the cache entries as {@link Duration}
+     * @return time to live of the cache entry as {@link Duration}
+     */
+    public static Duration getTimeToLive(Instant expiresAt, Duration maximumTimeToLive) {
+
+        if (Objects.isNull(expiresAt)) {
+            return maximumTimeToLive;
+        }
+
+        Duration timeToExpiration = Duration.between(Instant.now(), expiresAt);
+        if (timeToExpiration.isNegative()) {
+            return Duration.ZERO;
+        }
+
+        return timeToExpiration.compareTo(maximumTimeToLive) < 0
+                ? timeToExpiration
+                : maximumTimeToLive;
+    }
+}
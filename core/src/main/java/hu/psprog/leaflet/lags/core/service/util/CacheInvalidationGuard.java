@@ -0,0 +1,143 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prevents caches from caching values loaded while an invalidation happens. The caller takes the current invalidation
+ * count before loading a value, then caches it via {@link #runIfNotInvalidatedSince(long, Runnable)}, which only runs
+ * the cache operation if no invalidation has happened since. Cache operations and invalidations are mutually exclusive,
+ * so an invalidation either precedes the cache operation (which is then skipped), or follows it (and removes the cached
+ * value).
+ *
+ * Entries may also be registered by an ID (e.g. the JTI of a cached token), so an invalidation of a single ID returns
+ * the cache key to be evicted. Registrations must be released by the eviction listener of the cache via
+ * {@link #release(String, Object)}.
+ *
+ * The guard never calls the cache itself, thus it can be used from within the loader of a cache as well, and callers
+ * should evict entries only after the invalidation returned.
+ *
+ * @param <K> type of the cache keys
+ * @author Peter Smith
+ */
+public class CacheInvalidationGuard<K> {
+
+    private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+    private final AtomicLong invalidationCounter = new AtomicLong();
+    private final Map<String, K> cacheKeysByID = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the current invalidation count, to be taken before loading a value.
+     *
+     * @return current invalidation count
+     */
+    public long getInvalidationCount() {
+        return invalidationCounter.get();
+    }
+
+    /**
+     * Runs the given cache operation, if no invalidation has happened since the given invalidation count was taken.
+     *
+     * @param invalidationCount invalidation count taken before loading the value
+     * @param cacheOperation {@link Runnable} caching the loaded value
+     * @return {@code true} if the cache operation has been run, {@code false} otherwise
+     */
+    public boolean runIfNotInvalidatedSince(long invalidationCount, Runnable cacheOperation) {
+
+        invalidationLock.readLock().lock();
+        try {
+            boolean valid = invalidationCounter.get() == invalidationCount;
+            if (valid) {
+                cacheOperation.run();
+            }
+
+            return valid;
+        } finally {
+            invalidationLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registers the given cache key by the given ID and runs the given cache operation, if no invalidation has happened
+     * since the given invalidation count was taken.
+     *
+     * @param invalidationCount invalidation count taken before loading the value
+     * @param id ID of the cached value
+     * @param cacheKey cache key of the value
+     * @param cacheOperation {@link Runnable} caching the loaded value
+     * @return {@code true} if the key has been registered and the cache operation has been run, {@code false} otherwise
+     */
+    public boolean runIfNotInvalidatedSince(long invalidationCount, String id, K cacheKey, Runnable cacheOperation) {
+
+        return runIfNotInvalidatedSince(invalidationCount, () -> {
+            cacheKeysByID.put(id, cacheKey);
+            cacheOperation.run();
+        });
+    }
+
+    /**
+     * Registers the given cache key by the given ID, if no invalidation has happened since the given invalidation count
+     * was taken. To be used by cache loaders, where the loaded value is cached by the cache itself, once the loader
+     * returns (an invalidation following the registration must wait for the loader to evict the value).
+     *
+     * @param invalidationCount invalidation count taken before loading the value
+     * @param id ID of the loaded value
+     * @param cacheKey cache key of the value
+     * @return {@code true} if the key has been registered (and the value can be cached), {@code false} otherwise
+     */
+    public boolean registerIfNotInvalidatedSince(long invalidationCount, String id, K cacheKey) {
+        return runIfNotInvalidatedSince(invalidationCount, () -> cacheKeysByID.put(id, cacheKey));
+    }
+
+    /**
+     * Registers an invalidation of the cache as a whole and runs the given invalidation.
+     *
+     * @param invalidation {@link Runnable} invalidating the cache
+     */
+    public void invalidateAll(Runnable invalidation) {
+
+        invalidationLock.writeLock().lock();
+        try {
+            invalidationCounter.incrementAndGet();
+            cacheKeysByID.clear();
+            invalidation.run();
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers an invalidation of the value of the given ID, and returns the cache key registered by the ID.
+     *
+     * @param id ID of the invalidated value
+     * @return cache key of the invalidated value wrapped as {@link Optional}, or empty Optional if the ID is not registered
+     */
+    public Optional<K> invalidate(String id) {
+
+        invalidationLock.writeLock().lock();
+        try {
+            invalidationCounter.incrementAndGet();
+            return Optional.ofNullable(cacheKeysByID.remove(id));
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Releases the registration of the given ID, if it is still registered with the given cache key.
+     *
+     * @param id ID of the evicted value
+     * @param cacheKey cache key of the evicted value
+     */
+    public void release(String id, K cacheKey) {
+
+        if (Objects.nonNull(id)) {
+            cacheKeysByID.remove(id, cacheKey);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Expiry-ordered index of arbitrary keys, grouping the keys into fixed-width time buckets (per minute by default).
+ * Buckets are ordered by their start time, so every key expiring before a given point in time can be collected by
+ * visiting only the affected buckets at the head of the index, instead of scanning every indexed key.
+ * A bucket is only drained once the whole time window it covers has passed, thus keys are released at most one bucket
+ * width later than their actual expiration.
+ *
+ * @param <K> type of the indexed keys
+ * @author Peter Smith
+ */
+public class ExpiryIndex<K> {
+
+    private static final Duration DEFAULT_BUCKET_WIDTH = Duration.ofMinutes(1);
+
+    private final long bucketWidthMillis;
+    private final ConcurrentNavigableMap<Long, Bucket<K>> buckets = new ConcurrentSkipListMap<>();
+
+    public ExpiryIndex() {
+        this(DEFAULT_BUCKET_WIDTH);
+    }
+
+    public ExpiryIndex(Duration bucketWidth) {
+        this.bucketWidthMillis = bucketWidth.toMillis();
+    }
+
+    /**
+     * Registers the given key in the bucket covering the given expiration.
+     * Does nothing if the expiration is not specified.
+     *
+     * @param key key to be indexed
+     * @param expiresAt expiration of the key as {@link Instant}
+     */
+    public void add(K key, Instant expiresAt) {
+
+        if (Objects.isNull(expiresAt)) {
+            return;
+        }
+
+        long bucketID = toBucketID(expiresAt);
+        boolean added = false;
+        while (!added) {
+            added = buckets.computeIfAbsent(bucketID, id -> new Bucket<>()).add(key);
+        }
+    }
+
+    /**
+     * Removes the given key from the bucket covering the given expiration.
+     * Does nothing if the expiration is not specified, or the key is not indexed.
+     *
+     * @param key key to be removed
+     * @param expiresAt expiration of the key as {@link Instant}
+     */
+    public void remove(K key, Instant expiresAt) {
+
+        if (Objects.isNull(expiresAt)) {
+            return;
+        }
+
+        Bucket<K> bucket = buckets.get(toBucketID(expiresAt));
+        if (Objects.nonNull(bucket)) {
+            bucket.remove(key);
+        }
+    }
+
+    /**
+     * Removes every bucket whose time window has completely passed at the given point in time, and passes each key
+     * of the removed buckets to the given consumer.
+     *
+     * @param threshold point in time as {@link Instant} to drain the expired buckets for
+     * @param expiredKeyConsumer {@link Consumer} implementation processing the expired keys
+     * @return number of drained keys
+     */
+    public int drainExpired(Instant threshold, Consumer<K> expiredKeyConsumer) {
+
+        long lastExpiredBucketID = toBucketID(threshold) - bucketWidthMillis;
+        int drainedCount = 0;
+
+        Map.Entry<Long, Bucket<K>> head = buckets.firstEntry();
+        while (Objects.nonNull(head) && head.getKey() <= lastExpiredBucketID) {
+            if (buckets.remove(head.getKey(), head.getValue())) {
+                drainedCount += head.getValue().close(expiredKeyConsumer);
+            }
+            head = buckets.firstEntry();
+        }
+
+        return drainedCount;
+    }
+
+    /**
+     * Returns the number of currently indexed keys.
+     *
+     * @return number of indexed keys
+     */
+    public int size() {
+
+        return buckets.values().stream()
+                .mapToInt(Bucket::size)
+                .sum();
+    }
+
+    private long toBucketID(Instant expiresAt) {
+        return Math.floorDiv(expiresAt.toEpochMilli(), bucketWidthMillis) * bucketWidthMillis;
+    }
+
+    /**
+     * Single bucket of the index. Once a bucket is closed (drained), it rejects further additions, so a concurrent
+     * insertion is retried against a newly created bucket instead of getting lost.
+     *
+     * @param <K> type of the indexed keys
+     */
+    private static final class Bucket<K> {
+
+        private final Set<K> keys = new HashSet<>();
+        private boolean closed;
+
+        synchronized boolean add(K key) {
+
+            if (!closed) {
+                keys.add(key);
+            }
+
+            return !closed;
+        }
+
+        synchronized void remove(K key) {
+            keys.remove(key);
+        }
+
+        synchronized int close(Consumer<K> expiredKeyConsumer) {
+
+            closed = true;
+            keys.forEach(expiredKeyConsumer);
+
+            return keys.size();
+        }
+
+        synchronized int size() {
+            return keys.size();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Rate limiter for log messages emitted on hot paths.
+ * At most one log action is executed per interval, the occurrences in between are only counted, and the number of
+ * suppressed occurrences is passed to the next executed log action.
+ *
+ * @author Peter Smith
+ */
+public class LogThrottle {
+
+    private final long intervalInMillis;
+    private final AtomicLong nextLogAt = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+
+    public LogThrottle(Duration interval) {
+        this.intervalInMillis = interval.toMillis();
+    }
+
+    /**
+     * Executes the given log action, if no other action has been executed within the interval, otherwise only
+     * counts the occurrence as suppressed.
+     *
+     * @param logAction log action receiving the number of occurrences suppressed since the last executed one
+     */
+    public void log(LongConsumer logAction) {
+
+        long now = System.currentTimeMillis();
+        long nextLogAtSnapshot = nextLogAt.get();
+        if (now >= nextLogAtSnapshot && nextLogAt.compareAndSet(nextLogAtSnapshot, now + intervalInMillis)) {
+            logAction.accept(suppressedCount.getAndSet(0));
+        } else {
+            suppressedCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
+
+import java.util.Collection;
+
+/**
+ * Dictionary of the permission (scope) names, assigning a stable integer ID to each of them.
+ * Scopes are encoded into {@link ScopeSet} objects by these IDs, so every subset, intersection and narrowing check can
+ * be done on bitsets. Scope names are only needed again when the scope claim of a token is written.
+ *
+ * @author Peter Smith
+ */
+public interface PermissionDictionary {
+
+    /**
+     * Encodes the given scopes of a trusted source (registered clients, relations and roles), registering the
+     * scope names which are not known by the dictionary yet.
+     *
+     * @param scope scopes to be encoded
+     * @return encoded scopes as {@link ScopeSet}
+     */
+    ScopeSet encode(Collection<String> scope);
+
+    /**
+     * Encodes the given requested scopes, without registering unknown scope names.
+     * If any of the scopes is unknown, the returned set is marked accordingly.
+     *
+     * @param scope scopes to be encoded
+     * @return encoded scopes as {@link ScopeSet}
+     */
+    ScopeSet lookup(Collection<String> scope);
+
+    /**
+     * Checks whether the given scope is contained by the given encoded scope set.
+     *
+     * @param scopeSet encoded scopes as {@link ScopeSet}
+     * @param scope scope name to check
+     * @return {@code true} if the scope is contained, {@code false} otherwise
+     */
+    boolean contains(ScopeSet scopeSet, String scope);
+}
@@ -0,0 +1,36 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Utility for creating digests of access tokens, to be used as cache keys instead of the tokens themselves.
+ *
+ * @author Peter Smith
+ */
+public final class TokenDigestUtil {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private TokenDigestUtil() { }
+
+    /**
+     * Creates the Base64 encoded SHA-256 digest of the given access token.
+     *
+     * @param accessToken access token to create the digest of
+     * @return created digest as Base64 encoded {@link String}
+     */
+    public static String createDigest(String accessToken) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM)
+                    .digest(accessToken.getBytes(StandardCharsets.UTF_8));
+
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
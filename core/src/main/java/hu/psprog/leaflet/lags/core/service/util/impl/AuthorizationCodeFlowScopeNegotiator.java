@@ -2,11 +2,14 @@ package hu.psprog.leaflet.lags.core.service.util.impl;
 
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
 import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import hu.psprog.leaflet.lags.core.service.util.ScopeNegotiator;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
@@ -28,6 +31,10 @@ import java.util.stream.Collectors;
  *    scope will be dropped to the narrower set.
  *  - Otherwise, the intersection of the relationship-defined and authorized scope will be used.
  *
+ * Every subset and intersection check is done on {@link ScopeSet} objects encoded by the {@link PermissionDictionary}.
+ * The authorities of the user and the authorized scope are encoded once, when the user is loaded and when the
+ * authorization is created respectively.
+ *
  * Note: the necessary pre- and post-verifications should always be executed, this component should NOT be relied on for proper scope verification.
  *
  * @author Peter Smith
@@ -35,14 +42,22 @@ import java.util.stream.Collectors;
 @Component
 public class AuthorizationCodeFlowScopeNegotiator implements ScopeNegotiator {
 
+    private final PermissionDictionary permissionDictionary;
+
+    @Autowired
+    public AuthorizationCodeFlowScopeNegotiator(PermissionDictionary permissionDictionary) {
+        this.permissionDictionary = permissionDictionary;
+    }
+
     @Override
     public List<String> getScope(OAuthAuthorizationRequestContext context) {
 
-        List<String> userAuthorities = getUserAuthorities(context);
+        ScopeSet userAuthoritySet = context.getAuthenticatedUser().getAuthoritySet(permissionDictionary::encode);
+        verifyRequestedScope(userAuthoritySet, context.getSourceClient().getRequiredScopes());
 
         return StringUtils.isEmpty(context.getRequest().getScope())
-                ? userAuthorities
-                : getVerifiedDefinedScope(context, userAuthorities);
+                ? getUserAuthorities(context)
+                : getVerifiedDefinedScope(context, userAuthoritySet);
     }
 
     @Override
@@ -53,53 +68,47 @@ public class AuthorizationCodeFlowScopeNegotiator implements ScopeNegotiator {
         }
 
         return doesRelationHaveNarrowerScope(context)
-                ? context.getRelation().getAllowedScopes()
+                ? context.getRelation().allowedScopes()
                 : getAlignedAuthorizedScope(context);
     }
 
     private List<String> getUserAuthorities(OAuthAuthorizationRequestContext context) {
 
-        List<String> userAuthorities = context.getAuthenticatedUser()
+        return context.getAuthenticatedUser()
                 .getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
-
-        verifyRequestedScope(userAuthorities, context.getSourceClient().getRequiredScopes());
-
-        return userAuthorities;
     }
 
-    private List<String> getVerifiedDefinedScope(OAuthAuthorizationRequestContext context, List<String> userAuthorities) {
+    private List<String> getVerifiedDefinedScope(OAuthAuthorizationRequestContext context, ScopeSet userAuthoritySet) {
 
         List<String> definedScope = Arrays.asList(context.getRequest().getScopeAsArray());
-        verifyRequestedScope(userAuthorities, definedScope);
+        verifyRequestedScope(userAuthoritySet, definedScope);
 
         return definedScope;
     }
 
-    private void verifyRequestedScope(List<String> userAuthorities, List<String> requestedScope) {
+    private void verifyRequestedScope(ScopeSet userAuthoritySet, List<String> requestedScope) {
 
-        if (!userAuthorities.containsAll(requestedScope)) {
+        if (!permissionDictionary.lookup(requestedScope).isSubsetOf(userAuthoritySet)) {
             throw new OAuthAuthorizationException(OAuthErrorCode.INVALID_SCOPE, "Client requires broader authorities than what the user has.");
         }
     }
 
     private boolean doesRelationHaveNarrowerScope(OAuthTokenRequestContext context) {
 
-        List<String> relationScope = context.getRelation().getAllowedScopes();
-        List<String> authorizedScope = context.getRequiredOngoingAuthorization().getScope();
+        ScopeSet relationScope = context.getRelation().allowedScopeSet();
+        ScopeSet authorizedScope = context.getRequiredOngoingAuthorization().getScopeSet();
 
         return relationScope.size() < authorizedScope.size()
-                && authorizedScope.containsAll(relationScope);
+                && relationScope.isSubsetOf(authorizedScope);
     }
 
     private List<String> getAlignedAuthorizedScope(OAuthTokenRequestContext context) {
 
         return context.getRequiredOngoingAuthorization()
                 .getScope().stream()
-                .filter(scope -> context.getRelation()
-                        .getAllowedScopes().stream()
-                        .anyMatch(scope::equals))
+                .filter(scope -> permissionDictionary.contains(context.getRelation().allowedScopeSet(), scope))
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,89 @@
+package hu.psprog.leaflet.lags.core.service.util.impl;
+
+import hu.psprog.leaflet.lags.core.domain.entity.Permission;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
+import hu.psprog.leaflet.lags.core.persistence.dao.PermissionDAO;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of {@link PermissionDictionary}.
+ * The dictionary is pre-populated with the registered permissions on startup (in the order of their names), then any
+ * further scope name of a trusted source is appended on its first encoding. IDs are never reassigned or reused, so
+ * an encoded {@link ScopeSet} remains valid for the whole lifetime of the application.
+ *
+ * @author Peter Smith
+ */
+@Slf4j
+@Component
+public class PermissionDictionaryImpl implements PermissionDictionary {
+
+    private static final int UNKNOWN_SCOPE_ID = -1;
+    private static final Sort PERMISSION_SORT = Sort.by("name").ascending();
+
+    private final PermissionDAO permissionDAO;
+    private final Map<String, Integer> scopeIDs = new ConcurrentHashMap<>();
+    private final AtomicInteger nextScopeID = new AtomicInteger();
+
+    @Autowired
+    public PermissionDictionaryImpl(PermissionDAO permissionDAO) {
+        this.permissionDAO = permissionDAO;
+    }
+
+    /**
+     * Registers the currently existing permissions on application startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+
+        permissionDAO.findAll(Pageable.unpaged(PERMISSION_SORT)).stream()
+                .map(Permission::getName)
+                .forEach(this::register);
+
+        log.info("Permission dictionary initialized with {} permission(s)", scopeIDs.size());
+    }
+
+    @Override
+    public ScopeSet encode(Collection<String> scope) {
+
+        return ScopeSet.of(scope.stream()
+                .mapToInt(this::register)
+                .toArray());
+    }
+
+    @Override
+    public ScopeSet lookup(Collection<String> scope) {
+
+        return ScopeSet.of(scope.stream()
+                .mapToInt(this::getScopeID)
+                .toArray());
+    }
+
+    @Override
+    public boolean contains(ScopeSet scopeSet, String scope) {
+        return scopeSet.contains(getScopeID(scope));
+    }
+
+    private int register(String scope) {
+        return scopeIDs.computeIfAbsent(scope, key -> nextScopeID.getAndIncrement());
+    }
+
+    private int getScopeID(String scope) {
+
+        return Objects.isNull(scope)
+                ? UNKNOWN_SCOPE_ID
+                : scopeIDs.getOrDefault(scope, UNKNOWN_SCOPE_ID);
+    }
+}
@@ -0,0 +1,15 @@
+package hu.psprog.leaflet.lags.core;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+
+/**
+ * Minimal Spring Boot configuration for the persistence layer tests of the core module.
+ * Enables auto-configuration rooted at the core package, so the entities and repositories of the module are picked up.
+ *
+ * @author Peter Smith
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+public class PersistenceTestConfiguration {
+}
@@ -0,0 +1,75 @@
+package hu.psprog.leaflet.lags.core.domain.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for {@link ScopeSet}.
+ *
+ * @author Peter Smith
+ */
+class ScopeSetTest {
+
+    @Test
+    public void shouldIsSubsetOfCompareSetsSpanningMultipleWords() {
+
+        // given
+        ScopeSet subset = ScopeSet.of(1, 70);
+        ScopeSet superset = ScopeSet.of(0, 1, 70, 130);
+
+        // when
+        boolean subsetResult = subset.isSubsetOf(superset);
+        boolean supersetResult = superset.isSubsetOf(subset);
+
+        // then
+        assertThat(subsetResult, is(true));
+        assertThat(supersetResult, is(false));
+        assertThat(ScopeSet.EMPTY.isSubsetOf(subset), is(true));
+    }
+
+    @Test
+    public void shouldIsSubsetOfRejectSetWithUnknownScope() {
+
+        // given
+        ScopeSet scopeSet = ScopeSet.of(1, -1);
+
+        // when
+        boolean result = scopeSet.isSubsetOf(ScopeSet.of(1, 2));
+
+        // then
+        assertThat(result, is(false));
+        assertThat(scopeSet.containsUnknown(), is(true));
+        assertThat(scopeSet.isEmpty(), is(false));
+    }
+
+    @Test
+    public void shouldIntersectKeepOnlyCommonKnownScopes() {
+
+        // when
+        ScopeSet result = ScopeSet.of(1, 2, 65, -1).intersect(ScopeSet.of(2, 65, 130));
+
+        // then
+        assertThat(result, equalTo(ScopeSet.of(2, 65)));
+        assertThat(result.size(), equalTo(2));
+        assertThat(result.contains(65), is(true));
+        assertThat(result.contains(1), is(false));
+        assertThat(result.contains(-1), is(false));
+    }
+
+    @Test
+    public void shouldEqualsIgnoreTrailingEmptyWords() {
+
+        // given
+        ScopeSet scopeSet = ScopeSet.of(1, 130).intersect(ScopeSet.of(1));
+
+        // when
+        boolean result = scopeSet.equals(ScopeSet.of(1));
+
+        // then
+        assertThat(result, is(true));
+        assertThat(scopeSet.hashCode(), equalTo(ScopeSet.of(1).hashCode()));
+    }
+}
@@ -11,6 +11,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -61,6 +62,19 @@ class AccessTokenDAOImplTest {
         assertThat(result.get(), equalTo(ACCESS_TOKEN_INFO));
     }
 
+    @Test
+    public void shouldRetrieveByJTIsPassCallToRepository() {
+
+        // given
+        given(accessTokenRepository.retrieveByJTIs(List.of(JTI))).willReturn(Collections.singletonList(ACCESS_TOKEN_INFO));
+
+        // when
+        List<AccessTokenInfo> result = accessTokenDAO.retrieveByJTIs(List.of(JTI));
+
+        // then
+        assertThat(result, equalTo(Collections.singletonList(ACCESS_TOKEN_INFO)));
+    }
+
     @Test
     public void shouldGetAllAccessTokenInfoPassCallToRepository() {
 
@@ -85,6 +99,20 @@ class AccessTokenDAOImplTest {
         verify(accessTokenRepository).deleteByJTI(JTI);
     }
 
+    @Test
+    public void shouldDeleteExpiredBeforePassCallToRepository() {
+
+        // given
+        Date threshold = new Date();
+        given(accessTokenRepository.deleteExpiredBefore(threshold)).willReturn(3);
+
+        // when
+        int result = accessTokenDAO.deleteExpiredBefore(threshold);
+
+        // then
+        assertThat(result, equalTo(3));
+    }
+
     @Test
     public void shouldUpdateStatusByJTIPassCallToRepository() {
 
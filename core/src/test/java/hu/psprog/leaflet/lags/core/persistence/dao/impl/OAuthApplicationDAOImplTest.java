@@ -9,6 +9,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.Mockito.verify;
@@ -105,6 +106,19 @@ class OAuthApplicationDAOImplTest {
         verify(oAuthApplicationRepository).findByAudience(audience);
     }
 
+    @Test
+    public void findAllByAudiences() {
+
+        // given
+        var audiences = List.of("audience-1", "audience-2");
+
+        // when
+        oAuthApplicationDAO.findAllByAudiences(audiences);
+
+        // then
+        verify(oAuthApplicationRepository).findAllByAudienceIn(audiences);
+    }
+
     @Test
     public void findResourceServersForTargetApplication() {
 
@@ -0,0 +1,164 @@
+package hu.psprog.leaflet.lags.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
+import hu.psprog.leaflet.lags.core.domain.entity.OAuthAllowedClient;
+import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
+import hu.psprog.leaflet.lags.core.domain.entity.OAuthCallback;
+import hu.psprog.leaflet.lags.core.domain.entity.Permission;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Query budget tests for {@link OAuthClientReadModelDAOImpl}, running against an embedded database.
+ * The read model must be loaded with at most {@value #QUERY_BUDGET} statements, regardless of the number of the
+ * requested clients and the size of their attribute collections.
+ *
+ * @author Peter Smith
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(OAuthClientReadModelDAOImpl.class)
+class OAuthClientReadModelDAOImplQueryCountTest {
+
+    private static final long QUERY_BUDGET = 5L;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OAuthClientReadModelDAOImpl oAuthClientReadModelDAO;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setup() {
+
+        Permission readAll = persistPermission("read:all");
+        Permission writeAll = persistPermission("write:all");
+        Permission readUsers = persistPermission("read:users");
+
+        OAuthApplication consumer = persistApplication("consumer", List.of(readAll), List.of(), List.of());
+        OAuthApplication monitor = persistApplication("monitor", List.of(), List.of(), List.of());
+        persistApplication("backend", List.of(readAll, writeAll, readUsers), List.of(readAll),
+                List.of(prepareAllowedClient(consumer, List.of(readAll, writeAll)), prepareAllowedClient(monitor, List.of())));
+
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void shouldFindByClientIDStayWithinQueryBudget() {
+
+        // when
+        Optional<OAuthClient> result = oAuthClientReadModelDAO.findByClientID("backend-client-id");
+
+        // then
+        assertThat(statistics.getPrepareStatementCount() <= QUERY_BUDGET, is(true));
+        assertThat(result.isPresent(), is(true));
+        assertBackendClient(result.get());
+    }
+
+    @Test
+    public void shouldFindAllByAudiencesStayWithinQueryBudget() {
+
+        // when
+        List<OAuthClient> result = oAuthClientReadModelDAO.findAllByAudiences(List.of("backend-audience", "consumer-audience", "monitor-audience"));
+
+        // then
+        assertThat(statistics.getPrepareStatementCount() <= QUERY_BUDGET, is(true));
+        assertThat(result.size(), equalTo(3));
+
+        Map<String, OAuthClient> clientsByAudience = result.stream()
+                .collect(Collectors.toMap(OAuthClient::getAudience, Function.identity()));
+        assertBackendClient(clientsByAudience.get("backend-audience"));
+        assertThat(clientsByAudience.get("consumer-audience").getRegisteredScopes(), equalTo(List.of("read:all")));
+        assertThat(clientsByAudience.get("monitor-audience").getAllowedClients(), equalTo(List.of()));
+    }
+
+    @Test
+    public void shouldFindByAudienceIssueSingleQueryForUnknownClient() {
+
+        // when
+        Optional<OAuthClient> result = oAuthClientReadModelDAO.findByAudience("unknown-audience");
+
+        // then
+        assertThat(statistics.getPrepareStatementCount(), equalTo(1L));
+        assertThat(result.isEmpty(), is(true));
+    }
+
+    private void assertBackendClient(OAuthClient client) {
+
+        assertThat(client.getClientName(), equalTo("backend"));
+        assertThat(client.getApplicationType(), equalTo(ApplicationType.SERVICE));
+        assertThat(client.getClientId(), equalTo("backend-client-id"));
+        assertThat(client.getClientSecret(), equalTo("backend-client-secret"));
+        assertThat(client.getRegisteredScopes(), containsInAnyOrder("read:all", "write:all", "read:users"));
+        assertThat(client.getRequiredScopes(), equalTo(List.of("read:all")));
+        assertThat(client.getAllowedCallbacks(), equalTo(List.of("http://localhost/backend/callback")));
+        assertThat(client.getAllowedClients().size(), equalTo(2));
+
+        Map<String, List<String>> allowedScopesByClient = client.getAllowedClients().stream()
+                .collect(Collectors.toMap(OAuthClientAllowRelation::getName, OAuthClientAllowRelation::getAllowedScopes));
+        assertThat(allowedScopesByClient.get("consumer"), containsInAnyOrder("read:all", "write:all"));
+        assertThat(allowedScopesByClient.get("monitor"), equalTo(List.of()));
+    }
+
+    private Permission persistPermission(String name) {
+
+        return testEntityManager.persist(Permission.builder()
+                .name(name)
+                .build());
+    }
+
+    private OAuthApplication persistApplication(String name, List<Permission> registeredPermissions,
+                                                List<Permission> requiredPermissions, List<OAuthAllowedClient> allowedClients) {
+
+        return testEntityManager.persist(OAuthApplication.builder()
+                .name(name)
+                .applicationType(ApplicationType.SERVICE)
+                .clientId(name + "-client-id")
+                .clientSecret(name + "-client-secret")
+                .audience(name + "-audience")
+                .registeredPermissions(registeredPermissions)
+                .requiredPermissions(requiredPermissions)
+                .callbacks(List.of(OAuthCallback.builder()
+                        .url("http://localhost/" + name + "/callback")
+                        .build()))
+                .allowedClients(allowedClients)
+                .enabled(true)
+                .build());
+    }
+
+    private OAuthAllowedClient prepareAllowedClient(OAuthApplication targetApplication, List<Permission> permissions) {
+
+        return OAuthAllowedClient.builder()
+                .targetApplication(targetApplication)
+                .permissions(permissions)
+                .build();
+    }
+}
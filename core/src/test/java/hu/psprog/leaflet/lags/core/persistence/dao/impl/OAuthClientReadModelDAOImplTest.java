@@ -0,0 +1,126 @@
+package hu.psprog.leaflet.lags.core.persistence.dao.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthAllowedClientAttribute;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationAttribute;
+import hu.psprog.leaflet.lags.core.domain.projection.OAuthApplicationSummary;
+import hu.psprog.leaflet.lags.core.persistence.repository.OAuthClientProjectionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Unit tests for {@link OAuthClientReadModelDAOImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class OAuthClientReadModelDAOImplTest {
+
+    private static final UUID APPLICATION_ID_1 = UUID.randomUUID();
+    private static final UUID APPLICATION_ID_2 = UUID.randomUUID();
+    private static final UUID RELATION_ID_1 = UUID.randomUUID();
+    private static final UUID RELATION_ID_2 = UUID.randomUUID();
+    private static final OAuthApplicationSummary SUMMARY_1 = new OAuthApplicationSummary(APPLICATION_ID_1, "app-1",
+            ApplicationType.SERVICE, "client-1", "secret-1", "audience-1");
+    private static final OAuthApplicationSummary SUMMARY_2 = new OAuthApplicationSummary(APPLICATION_ID_2, "app-2",
+            ApplicationType.UI, "client-2", "secret-2", "audience-2");
+
+    @Mock
+    private OAuthClientProjectionRepository oAuthClientProjectionRepository;
+
+    @InjectMocks
+    private OAuthClientReadModelDAOImpl oAuthClientReadModelDAO;
+
+    @Test
+    public void shouldFindByClientIDAssembleClientFromProjections() {
+
+        // given
+        List<UUID> applicationIDs = List.of(APPLICATION_ID_1);
+
+        given(oAuthClientProjectionRepository.findSummariesByClientIds(List.of("client-1"))).willReturn(List.of(SUMMARY_1));
+        given(oAuthClientProjectionRepository.findRequiredPermissions(applicationIDs)).willReturn(List.of(
+                new OAuthApplicationAttribute(APPLICATION_ID_1, "read:all")));
+        given(oAuthClientProjectionRepository.findRegisteredPermissions(applicationIDs)).willReturn(List.of(
+                new OAuthApplicationAttribute(APPLICATION_ID_1, "read:all"),
+                new OAuthApplicationAttribute(APPLICATION_ID_1, "write:all")));
+        given(oAuthClientProjectionRepository.findCallbacks(applicationIDs)).willReturn(List.of(
+                new OAuthApplicationAttribute(APPLICATION_ID_1, "http://localhost/callback")));
+        given(oAuthClientProjectionRepository.findAllowedClients(applicationIDs)).willReturn(List.of(
+                new OAuthAllowedClientAttribute(APPLICATION_ID_1, RELATION_ID_1, "consumer-1", "read:all"),
+                new OAuthAllowedClientAttribute(APPLICATION_ID_1, RELATION_ID_2, "consumer-2", null),
+                new OAuthAllowedClientAttribute(APPLICATION_ID_1, RELATION_ID_1, "consumer-1", "write:all")));
+
+        // when
+        Optional<OAuthClient> result = oAuthClientReadModelDAO.findByClientID("client-1");
+
+        // then
+        assertThat(result, equalTo(Optional.of(OAuthClient.builder()
+                .clientName("app-1")
+                .applicationType(ApplicationType.SERVICE)
+                .clientId("client-1")
+                .clientSecret("secret-1")
+                .audience("audience-1")
+                .requiredScopes(List.of("read:all"))
+                .registeredScopes(List.of("read:all", "write:all"))
+                .allowedCallbacks(List.of("http://localhost/callback"))
+                .allowedClients(List.of(
+                        new OAuthClientAllowRelation("consumer-1", List.of("read:all", "write:all")),
+                        new OAuthClientAllowRelation("consumer-2", List.of())))
+                .build())));
+    }
+
+    @Test
+    public void shouldFindByAudienceReturnEmptyOptionalWithoutLoadingAttributesForUnknownClient() {
+
+        // given
+        given(oAuthClientProjectionRepository.findSummariesByAudiences(List.of("audience-1"))).willReturn(List.of());
+
+        // when
+        Optional<OAuthClient> result = oAuthClientReadModelDAO.findByAudience("audience-1");
+
+        // then
+        assertThat(result, equalTo(Optional.empty()));
+        verify(oAuthClientProjectionRepository).findSummariesByAudiences(List.of("audience-1"));
+        verifyNoMoreInteractions(oAuthClientProjectionRepository);
+    }
+
+    @Test
+    public void shouldFindAllByAudiencesLoadAttributesOfEveryClientAtOnce() {
+
+        // given
+        List<String> audiences = List.of("audience-1", "audience-2");
+        List<UUID> applicationIDs = List.of(APPLICATION_ID_1, APPLICATION_ID_2);
+
+        given(oAuthClientProjectionRepository.findSummariesByAudiences(audiences)).willReturn(List.of(SUMMARY_1, SUMMARY_2));
+        given(oAuthClientProjectionRepository.findRequiredPermissions(applicationIDs)).willReturn(List.of());
+        given(oAuthClientProjectionRepository.findRegisteredPermissions(applicationIDs)).willReturn(List.of(
+                new OAuthApplicationAttribute(APPLICATION_ID_2, "read:all")));
+        given(oAuthClientProjectionRepository.findCallbacks(applicationIDs)).willReturn(List.of());
+        given(oAuthClientProjectionRepository.findAllowedClients(applicationIDs)).willReturn(List.of());
+
+        // when
+        List<OAuthClient> result = oAuthClientReadModelDAO.findAllByAudiences(audiences);
+
+        // then
+        assertThat(result.size(), equalTo(2));
+        assertThat(result.get(0).getAudience(), equalTo("audience-1"));
+        assertThat(result.get(0).getRegisteredScopes(), equalTo(List.of()));
+        assertThat(result.get(1).getAudience(), equalTo("audience-2"));
+        assertThat(result.get(1).getRegisteredScopes(), equalTo(List.of("read:all")));
+    }
+}
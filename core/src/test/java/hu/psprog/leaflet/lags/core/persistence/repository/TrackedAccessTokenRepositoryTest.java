@@ -0,0 +1,95 @@
+package hu.psprog.leaflet.lags.core.persistence.repository;
+
+import hu.psprog.leaflet.lags.core.domain.entity.TrackedAccessToken;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * Tests for the custom queries of {@link TrackedAccessTokenRepository}, running against an embedded database.
+ *
+ * @author Peter Smith
+ */
+@DataJpaTest
+class TrackedAccessTokenRepositoryTest {
+
+    private static final Date NOW = new Date();
+
+    @Autowired
+    private TrackedAccessTokenRepository trackedAccessTokenRepository;
+
+    @BeforeEach
+    public void setup() {
+
+        IntStream.range(0, 15).forEach(index -> persistToken("expired-%02d".formatted(index), NOW.toInstant().minus(1, ChronoUnit.MINUTES), TokenStatus.ACTIVE));
+        IntStream.range(0, 5).forEach(index -> persistToken("valid-%02d".formatted(index), NOW.toInstant().plus(1, ChronoUnit.MINUTES),
+                index % 2 == 0 ? TokenStatus.ACTIVE : TokenStatus.REVOKED));
+    }
+
+    @Test
+    public void shouldFindExpiredJTIsReturnLimitedChunkOfExpiredTokens() {
+
+        // when
+        List<String> result = trackedAccessTokenRepository.findExpiredJTIs(NOW, Limit.of(10));
+
+        // then
+        assertThat(result.size(), equalTo(10));
+        assertThat(result, everyItem(startsWith("expired-")));
+    }
+
+    @Test
+    public void shouldDeleteByJTIsDeleteChunksOfExpiredTokens() {
+
+        // given
+        int deletedCount = 0;
+        List<String> expiredJTIs;
+
+        // when
+        do {
+            expiredJTIs = trackedAccessTokenRepository.findExpiredJTIs(NOW, Limit.of(10));
+            if (!expiredJTIs.isEmpty()) {
+                deletedCount += trackedAccessTokenRepository.deleteByJTIs(expiredJTIs);
+            }
+        } while (expiredJTIs.size() == 10);
+
+        // then
+        assertThat(deletedCount, equalTo(15));
+        assertThat(trackedAccessTokenRepository.count(), equalTo(5L));
+    }
+
+    @Test
+    public void shouldFindByStatusAndJtiGreaterThanReturnNextPage() {
+
+        // when
+        List<TrackedAccessToken> result = trackedAccessTokenRepository.findByStatusAndJtiGreaterThanOrderByJtiAsc(TokenStatus.ACTIVE, "valid-00", Limit.of(10));
+
+        // then
+        assertThat(result.stream().map(TrackedAccessToken::getJti).toList(), contains("valid-02", "valid-04"));
+    }
+
+    private void persistToken(String jti, Instant expiresAt, TokenStatus status) {
+
+        trackedAccessTokenRepository.save(TrackedAccessToken.builder()
+                .jti(jti)
+                .subject("client-1")
+                .issuedAt(NOW)
+                .expiresAt(Date.from(expiresAt))
+                .status(status)
+                .build());
+    }
+}
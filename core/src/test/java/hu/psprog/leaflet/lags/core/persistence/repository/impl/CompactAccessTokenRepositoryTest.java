@@ -0,0 +1,331 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Unit tests for {@link CompactAccessTokenRepository}.
+ *
+ * @author Peter Smith
+ */
+class CompactAccessTokenRepositoryTest {
+
+    private static final String JTI_1 = UUID.randomUUID().toString();
+    private static final String JTI_2 = UUID.randomUUID().toString();
+    private static final String NON_UUID_JTI = "jti-1";
+    private static final String SUBJECT = "client|uid=1";
+    private static final Date ISSUED_AT = Date.from(Instant.parse("2026-10-18T10:00:00Z"));
+    private static final Date EXPIRES_AT = Date.from(Instant.parse("2026-10-18T11:00:00Z"));
+
+    private CompactAccessTokenRepository compactAccessTokenRepository;
+
+    @BeforeEach
+    public void setup() {
+        compactAccessTokenRepository = new CompactAccessTokenRepository();
+    }
+
+    @Test
+    public void shouldSaveStoreAccessTokenInfo() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1, EXPIRES_AT);
+
+        // when
+        compactAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        Optional<AccessTokenInfo> result = compactAccessTokenRepository.retrieveByJTI(JTI_1);
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), equalTo(accessTokenInfo));
+    }
+
+    @Test
+    public void shouldSaveStoreAccessTokenInfoWithNonUUIDTokenID() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(NON_UUID_JTI, EXPIRES_AT);
+
+        // when
+        compactAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        Optional<AccessTokenInfo> result = compactAccessTokenRepository.retrieveByJTI(NON_UUID_JTI);
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), equalTo(accessTokenInfo));
+    }
+
+    @Test
+    public void shouldSaveOverwriteExistingEntry() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1, EXPIRES_AT);
+        compactAccessTokenRepository.save(accessTokenInfo);
+        accessTokenInfo.setStatus(TokenStatus.REVOKED);
+        accessTokenInfo.setRevokedAt(ISSUED_AT);
+
+        // when
+        compactAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        List<AccessTokenInfo> result = compactAccessTokenRepository.getAllAccessTokenInfo();
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.getFirst().getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(result.getFirst().getRevokedAt(), equalTo(ISSUED_AT));
+        assertThat(result.getFirst().getSubject(), equalTo(SUBJECT));
+    }
+
+    @Test
+    public void shouldSaveGrowStorageBeyondInitialCapacity() {
+
+        // given
+        List<String> jtiList = IntStream.range(0, 5000)
+                .mapToObj(index -> UUID.randomUUID().toString())
+                .toList();
+
+        // when
+        jtiList.forEach(jti -> compactAccessTokenRepository.save(prepareAccessTokenInfo(jti, EXPIRES_AT)));
+
+        // then
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().size(), equalTo(5000));
+        assertThat(jtiList.stream().allMatch(jti -> compactAccessTokenRepository.retrieveByJTI(jti).isPresent()), is(true));
+    }
+
+    @Test
+    public void shouldRetrieveByJTIReturnEmptyOptionalOnMissingEntry() {
+
+        // when
+        Optional<AccessTokenInfo> result = compactAccessTokenRepository.retrieveByJTI(JTI_1);
+
+        // then
+        assertThat(result.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldGetAllAccessTokenInfoReturnListOfEntries() {
+
+        // given
+        AccessTokenInfo accessTokenInfo1 = prepareAccessTokenInfo(JTI_1, EXPIRES_AT);
+        AccessTokenInfo accessTokenInfo2 = prepareAccessTokenInfo(JTI_2, EXPIRES_AT);
+        AccessTokenInfo accessTokenInfo3 = prepareAccessTokenInfo(NON_UUID_JTI, EXPIRES_AT);
+        compactAccessTokenRepository.save(accessTokenInfo1);
+        compactAccessTokenRepository.save(accessTokenInfo2);
+        compactAccessTokenRepository.save(accessTokenInfo3);
+
+        // when
+        List<AccessTokenInfo> result = compactAccessTokenRepository.getAllAccessTokenInfo();
+
+        // then
+        assertThat(result.size(), equalTo(3));
+        assertThat(result, hasItems(accessTokenInfo1, accessTokenInfo2, accessTokenInfo3));
+    }
+
+    @Test
+    public void shouldDeleteByJTIKeepRemainingEntriesReachable() {
+
+        // given
+        List<String> jtiList = IntStream.range(0, 2000)
+                .mapToObj(index -> UUID.randomUUID().toString())
+                .toList();
+        jtiList.forEach(jti -> compactAccessTokenRepository.save(prepareAccessTokenInfo(jti, EXPIRES_AT)));
+
+        // when
+        IntStream.range(0, jtiList.size())
+                .filter(index -> index % 2 == 0)
+                .forEach(index -> compactAccessTokenRepository.deleteByJTI(jtiList.get(index)));
+
+        // then
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().size(), equalTo(1000));
+        IntStream.range(0, jtiList.size())
+                .forEach(index -> assertThat(compactAccessTokenRepository.retrieveByJTI(jtiList.get(index)).isPresent(), is(index % 2 != 0)));
+    }
+
+    @Test
+    public void shouldDeleteByJTIFallThroughSilentlyIfItemIsNotPresent() {
+
+        // when
+        compactAccessTokenRepository.deleteByJTI(JTI_1);
+        compactAccessTokenRepository.deleteByJTI(NON_UUID_JTI);
+
+        // then
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeRemoveOnlyExpiredItems() {
+
+        // given
+        Instant now = Instant.now();
+        List<String> expiredJTIList = IntStream.range(0, 500)
+                .mapToObj(index -> UUID.randomUUID().toString())
+                .toList();
+        List<String> validJTIList = IntStream.range(0, 500)
+                .mapToObj(index -> UUID.randomUUID().toString())
+                .toList();
+        expiredJTIList.forEach(jti -> compactAccessTokenRepository.save(prepareAccessTokenInfo(jti, Date.from(now.minus(1, ChronoUnit.MINUTES)))));
+        validJTIList.forEach(jti -> compactAccessTokenRepository.save(prepareAccessTokenInfo(jti, Date.from(now.plus(1, ChronoUnit.MINUTES)))));
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(NON_UUID_JTI, Date.from(now.minus(1, ChronoUnit.MINUTES))));
+
+        // when
+        int result = compactAccessTokenRepository.deleteExpiredBefore(Date.from(now));
+
+        // then
+        assertThat(result, equalTo(501));
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().size(), equalTo(500));
+        assertThat(validJTIList.stream().allMatch(jti -> compactAccessTokenRepository.retrieveByJTI(jti).isPresent()), is(true));
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeRemoveExpiredItemsAcrossMultipleChunks() {
+
+        // given
+        Instant now = Instant.now();
+        List<String> jtiList = IntStream.range(0, 10_000)
+                .mapToObj(index -> UUID.randomUUID().toString())
+                .toList();
+        for (int index = 0; index < jtiList.size(); index++) {
+            Instant expiresAt = index % 2 == 0
+                    ? now.minus(1, ChronoUnit.MINUTES)
+                    : now.plus(1, ChronoUnit.MINUTES);
+            compactAccessTokenRepository.save(prepareAccessTokenInfo(jtiList.get(index), Date.from(expiresAt)));
+        }
+
+        // when
+        int result = compactAccessTokenRepository.deleteExpiredBefore(Date.from(now));
+
+        // then
+        assertThat(result, equalTo(5_000));
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().stream()
+                .allMatch(accessTokenInfo -> accessTokenInfo.getExpiresAt().after(Date.from(now))), is(true));
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().size(), equalTo(5_000));
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeSkipReSavedAndDeletedItems() {
+
+        // given
+        Instant now = Instant.now();
+        Date expiredAt = Date.from(now.minus(1, ChronoUnit.MINUTES));
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, expiredAt));
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, Date.from(now.plus(1, ChronoUnit.MINUTES))));
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2, expiredAt));
+        compactAccessTokenRepository.deleteByJTI(JTI_2);
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(NON_UUID_JTI, expiredAt));
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(NON_UUID_JTI, Date.from(now.plus(1, ChronoUnit.MINUTES))));
+
+        // when
+        int result = compactAccessTokenRepository.deleteExpiredBefore(Date.from(now));
+
+        // then
+        assertThat(result, equalTo(0));
+        assertThat(compactAccessTokenRepository.retrieveByJTI(JTI_1).isPresent(), is(true));
+        assertThat(compactAccessTokenRepository.retrieveByJTI(NON_UUID_JTI).isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeKeepItemsOfNotYetPassedBucket() {
+
+        // given
+        Instant now = Instant.now();
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, Date.from(now.minus(1, ChronoUnit.MINUTES))));
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2, Date.from(now.plus(1, ChronoUnit.MINUTES))));
+
+        // when
+        int firstResult = compactAccessTokenRepository.deleteExpiredBefore(Date.from(now));
+        int secondResult = compactAccessTokenRepository.deleteExpiredBefore(Date.from(now.plus(3, ChronoUnit.MINUTES)));
+
+        // then
+        assertThat(firstResult, equalTo(1));
+        assertThat(secondResult, equalTo(1));
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldUpdateStatusByJTIUpdateStatusAndRevocationDate() {
+
+        // given
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, EXPIRES_AT));
+
+        // when
+        compactAccessTokenRepository.updateStatusByJTI(JTI_1, TokenStatus.REVOKED);
+
+        // then
+        AccessTokenInfo result = compactAccessTokenRepository.retrieveByJTI(JTI_1).get();
+        assertThat(result.getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(result.getRevokedAt(), notNullValue());
+        assertThat(System.currentTimeMillis() - result.getRevokedAt().getTime() < 1100, is(true));
+    }
+
+    @Test
+    public void shouldUpdateStatusByJTIUpdateFallbackStorageItem() {
+
+        // given
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(NON_UUID_JTI, EXPIRES_AT));
+
+        // when
+        compactAccessTokenRepository.updateStatusByJTI(NON_UUID_JTI, TokenStatus.REVOKED);
+
+        // then
+        AccessTokenInfo result = compactAccessTokenRepository.retrieveByJTI(NON_UUID_JTI).get();
+        assertThat(result.getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(result.getRevokedAt(), notNullValue());
+    }
+
+    @Test
+    public void shouldUpdateStatusByJTIFallThroughSilentlyIfItemIsNotPresent() {
+
+        // when
+        compactAccessTokenRepository.updateStatusByJTI(JTI_1, TokenStatus.REVOKED);
+
+        // then
+        assertThat(compactAccessTokenRepository.getAllAccessTokenInfo().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldRetrieveByJTIResolveSubjectAfterDictionaryEntryIsReused() {
+
+        // given
+        compactAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, EXPIRES_AT));
+        compactAccessTokenRepository.deleteByJTI(JTI_1);
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(JTI_2)
+                .subject("other-client")
+                .build());
+
+        // when
+        compactAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        AccessTokenInfo result = compactAccessTokenRepository.retrieveByJTI(JTI_2).get();
+        assertThat(result.getSubject(), equalTo("other-client"));
+        assertThat(result.getIssuedAt(), nullValue());
+        assertThat(result.getExpiresAt(), nullValue());
+    }
+
+    private AccessTokenInfo prepareAccessTokenInfo(String jti, Date expiresAt) {
+
+        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .subject(SUBJECT)
+                .issuedAt(ISSUED_AT)
+                .expiresAt(expiresAt)
+                .build());
+    }
+}
@@ -10,6 +10,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +33,7 @@ class InMemoryAccessTokenRepositoryTest {
 
     private static final String JTI_1 = "jti-1";
     private static final String JTI_2 = "jti-2";
+    private static final String JTI_3 = "jti-3";
     private static final AccessTokenInfo ACCESS_TOKEN_INFO_1 = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder().id(JTI_1).build());
     private static final AccessTokenInfo ACCESS_TOKEN_INFO_2 = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder().id(JTI_2).build());
 
@@ -95,6 +98,21 @@ class InMemoryAccessTokenRepositoryTest {
         assertThat(result, hasItems(ACCESS_TOKEN_INFO_1, ACCESS_TOKEN_INFO_2));
     }
 
+    @Test
+    public void shouldSizeReturnNumberOfEntries() throws IllegalAccessException {
+
+        // given
+        Map<String, AccessTokenInfo> repository = getRepository();
+        repository.put(JTI_1, ACCESS_TOKEN_INFO_1);
+        repository.put(JTI_2, ACCESS_TOKEN_INFO_2);
+
+        // when
+        int result = inMemoryAccessTokenRepository.size();
+
+        // then
+        assertThat(result, equalTo(2));
+    }
+
     @Test
     public void shouldDeleteByJTIRemoveIdentifiedItem() throws IllegalAccessException {
 
@@ -123,6 +141,40 @@ class InMemoryAccessTokenRepositoryTest {
         assertThat(repository.isEmpty(), is(true));
     }
 
+    @Test
+    public void shouldDeleteExpiredBeforeRemoveOnlyExpiredItems() throws IllegalAccessException {
+
+        // given
+        Map<String, AccessTokenInfo> repository = getRepository();
+        inMemoryAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, -2));
+        inMemoryAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2, 2));
+        inMemoryAccessTokenRepository.save(prepareAccessTokenInfo(JTI_3, -3));
+        inMemoryAccessTokenRepository.deleteByJTI(JTI_3);
+
+        // when
+        int result = inMemoryAccessTokenRepository.deleteExpiredBefore(new Date());
+
+        // then
+        assertThat(result, equalTo(1));
+        assertThat(repository.size(), equalTo(1));
+        assertThat(repository.containsKey(JTI_2), is(true));
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeKeepItemsExpiringInTheCurrentBucket() throws IllegalAccessException {
+
+        // given
+        Map<String, AccessTokenInfo> repository = getRepository();
+        inMemoryAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, 0));
+
+        // when
+        int result = inMemoryAccessTokenRepository.deleteExpiredBefore(new Date());
+
+        // then
+        assertThat(result, equalTo(0));
+        assertThat(repository.containsKey(JTI_1), is(true));
+    }
+
     @Test
     public void shouldUpdateStatusByJTIUpdateStatusAndRevocationDate() throws IllegalAccessException {
 
@@ -158,6 +210,14 @@ class InMemoryAccessTokenRepositoryTest {
         assertThat(repository.isEmpty(), is(true));
     }
 
+    private AccessTokenInfo prepareAccessTokenInfo(String jti, long minutesOffset) {
+
+        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .expiresAt(Date.from(Instant.now().plus(minutesOffset, ChronoUnit.MINUTES)))
+                .build());
+    }
+
     private Map<String, AccessTokenInfo> getRepository() throws IllegalAccessException {
 
         Field repositoryField = ReflectionUtils.findField(InMemoryAccessTokenRepository.class, "accessTokenInfoStorage");
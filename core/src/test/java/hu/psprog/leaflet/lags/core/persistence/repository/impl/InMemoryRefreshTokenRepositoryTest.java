@@ -0,0 +1,167 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link InMemoryRefreshTokenRepository}.
+ *
+ * @author Peter Smith
+ */
+class InMemoryRefreshTokenRepositoryTest {
+
+    private static final String REFRESH_TOKEN_1 = "refresh-token-1";
+    private static final String REFRESH_TOKEN_2 = "refresh-token-2";
+    private static final String REFRESH_TOKEN_3 = "refresh-token-3";
+    private static final String FAMILY_1 = "family-1";
+    private static final String FAMILY_2 = "family-2";
+    private static final Date EXPIRES_AT = new Date(System.currentTimeMillis() + 3_600_000L);
+
+    private InMemoryRefreshTokenRepository inMemoryRefreshTokenRepository;
+
+    @BeforeEach
+    public void setup() {
+        inMemoryRefreshTokenRepository = new InMemoryRefreshTokenRepository();
+    }
+
+    @Test
+    public void shouldGetRefreshTokenReturnSavedItem() {
+
+        // given
+        RefreshTokenInfo refreshTokenInfo = prepareRefreshTokenInfo(FAMILY_1, EXPIRES_AT);
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_1, refreshTokenInfo);
+
+        // when
+        Optional<RefreshTokenInfo> result = inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_1);
+
+        // then
+        assertThat(result, equalTo(Optional.of(refreshTokenInfo)));
+        assertThat(inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_2), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldGetRefreshTokenReturnLatestScopeOfTheFamilyWithOwnExpiration() {
+
+        // given
+        Date laterExpiresAt = new Date(EXPIRES_AT.getTime() + 60_000L);
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_1, prepareRefreshTokenInfo(FAMILY_1, EXPIRES_AT));
+        inMemoryRefreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN_1);
+        RefreshTokenInfo rotatedRefreshTokenInfo = prepareRefreshTokenInfo(FAMILY_1, laterExpiresAt).toBuilder()
+                .scope(List.of("read:all", "write:all"))
+                .build();
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_2, rotatedRefreshTokenInfo);
+
+        // when
+        Optional<RefreshTokenInfo> usedResult = inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_1);
+        Optional<RefreshTokenInfo> rotatedResult = inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_2);
+
+        // then
+        assertThat(rotatedResult, equalTo(Optional.of(rotatedRefreshTokenInfo)));
+        assertThat(usedResult.get().used(), is(true));
+        assertThat(usedResult.get().expiresAt(), equalTo(EXPIRES_AT));
+        assertThat(usedResult.get().scope(), equalTo(List.of("read:all", "write:all")));
+    }
+
+    @Test
+    public void shouldMarkRefreshTokenUsedSucceedOnlyOnce() {
+
+        // given
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_1, prepareRefreshTokenInfo(FAMILY_1, EXPIRES_AT));
+
+        // when
+        boolean firstResult = inMemoryRefreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN_1);
+        boolean secondResult = inMemoryRefreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN_1);
+
+        // then
+        assertThat(firstResult, is(true));
+        assertThat(secondResult, is(false));
+        assertThat(inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_1).get().used(), is(true));
+    }
+
+    @Test
+    public void shouldRestoreRefreshTokenAllowUsingTheTokenAgain() {
+
+        // given
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_1, prepareRefreshTokenInfo(FAMILY_1, EXPIRES_AT));
+        inMemoryRefreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN_1);
+
+        // when
+        boolean restoreResult = inMemoryRefreshTokenRepository.restoreRefreshToken(REFRESH_TOKEN_1);
+        boolean secondRestoreResult = inMemoryRefreshTokenRepository.restoreRefreshToken(REFRESH_TOKEN_1);
+
+        // then
+        assertThat(restoreResult, is(true));
+        assertThat(secondRestoreResult, is(false));
+        assertThat(inMemoryRefreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN_1), is(true));
+    }
+
+    @Test
+    public void shouldMarkRefreshTokenUsedFailForUnknownToken() {
+
+        // when
+        boolean result = inMemoryRefreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN_1);
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void shouldDeleteRefreshTokenFamilyRemoveOnlyTokensOfTheFamily() {
+
+        // given
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_1, prepareRefreshTokenInfo(FAMILY_1, EXPIRES_AT));
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_2, prepareRefreshTokenInfo(FAMILY_1, EXPIRES_AT));
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_3, prepareRefreshTokenInfo(FAMILY_2, EXPIRES_AT));
+
+        // when
+        int result = inMemoryRefreshTokenRepository.deleteRefreshTokenFamily(FAMILY_1);
+
+        // then
+        assertThat(result, equalTo(2));
+        assertThat(inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_1).isPresent(), is(false));
+        assertThat(inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_2).isPresent(), is(false));
+        assertThat(inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_3).isPresent(), is(true));
+        assertThat(inMemoryRefreshTokenRepository.deleteRefreshTokenFamily(FAMILY_1), equalTo(0));
+    }
+
+    @Test
+    public void shouldDeleteExpiredRefreshTokensRemoveOnlyExpiredTokens() {
+
+        // given
+        Date expired = new Date(System.currentTimeMillis() - 3_600_000L);
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_1, prepareRefreshTokenInfo(FAMILY_1, expired));
+        inMemoryRefreshTokenRepository.saveRefreshToken(REFRESH_TOKEN_2, prepareRefreshTokenInfo(FAMILY_1, EXPIRES_AT));
+
+        // when
+        int result = inMemoryRefreshTokenRepository.deleteExpiredRefreshTokens(new Date());
+
+        // then
+        assertThat(result, equalTo(1));
+        assertThat(inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_1).isPresent(), is(false));
+        assertThat(inMemoryRefreshTokenRepository.getRefreshToken(REFRESH_TOKEN_2).isPresent(), is(true));
+        assertThat(inMemoryRefreshTokenRepository.deleteRefreshTokenFamily(FAMILY_1), equalTo(1));
+    }
+
+    private RefreshTokenInfo prepareRefreshTokenInfo(String familyID, Date expiresAt) {
+
+        return RefreshTokenInfo.builder()
+                .familyID(familyID)
+                .clientID("client-1")
+                .audience("audience-1")
+                .scope(List.of("read:all"))
+                .userInfo(UserInfo.builder().id(1234L).build())
+                .expiresAt(expiresAt)
+                .familyExpiresAt(new Date(EXPIRES_AT.getTime() + 3_600_000L))
+                .build();
+    }
+}
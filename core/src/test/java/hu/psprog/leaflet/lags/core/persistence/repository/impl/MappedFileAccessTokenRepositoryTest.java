@@ -0,0 +1,252 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link MappedFileAccessTokenRepository}.
+ *
+ * @author Peter Smith
+ */
+class MappedFileAccessTokenRepositoryTest {
+
+    private static final String JTI_1 = UUID.randomUUID().toString();
+    private static final String JTI_2 = UUID.randomUUID().toString();
+    private static final String SUBJECT = "client|uid=1";
+    private static final Date REVOKED_AT = Date.from(Instant.parse("2026-10-18T10:00:00Z"));
+
+    @TempDir
+    private Path storageDirectory;
+
+    private OAuthConfigurationProperties oAuthConfigurationProperties;
+    private MappedFileAccessTokenRepository mappedFileAccessTokenRepository;
+
+    @BeforeEach
+    public void setup() {
+
+        oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setStorageDirectory(storageDirectory);
+        mappedFileAccessTokenRepository = createRepository();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mappedFileAccessTokenRepository.close();
+    }
+
+    @Test
+    public void shouldSaveStoreAccessTokenInfo() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1, 60);
+
+        // when
+        mappedFileAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        Optional<AccessTokenInfo> result = mappedFileAccessTokenRepository.retrieveByJTI(JTI_1);
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), equalTo(accessTokenInfo));
+    }
+
+    @Test
+    public void shouldInitializeRestoreStoredAccessTokenInfo() {
+
+        // given
+        AccessTokenInfo accessTokenInfo1 = prepareAccessTokenInfo(JTI_1, 60);
+        AccessTokenInfo accessTokenInfo2 = prepareAccessTokenInfo(JTI_2, 60);
+        mappedFileAccessTokenRepository.save(accessTokenInfo1);
+        mappedFileAccessTokenRepository.save(accessTokenInfo2);
+
+        // when
+        restart();
+
+        // then
+        List<AccessTokenInfo> result = mappedFileAccessTokenRepository.getAllAccessTokenInfo();
+        assertThat(result.size(), equalTo(2));
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).get(), equalTo(accessTokenInfo1));
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_2).get(), equalTo(accessTokenInfo2));
+    }
+
+    @Test
+    public void shouldInitializeRestoreStatusChanges() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1, 60);
+        mappedFileAccessTokenRepository.save(accessTokenInfo);
+        accessTokenInfo.setStatus(TokenStatus.REVOKED);
+        accessTokenInfo.setRevokedAt(REVOKED_AT);
+        mappedFileAccessTokenRepository.save(accessTokenInfo);
+
+        // when
+        restart();
+
+        // then
+        AccessTokenInfo result = mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).get();
+        assertThat(result.getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(result.getRevokedAt(), equalTo(REVOKED_AT));
+    }
+
+    @Test
+    public void shouldUpdateStatusByJTIPersistStatusChange() {
+
+        // given
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, 60));
+
+        // when
+        mappedFileAccessTokenRepository.updateStatusByJTI(JTI_1, TokenStatus.REVOKED);
+
+        // then
+        restart();
+        AccessTokenInfo result = mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).get();
+        assertThat(result.getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(System.currentTimeMillis() - result.getRevokedAt().getTime() < 1000, is(true));
+    }
+
+    @Test
+    public void shouldDeleteByJTIPersistDeletion() {
+
+        // given
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, 60));
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2, 60));
+
+        // when
+        mappedFileAccessTokenRepository.deleteByJTI(JTI_1);
+
+        // then
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).isPresent(), is(false));
+        restart();
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).isPresent(), is(false));
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_2).isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldInitializeSkipExpiredTokens() {
+
+        // given
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, -5));
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2, 60));
+
+        // when
+        restart();
+
+        // then
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).isPresent(), is(false));
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_2).isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeCompactExpiredSegments() throws IOException {
+
+        // given
+        oAuthConfigurationProperties.getTokenTracking().setSegmentSize(DataSize.ofBytes(512));
+        restart();
+        IntStream.range(0, 20).forEach(index -> mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(UUID.randomUUID().toString(), -5)));
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, 60));
+        long segmentCountBeforeCleanup = countSegmentFiles();
+
+        // when
+        int result = mappedFileAccessTokenRepository.deleteExpiredBefore(Date.from(Instant.now().plus(2, ChronoUnit.MINUTES)));
+
+        // then
+        assertThat(result, equalTo(20));
+        assertThat(segmentCountBeforeCleanup, greaterThan(2L));
+        assertThat(countSegmentFiles(), equalTo(1L));
+        restart();
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldInitializeStopReplayingSegmentOnCorruptedRecord() throws IOException {
+
+        // given
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1, 60));
+        mappedFileAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2, 60));
+        mappedFileAccessTokenRepository.close();
+        Path segmentFile = listSegmentFiles().getFirst();
+        byte[] content = Files.readAllBytes(segmentFile);
+        content[150] ^= 0x7F;
+        Files.write(segmentFile, content);
+
+        // when
+        mappedFileAccessTokenRepository = createRepository();
+
+        // then
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_1).isPresent(), is(true));
+        assertThat(mappedFileAccessTokenRepository.retrieveByJTI(JTI_2).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldConstructorThrowExceptionOnMissingStorageDirectory() {
+
+        // given
+        OAuthConfigurationProperties configurationWithoutDirectory = new OAuthConfigurationProperties();
+
+        // when
+        assertThrows(IllegalStateException.class, () -> new MappedFileAccessTokenRepository(configurationWithoutDirectory));
+
+        // then
+        // exception expected
+    }
+
+    private MappedFileAccessTokenRepository createRepository() {
+
+        MappedFileAccessTokenRepository repository = new MappedFileAccessTokenRepository(oAuthConfigurationProperties);
+        repository.initialize();
+
+        return repository;
+    }
+
+    private void restart() {
+        mappedFileAccessTokenRepository.close();
+        mappedFileAccessTokenRepository = createRepository();
+    }
+
+    private long countSegmentFiles() throws IOException {
+        return listSegmentFiles().size();
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+
+        try (Stream<Path> files = Files.list(storageDirectory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private AccessTokenInfo prepareAccessTokenInfo(String jti, long minutesOffset) {
+
+        Instant now = Instant.now();
+
+        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .subject(SUBJECT)
+                .issuedAt(Date.from(now))
+                .expiresAt(Date.from(now.plus(minutesOffset, ChronoUnit.MINUTES)))
+                .build());
+    }
+}
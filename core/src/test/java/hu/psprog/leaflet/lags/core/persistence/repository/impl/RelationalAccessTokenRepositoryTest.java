@@ -0,0 +1,412 @@
+package hu.psprog.leaflet.lags.core.persistence.repository.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.entity.TrackedAccessToken;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.persistence.repository.TrackedAccessTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link RelationalAccessTokenRepository}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class RelationalAccessTokenRepositoryTest {
+
+    private static final String JTI_1 = "jti-1";
+    private static final String JTI_2 = "jti-2";
+    private static final Date EXPIRES_AT = new Date();
+    private static final TrackedAccessToken TRACKED_ACCESS_TOKEN = TrackedAccessToken.builder()
+            .jti(JTI_1)
+            .subject("subject-1")
+            .expiresAt(EXPIRES_AT)
+            .status(TokenStatus.REVOKED)
+            .revokedAt(EXPIRES_AT)
+            .build();
+
+    @Mock
+    private TrackedAccessTokenRepository trackedAccessTokenRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RelationalAccessTokenRepository relationalAccessTokenRepository;
+
+    @BeforeEach
+    public void setup() {
+
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setWriteBehindBatchSize(2);
+        oAuthConfigurationProperties.getTokenTracking().setDeleteChunkSize(10);
+
+        relationalAccessTokenRepository = new RelationalAccessTokenRepository(trackedAccessTokenRepository, jdbcTemplate,
+                transactionManager, oAuthConfigurationProperties, Runnable::run);
+    }
+
+    @Test
+    public void shouldSaveBufferNewAccessTokenInfo() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1);
+
+        // when
+        relationalAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        Optional<AccessTokenInfo> result = relationalAccessTokenRepository.retrieveByJTI(JTI_1);
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), equalTo(accessTokenInfo));
+        verifyNoInteractions(jdbcTemplate, trackedAccessTokenRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSaveFlushBufferOnReachingBatchSize() {
+
+        // given
+        AccessTokenInfo accessTokenInfo1 = prepareAccessTokenInfo(JTI_1);
+        AccessTokenInfo accessTokenInfo2 = prepareAccessTokenInfo(JTI_2);
+        relationalAccessTokenRepository.save(accessTokenInfo1);
+
+        // when
+        relationalAccessTokenRepository.save(accessTokenInfo2);
+
+        // then
+        ArgumentCaptor<Collection<AccessTokenInfo>> batchCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batchCaptor.capture(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(batchCaptor.getValue(), containsInAnyOrder(accessTokenInfo1, accessTokenInfo2));
+        verify(transactionManager).commit(any());
+
+        relationalAccessTokenRepository.retrieveByJTI(JTI_1);
+        verify(trackedAccessTokenRepository).findById(JTI_1);
+    }
+
+    @Test
+    public void shouldFlushDoNothingOnEmptyBuffer() {
+
+        // when
+        relationalAccessTokenRepository.flush();
+
+        // then
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldFlushFallBackToIndividualInsertsOnDuplicateKey() {
+
+        // given
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1));
+        given(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .willThrow(new DuplicateKeyException("duplicate"));
+
+        // when
+        relationalAccessTokenRepository.flush();
+
+        // then
+        verify(jdbcTemplate).update(anyString(), any(PreparedStatementSetter.class));
+        verifyNoInteractions(trackedAccessTokenRepository);
+        relationalAccessTokenRepository.retrieveByJTI(JTI_1);
+        verify(trackedAccessTokenRepository).findById(JTI_1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldFlushKeepStoredRecordOnDuplicateActiveToken() {
+
+        // given
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1));
+        given(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .willThrow(new DuplicateKeyException("duplicate"));
+        given(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).willThrow(new DuplicateKeyException("duplicate"));
+
+        // when
+        relationalAccessTokenRepository.flush();
+
+        // then
+        verify(trackedAccessTokenRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldFlushMergeRevokedRecordIntoStoredRecordOnDuplicate() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1);
+        accessTokenInfo.setStatus(TokenStatus.REVOKED);
+        accessTokenInfo.setRevokedAt(EXPIRES_AT);
+        given(trackedAccessTokenRepository.updateStatus(JTI_1, TokenStatus.REVOKED, EXPIRES_AT)).willReturn(0, 1);
+        relationalAccessTokenRepository.save(accessTokenInfo);
+        given(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .willThrow(new DuplicateKeyException("duplicate"));
+        given(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).willThrow(new DuplicateKeyException("duplicate"));
+
+        // when
+        relationalAccessTokenRepository.flush();
+
+        // then
+        verify(trackedAccessTokenRepository, times(2)).updateStatus(JTI_1, TokenStatus.REVOKED, EXPIRES_AT);
+    }
+
+    @Test
+    public void shouldSaveInsertDirectlyIfBufferIsFull() {
+
+        // given
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setWriteBehindBatchSize(1);
+        oAuthConfigurationProperties.getTokenTracking().setWriteBehindBufferLimit(1);
+        relationalAccessTokenRepository = new RelationalAccessTokenRepository(trackedAccessTokenRepository, jdbcTemplate,
+                transactionManager, oAuthConfigurationProperties, runnable -> {});
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1));
+
+        // when
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2));
+
+        // then
+        verify(jdbcTemplate).update(anyString(), any(PreparedStatementSetter.class));
+        assertThat(relationalAccessTokenRepository.retrieveByJTI(JTI_1).isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldSaveUpdateBufferedRecordOnStatusChange() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1);
+        relationalAccessTokenRepository.save(accessTokenInfo);
+        accessTokenInfo.setStatus(TokenStatus.REVOKED);
+        accessTokenInfo.setRevokedAt(new Date());
+
+        // when
+        relationalAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        assertThat(relationalAccessTokenRepository.retrieveByJTI(JTI_1).get().getStatus(), equalTo(TokenStatus.REVOKED));
+        verifyNoInteractions(trackedAccessTokenRepository);
+    }
+
+    @Test
+    public void shouldSaveExecuteStatusUpdateForStoredRecord() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1);
+        accessTokenInfo.setStatus(TokenStatus.REVOKED);
+        accessTokenInfo.setRevokedAt(EXPIRES_AT);
+        given(trackedAccessTokenRepository.updateStatus(JTI_1, TokenStatus.REVOKED, EXPIRES_AT)).willReturn(1);
+
+        // when
+        relationalAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        verify(trackedAccessTokenRepository).updateStatus(JTI_1, TokenStatus.REVOKED, EXPIRES_AT);
+        relationalAccessTokenRepository.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldSaveBufferRevokedRecordIfNotYetStored() {
+
+        // given
+        AccessTokenInfo accessTokenInfo = prepareAccessTokenInfo(JTI_1);
+        accessTokenInfo.setStatus(TokenStatus.REVOKED);
+        accessTokenInfo.setRevokedAt(EXPIRES_AT);
+        given(trackedAccessTokenRepository.updateStatus(JTI_1, TokenStatus.REVOKED, EXPIRES_AT)).willReturn(0);
+
+        // when
+        relationalAccessTokenRepository.save(accessTokenInfo);
+
+        // then
+        assertThat(relationalAccessTokenRepository.retrieveByJTI(JTI_1).get(), equalTo(accessTokenInfo));
+    }
+
+    @Test
+    public void shouldRetrieveByJTIReturnStoredRecord() {
+
+        // given
+        given(trackedAccessTokenRepository.findById(JTI_1)).willReturn(Optional.of(TRACKED_ACCESS_TOKEN));
+
+        // when
+        Optional<AccessTokenInfo> result = relationalAccessTokenRepository.retrieveByJTI(JTI_1);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().getId(), equalTo(JTI_1));
+        assertThat(result.get().getSubject(), equalTo("subject-1"));
+        assertThat(result.get().getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(result.get().getRevokedAt(), equalTo(EXPIRES_AT));
+    }
+
+    @Test
+    public void shouldRetrieveByJTIsMergeBufferedAndStoredRecordsWithSingleQuery() {
+
+        // given
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2));
+        given(trackedAccessTokenRepository.findAllById(List.of(JTI_1, "jti-3"))).willReturn(List.of(TRACKED_ACCESS_TOKEN));
+
+        // when
+        List<AccessTokenInfo> result = relationalAccessTokenRepository.retrieveByJTIs(List.of(JTI_1, JTI_2, "jti-3"));
+
+        // then
+        assertThat(result.stream().map(AccessTokenInfo::getId).toList(), containsInAnyOrder(JTI_1, JTI_2));
+        verify(trackedAccessTokenRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    public void shouldGetAllAccessTokenInfoMergeBufferedAndStoredRecords() {
+
+        // given
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2));
+        given(trackedAccessTokenRepository.findByJtiGreaterThanOrderByJtiAsc("", Limit.of(1000))).willReturn(List.of(TRACKED_ACCESS_TOKEN));
+
+        // when
+        List<AccessTokenInfo> result = relationalAccessTokenRepository.getAllAccessTokenInfo();
+
+        // then
+        assertThat(result.stream().map(AccessTokenInfo::getId).toList(), containsInAnyOrder(JTI_1, JTI_2));
+    }
+
+    @Test
+    public void shouldForEachAccessTokenInfoVisitBufferedAndStoredRecordsOfGivenStatus() {
+
+        // given
+        TrackedAccessToken activeTrackedAccessToken = TrackedAccessToken.builder()
+                .jti("jti-3")
+                .status(TokenStatus.ACTIVE)
+                .build();
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_2));
+        given(trackedAccessTokenRepository.findByStatusAndJtiGreaterThanOrderByJtiAsc(TokenStatus.ACTIVE, "", Limit.of(1000)))
+                .willReturn(List.of(activeTrackedAccessToken));
+        List<String> result = new ArrayList<>();
+
+        // when
+        relationalAccessTokenRepository.forEachAccessTokenInfo(TokenStatus.ACTIVE, accessTokenInfo -> result.add(accessTokenInfo.getId()));
+
+        // then
+        assertThat(result, contains(JTI_2, "jti-3"));
+        verify(trackedAccessTokenRepository, times(1)).findByStatusAndJtiGreaterThanOrderByJtiAsc(any(), any(), any());
+    }
+
+    @Test
+    public void shouldDeleteByJTIRemoveBufferedRecord() {
+
+        // given
+        relationalAccessTokenRepository.save(prepareAccessTokenInfo(JTI_1));
+
+        // when
+        relationalAccessTokenRepository.deleteByJTI(JTI_1);
+
+        // then
+        verifyNoInteractions(trackedAccessTokenRepository);
+        relationalAccessTokenRepository.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldDeleteByJTIDeleteStoredRecord() {
+
+        // when
+        relationalAccessTokenRepository.deleteByJTI(JTI_1);
+
+        // then
+        verify(trackedAccessTokenRepository).deleteById(JTI_1);
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeDeleteInChunks() {
+
+        // given
+        Date threshold = new Date();
+        List<String> fullChunk = IntStream.range(0, 10)
+                .mapToObj(index -> "jti-" + index)
+                .toList();
+        List<String> lastChunk = List.of(JTI_1, JTI_2, "jti-3");
+        given(trackedAccessTokenRepository.findExpiredJTIs(threshold, Limit.of(10))).willReturn(fullChunk, fullChunk, lastChunk);
+        given(trackedAccessTokenRepository.deleteByJTIs(fullChunk)).willReturn(10);
+        given(trackedAccessTokenRepository.deleteByJTIs(lastChunk)).willReturn(3);
+
+        // when
+        int result = relationalAccessTokenRepository.deleteExpiredBefore(threshold);
+
+        // then
+        assertThat(result, equalTo(23));
+        verify(trackedAccessTokenRepository, times(3)).findExpiredJTIs(threshold, Limit.of(10));
+    }
+
+    @Test
+    public void shouldDeleteExpiredBeforeStopOnEmptyChunk() {
+
+        // given
+        Date threshold = new Date();
+        given(trackedAccessTokenRepository.findExpiredJTIs(threshold, Limit.of(10))).willReturn(List.of());
+
+        // when
+        int result = relationalAccessTokenRepository.deleteExpiredBefore(threshold);
+
+        // then
+        assertThat(result, equalTo(0));
+        verify(trackedAccessTokenRepository, never()).deleteByJTIs(any());
+    }
+
+    @Test
+    public void shouldUpdateStatusByJTIUpdateStoredRecord() {
+
+        // given
+        given(trackedAccessTokenRepository.findById(JTI_1)).willReturn(Optional.of(TrackedAccessToken.builder()
+                .jti(JTI_1)
+                .status(TokenStatus.ACTIVE)
+                .build()));
+        given(trackedAccessTokenRepository.updateStatus(eq(JTI_1), eq(TokenStatus.REVOKED), any(Date.class))).willReturn(1);
+
+        // when
+        relationalAccessTokenRepository.updateStatusByJTI(JTI_1, TokenStatus.REVOKED);
+
+        // then
+        verify(trackedAccessTokenRepository).updateStatus(eq(JTI_1), eq(TokenStatus.REVOKED), any(Date.class));
+    }
+
+    private AccessTokenInfo prepareAccessTokenInfo(String jti) {
+
+        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .expiresAt(EXPIRES_AT)
+                .build());
+    }
+}
@@ -0,0 +1,193 @@
+package hu.psprog.leaflet.lags.core.security;
+
+import hu.psprog.leaflet.lags.core.domain.config.ClientCredentialCacheSettings;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link CachingClientCredentialAuthenticationProvider}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingClientCredentialAuthenticationProviderTest {
+
+    private static final String CLIENT_ID = "client-1";
+    private static final String CLIENT_SECRET = "secret-1";
+    private static final String ENCODED_SECRET = "encoded-secret-1";
+    private static final UserDetails CLIENT = prepareClient(ENCODED_SECRET);
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingClientCredentialAuthenticationProvider cachingClientCredentialAuthenticationProvider;
+
+    @BeforeEach
+    public void setup() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        cachingClientCredentialAuthenticationProvider = new CachingClientCredentialAuthenticationProvider(userDetailsService,
+                new ClientCredentialCacheSettings(), meterRegistry);
+        cachingClientCredentialAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+    }
+
+    @Test
+    public void shouldAuthenticateVerifyCredentialsOnlyOnce() {
+
+        // given
+        given(userDetailsService.loadUserByUsername(CLIENT_ID)).willReturn(CLIENT);
+        given(passwordEncoder.matches(CLIENT_SECRET, ENCODED_SECRET)).willReturn(true);
+
+        // when
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+        Authentication result = cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+
+        // then
+        assertThat(result.isAuthenticated(), is(true));
+        assertThat(result.getName(), equalTo(CLIENT_ID));
+        verify(passwordEncoder, times(1)).matches(CLIENT_SECRET, ENCODED_SECRET);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "client-credential").tag("result", "hit").functionCounter().count(), equalTo(1.0));
+    }
+
+    @Test
+    public void shouldAuthenticateRejectDifferentSecretOfCachedClient() {
+
+        // given
+        given(userDetailsService.loadUserByUsername(CLIENT_ID)).willReturn(CLIENT);
+        given(passwordEncoder.matches(CLIENT_SECRET, ENCODED_SECRET)).willReturn(true);
+        given(passwordEncoder.matches("secret-2", ENCODED_SECRET)).willReturn(false);
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+
+        // when
+        assertThrows(BadCredentialsException.class, () -> cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication("secret-2")));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldAuthenticateVerifyCredentialsAgainIfRegisteredSecretChanged() {
+
+        // given
+        UserDetails clientWithNewSecret = prepareClient("encoded-secret-2");
+        given(userDetailsService.loadUserByUsername(CLIENT_ID)).willReturn(CLIENT, clientWithNewSecret);
+        given(passwordEncoder.matches(CLIENT_SECRET, ENCODED_SECRET)).willReturn(true);
+        given(passwordEncoder.matches(CLIENT_SECRET, "encoded-secret-2")).willReturn(false);
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+
+        // when
+        assertThrows(BadCredentialsException.class, () -> cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET)));
+
+        // then
+        verify(passwordEncoder).matches(CLIENT_SECRET, "encoded-secret-2");
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = OAuthApplicationChangeEvent.Type.class, names = {"SECRET_REGENERATED", "STATUS_CHANGED", "DELETED"})
+    public void shouldOnApplicationChangeInvalidateCachedCredentials(OAuthApplicationChangeEvent.Type type) {
+
+        // given
+        given(userDetailsService.loadUserByUsername(CLIENT_ID)).willReturn(CLIENT);
+        given(passwordEncoder.matches(CLIENT_SECRET, ENCODED_SECRET)).willReturn(true);
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+
+        // when
+        cachingClientCredentialAuthenticationProvider.onApplicationChange(new OAuthApplicationChangeEvent(UUID.randomUUID(), type));
+
+        // then
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+        verify(passwordEncoder, times(2)).matches(CLIENT_SECRET, ENCODED_SECRET);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = OAuthApplicationChangeEvent.Type.class, names = {"CREATED", "UPDATED"})
+    public void shouldOnApplicationChangeKeepCachedCredentialsForUnrelatedChanges(OAuthApplicationChangeEvent.Type type) {
+
+        // given
+        given(userDetailsService.loadUserByUsername(CLIENT_ID)).willReturn(CLIENT);
+        given(passwordEncoder.matches(CLIENT_SECRET, ENCODED_SECRET)).willReturn(true);
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+
+        // when
+        cachingClientCredentialAuthenticationProvider.onApplicationChange(new OAuthApplicationChangeEvent(UUID.randomUUID(), type));
+
+        // then
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+        verify(passwordEncoder, times(1)).matches(CLIENT_SECRET, ENCODED_SECRET);
+    }
+
+    @Test
+    public void shouldAuthenticateNotCacheCredentialsVerifiedDuringInvalidation() {
+
+        // given
+        given(userDetailsService.loadUserByUsername(CLIENT_ID)).willReturn(CLIENT);
+        given(passwordEncoder.matches(CLIENT_SECRET, ENCODED_SECRET)).willAnswer(invocation -> {
+            cachingClientCredentialAuthenticationProvider.onApplicationChange(
+                    new OAuthApplicationChangeEvent(UUID.randomUUID(), OAuthApplicationChangeEvent.Type.SECRET_REGENERATED));
+            return true;
+        });
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+
+        // when
+        cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET));
+
+        // then
+        verify(passwordEncoder, times(2)).matches(CLIENT_SECRET, ENCODED_SECRET);
+    }
+
+    @Test
+    public void shouldAuthenticateNotCacheFailedVerification() {
+
+        // given
+        given(userDetailsService.loadUserByUsername(CLIENT_ID)).willReturn(CLIENT);
+        given(passwordEncoder.matches(CLIENT_SECRET, ENCODED_SECRET)).willReturn(false);
+        assertThrows(BadCredentialsException.class, () -> cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET)));
+
+        // when
+        assertThrows(BadCredentialsException.class, () -> cachingClientCredentialAuthenticationProvider.authenticate(prepareAuthentication(CLIENT_SECRET)));
+
+        // then
+        verify(passwordEncoder, times(2)).matches(CLIENT_SECRET, ENCODED_SECRET);
+    }
+
+    private static UsernamePasswordAuthenticationToken prepareAuthentication(String clientSecret) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(CLIENT_ID, clientSecret);
+    }
+
+    private static UserDetails prepareClient(String encodedSecret) {
+
+        return User.builder()
+                .username(CLIENT_ID)
+                .password(encodedSecret)
+                .authorities("read:all")
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+package hu.psprog.leaflet.lags.core.security;
+
+import hu.psprog.leaflet.lags.core.domain.config.BearerTokenCacheSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link CachingJwtDecoder}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingJwtDecoderTest {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final Jwt JWT = prepareJwt(Instant.now().plus(1, ChronoUnit.HOURS));
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(
+            new SimpleGrantedAuthority("SCOPE_read:items"),
+            new SimpleGrantedAuthority("SCOPE_write:items"));
+    private static final OAuth2TokenValidatorResult INACTIVE_RESULT = OAuth2TokenValidatorResult.failure(new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN));
+
+    @Mock
+    private JwtDecoder delegate;
+
+    @Mock
+    private OAuth2TokenValidator<Jwt> dynamicValidator;
+
+    @Mock
+    private Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingJwtDecoder cachingJwtDecoder;
+
+    @BeforeEach
+    public void setup() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        cachingJwtDecoder = new CachingJwtDecoder(delegate, dynamicValidator, authoritiesConverter, new BearerTokenCacheSettings(), meterRegistry);
+    }
+
+    @Test
+    public void shouldDecodeVerifyTokenOnlyOnceButValidateOnEveryCall() {
+
+        // given
+        given(delegate.decode(TOKEN)).willReturn(JWT);
+        given(dynamicValidator.validate(JWT)).willReturn(OAuth2TokenValidatorResult.success());
+
+        // when
+        cachingJwtDecoder.decode(TOKEN);
+        Jwt result = cachingJwtDecoder.decode(TOKEN);
+
+        // then
+        assertThat(result, sameInstance(JWT));
+        verify(delegate, times(1)).decode(TOKEN);
+        verify(dynamicValidator, times(2)).validate(JWT);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "bearer-token").tag("result", "hit").functionCounter().count(), equalTo(1.0));
+    }
+
+    @Test
+    public void shouldDecodeRejectCachedTokenRevokedInTheMeantime() {
+
+        // given
+        given(delegate.decode(TOKEN)).willReturn(JWT);
+        given(dynamicValidator.validate(JWT)).willReturn(OAuth2TokenValidatorResult.success(), INACTIVE_RESULT);
+        cachingJwtDecoder.decode(TOKEN);
+
+        // when
+        assertThrows(JwtValidationException.class, () -> cachingJwtDecoder.decode(TOKEN));
+
+        // then
+        // exception expected
+        verify(delegate, times(1)).decode(TOKEN);
+    }
+
+    @Test
+    public void shouldDecodeNotCacheRejectedToken() {
+
+        // given
+        given(delegate.decode(TOKEN)).willThrow(new BadJwtException("Invalid signature"));
+
+        // when
+        assertThrows(BadJwtException.class, () -> cachingJwtDecoder.decode(TOKEN));
+        assertThrows(BadJwtException.class, () -> cachingJwtDecoder.decode(TOKEN));
+
+        // then
+        // exception expected
+        verify(delegate, times(2)).decode(TOKEN);
+    }
+
+    @Test
+    public void shouldDecodeNotCacheExpiredToken() {
+
+        // given
+        Jwt expiredJwt = prepareJwt(Instant.now().minus(1, ChronoUnit.MINUTES));
+        given(delegate.decode(TOKEN)).willReturn(expiredJwt);
+        given(dynamicValidator.validate(expiredJwt)).willReturn(OAuth2TokenValidatorResult.success());
+
+        // when
+        cachingJwtDecoder.decode(TOKEN);
+        cachingJwtDecoder.decode(TOKEN);
+
+        // then
+        verify(delegate, times(2)).decode(TOKEN);
+    }
+
+    @Test
+    public void shouldConvertReuseAuthoritiesOfCachedToken() {
+
+        // given
+        given(delegate.decode(TOKEN)).willReturn(JWT);
+        given(dynamicValidator.validate(JWT)).willReturn(OAuth2TokenValidatorResult.success());
+        given(authoritiesConverter.convert(JWT)).willReturn(AUTHORITIES);
+        Jwt decodedJwt = cachingJwtDecoder.decode(TOKEN);
+
+        // when
+        AbstractAuthenticationToken result1 = cachingJwtDecoder.convert(decodedJwt);
+        AbstractAuthenticationToken result2 = cachingJwtDecoder.convert(decodedJwt);
+
+        // then
+        assertThat(result1, not(sameInstance(result2)));
+        assertThat(result1.getName(), equalTo("client-1"));
+        assertThat(result1.isAuthenticated(), is(true));
+        assertThat(extractAuthorities(result1), containsInAnyOrder("SCOPE_read:items", "SCOPE_write:items"));
+        assertThat(extractAuthorities(result2), containsInAnyOrder("SCOPE_read:items", "SCOPE_write:items"));
+        verify(authoritiesConverter, times(1)).convert(JWT);
+    }
+
+    @Test
+    public void shouldConvertExtractAuthoritiesOfNotCachedToken() {
+
+        // given
+        given(authoritiesConverter.convert(JWT)).willReturn(AUTHORITIES);
+
+        // when
+        AbstractAuthenticationToken result = cachingJwtDecoder.convert(JWT);
+
+        // then
+        assertThat(result.getName(), equalTo("client-1"));
+        assertThat(extractAuthorities(result), containsInAnyOrder("SCOPE_read:items", "SCOPE_write:items"));
+    }
+
+    private static List<String> extractAuthorities(AbstractAuthenticationToken authenticationToken) {
+
+        return authenticationToken.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
+    private static Jwt prepareJwt(Instant expiresAt) {
+
+        return Jwt.withTokenValue(TOKEN)
+                .header("alg", "RS256")
+                .subject("client-1")
+                .issuedAt(expiresAt.minus(2, ChronoUnit.HOURS))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package hu.psprog.leaflet.lags.core.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import hu.psprog.leaflet.lags.core.security.signature.SignatureComponentFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link SignedJwtDecoder}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class SignedJwtDecoderTest {
+
+    private static final String KEY_ID = "key-1";
+    private static final String JTI = "jti-1";
+    private static final String AUDIENCE = "audience-1";
+    private static final Instant EXPIRES_AT = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+
+    private static KeyPair keyPair;
+    private static KeyPair otherKeyPair;
+
+    @Mock
+    private OAuth2TokenValidator<Jwt> validator;
+
+    private SignedJwtDecoder signedJwtDecoder;
+
+    @BeforeAll
+    public static void setupKeys() throws NoSuchAlgorithmException {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+        otherKeyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @BeforeEach
+    public void setup() {
+
+        signedJwtDecoder = new SignedJwtDecoder(SignatureComponentFactory.createJWTProcessor(JWSAlgorithm.RS256,
+                keyID -> KEY_ID.equals(keyID) ? keyPair.getPublic() : null), validator);
+    }
+
+    @Test
+    public void shouldDecodeParsedTokenReturnVerifiedClaims() throws Exception {
+
+        // given
+        SignedJWT signedJWT = SignedJWT.parse(prepareToken(keyPair));
+        given(validator.validate(any(Jwt.class))).willReturn(OAuth2TokenValidatorResult.success());
+
+        // when
+        Jwt result = signedJwtDecoder.decode(signedJWT);
+
+        // then
+        assertThat(result.getId(), equalTo(JTI));
+        assertThat(result.getAudience(), equalTo(List.of(AUDIENCE)));
+        assertThat(result.getExpiresAt(), equalTo(EXPIRES_AT));
+        assertThat(result.getHeaders().get("kid"), equalTo(KEY_ID));
+        assertThat(result.getTokenValue(), equalTo(signedJWT.getParsedString()));
+    }
+
+    @Test
+    public void shouldDecodeRejectTokenWithInvalidSignature() throws Exception {
+
+        // given
+        String token = prepareToken(otherKeyPair);
+
+        // when
+        BadJwtException result = assertThrows(BadJwtException.class, () -> signedJwtDecoder.decode(token));
+
+        // then
+        assertThat(result.getCause(), instanceOf(BadJOSEException.class));
+    }
+
+    @Test
+    public void shouldDecodeRejectMalformedToken() {
+
+        // when
+        BadJwtException result = assertThrows(BadJwtException.class, () -> signedJwtDecoder.decode("header.payload.signature"));
+
+        // then
+        assertThat(result.getCause(), instanceOf(ParseException.class));
+    }
+
+    @Test
+    public void shouldDecodeRejectTokenFailingValidation() throws Exception {
+
+        // given
+        String token = prepareToken(keyPair);
+        given(validator.validate(any(Jwt.class))).willReturn(OAuth2TokenValidatorResult.failure(new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN)));
+
+        // when
+        assertThrows(JwtValidationException.class, () -> signedJwtDecoder.decode(token));
+
+        // then
+        // exception expected
+    }
+
+    private static String prepareToken(KeyPair signingKeyPair) throws JOSEException {
+
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(KEY_ID).build(), new JWTClaimsSet.Builder()
+                .jwtID(JTI)
+                .audience(AUDIENCE)
+                .expirationTime(Date.from(EXPIRES_AT))
+                .build());
+        signedJWT.sign(new RSASSASigner(signingKeyPair.getPrivate()));
+
+        return signedJWT.serialize();
+    }
+}
@@ -0,0 +1,250 @@
+package hu.psprog.leaflet.lags.core.security.signature;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.JWTProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link SignatureComponentFactory}.
+ *
+ * @author Peter Smith
+ */
+class SignatureComponentFactoryTest {
+
+    private static final String KEY_ID = "key-1";
+    private static final String SUBJECT = "user-1";
+    private static final byte[] ED25519_X509_PREFIX = HexFormat.of().parseHex("302a300506032b6570032100");
+    private static final KeyPair RSA_KEY_PAIR = generateKeyPair("RSA");
+    private static final KeyPair EC_KEY_PAIR = generateKeyPair("EC");
+    private static final KeyPair ED25519_KEY_PAIR = generateKeyPair("Ed25519");
+
+    @ParameterizedTest
+    @MethodSource("algorithmDataProvider")
+    public void shouldCreatedSignerAndVerifierProduceVerifiableSignature(JWSAlgorithm algorithm, KeyPair keyPair) throws JOSEException {
+
+        // given
+        JWSSigner signer = SignatureComponentFactory.createSigner(algorithm, keyPair.getPrivate());
+        JWSVerifier verifier = SignatureComponentFactory.createVerifier(algorithm, keyPair.getPublic());
+        SignedJWT signedJWT = createSignedJWT(algorithm);
+
+        // when
+        signedJWT.sign(signer);
+
+        // then
+        assertThat(signedJWT.verify(verifier), is(true));
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithmDataProvider")
+    public void shouldCreatedVerifierRejectSignatureOfOtherKey(JWSAlgorithm algorithm, KeyPair keyPair) throws JOSEException {
+
+        // given
+        KeyPair otherKeyPair = generateKeyPair(keyPair.getPublic().getAlgorithm());
+        JWSSigner signer = SignatureComponentFactory.createSigner(algorithm, otherKeyPair.getPrivate());
+        JWSVerifier verifier = SignatureComponentFactory.createVerifier(algorithm, keyPair.getPublic());
+        SignedJWT signedJWT = createSignedJWT(algorithm);
+        signedJWT.sign(signer);
+
+        // when
+        boolean result = signedJWT.verify(verifier);
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void shouldCreateSignerThrowExceptionForUnsupportedAlgorithm() {
+
+        // when
+        Throwable result = assertThrows(IllegalArgumentException.class,
+                () -> SignatureComponentFactory.createSigner(JWSAlgorithm.HS256, RSA_KEY_PAIR.getPrivate()));
+
+        // then
+        // exception expected
+        assertThat(result.getMessage(), equalTo("Unsupported signature algorithm [HS256]"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithmDataProvider")
+    public void shouldCreateJWKPublishPublicKeyOfConfiguredAlgorithm(JWSAlgorithm algorithm, KeyPair keyPair) {
+
+        // when
+        JWK result = SignatureComponentFactory.createJWK(algorithm, keyPair.getPublic(), KEY_ID);
+
+        // then
+        assertThat(result.getKeyID(), equalTo(KEY_ID));
+        assertThat(result.getKeyUse(), equalTo(KeyUse.SIGNATURE));
+        assertThat(result.getAlgorithm(), equalTo(algorithm));
+        assertThat(result.isPrivate(), is(false));
+    }
+
+    @Test
+    public void shouldCreateJWKCreateECKeyForES256() throws JOSEException {
+
+        // when
+        JWK result = SignatureComponentFactory.createJWK(JWSAlgorithm.ES256, EC_KEY_PAIR.getPublic(), KEY_ID);
+
+        // then
+        assertThat(result.getKeyType(), equalTo(KeyType.EC));
+        assertThat(((ECKey) result).getCurve(), equalTo(Curve.P_256));
+        assertThat(((ECKey) result).toECPublicKey(), equalTo(EC_KEY_PAIR.getPublic()));
+    }
+
+    @Test
+    public void shouldCreateJWKCreateOctetKeyPairForEdDSA() throws JOSEException {
+
+        // given
+        SignedJWT signedJWT = createSignedJWT(JWSAlgorithm.EdDSA);
+        signedJWT.sign(SignatureComponentFactory.createSigner(JWSAlgorithm.EdDSA, ED25519_KEY_PAIR.getPrivate()));
+
+        // when
+        JWK result = SignatureComponentFactory.createJWK(JWSAlgorithm.EdDSA, ED25519_KEY_PAIR.getPublic(), KEY_ID);
+
+        // then
+        assertThat(result.getKeyType(), equalTo(KeyType.OKP));
+        assertThat(((OctetKeyPair) result).getCurve(), equalTo(Curve.Ed25519));
+        assertThat(verifyWithRawPublicKey((OctetKeyPair) result, signedJWT), is(true));
+    }
+
+    @ParameterizedTest
+    @MethodSource("algorithmDataProvider")
+    public void shouldCreatedJWTProcessorAcceptTokenSignedWithConfiguredAlgorithm(JWSAlgorithm algorithm, KeyPair keyPair)
+            throws JOSEException, BadJOSEException {
+
+        // given
+        JWTProcessor<SecurityContext> jwtProcessor = SignatureComponentFactory.createJWTProcessor(algorithm,
+                keyID -> KEY_ID.equals(keyID) ? keyPair.getPublic() : null);
+        SignedJWT signedJWT = createSignedJWT(algorithm);
+        signedJWT.sign(SignatureComponentFactory.createSigner(algorithm, keyPair.getPrivate()));
+
+        // when
+        JWTClaimsSet result = jwtProcessor.process(signedJWT, null);
+
+        // then
+        assertThat(result.getSubject(), equalTo(SUBJECT));
+    }
+
+    @Test
+    public void shouldCreatedJWTProcessorRejectTokenSignedWithOtherAlgorithm() throws JOSEException {
+
+        // given
+        JWTProcessor<SecurityContext> jwtProcessor = SignatureComponentFactory.createJWTProcessor(JWSAlgorithm.ES256,
+                keyID -> EC_KEY_PAIR.getPublic());
+        SignedJWT signedJWT = createSignedJWT(JWSAlgorithm.RS256);
+        signedJWT.sign(SignatureComponentFactory.createSigner(JWSAlgorithm.RS256, RSA_KEY_PAIR.getPrivate()));
+
+        // when
+        assertThrows(BadJOSEException.class, () -> jwtProcessor.process(signedJWT, null));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldCreatedJWTProcessorRejectTokenSignedByUnknownKey() throws JOSEException {
+
+        // given
+        JWTProcessor<SecurityContext> jwtProcessor = SignatureComponentFactory.createJWTProcessor(JWSAlgorithm.ES256, keyID -> null);
+        SignedJWT signedJWT = createSignedJWT(JWSAlgorithm.ES256);
+        signedJWT.sign(SignatureComponentFactory.createSigner(JWSAlgorithm.ES256, EC_KEY_PAIR.getPrivate()));
+
+        // when
+        assertThrows(BadJOSEException.class, () -> jwtProcessor.process(signedJWT, null));
+
+        // then
+        // exception expected
+    }
+
+    private static boolean verifyWithRawPublicKey(OctetKeyPair octetKeyPair, SignedJWT signedJWT) {
+
+        try {
+            X509EncodedKeySpec keySpec = new X509EncodedKeySpec(concat(ED25519_X509_PREFIX, octetKeyPair.getDecodedX()));
+            Signature signature = Signature.getInstance("Ed25519");
+            signature.initVerify(KeyFactory.getInstance("Ed25519").generatePublic(keySpec));
+            signature.update(signedJWT.getSigningInput());
+
+            return signature.verify(signedJWT.getSignature().decode());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] content) {
+
+        byte[] result = new byte[prefix.length + content.length];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        System.arraycopy(content, 0, result, prefix.length, content.length);
+
+        return result;
+    }
+
+    private static SignedJWT createSignedJWT(JWSAlgorithm algorithm) {
+
+        JWSHeader header = new JWSHeader.Builder(algorithm)
+                .type(JOSEObjectType.JWT)
+                .keyID(KEY_ID)
+                .build();
+
+        return new SignedJWT(header, new JWTClaimsSet.Builder()
+                .subject(SUBJECT)
+                .build());
+    }
+
+    private static KeyPair generateKeyPair(String keyAlgorithm) {
+
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(keyAlgorithm);
+            if ("EC".equals(keyAlgorithm)) {
+                keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else if ("RSA".equals(keyAlgorithm)) {
+                keyPairGenerator.initialize(2048);
+            }
+
+            return keyPairGenerator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Stream<Arguments> algorithmDataProvider() {
+
+        return Stream.of(
+                Arguments.of(JWSAlgorithm.RS256, RSA_KEY_PAIR),
+                Arguments.of(JWSAlgorithm.ES256, EC_KEY_PAIR),
+                Arguments.of(JWSAlgorithm.EdDSA, ED25519_KEY_PAIR)
+        );
+    }
+}
@@ -97,7 +97,7 @@ class PasswordResetConfirmationAccountRequestHandlerTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication(), nullValue());
 
         verify(userDAO).save(USER);
-        verify(tokenTracker).revokeToken(TOKEN_ID);
+        verify(tokenTracker).revokeToken(TOKEN_CLAIMS);
         verify(notificationAdapter).successfulPasswordReset(PasswordResetSuccess.builder()
                 .username(USERNAME)
                 .recipient(EMAIL)
@@ -119,7 +119,7 @@ class PasswordResetConfirmationAccountRequestHandlerTest {
         // then
         assertThat(SecurityContextHolder.getContext().getAuthentication(), nullValue());
 
-        verify(tokenTracker).revokeToken(TOKEN_ID);
+        verify(tokenTracker).revokeToken(TOKEN_CLAIMS);
         verifyNoMoreInteractions(userDAO);
         verifyNoInteractions(passwordEncoder, notificationAdapter);
     }
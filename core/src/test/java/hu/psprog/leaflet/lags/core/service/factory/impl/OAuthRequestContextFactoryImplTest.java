@@ -2,12 +2,18 @@ package hu.psprog.leaflet.lags.core.service.factory.impl;
 
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenBatchContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OngoingAuthorization;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
 import hu.psprog.leaflet.lags.core.persistence.repository.OngoingAuthorizationRepository;
+import hu.psprog.leaflet.lags.core.persistence.repository.RefreshTokenRepository;
 import hu.psprog.leaflet.lags.core.service.registry.OAuthClientRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +23,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper.INVALID_TARGET_O_AUTH_CLIENT;
@@ -27,6 +35,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit tests for {@link OAuthRequestContextFactoryImpl}.
@@ -41,6 +51,10 @@ class OAuthRequestContextFactoryImplTest {
     private static final String AUTHORIZATION_CODE = "auth-code-1";
     private static final ExtendedUser EXTENDED_USER = ExtendedUser.builder().username("user1").build();
     private static final OngoingAuthorization ONGOING_AUTHORIZATION = prepareOngoingAuthorization();
+    private static final String REFRESH_TOKEN = "refresh-token-1";
+    private static final RefreshTokenInfo REFRESH_TOKEN_INFO = RefreshTokenInfo.builder().familyID("family-1").clientID(SOURCE_CLIENT_ID).build();
+    private static final OAuthClientRelation RELATION = OAuthClientRelation.of(SOURCE_O_AUTH_CLIENT, TARGET_O_AUTH_CLIENT,
+            TARGET_O_AUTH_CLIENT.getAllowedClients().get(0), scope -> ScopeSet.EMPTY);
 
     @Mock
     private OAuthClientRegistry oAuthClientRegistry;
@@ -48,6 +62,9 @@ class OAuthRequestContextFactoryImplTest {
     @Mock
     private OngoingAuthorizationRepository ongoingAuthorizationRepository;
 
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
     @InjectMocks
     private OAuthRequestContextFactoryImpl oAuthRequestContextFactory;
 
@@ -95,6 +112,7 @@ class OAuthRequestContextFactoryImplTest {
 
         given(oAuthClientRegistry.getClientByClientID(SOURCE_CLIENT_ID)).willReturn(Optional.of(SOURCE_O_AUTH_CLIENT));
         given(oAuthClientRegistry.getClientByAudience(TARGET_SERVICE_AUDIENCE)).willReturn(Optional.of(TARGET_O_AUTH_CLIENT));
+        given(oAuthClientRegistry.getRelation(SOURCE_O_AUTH_CLIENT, TARGET_O_AUTH_CLIENT)).willReturn(Optional.of(RELATION));
         given(ongoingAuthorizationRepository.getOngoingAuthorizationByCode(AUTHORIZATION_CODE)).willReturn(Optional.of(ONGOING_AUTHORIZATION));
 
         // when
@@ -107,7 +125,32 @@ class OAuthRequestContextFactoryImplTest {
         assertThat(result.getOngoingAuthorization().isPresent(), is(true));
         assertThat(result.getOngoingAuthorization().get(), equalTo(ONGOING_AUTHORIZATION));
         assertThat(result.getRequiredOngoingAuthorization(), equalTo(ONGOING_AUTHORIZATION));
-        assertThat(result.getRelation(), equalTo(TARGET_O_AUTH_CLIENT.getAllowedClients().get(0)));
+        assertThat(result.getRelation(), equalTo(RELATION));
+        assertThat(result.getRefreshToken().isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldCreateContextPrepareARefreshTokenRequestContext() {
+
+        // given
+        OAuthTokenRequest request = OAuthTokenRequest.builder()
+                .refreshToken(REFRESH_TOKEN)
+                .clientID(SOURCE_CLIENT_ID)
+                .audience(TARGET_SERVICE_AUDIENCE)
+                .build();
+
+        given(oAuthClientRegistry.getClientByClientID(SOURCE_CLIENT_ID)).willReturn(Optional.of(SOURCE_O_AUTH_CLIENT));
+        given(oAuthClientRegistry.getClientByAudience(TARGET_SERVICE_AUDIENCE)).willReturn(Optional.of(TARGET_O_AUTH_CLIENT));
+        given(oAuthClientRegistry.getRelation(SOURCE_O_AUTH_CLIENT, TARGET_O_AUTH_CLIENT)).willReturn(Optional.of(RELATION));
+        given(refreshTokenRepository.getRefreshToken(REFRESH_TOKEN)).willReturn(Optional.of(REFRESH_TOKEN_INFO));
+
+        // when
+        OAuthTokenRequestContext result = oAuthRequestContextFactory.createContext(request);
+
+        // then
+        assertThat(result.getRequest(), equalTo(request));
+        assertThat(result.getOngoingAuthorization().isPresent(), is(false));
+        assertThat(result.getRequiredRefreshToken(), equalTo(REFRESH_TOKEN_INFO));
     }
 
     @Test
@@ -151,6 +194,7 @@ class OAuthRequestContextFactoryImplTest {
 
         given(oAuthClientRegistry.getClientByClientID(SOURCE_CLIENT_ID)).willReturn(Optional.of(SOURCE_O_AUTH_CLIENT));
         given(oAuthClientRegistry.getClientByAudience(TARGET_SERVICE_AUDIENCE)).willReturn(Optional.of(INVALID_TARGET_O_AUTH_CLIENT));
+        given(oAuthClientRegistry.getRelation(SOURCE_O_AUTH_CLIENT, INVALID_TARGET_O_AUTH_CLIENT)).willReturn(Optional.empty());
 
         // when
         Throwable result = assertThrows(OAuthAuthorizationException.class, () -> oAuthRequestContextFactory.createContext(request));
@@ -160,6 +204,64 @@ class OAuthRequestContextFactoryImplTest {
         assertThat(result.getMessage(), equalTo("Target client [target-service-1] does not allow access for source client [source-service-1]"));
     }
 
+    @Test
+    public void shouldCreateBatchContextResolveClientsWithSingleLookup() {
+
+        // given
+        List<String> audiences = List.of(TARGET_SERVICE_AUDIENCE, "unknown-audience");
+        OAuthTokenBatchRequest request = OAuthTokenBatchRequest.builder()
+                .clientID(SOURCE_CLIENT_ID)
+                .audiences(audiences)
+                .build();
+
+        given(oAuthClientRegistry.getClientByClientID(SOURCE_CLIENT_ID)).willReturn(Optional.of(SOURCE_O_AUTH_CLIENT));
+        given(oAuthClientRegistry.getClientsByAudiences(audiences)).willReturn(Map.of(TARGET_SERVICE_AUDIENCE, TARGET_O_AUTH_CLIENT));
+
+        // when
+        OAuthTokenBatchContext result = oAuthRequestContextFactory.createBatchContext(request);
+
+        // then
+        assertThat(result.sourceClient(), equalTo(SOURCE_O_AUTH_CLIENT));
+        assertThat(result.targetClients(), equalTo(Map.of(TARGET_SERVICE_AUDIENCE, TARGET_O_AUTH_CLIENT)));
+    }
+
+    @Test
+    public void shouldCreateContextPrepareATokenRequestContextFromBatchContext() {
+
+        // given
+        OAuthTokenRequest request = prepareOAuthTokenRequest();
+        OAuthTokenBatchContext batchContext = new OAuthTokenBatchContext(SOURCE_O_AUTH_CLIENT, Map.of(TARGET_SERVICE_AUDIENCE, TARGET_O_AUTH_CLIENT));
+
+        given(ongoingAuthorizationRepository.getOngoingAuthorizationByCode(AUTHORIZATION_CODE)).willReturn(Optional.empty());
+        given(oAuthClientRegistry.getRelation(SOURCE_O_AUTH_CLIENT, TARGET_O_AUTH_CLIENT)).willReturn(Optional.of(RELATION));
+
+        // when
+        OAuthTokenRequestContext result = oAuthRequestContextFactory.createContext(request, batchContext);
+
+        // then
+        assertThat(result.getRequest(), equalTo(request));
+        assertThat(result.getSourceClient(), equalTo(SOURCE_O_AUTH_CLIENT));
+        assertThat(result.getTargetClient(), equalTo(TARGET_O_AUTH_CLIENT));
+        assertThat(result.getRelation(), equalTo(RELATION));
+        verify(oAuthClientRegistry, never()).getClientByClientID(SOURCE_CLIENT_ID);
+        verify(oAuthClientRegistry, never()).getClientByAudience(TARGET_SERVICE_AUDIENCE);
+    }
+
+    @Test
+    public void shouldCreateContextThrowExceptionWhilePreparingTokenContextFromBatchContextIfTargetClientIsUnknown() {
+
+        // given
+        OAuthTokenRequest request = prepareOAuthTokenRequest();
+        OAuthTokenBatchContext batchContext = new OAuthTokenBatchContext(SOURCE_O_AUTH_CLIENT, Map.of());
+
+        // when
+        Throwable result = assertThrows(OAuthAuthorizationException.class, () -> oAuthRequestContextFactory.createContext(request, batchContext));
+
+        // then
+        // exception expected
+        assertThat(result.getMessage(), equalTo("Requested access for non-registered OAuth client [target-service-audience]"));
+    }
+
     private void prepareAuthenticatedUser() {
 
         SecurityContextHolder
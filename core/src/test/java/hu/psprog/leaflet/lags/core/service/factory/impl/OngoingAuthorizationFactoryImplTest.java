@@ -4,9 +4,11 @@ import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OngoingAuthorization;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
 import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
 import hu.psprog.leaflet.lags.core.domain.request.AuthorizationResponseType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import hu.psprog.leaflet.lags.core.service.util.ScopeNegotiator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -40,6 +42,7 @@ class OngoingAuthorizationFactoryImplTest {
     private static final UserInfo USER_INFO = prepareUserInfo();
     private static final OAuthAuthorizationRequest O_AUTH_AUTHORIZATION_REQUEST = prepareAuthorizationRequest();
     private static final List<String> SCOPE = Arrays.asList("write:admin", "write:users");
+    private static final ScopeSet SCOPE_SET = ScopeSet.of(0, 1);
     private static final Duration AUTH_CODE_EXPIRATION = Duration.parse("PT1M");
     private static final String CLIENT_ID = "client-id-1";
     private static final String REDIRECT_URI = "http://localhost:9999/localhost";
@@ -50,6 +53,9 @@ class OngoingAuthorizationFactoryImplTest {
     @Mock
     private OAuthConfigurationProperties oAuthConfigurationProperties;
 
+    @Mock
+    private PermissionDictionary permissionDictionary;
+
     @InjectMocks
     private OngoingAuthorizationFactoryImpl ongoingAuthorizationFactory;
 
@@ -61,6 +67,7 @@ class OngoingAuthorizationFactoryImplTest {
 
         given(scopeNegotiator.getScope(context)).willReturn(SCOPE);
         given(oAuthConfigurationProperties.getAuthCodeExpiration()).willReturn(AUTH_CODE_EXPIRATION);
+        given(permissionDictionary.encode(SCOPE)).willReturn(SCOPE_SET);
 
         // when
         OngoingAuthorization result = ongoingAuthorizationFactory.createOngoingAuthorization(context);
@@ -84,6 +91,7 @@ class OngoingAuthorizationFactoryImplTest {
         assertThat(ongoingAuthorization.getRedirectURI(), equalTo(O_AUTH_AUTHORIZATION_REQUEST.getRedirectURI()));
         assertThat(ongoingAuthorization.getUserInfo(), equalTo(USER_INFO));
         assertThat(ongoingAuthorization.getScope(), equalTo(SCOPE));
+        assertThat(ongoingAuthorization.getScopeSet(), equalTo(SCOPE_SET));
 
         long expirationInSeconds = ChronoUnit.SECONDS.between(LocalDateTime.now(), ongoingAuthorization.getExpiration());
         assertThat(expirationInSeconds > 57 && expirationInSeconds <= 60, is(true));
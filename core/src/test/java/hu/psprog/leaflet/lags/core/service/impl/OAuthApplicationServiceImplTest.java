@@ -1,6 +1,8 @@
 package hu.psprog.leaflet.lags.core.service.impl;
 
 import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthApplicationRegistrationRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthApplicationRegistrationResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthApplicationResponse;
@@ -10,12 +12,14 @@ import hu.psprog.leaflet.lags.core.exception.ResourceNotFoundException;
 import hu.psprog.leaflet.lags.core.mapper.OAuthApplicationMapper;
 import hu.psprog.leaflet.lags.core.mapper.OAuthApplicationRegistrationRequestMapper;
 import hu.psprog.leaflet.lags.core.persistence.dao.OAuthApplicationDAO;
+import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
 import hu.psprog.leaflet.lags.core.service.util.SecretGenerator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -34,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Unit tests for {@link OAuthApplicationServiceImpl}.
@@ -58,6 +63,12 @@ class OAuthApplicationServiceImplTest {
     @Mock
     private OAuthApplicationRegistrationRequestMapper oAuthApplicationRegistrationRequestMapper;
 
+    @Mock
+    private TokenTracker tokenTracker;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
     @InjectMocks
     private OAuthApplicationServiceImpl oAuthApplicationService;
 
@@ -93,6 +104,7 @@ class OAuthApplicationServiceImplTest {
         // then
         assertThat(result, equalTo(expectedResponse));
         assertThat(mappedEntity.getClientSecret(), equalTo(encryptedSecret));
+        verify(applicationEventPublisher).publishEvent(new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.CREATED));
     }
 
     @Test
@@ -149,6 +161,7 @@ class OAuthApplicationServiceImplTest {
 
         // then
         assertThat(result, equalTo(expectedResponse));
+        verify(applicationEventPublisher).publishEvent(new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.UPDATED));
     }
 
     @Test
@@ -285,6 +298,7 @@ class OAuthApplicationServiceImplTest {
         // then
         assertThat(result, equalTo(expectedResponse));
         assertThat(currentEntity.isEnabled(), is(true));
+        verify(applicationEventPublisher).publishEvent(new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.STATUS_CHANGED));
     }
 
     @Test
@@ -345,6 +359,8 @@ class OAuthApplicationServiceImplTest {
         // then
         assertThat(result, equalTo(expectedResponse));
         assertThat(currentEntity.getClientSecret(), equalTo(encryptedSecret));
+        verify(tokenTracker).revokeAllForSubject(TokenSubject.ofClient("client-id-app1"));
+        verify(applicationEventPublisher).publishEvent(new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.SECRET_REGENERATED));
     }
 
     @Test
@@ -358,6 +374,7 @@ class OAuthApplicationServiceImplTest {
 
         // then
         verify(oAuthApplicationDAO).delete(applicationID);
+        verify(applicationEventPublisher).publishEvent(new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.DELETED));
     }
 
     @Test
@@ -374,5 +391,6 @@ class OAuthApplicationServiceImplTest {
 
         // then
         // exception expected
+        verifyNoInteractions(applicationEventPublisher);
     }
 }
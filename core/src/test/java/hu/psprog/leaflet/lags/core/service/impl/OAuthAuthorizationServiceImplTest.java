@@ -3,46 +3,63 @@ package hu.psprog.leaflet.lags.core.service.impl;
 import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper;
-import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenBatchContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
-import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
-import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult.FailureReason;
 import hu.psprog.leaflet.lags.core.domain.request.AuthorizationResponseType;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthAuthorizationResponse;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchError;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
+import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionBatchResult;
 import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult;
 import hu.psprog.leaflet.lags.core.domain.response.UserInfoResponse;
-import hu.psprog.leaflet.lags.core.exception.JWTTokenParsingException;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
-import hu.psprog.leaflet.lags.core.persistence.dao.AccessTokenDAO;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
 import hu.psprog.leaflet.lags.core.service.factory.OAuthRequestContextFactory;
 import hu.psprog.leaflet.lags.core.service.processor.GrantFlowProcessor;
+import hu.psprog.leaflet.lags.core.service.token.RefreshTokenHandler;
 import hu.psprog.leaflet.lags.core.service.token.TokenHandler;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenIntrospectionCache;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenReuseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.oauth2.jwt.Jwt;
 
 import java.util.Arrays;
 import java.util.Date;
-import java.util.Objects;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import static hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult.FAILED_INTROSPECTION_RESULT;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
@@ -61,6 +78,8 @@ class OAuthAuthorizationServiceImplTest {
     private static final OAuthAuthorizationRequest O_AUTH_AUTHORIZATION_REQUEST = prepareAuthorizationRequest();
     private static final OAuthAuthorizationResponse DUMMY_O_AUTH_AUTHORIZATION_RESPONSE = prepareAuthorizationResponse();
     private static final String ACCESS_TOKEN = "jwt-token-1";
+    private static final String INVALID_ACCESS_TOKEN = "jwt-token-2";
+    private static final String REFRESH_TOKEN = "refresh-token-1";
     private static final TokenClaims TOKEN_CLAIMS = prepareTokenClaims();
     private static final UserInfoResponse USER_INFO_RESPONSE = prepareUserInfoResponse();
     private static final OAuthAuthorizationRequestContext O_AUTH_AUTHORIZATION_REQUEST_CONTEXT = prepareAuthorizationContext();
@@ -76,7 +95,7 @@ class OAuthAuthorizationServiceImplTest {
     private TokenHandler tokenHandler;
 
     @Mock
-    private AccessTokenDAO accessTokenDAO;
+    private RefreshTokenHandler refreshTokenHandler;
 
     @Mock
     private OAuthRequestContextFactory oAuthRequestContextFactory;
@@ -92,8 +111,14 @@ class OAuthAuthorizationServiceImplTest {
         given(grantFlowProcessor1.forGrantType()).willReturn(GrantType.CLIENT_CREDENTIALS);
         given(grantFlowProcessor2.forGrantType()).willReturn(GrantType.AUTHORIZATION_CODE);
 
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.setIntrospectionBatchLimit(2);
+        oAuthConfigurationProperties.setTokenBatchLimit(3);
+
         oAuthAuthorizationService = new OAuthAuthorizationServiceImpl(Arrays.asList(grantFlowProcessor1, grantFlowProcessor2),
-                tokenHandler, accessTokenDAO, oAuthRequestContextFactory);
+                tokenHandler, new TokenIntrospectionCache(oAuthConfigurationProperties, new SimpleMeterRegistry()),
+                new TokenReuseCache(oAuthConfigurationProperties, new SimpleMeterRegistry()), refreshTokenHandler, oAuthRequestContextFactory,
+                oAuthConfigurationProperties);
     }
 
     @Test
@@ -117,6 +142,7 @@ class OAuthAuthorizationServiceImplTest {
         given(oAuthRequestContextFactory.createContext(SUPPORTED_O_AUTH_TOKEN_REQUEST)).willReturn(O_AUTH_TOKEN_REQUEST_CONTEXT);
         given(grantFlowProcessor1.processTokenRequest(O_AUTH_TOKEN_REQUEST_CONTEXT)).willReturn(CLAIMS);
         given(tokenHandler.generateToken(SUPPORTED_O_AUTH_TOKEN_REQUEST, CLAIMS)).willReturn(DUMMY_O_AUTH_TOKEN_RESPONSE);
+        given(refreshTokenHandler.issueRefreshToken(O_AUTH_TOKEN_REQUEST_CONTEXT, CLAIMS)).willReturn(Optional.empty());
 
         // when
         OAuthTokenResponse result = oAuthAuthorizationService.authorize(SUPPORTED_O_AUTH_TOKEN_REQUEST);
@@ -125,6 +151,45 @@ class OAuthAuthorizationServiceImplTest {
         assertThat(result, equalTo(DUMMY_O_AUTH_TOKEN_RESPONSE));
     }
 
+    @Test
+    public void shouldAuthorizeAttachIssuedRefreshTokenToResponse() {
+
+        // given
+        given(oAuthRequestContextFactory.createContext(SUPPORTED_O_AUTH_TOKEN_REQUEST)).willReturn(O_AUTH_TOKEN_REQUEST_CONTEXT);
+        given(grantFlowProcessor1.processTokenRequest(O_AUTH_TOKEN_REQUEST_CONTEXT)).willReturn(CLAIMS);
+        given(tokenHandler.generateToken(SUPPORTED_O_AUTH_TOKEN_REQUEST, CLAIMS)).willReturn(DUMMY_O_AUTH_TOKEN_RESPONSE);
+        given(refreshTokenHandler.issueRefreshToken(O_AUTH_TOKEN_REQUEST_CONTEXT, CLAIMS)).willReturn(Optional.of(REFRESH_TOKEN));
+
+        // when
+        OAuthTokenResponse result = oAuthAuthorizationService.authorize(SUPPORTED_O_AUTH_TOKEN_REQUEST);
+
+        // then
+        assertThat(result, equalTo(DUMMY_O_AUTH_TOKEN_RESPONSE.toBuilder()
+                .refreshToken(REFRESH_TOKEN)
+                .build()));
+    }
+
+    @Test
+    public void shouldAuthorizeRestoreConsumedRefreshTokenWhenSigningFails() {
+
+        // given
+        OAuthTokenRequestException signingFailure = new OAuthTokenRequestException(OAuthErrorCode.TEMPORARILY_UNAVAILABLE,
+                "Token signing capacity exhausted, please try again later");
+
+        given(oAuthRequestContextFactory.createContext(SUPPORTED_O_AUTH_TOKEN_REQUEST)).willReturn(O_AUTH_TOKEN_REQUEST_CONTEXT);
+        given(grantFlowProcessor1.processTokenRequest(O_AUTH_TOKEN_REQUEST_CONTEXT)).willReturn(CLAIMS);
+        given(tokenHandler.generateToken(SUPPORTED_O_AUTH_TOKEN_REQUEST, CLAIMS)).willThrow(signingFailure);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class,
+                () -> oAuthAuthorizationService.authorize(SUPPORTED_O_AUTH_TOKEN_REQUEST));
+
+        // then
+        assertThat(result, sameInstance(signingFailure));
+        verify(refreshTokenHandler).restoreRefreshToken(O_AUTH_TOKEN_REQUEST_CONTEXT);
+        verify(refreshTokenHandler, never()).issueRefreshToken(O_AUTH_TOKEN_REQUEST_CONTEXT, CLAIMS);
+    }
+
     @Test
     public void shouldAuthorizeThrowExceptionForUnsupportedAuthFlow() {
 
@@ -137,61 +202,102 @@ class OAuthAuthorizationServiceImplTest {
     }
 
     @Test
-    public void shouldIntrospectReturnIntrospectionResultWithActiveStatusFlag() {
+    public void shouldAuthorizeBatchIssueTokensAndReportFailuresIndividually() {
 
         // given
-        given(tokenHandler.parseToken(ACCESS_TOKEN)).willReturn(TOKEN_CLAIMS);
-        given(accessTokenDAO.retrieveByJTI(TOKEN_CLAIMS.getTokenID())).willReturn(prepareAccessTokenInfo(TokenStatus.ACTIVE));
+        OAuthTokenBatchRequest oAuthTokenBatchRequest = prepareTokenBatchRequest(GrantType.CLIENT_CREDENTIALS, List.of("aud-1", "aud-2", "aud-3"));
+        OAuthTokenBatchContext oAuthTokenBatchContext = new OAuthTokenBatchContext(O_AUTH_CLIENT, Map.of());
+        OAuthTokenRequest tokenRequest1 = oAuthTokenBatchRequest.forAudience("aud-1");
+        OAuthTokenRequest tokenRequest3 = oAuthTokenBatchRequest.forAudience("aud-3");
+        OAuthTokenRequestContext context1 = OAuthTokenRequestContext.builder().request(tokenRequest1).build();
+        OAuthTokenRequestContext context3 = OAuthTokenRequestContext.builder().request(tokenRequest3).build();
+
+        given(oAuthRequestContextFactory.createBatchContext(oAuthTokenBatchRequest)).willReturn(oAuthTokenBatchContext);
+        given(oAuthRequestContextFactory.createContext(tokenRequest1, oAuthTokenBatchContext)).willReturn(context1);
+        given(oAuthRequestContextFactory.createContext(oAuthTokenBatchRequest.forAudience("aud-2"), oAuthTokenBatchContext))
+                .willThrow(new OAuthTokenRequestException(OAuthErrorCode.UNAUTHORIZED_CLIENT, "Requested access for non-registered OAuth client [aud-2]"));
+        given(oAuthRequestContextFactory.createContext(tokenRequest3, oAuthTokenBatchContext)).willReturn(context3);
+        given(grantFlowProcessor1.processTokenRequest(context1)).willReturn(CLAIMS);
+        given(grantFlowProcessor1.processTokenRequest(context3))
+                .willThrow(new OAuthTokenRequestException(OAuthErrorCode.INVALID_SCOPE, "Scope not allowed"));
+        given(tokenHandler.generateToken(tokenRequest1, CLAIMS)).willReturn(DUMMY_O_AUTH_TOKEN_RESPONSE);
 
         // when
-        TokenIntrospectionResult result = oAuthAuthorizationService.introspect(ACCESS_TOKEN);
+        OAuthTokenBatchResponse result = oAuthAuthorizationService.authorize(oAuthTokenBatchRequest);
 
         // then
-        assertThat(result.active(), is(true));
-        assertThat(result.clientID(), equalTo(TOKEN_CLAIMS.getClientID()));
-        assertThat(result.username(), equalTo(TOKEN_CLAIMS.getUsername()));
-        assertThat(result.expiration(), equalTo(TOKEN_CLAIMS.getExpiration()));
+        assertThat(result.tokens(), equalTo(Map.of("aud-1", DUMMY_O_AUTH_TOKEN_RESPONSE)));
+        assertThat(result.errors(), equalTo(Map.of(
+                "aud-2", new OAuthTokenBatchError("unauthorized_client", "Requested access for non-registered OAuth client [aud-2]"),
+                "aud-3", new OAuthTokenBatchError("invalid_scope", "Scope not allowed"))));
+        verifyNoInteractions(refreshTokenHandler);
+    }
+
+    @Test
+    public void shouldAuthorizeBatchThrowExceptionForUnsupportedAuthFlow() {
+
+        // given
+        OAuthTokenBatchRequest oAuthTokenBatchRequest = prepareTokenBatchRequest(GrantType.PASSWORD, List.of("aud-1"));
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> oAuthAuthorizationService.authorize(oAuthTokenBatchRequest));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.UNSUPPORTED_GRANT_TYPE));
+        verifyNoInteractions(oAuthRequestContextFactory);
+    }
+
+    @Test
+    public void shouldAuthorizeBatchThrowExceptionWhenBatchLimitIsExceeded() {
+
+        // given
+        OAuthTokenBatchRequest oAuthTokenBatchRequest = prepareTokenBatchRequest(GrantType.CLIENT_CREDENTIALS, List.of("aud-1", "aud-2", "aud-3", "aud-4"));
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> oAuthAuthorizationService.authorize(oAuthTokenBatchRequest));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_REQUEST));
+        assertThat(result.getMessage(), equalTo("Batch token request must contain at least 1 and at most 3 audience(s)"));
+        verifyNoInteractions(oAuthRequestContextFactory, tokenHandler);
     }
 
     @Test
-    public void shouldIntrospectReturnIntrospectionResultWithInactiveStatusFlagDueToMissingTrackingInfo() {
+    public void shouldIntrospectReturnIntrospectionResultWithActiveStatusFlag() {
 
         // given
-        given(tokenHandler.parseToken(ACCESS_TOKEN)).willReturn(TOKEN_CLAIMS);
-        given(accessTokenDAO.retrieveByJTI(TOKEN_CLAIMS.getTokenID())).willReturn(prepareAccessTokenInfo(null));
+        given(tokenHandler.tryParseToken(ACCESS_TOKEN)).willReturn(TokenParsingResult.success(TOKEN_CLAIMS));
 
         // when
         TokenIntrospectionResult result = oAuthAuthorizationService.introspect(ACCESS_TOKEN);
 
         // then
-        assertThat(result.active(), is(false));
+        assertThat(result.active(), is(true));
         assertThat(result.clientID(), equalTo(TOKEN_CLAIMS.getClientID()));
         assertThat(result.username(), equalTo(TOKEN_CLAIMS.getUsername()));
         assertThat(result.expiration(), equalTo(TOKEN_CLAIMS.getExpiration()));
     }
 
     @Test
-    public void shouldIntrospectReturnIntrospectionResultWithInactiveStatusFlagDueToRevokedStatusInTrackingInfo() {
+    public void shouldIntrospectReturnCachedIntrospectionResultForRepeatedRequests() {
 
         // given
-        given(tokenHandler.parseToken(ACCESS_TOKEN)).willReturn(TOKEN_CLAIMS);
-        given(accessTokenDAO.retrieveByJTI(TOKEN_CLAIMS.getTokenID())).willReturn(prepareAccessTokenInfo(TokenStatus.REVOKED));
+        given(tokenHandler.tryParseToken(ACCESS_TOKEN)).willReturn(TokenParsingResult.success(TOKEN_CLAIMS));
+        TokenIntrospectionResult firstResult = oAuthAuthorizationService.introspect(ACCESS_TOKEN);
 
         // when
         TokenIntrospectionResult result = oAuthAuthorizationService.introspect(ACCESS_TOKEN);
 
         // then
-        assertThat(result.active(), is(false));
-        assertThat(result.clientID(), equalTo(TOKEN_CLAIMS.getClientID()));
-        assertThat(result.username(), equalTo(TOKEN_CLAIMS.getUsername()));
-        assertThat(result.expiration(), equalTo(TOKEN_CLAIMS.getExpiration()));
+        assertThat(result, equalTo(firstResult));
+        verify(tokenHandler, times(1)).tryParseToken(ACCESS_TOKEN);
     }
 
     @Test
     public void shouldIntrospectReturnIntrospectionResultWithInactiveStatusOnInvalidToken() {
 
         // given
-        doThrow(JWTTokenParsingException.class).when(tokenHandler).parseToken(ACCESS_TOKEN);
+        given(tokenHandler.tryParseToken(ACCESS_TOKEN)).willReturn(TokenParsingResult.failure(FailureReason.MALFORMED));
 
         // when
         TokenIntrospectionResult result = oAuthAuthorizationService.introspect(ACCESS_TOKEN);
@@ -201,31 +307,82 @@ class OAuthAuthorizationServiceImplTest {
         assertThat(result.clientID(), nullValue());
         assertThat(result.username(), nullValue());
         assertThat(result.expiration(), nullValue());
-        verifyNoInteractions(accessTokenDAO);
     }
 
     @Test
-    public void shouldGetUserInfoReturnExtractedUserInformationFromToken() {
+    public void shouldIntrospectBatchReturnIntrospectionResultsInRequestOrder() {
 
         // given
-        given(tokenHandler.extractClaims(jwt)).willReturn(TOKEN_CLAIMS);
+        given(tokenHandler.parseTokens(List.of(INVALID_ACCESS_TOKEN, ACCESS_TOKEN)))
+                .willReturn(List.of(TokenParsingResult.failure(FailureReason.REVOKED), TokenParsingResult.success(TOKEN_CLAIMS)));
 
         // when
-        UserInfoResponse result = oAuthAuthorizationService.getUserInfo(jwt);
+        TokenIntrospectionBatchResult result = oAuthAuthorizationService.introspect(List.of(INVALID_ACCESS_TOKEN, ACCESS_TOKEN));
 
         // then
-        assertThat(result, equalTo(USER_INFO_RESPONSE));
+        assertThat(result.results().size(), equalTo(2));
+        assertThat(result.results().get(0), equalTo(FAILED_INTROSPECTION_RESULT));
+        assertThat(result.results().get(1).active(), is(true));
+        assertThat(result.results().get(1).clientID(), equalTo(TOKEN_CLAIMS.getClientID()));
+        assertThat(result.results().get(1).username(), equalTo(TOKEN_CLAIMS.getUsername()));
+        assertThat(result.results().get(1).expiration(), equalTo(TOKEN_CLAIMS.getExpiration()));
+    }
+
+    @Test
+    public void shouldIntrospectBatchParseOnlyTheTokensMissingFromTheCache() {
+
+        // given
+        given(tokenHandler.tryParseToken(ACCESS_TOKEN)).willReturn(TokenParsingResult.success(TOKEN_CLAIMS));
+        given(tokenHandler.parseTokens(List.of(INVALID_ACCESS_TOKEN))).willReturn(List.of(TokenParsingResult.failure(FailureReason.EXPIRED)));
+        TokenIntrospectionResult cachedResult = oAuthAuthorizationService.introspect(ACCESS_TOKEN);
+
+        // when
+        TokenIntrospectionBatchResult result = oAuthAuthorizationService.introspect(List.of(ACCESS_TOKEN, INVALID_ACCESS_TOKEN));
+
+        // then
+        assertThat(result.results(), equalTo(List.of(cachedResult, FAILED_INTROSPECTION_RESULT)));
+        verify(tokenHandler).parseTokens(List.of(INVALID_ACCESS_TOKEN));
+    }
+
+    @Test
+    public void shouldIntrospectBatchThrowExceptionWhenBatchLimitIsExceeded() {
+
+        // when
+        Throwable result = assertThrows(OAuthTokenRequestException.class,
+                () -> oAuthAuthorizationService.introspect(List.of(ACCESS_TOKEN, INVALID_ACCESS_TOKEN, "jwt-token-3")));
+
+        // then
+        // exception expected
+        assertThat(result.getMessage(), equalTo("Batch introspection request must contain at most 2 token(s)"));
+        verifyNoInteractions(tokenHandler);
     }
 
-    private Optional<AccessTokenInfo> prepareAccessTokenInfo(TokenStatus status) {
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = " ")
+    public void shouldIntrospectBatchThrowExceptionForEmptyToken(String accessToken) {
 
-        AccessTokenInfo accessTokenInfo = null;
-        if (Objects.nonNull(status)) {
-            accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder().build());
-            accessTokenInfo.setStatus(status);
-        }
+        // when
+        Throwable result = assertThrows(OAuthTokenRequestException.class,
+                () -> oAuthAuthorizationService.introspect(Arrays.asList(ACCESS_TOKEN, accessToken)));
 
-        return Optional.ofNullable(accessTokenInfo);
+        // then
+        // exception expected
+        assertThat(result.getMessage(), equalTo("Batch introspection request must not contain empty token(s)"));
+        verifyNoInteractions(tokenHandler);
+    }
+
+    @Test
+    public void shouldGetUserInfoReturnExtractedUserInformationFromToken() {
+
+        // given
+        given(tokenHandler.extractClaims(jwt)).willReturn(TOKEN_CLAIMS);
+
+        // when
+        UserInfoResponse result = oAuthAuthorizationService.getUserInfo(jwt);
+
+        // then
+        assertThat(result, equalTo(USER_INFO_RESPONSE));
     }
 
     private static OAuthTokenRequest prepareTokenRequest(GrantType grantType, String clientID) {
@@ -236,6 +393,16 @@ class OAuthAuthorizationServiceImplTest {
                 .build();
     }
 
+    private static OAuthTokenBatchRequest prepareTokenBatchRequest(GrantType grantType, List<String> audiences) {
+
+        return OAuthTokenBatchRequest.builder()
+                .grantType(grantType)
+                .clientID("client-1")
+                .audiences(audiences)
+                .scope(List.of())
+                .build();
+    }
+
     private static OAuthClient prepareOAuthClient() {
         return OAuthConfigTestHelper.prepareOAuthClient("Client 1", ApplicationType.SERVICE, "client-1", null, null);
     }
@@ -270,7 +437,7 @@ class OAuthAuthorizationServiceImplTest {
                 .username("username-1")
                 .email("email@dev.local")
                 .userID(1234L)
-                .expiration(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000L))
                 .build();
     }
 
@@ -5,6 +5,7 @@ import hu.psprog.leaflet.lags.core.domain.entity.Role;
 import hu.psprog.leaflet.lags.core.domain.entity.SupportedLocale;
 import hu.psprog.leaflet.lags.core.domain.entity.User;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
 import hu.psprog.leaflet.lags.core.domain.request.PasswordResetRequestModel;
 import hu.psprog.leaflet.lags.core.domain.request.UserRequest;
 import hu.psprog.leaflet.lags.core.domain.response.PasswordUpdateModel;
@@ -16,6 +17,7 @@ import hu.psprog.leaflet.lags.core.exception.ResourceNotFoundException;
 import hu.psprog.leaflet.lags.core.mapper.UserMapper;
 import hu.psprog.leaflet.lags.core.persistence.dao.UserDAO;
 import hu.psprog.leaflet.lags.core.service.account.AccountRequestHandler;
+import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -68,6 +70,9 @@ class UserServiceImplTest {
     @Mock
     private AccountRequestHandler<PasswordResetRequestModel, Void> passwordResetRequestAccountRequestHandler;
 
+    @Mock
+    private TokenTracker tokenTracker;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -208,6 +213,7 @@ class UserServiceImplTest {
         assertThat(user.getRole(), equalTo(expectedRole));
 
         verify(userDAO).save(user);
+        verify(tokenTracker).revokeAllForSubject(TokenSubject.ofUser(USER_ID));
     }
 
     @Test
@@ -244,6 +250,7 @@ class UserServiceImplTest {
         assertThat(user.isEnabled(), is(true));
 
         verify(userDAO).save(user);
+        verifyNoInteractions(tokenTracker);
     }
 
     @Test
@@ -267,6 +274,7 @@ class UserServiceImplTest {
         assertThat(user.isEnabled(), is(false));
 
         verify(userDAO).save(user);
+        verify(tokenTracker).revokeAllForSubject(TokenSubject.ofUser(USER_ID));
     }
 
     @Test
@@ -569,6 +577,7 @@ class UserServiceImplTest {
         assertThat(result, equalTo(ProfileOperationResult.SUCCESS));
 
         verify(userDAO).delete(USER_ID);
+        verify(tokenTracker).revokeAllForSubject(TokenSubject.ofUser(USER_ID));
     }
 
     @Test
@@ -592,6 +601,7 @@ class UserServiceImplTest {
         assertThat(result, equalTo(ProfileOperationResult.SUCCESS));
 
         verify(userDAO).delete(USER_ID);
+        verify(tokenTracker).revokeAllForSubject(TokenSubject.ofUser(USER_ID));
         verifyNoInteractions(passwordEncoder);
     }
 
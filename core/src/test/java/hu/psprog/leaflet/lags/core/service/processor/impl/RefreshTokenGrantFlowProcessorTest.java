@@ -0,0 +1,237 @@
+package hu.psprog.leaflet.lags.core.service.processor.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import hu.psprog.leaflet.lags.core.service.processor.verifier.OAuthRequestVerifier;
+import hu.psprog.leaflet.lags.core.service.registry.OAuthRequestVerifierRegistry;
+import hu.psprog.leaflet.lags.core.service.token.RefreshTokenHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper.SOURCE_O_AUTH_CLIENT;
+import static hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper.TARGET_O_AUTH_CLIENT;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link RefreshTokenGrantFlowProcessor}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenGrantFlowProcessorTest {
+
+    private static final String EMAIL = "user1@dev.local";
+    private static final RefreshTokenInfo REFRESH_TOKEN_INFO = RefreshTokenInfo.builder()
+            .familyID("family-1")
+            .clientID(SOURCE_O_AUTH_CLIENT.getClientId())
+            .audience(TARGET_O_AUTH_CLIENT.getAudience())
+            .scope(List.of("read:items", "write:item:self"))
+            .userInfo(UserInfo.builder()
+                    .id(1234L)
+                    .email(EMAIL)
+                    .role("USER")
+                    .build())
+            .build();
+    private static final ExtendedUser CURRENT_USER = prepareUser(1234L, true, "USER");
+
+    @Mock
+    private OAuthRequestVerifierRegistry oAuthRequestVerifierRegistry;
+
+    @Mock
+    private RefreshTokenHandler refreshTokenHandler;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private OAuthRequestVerifier<OAuthTokenRequestContext> verifier;
+
+    @InjectMocks
+    private RefreshTokenGrantFlowProcessor refreshTokenGrantFlowProcessor;
+
+    @Test
+    public void shouldProcessTokenRequestGenerateClaimsWithSuccess() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(Arrays.asList("read:items"));
+
+        given(oAuthRequestVerifierRegistry.getTokenRequestVerifiers(GrantType.REFRESH_TOKEN)).willReturn(List.of(verifier));
+        given(userDetailsService.loadUserByUsername(EMAIL)).willReturn(CURRENT_USER);
+
+        // when
+        TokenClaims result = refreshTokenGrantFlowProcessor.processTokenRequest(context);
+
+        // then
+        assertThat(result.getClaimsAsMap(), equalTo(Map.of(
+                "scope", "read:items",
+                "sub", "dummy-source-service-1|uid=1234",
+                "usr", EMAIL,
+                "rol", "USER",
+                "name", "Some User",
+                "uid", 1234L
+        )));
+
+        verify(verifier).verify(context);
+        verify(refreshTokenHandler).consumeRefreshToken(context);
+    }
+
+    @Test
+    public void shouldProcessTokenRequestApplyOriginallyGrantedScope() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(new ArrayList<>());
+
+        given(userDetailsService.loadUserByUsername(EMAIL)).willReturn(CURRENT_USER);
+
+        // when
+        TokenClaims result = refreshTokenGrantFlowProcessor.processTokenRequest(context);
+
+        // then
+        assertThat(result.getScope(), equalTo("read:items write:item:self"));
+    }
+
+    @Test
+    public void shouldProcessTokenRequestStopOnRefreshTokenReuse() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(new ArrayList<>());
+
+        given(userDetailsService.loadUserByUsername(EMAIL)).willReturn(CURRENT_USER);
+        doThrow(new OAuthTokenRequestException(OAuthErrorCode.INVALID_GRANT, "Refresh token has already been used"))
+                .when(refreshTokenHandler).consumeRefreshToken(context);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenGrantFlowProcessor.processTokenRequest(context));
+
+        // then
+        assertThat(result.getMessage(), equalTo("Refresh token has already been used"));
+    }
+
+    @Test
+    public void shouldProcessTokenRequestNotConsumeRefreshTokenOnFailingUserLookup() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(new ArrayList<>());
+
+        given(userDetailsService.loadUserByUsername(EMAIL))
+                .willThrow(new DataAccessResourceFailureException("connection lost"))
+                .willReturn(CURRENT_USER);
+
+        // when
+        assertThrows(DataAccessResourceFailureException.class, () -> refreshTokenGrantFlowProcessor.processTokenRequest(context));
+        verifyNoInteractions(refreshTokenHandler);
+        TokenClaims result = refreshTokenGrantFlowProcessor.processTokenRequest(context);
+
+        // then
+        assertThat(result.getSubject(), equalTo("dummy-source-service-1|uid=1234"));
+        verify(refreshTokenHandler).consumeRefreshToken(context);
+    }
+
+    @Test
+    public void shouldProcessTokenRequestThrowExceptionIfUserDoesNotExistAnymore() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(new ArrayList<>());
+
+        given(userDetailsService.loadUserByUsername(EMAIL)).willThrow(new UsernameNotFoundException("not found"));
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenGrantFlowProcessor.processTokenRequest(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_GRANT));
+        assertThat(result.getMessage(), equalTo("User of the refresh token does not exist anymore"));
+        verifyNoInteractions(refreshTokenHandler);
+    }
+
+    @ParameterizedTest
+    @MethodSource("changedUserDataProvider")
+    public void shouldProcessTokenRequestThrowExceptionIfUserHasChanged(ExtendedUser changedUser) {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(new ArrayList<>());
+
+        given(userDetailsService.loadUserByUsername(EMAIL)).willReturn(changedUser);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenGrantFlowProcessor.processTokenRequest(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_GRANT));
+        assertThat(result.getMessage(), equalTo("User of the refresh token has changed, re-authentication is required"));
+    }
+
+    @Test
+    public void shouldForGrantTypeReturnRefreshToken() {
+
+        // when
+        GrantType result = refreshTokenGrantFlowProcessor.forGrantType();
+
+        // then
+        assertThat(result, equalTo(GrantType.REFRESH_TOKEN));
+    }
+
+    private static OAuthTokenRequestContext prepareContext(List<String> scope) {
+
+        return OAuthTokenRequestContext.builder()
+                .request(OAuthTokenRequest.builder()
+                        .grantType(GrantType.REFRESH_TOKEN)
+                        .clientID(SOURCE_O_AUTH_CLIENT.getClientId())
+                        .audience(TARGET_O_AUTH_CLIENT.getAudience())
+                        .refreshToken("refresh-token-1")
+                        .scope(scope)
+                        .build())
+                .sourceClient(SOURCE_O_AUTH_CLIENT)
+                .refreshToken(Optional.of(REFRESH_TOKEN_INFO))
+                .build();
+    }
+
+    private static ExtendedUser prepareUser(Long id, boolean enabled, String role) {
+
+        return ExtendedUser.builder()
+                .id(id)
+                .username(EMAIL)
+                .name("Some User")
+                .enabled(enabled)
+                .role(role)
+                .build();
+    }
+
+    private static Stream<Arguments> changedUserDataProvider() {
+
+        return Stream.of(
+                Arguments.of(prepareUser(1234L, false, "USER")),
+                Arguments.of(prepareUser(5678L, true, "USER")),
+                Arguments.of(prepareUser(1234L, true, "ADMIN"))
+        );
+    }
+}
@@ -9,9 +9,13 @@ import hu.psprog.leaflet.lags.core.domain.request.AuthorizationResponseType;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
+import hu.psprog.leaflet.lags.core.persistence.dao.PermissionDAO;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import hu.psprog.leaflet.lags.core.service.util.impl.PermissionDictionaryImpl;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.authority.AuthorityUtils;
 
@@ -29,9 +33,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @ExtendWith(MockitoExtension.class)
 class AuthCodeAuthorizationOAuthRequestVerifierTest {
 
-    @InjectMocks
+    @Mock
+    private PermissionDAO permissionDAO;
+
+    private PermissionDictionary permissionDictionary;
     private AuthCodeAuthorizationOAuthRequestVerifier authCodeAuthorizationOAuthRequestVerifier;
 
+    @BeforeEach
+    public void setup() {
+        permissionDictionary = new PermissionDictionaryImpl(permissionDAO);
+        authCodeAuthorizationOAuthRequestVerifier = new AuthCodeAuthorizationOAuthRequestVerifier(permissionDictionary);
+    }
+
     @Test
     public void shouldVerifyAcceptContext() {
 
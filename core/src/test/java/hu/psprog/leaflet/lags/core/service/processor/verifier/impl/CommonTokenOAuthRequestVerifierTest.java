@@ -2,17 +2,21 @@ package hu.psprog.leaflet.lags.core.service.processor.verifier.impl;
 
 import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
-import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
+import hu.psprog.leaflet.lags.core.persistence.dao.PermissionDAO;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import hu.psprog.leaflet.lags.core.service.util.impl.PermissionDictionaryImpl;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
-import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
@@ -31,9 +35,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @ExtendWith(MockitoExtension.class)
 class CommonTokenOAuthRequestVerifierTest {
 
-    @InjectMocks
+    @Mock
+    private PermissionDAO permissionDAO;
+
+    private PermissionDictionary permissionDictionary;
     private CommonTokenOAuthRequestVerifier commonTokenOAuthRequestVerifier;
 
+    @BeforeEach
+    public void setup() {
+        permissionDictionary = new PermissionDictionaryImpl(permissionDAO);
+        commonTokenOAuthRequestVerifier = new CommonTokenOAuthRequestVerifier(permissionDictionary);
+    }
+
     @Test
     public void shouldVerifyAcceptContext() {
 
@@ -88,15 +101,17 @@ class CommonTokenOAuthRequestVerifierTest {
         List<GrantType> result = commonTokenOAuthRequestVerifier.forGrantType();
 
         // then
-        assertThat(result.size(), equalTo(3));
+        assertThat(result.size(), equalTo(4));
         assertThat(result, hasItems(GrantType.values()));
     }
 
     private OAuthTokenRequestContext prepareContext(String clientID, String audience, boolean withBroaderScope) {
 
-        OAuthClientAllowRelation relation = OAuthConfigTestHelper.prepareRelation("client-2", Arrays.asList("read:users", "write:users", "read:admin", "write:admin"));
         OAuthClient sourceClient = OAuthConfigTestHelper.prepareOAuthClient("client-1", ApplicationType.SERVICE, clientID, null, null);
         OAuthClient targetClient = OAuthConfigTestHelper.prepareOAuthClient("client-2", ApplicationType.SERVICE, "client-2", null, null);
+        OAuthClientRelation relation = OAuthClientRelation.of(sourceClient, targetClient,
+                OAuthConfigTestHelper.prepareRelation("client-2", Arrays.asList("read:users", "write:users", "read:admin", "write:admin")),
+                permissionDictionary::encode);
 
         return OAuthTokenRequestContext.builder()
                 .relation(relation)
@@ -0,0 +1,161 @@
+package hu.psprog.leaflet.lags.core.service.processor.verifier.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link RefreshTokenOAuthRequestVerifier}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenOAuthRequestVerifierTest {
+
+    private static final String REFRESH_TOKEN = "refresh-token-1";
+    private static final String CLIENT_ID = "client-1";
+    private static final String AUDIENCE = "audience-1";
+    private static final Date EXPIRES_AT = new Date(System.currentTimeMillis() + 3_600_000L);
+    private static final RefreshTokenInfo REFRESH_TOKEN_INFO = prepareRefreshTokenInfo(EXPIRES_AT);
+
+    @InjectMocks
+    private RefreshTokenOAuthRequestVerifier refreshTokenOAuthRequestVerifier;
+
+    @Test
+    public void shouldVerifyAcceptContext() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(REFRESH_TOKEN, CLIENT_ID, AUDIENCE, List.of("read:all"), REFRESH_TOKEN_INFO);
+
+        // when
+        refreshTokenOAuthRequestVerifier.verify(context);
+
+        // then
+        // silent fall-through expected
+    }
+
+    @Test
+    public void shouldVerifyRejectContextForMissingRefreshToken() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(null, CLIENT_ID, AUDIENCE, List.of(), null);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenOAuthRequestVerifier.verify(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_REQUEST));
+        assertThat(result.getMessage(), equalTo("Value for required authorization parameter [refresh_token] is missing"));
+    }
+
+    @Test
+    public void shouldVerifyRejectContextForUnknownRefreshToken() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(REFRESH_TOKEN, CLIENT_ID, AUDIENCE, List.of(), null);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenOAuthRequestVerifier.verify(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_GRANT));
+        assertThat(result.getMessage(), equalTo("Invalid refresh token"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "client-2,audience-1",
+            "client-1,audience-2"
+    })
+    public void shouldVerifyRejectContextForDifferentClientOrAudience(String clientID, String audience) {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(REFRESH_TOKEN, clientID, audience, List.of(), REFRESH_TOKEN_INFO);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenOAuthRequestVerifier.verify(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_GRANT));
+        assertThat(result.getMessage(), equalTo("Refresh token belongs to a different client or audience."));
+    }
+
+    @Test
+    public void shouldVerifyRejectContextForExpiredRefreshToken() {
+
+        // given
+        RefreshTokenInfo expiredRefreshTokenInfo = prepareRefreshTokenInfo(new Date(System.currentTimeMillis() - 1000L));
+        OAuthTokenRequestContext context = prepareContext(REFRESH_TOKEN, CLIENT_ID, AUDIENCE, List.of(), expiredRefreshTokenInfo);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenOAuthRequestVerifier.verify(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_GRANT));
+        assertThat(result.getMessage(), equalTo("Refresh token has already expired."));
+    }
+
+    @Test
+    public void shouldVerifyRejectContextForExceedingScope() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(REFRESH_TOKEN, CLIENT_ID, AUDIENCE, List.of("read:all", "write:all"), REFRESH_TOKEN_INFO);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenOAuthRequestVerifier.verify(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_SCOPE));
+    }
+
+    @Test
+    public void shouldForGrantTypeReturnRefreshTokenGrant() {
+
+        // when
+        List<GrantType> result = refreshTokenOAuthRequestVerifier.forGrantType();
+
+        // then
+        assertThat(result, equalTo(List.of(GrantType.REFRESH_TOKEN)));
+    }
+
+    private OAuthTokenRequestContext prepareContext(String refreshToken, String clientID, String audience, List<String> scope,
+                                                    RefreshTokenInfo refreshTokenInfo) {
+
+        return OAuthTokenRequestContext.builder()
+                .request(OAuthTokenRequest.builder()
+                        .refreshToken(refreshToken)
+                        .clientID(clientID)
+                        .audience(audience)
+                        .scope(scope)
+                        .build())
+                .refreshToken(Optional.ofNullable(refreshTokenInfo))
+                .build();
+    }
+
+    private static RefreshTokenInfo prepareRefreshTokenInfo(Date expiresAt) {
+
+        return RefreshTokenInfo.builder()
+                .clientID(CLIENT_ID)
+                .audience(AUDIENCE)
+                .scope(List.of("read:all"))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
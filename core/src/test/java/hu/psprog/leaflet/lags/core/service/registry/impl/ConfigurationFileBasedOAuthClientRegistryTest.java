@@ -4,12 +4,19 @@ import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
+import hu.psprog.leaflet.lags.core.persistence.dao.PermissionDAO;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import hu.psprog.leaflet.lags.core.service.util.impl.PermissionDictionaryImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -28,11 +35,16 @@ class ConfigurationFileBasedOAuthClientRegistryTest {
     private static final OAuthClient O_AUTH_CLIENT_2 = prepareOAuthClient("client-name-2", "client2", "audience-2");
     private static final OAuthConfigurationProperties O_AUTH_CONFIGURATION_PROPERTIES = prepareOAuthConfigurationProperties();
 
+    @Mock
+    private PermissionDAO permissionDAO;
+
+    private PermissionDictionary permissionDictionary;
     private ConfigurationFileBasedOAuthClientRegistry configurationFileBasedOAuthClientRegistry;
 
     @BeforeEach
     public void setup() {
-        configurationFileBasedOAuthClientRegistry = new ConfigurationFileBasedOAuthClientRegistry(O_AUTH_CONFIGURATION_PROPERTIES);
+        permissionDictionary = new PermissionDictionaryImpl(permissionDAO);
+        configurationFileBasedOAuthClientRegistry = new ConfigurationFileBasedOAuthClientRegistry(O_AUTH_CONFIGURATION_PROPERTIES, permissionDictionary);
     }
 
     @Test
@@ -77,11 +89,49 @@ class ConfigurationFileBasedOAuthClientRegistryTest {
         assertThat(result.isPresent(), is(false));
     }
 
+    @Test
+    public void shouldGetClientsByAudiencesReturnRegisteredClientsOnly() {
+
+        // when
+        Map<String, OAuthClient> result = configurationFileBasedOAuthClientRegistry.getClientsByAudiences(
+                List.of(O_AUTH_CLIENT_2.getAudience(), "non-registered-audience"));
+
+        // then
+        assertThat(result, equalTo(Map.of(O_AUTH_CLIENT_2.getAudience(), O_AUTH_CLIENT_2)));
+    }
+
+    @Test
+    public void shouldGetRelationReturnIndexedRelation() {
+
+        // when
+        Optional<OAuthClientRelation> result = configurationFileBasedOAuthClientRegistry.getRelation(O_AUTH_CLIENT_1, O_AUTH_CLIENT_2);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().sourceClientID(), equalTo(O_AUTH_CLIENT_1.getClientId()));
+        assertThat(result.get().targetAudience(), equalTo(O_AUTH_CLIENT_2.getAudience()));
+        assertThat(result.get().allowedScopes(), equalTo(List.of("read:all", "write:all")));
+        assertThat(result.get().allowedScopeSet(), equalTo(permissionDictionary.lookup(List.of("read:all", "write:all"))));
+    }
+
+    @Test
+    public void shouldGetRelationReturnEmptyOptionalForNonAllowedClient() {
+
+        // when
+        Optional<OAuthClientRelation> result = configurationFileBasedOAuthClientRegistry.getRelation(O_AUTH_CLIENT_2, O_AUTH_CLIENT_1);
+
+        // then
+        assertThat(result.isPresent(), is(false));
+    }
+
     private static OAuthClient prepareOAuthClient(String clientName, String clientId, String audience) {
         return OAuthConfigTestHelper.prepareOAuthClient(clientName, ApplicationType.SERVICE, clientId, null, audience);
     }
 
     private static OAuthConfigurationProperties prepareOAuthConfigurationProperties() {
+
+        O_AUTH_CLIENT_2.setAllowedClients(List.of(OAuthConfigTestHelper.prepareRelation("client-name-1", List.of("read:all", "write:all"))));
+
         return OAuthConfigTestHelper.prepareConfig(null, null, Arrays.asList(O_AUTH_CLIENT_1, O_AUTH_CLIENT_2));
     }
 }
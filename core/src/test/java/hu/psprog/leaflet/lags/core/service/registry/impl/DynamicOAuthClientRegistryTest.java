@@ -1,21 +1,31 @@
 package hu.psprog.leaflet.lags.core.service.registry.impl;
 
-import hu.psprog.leaflet.lags.core.conversion.OAuthClientConverter;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
-import hu.psprog.leaflet.lags.core.domain.entity.OAuthApplication;
-import hu.psprog.leaflet.lags.core.persistence.dao.OAuthApplicationDAO;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
+import hu.psprog.leaflet.lags.core.persistence.dao.OAuthClientReadModelDAO;
+import hu.psprog.leaflet.lags.core.persistence.dao.PermissionDAO;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import hu.psprog.leaflet.lags.core.service.util.impl.PermissionDictionaryImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 /**
  * Unit tests for {@link DynamicOAuthClientRegistry}.
@@ -26,28 +36,32 @@ import static org.mockito.BDDMockito.given;
 class DynamicOAuthClientRegistryTest {
 
     @Mock
-    private OAuthApplicationDAO oAuthApplicationDAO;
+    private OAuthClientReadModelDAO oAuthClientReadModelDAO;
 
     @Mock
-    private OAuthClientConverter oAuthClientConverter;
+    private PermissionDAO permissionDAO;
 
-    @InjectMocks
+    private PermissionDictionary permissionDictionary;
     private DynamicOAuthClientRegistry dynamicOAuthClientRegistry;
 
+    @BeforeEach
+    public void setup() {
+
+        OAuthClientCache oAuthClientCache = new OAuthClientCache(new OAuthConfigurationProperties(), new SimpleMeterRegistry());
+        permissionDictionary = new PermissionDictionaryImpl(permissionDAO);
+        dynamicOAuthClientRegistry = new DynamicOAuthClientRegistry(oAuthClientReadModelDAO, oAuthClientCache, permissionDictionary);
+    }
+
     @Test
     public void shouldGetClientByClientID() {
 
         // given
         var clientID = "client-1";
-        var application = OAuthApplication.builder()
-                .clientId(clientID)
-                .build();
         var expectedResult = OAuthClient.builder()
                 .clientId(clientID)
                 .build();
 
-        given(oAuthApplicationDAO.findByClientID(clientID)).willReturn(Optional.of(application));
-        given(oAuthClientConverter.convert(application)).willReturn(expectedResult);
+        given(oAuthClientReadModelDAO.findByClientID(clientID)).willReturn(Optional.of(expectedResult));
 
         // when
         var result = dynamicOAuthClientRegistry.getClientByClientID(clientID);
@@ -62,15 +76,11 @@ class DynamicOAuthClientRegistryTest {
 
         // given
         var audience = "audience-1";
-        var application = OAuthApplication.builder()
-                .audience(audience)
-                .build();
         var expectedResult = OAuthClient.builder()
                 .audience(audience)
                 .build();
 
-        given(oAuthApplicationDAO.findByAudience(audience)).willReturn(Optional.of(application));
-        given(oAuthClientConverter.convert(application)).willReturn(expectedResult);
+        given(oAuthClientReadModelDAO.findByAudience(audience)).willReturn(Optional.of(expectedResult));
 
         // when
         var result = dynamicOAuthClientRegistry.getClientByAudience(audience);
@@ -79,4 +89,75 @@ class DynamicOAuthClientRegistryTest {
         assertThat(result.isPresent(), is(true));
         assertThat(result.get(), equalTo(expectedResult));
     }
+
+    @Test
+    public void shouldGetClientsByAudiences() {
+
+        // given
+        var audiences = List.of("audience-1", "audience-2", "audience-3");
+        var client1 = OAuthClient.builder()
+                .audience("audience-1")
+                .build();
+        var client2 = OAuthClient.builder()
+                .audience("audience-2")
+                .build();
+
+        given(oAuthClientReadModelDAO.findAllByAudiences(audiences)).willReturn(List.of(client1, client2));
+
+        // when
+        var result = dynamicOAuthClientRegistry.getClientsByAudiences(audiences);
+
+        // then
+        assertThat(result, equalTo(Map.of("audience-1", client1, "audience-2", client2)));
+    }
+
+    @Test
+    public void shouldGetClientByClientIDServeRepeatedLookupsFromCache() {
+
+        // given
+        var clientID = "client-1";
+        var expectedResult = OAuthClient.builder()
+                .clientId(clientID)
+                .audience("audience-1")
+                .build();
+
+        given(oAuthClientReadModelDAO.findByClientID(clientID)).willReturn(Optional.of(expectedResult));
+        dynamicOAuthClientRegistry.getClientByClientID(clientID);
+
+        // when
+        var result = dynamicOAuthClientRegistry.getClientByClientID(clientID);
+        var resultByAudience = dynamicOAuthClientRegistry.getClientByAudience("audience-1");
+
+        // then
+        assertThat(result, equalTo(Optional.of(expectedResult)));
+        assertThat(resultByAudience, equalTo(Optional.of(expectedResult)));
+        verify(oAuthClientReadModelDAO, times(1)).findByClientID(clientID);
+        verifyNoMoreInteractions(oAuthClientReadModelDAO);
+    }
+
+    @Test
+    public void shouldGetRelationResolveRelationFromAllowedClientsOfTarget() {
+
+        // given
+        var sourceClient = OAuthClient.builder()
+                .clientName("source-1")
+                .clientId("client-1")
+                .build();
+        var targetClient = OAuthClient.builder()
+                .clientName("target-1")
+                .audience("audience-2")
+                .allowedClients(List.of(OAuthClientAllowRelation.builder()
+                        .name("source-1")
+                        .allowedScopes(List.of("read:all"))
+                        .build()))
+                .build();
+
+        // when
+        var result = dynamicOAuthClientRegistry.getRelation(sourceClient, targetClient);
+        var reverseResult = dynamicOAuthClientRegistry.getRelation(targetClient, sourceClient);
+
+        // then
+        assertThat(result, equalTo(Optional.of(new OAuthClientRelation("client-1", "audience-2", List.of("read:all"), permissionDictionary.lookup(List.of("read:all"))))));
+        assertThat(reverseResult, equalTo(Optional.empty()));
+    }
 }
@@ -0,0 +1,258 @@
+package hu.psprog.leaflet.lags.core.service.registry.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Unit tests for {@link OAuthClientCache}.
+ *
+ * @author Peter Smith
+ */
+class OAuthClientCacheTest {
+
+    private static final OAuthClient CLIENT_1 = prepareClient("client-1", "audience-1");
+    private static final OAuthClient CLIENT_2 = prepareClient("client-2", "audience-2");
+    private static final OAuthApplicationChangeEvent CHANGE_EVENT =
+            new OAuthApplicationChangeEvent(UUID.randomUUID(), OAuthApplicationChangeEvent.Type.UPDATED);
+
+    private SimpleMeterRegistry meterRegistry;
+    private OAuthClientCache oAuthClientCache;
+
+    @BeforeEach
+    public void setup() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        oAuthClientCache = new OAuthClientCache(new OAuthConfigurationProperties(), meterRegistry);
+    }
+
+    @Test
+    public void shouldGetByClientIDLoadClientOnlyOnce() {
+
+        // given
+        AtomicInteger loadCount = new AtomicInteger();
+
+        // when
+        Optional<OAuthClient> firstResult = oAuthClientCache.getByClientID("client-1", clientID -> {
+            loadCount.incrementAndGet();
+            return Optional.of(CLIENT_1);
+        });
+        Optional<OAuthClient> secondResult = oAuthClientCache.getByClientID("client-1", clientID -> {
+            loadCount.incrementAndGet();
+            return Optional.of(CLIENT_1);
+        });
+
+        // then
+        assertThat(firstResult, equalTo(Optional.of(CLIENT_1)));
+        assertThat(secondResult, equalTo(Optional.of(CLIENT_1)));
+        assertThat(loadCount.get(), equalTo(1));
+        assertThat(meterRegistry.get("cache.gets").tags("index", "client-id", "result", "hit").functionCounter().count(), equalTo(1.0));
+    }
+
+    @Test
+    public void shouldGetByClientIDPopulateAudienceIndexAsWell() {
+
+        // given
+        oAuthClientCache.getByClientID("client-1", clientID -> Optional.of(CLIENT_1));
+
+        // when
+        Optional<OAuthClient> result = oAuthClientCache.getByAudience("audience-1", audience -> {
+            throw new IllegalStateException("should not be loaded");
+        });
+
+        // then
+        assertThat(result, equalTo(Optional.of(CLIENT_1)));
+    }
+
+    @Test
+    public void shouldGetByAudienceNotCacheUnknownClient() {
+
+        // given
+        AtomicInteger loadCount = new AtomicInteger();
+
+        // when
+        oAuthClientCache.getByAudience("audience-1", audience -> {
+            loadCount.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<OAuthClient> result = oAuthClientCache.getByAudience("audience-1", audience -> {
+            loadCount.incrementAndGet();
+            return Optional.empty();
+        });
+
+        // then
+        assertThat(result, equalTo(Optional.empty()));
+        assertThat(loadCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldGetByClientIDBypassCacheForNullKey() {
+
+        // when
+        Optional<OAuthClient> result = oAuthClientCache.getByClientID(null, clientID -> Optional.empty());
+
+        // then
+        assertThat(result, equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldOnApplicationChangeInvalidateCachedClients() {
+
+        // given
+        AtomicInteger loadCount = new AtomicInteger();
+        oAuthClientCache.getByClientID("client-1", clientID -> {
+            loadCount.incrementAndGet();
+            return Optional.of(CLIENT_1);
+        });
+
+        // when
+        oAuthClientCache.onApplicationChange(CHANGE_EVENT);
+
+        // then
+        oAuthClientCache.getByClientID("client-1", clientID -> {
+            loadCount.incrementAndGet();
+            return Optional.of(CLIENT_1);
+        });
+        assertThat(loadCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldGetByClientIDNotCacheClientLoadedDuringInvalidation() {
+
+        // given
+        AtomicInteger loadCount = new AtomicInteger();
+        oAuthClientCache.getByClientID("client-1", clientID -> {
+            loadCount.incrementAndGet();
+            oAuthClientCache.onApplicationChange(CHANGE_EVENT);
+            return Optional.of(CLIENT_1);
+        });
+
+        // when
+        Optional<OAuthClient> result = oAuthClientCache.getByClientID("client-1", clientID -> {
+            loadCount.incrementAndGet();
+            return Optional.of(CLIENT_1);
+        });
+
+        // then
+        assertThat(result, equalTo(Optional.of(CLIENT_1)));
+        assertThat(loadCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldGetAllByAudiencesLoadOnlyMissingClients() {
+
+        // given
+        oAuthClientCache.getByAudience("audience-1", audience -> Optional.of(CLIENT_1));
+        List<Collection<String>> loadedAudiences = new ArrayList<>();
+
+        // when
+        Map<String, OAuthClient> result = oAuthClientCache.getAllByAudiences(List.of("audience-1", "audience-2", "audience-3"), audiences -> {
+            loadedAudiences.add(audiences);
+            return Map.of("audience-2", CLIENT_2);
+        });
+
+        // then
+        assertThat(result, equalTo(Map.of("audience-1", CLIENT_1, "audience-2", CLIENT_2)));
+        assertThat(loadedAudiences, equalTo(List.of(List.of("audience-2", "audience-3"))));
+        assertThat(oAuthClientCache.getByClientID("client-2", clientID -> Optional.empty()), equalTo(Optional.of(CLIENT_2)));
+    }
+
+    @Test
+    public void shouldGetAllByAudiencesSkipLoaderIfEveryClientIsCached() {
+
+        // given
+        oAuthClientCache.getByAudience("audience-1", audience -> Optional.of(CLIENT_1));
+
+        // when
+        Map<String, OAuthClient> result = oAuthClientCache.getAllByAudiences(List.of("audience-1"), audiences -> {
+            throw new IllegalStateException("should not be loaded");
+        });
+
+        // then
+        assertThat(result, equalTo(Map.of("audience-1", CLIENT_1)));
+    }
+
+    @Test
+    public void shouldGetRelationResolveRelationOnlyOnce() {
+
+        // given
+        OAuthClientRelation relation = new OAuthClientRelation("client-1", "audience-2", List.of("read:all"), ScopeSet.of(0));
+        AtomicInteger loadCount = new AtomicInteger();
+        BiFunction<OAuthClient, OAuthClient, Optional<OAuthClientRelation>> loader = (sourceClient, targetClient) -> {
+            loadCount.incrementAndGet();
+            return Optional.of(relation);
+        };
+
+        // when
+        oAuthClientCache.getRelation(CLIENT_1, CLIENT_2, loader);
+        Optional<OAuthClientRelation> result = oAuthClientCache.getRelation(CLIENT_1, CLIENT_2, loader);
+
+        // then
+        assertThat(result, equalTo(Optional.of(relation)));
+        assertThat(loadCount.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldGetRelationNotCacheMissingRelation() {
+
+        // given
+        AtomicInteger loadCount = new AtomicInteger();
+        BiFunction<OAuthClient, OAuthClient, Optional<OAuthClientRelation>> loader = (sourceClient, targetClient) -> {
+            loadCount.incrementAndGet();
+            return Optional.empty();
+        };
+
+        // when
+        oAuthClientCache.getRelation(CLIENT_2, CLIENT_1, loader);
+        Optional<OAuthClientRelation> result = oAuthClientCache.getRelation(CLIENT_2, CLIENT_1, loader);
+
+        // then
+        assertThat(result, equalTo(Optional.empty()));
+        assertThat(loadCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldOnApplicationChangeInvalidateRelationIndex() {
+
+        // given
+        OAuthClientRelation relation = new OAuthClientRelation("client-1", "audience-2", List.of("read:all"), ScopeSet.of(0));
+        AtomicInteger loadCount = new AtomicInteger();
+        BiFunction<OAuthClient, OAuthClient, Optional<OAuthClientRelation>> loader = (sourceClient, targetClient) -> {
+            loadCount.incrementAndGet();
+            return Optional.of(relation);
+        };
+        oAuthClientCache.getRelation(CLIENT_1, CLIENT_2, loader);
+
+        // when
+        oAuthClientCache.onApplicationChange(CHANGE_EVENT);
+
+        // then
+        oAuthClientCache.getRelation(CLIENT_1, CLIENT_2, loader);
+        assertThat(loadCount.get(), equalTo(2));
+    }
+
+    private static OAuthClient prepareClient(String clientID, String audience) {
+
+        return OAuthClient.builder()
+                .clientId(clientID)
+                .audience(audience)
+                .build();
+    }
+}
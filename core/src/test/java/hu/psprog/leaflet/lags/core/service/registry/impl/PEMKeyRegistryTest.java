@@ -0,0 +1,403 @@
+package hu.psprog.leaflet.lags.core.service.registry.impl;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthTokenSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper.KEY_ID;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link PEMKeyRegistry}.
+ *
+ * @author Peter Smith
+ */
+class PEMKeyRegistryTest {
+
+    private static final String KEY_1 = "key-1";
+    private static final String KEY_2 = "key-2";
+    private static final Instant NOW = Instant.now();
+
+    @TempDir
+    private Path keyDirectory;
+
+    @ParameterizedTest
+    @MethodSource("keyFileDataProvider")
+    public void shouldReadKeysLoadKeysOfConfiguredAlgorithm(JWSAlgorithm signatureAlgorithm, String keyType, String expectedKeyAlgorithm)
+            throws URISyntaxException {
+
+        // given
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(signatureAlgorithm, keyType, null));
+
+        // when
+        pemKeyRegistry.readKeys();
+
+        // then
+        assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_ID));
+        assertThat(pemKeyRegistry.getSigningKey().signer().supportedJWSAlgorithms().contains(signatureAlgorithm), equalTo(true));
+        assertThat(pemKeyRegistry.getVerificationKey(KEY_ID).getAlgorithm(), equalTo(expectedKeyAlgorithm));
+        assertThat(pemKeyRegistry.getJWKSet().getKeys().stream().map(JWK::getKeyID).toList(), equalTo(Collections.singletonList(KEY_ID)));
+    }
+
+    @Test
+    public void shouldReadKeysThrowExceptionForKeysNotMatchingTheAlgorithm() throws URISyntaxException {
+
+        // given
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "rsa", null));
+
+        // when
+        assertThrows(IllegalArgumentException.class, pemKeyRegistry::readKeys);
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldReadKeysThrowExceptionForUnsupportedAlgorithm() throws URISyntaxException {
+
+        // given
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.HS256, "rsa", null));
+
+        // when
+        Throwable result = assertThrows(IllegalArgumentException.class, pemKeyRegistry::readKeys);
+
+        // then
+        // exception expected
+        assertThat(result.getMessage(), equalTo("Unsupported signature algorithm [HS256]"));
+    }
+
+    @Test
+    public void shouldReadKeysFromKeyDirectorySignWithMostRecentKey() throws URISyntaxException, IOException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        addKeyPair(KEY_2, NOW);
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        try {
+            // when
+            pemKeyRegistry.readKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_2));
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_1), notNullValue());
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_2), notNullValue());
+            assertThat(pemKeyRegistry.getJWKSet().getKeys().stream().map(JWK::getKeyID).toList(), equalTo(List.of(KEY_2, KEY_1)));
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReadKeysThrowExceptionForKeyDirectoryWithoutValidKeyPair() throws URISyntaxException {
+
+        // given
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        // when
+        assertThrows(IllegalStateException.class, pemKeyRegistry::readKeys);
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldReloadKeysSwitchToNewlyAddedKeyAndKeepPreviousForVerification() throws URISyntaxException, IOException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        try {
+            pemKeyRegistry.readKeys();
+            addKeyPair(KEY_2, NOW);
+
+            // when
+            pemKeyRegistry.reloadKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_2));
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_1), notNullValue());
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReloadKeysDropRemovedKey() throws URISyntaxException, IOException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        addKeyPair(KEY_2, NOW);
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        try {
+            pemKeyRegistry.readKeys();
+            Files.delete(keyDirectory.resolve(KEY_1 + ".private.pem"));
+            Files.delete(keyDirectory.resolve(KEY_1 + ".public.pem"));
+
+            // when
+            pemKeyRegistry.reloadKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_2));
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_1), nullValue());
+            assertThat(pemKeyRegistry.getJWKSet().getKeys().size(), equalTo(1));
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReloadKeysSkipIncompleteKeyPair() throws URISyntaxException, IOException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        try {
+            pemKeyRegistry.readKeys();
+            Files.copy(getKeyFile("lags_unit_tests_jwt_ec_prv_pkcs8.pem"), keyDirectory.resolve(KEY_2 + ".private.pem"));
+
+            // when
+            pemKeyRegistry.reloadKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_1));
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_2), nullValue());
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReloadKeysKeepRegisteredKeysIfNoValidKeyPairIsFound() throws URISyntaxException, IOException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        try {
+            pemKeyRegistry.readKeys();
+            Files.writeString(keyDirectory.resolve(KEY_1 + ".public.pem"), "partially written");
+
+            // when
+            pemKeyRegistry.reloadKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_1));
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_1), notNullValue());
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReloadKeysPublishNewKeyBeforeActivatingItForSigning() throws URISyntaxException, IOException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        OAuthConfigurationProperties oAuthConfigurationProperties = prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory);
+        oAuthConfigurationProperties.getToken().setKeyActivationDelay(Duration.ofHours(1));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(oAuthConfigurationProperties);
+
+        try {
+            pemKeyRegistry.readKeys();
+            addKeyPair(KEY_2, NOW);
+
+            // when
+            pemKeyRegistry.reloadKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_1));
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_2), notNullValue());
+            assertThat(pemKeyRegistry.getJWKSet().getKeys().stream().map(JWK::getKeyID).toList(), equalTo(List.of(KEY_2, KEY_1)));
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldGetSigningKeyReturnNewKeyOnceActivationDelayElapsed() throws URISyntaxException, IOException, InterruptedException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        OAuthConfigurationProperties oAuthConfigurationProperties = prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory);
+        oAuthConfigurationProperties.getToken().setKeyActivationDelay(Duration.ofMillis(200));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(oAuthConfigurationProperties);
+
+        try {
+            pemKeyRegistry.readKeys();
+            addKeyPair(KEY_2, NOW);
+            pemKeyRegistry.reloadKeys();
+            String signingKeyIDBeforeActivation = pemKeyRegistry.getSigningKey().keyID();
+
+            // when
+            Thread.sleep(300);
+
+            // then
+            assertThat(signingKeyIDBeforeActivation, equalTo(KEY_1));
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_2));
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReloadKeysActivateNewKeyImmediatelyIfNoActiveKeyIsLeft() throws URISyntaxException, IOException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        OAuthConfigurationProperties oAuthConfigurationProperties = prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory);
+        oAuthConfigurationProperties.getToken().setKeyActivationDelay(Duration.ofHours(1));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(oAuthConfigurationProperties);
+
+        try {
+            pemKeyRegistry.readKeys();
+            Files.delete(keyDirectory.resolve(KEY_1 + ".private.pem"));
+            Files.delete(keyDirectory.resolve(KEY_1 + ".public.pem"));
+            addKeyPair(KEY_2, NOW);
+
+            // when
+            pemKeyRegistry.reloadKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_2));
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReloadKeysSkipKeyPairOfNotMatchingKeys() throws URISyntaxException, IOException, GeneralSecurityException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        try {
+            pemKeyRegistry.readKeys();
+            Files.copy(getKeyFile("lags_unit_tests_jwt_ec_prv_pkcs8.pem"), keyDirectory.resolve(KEY_2 + ".private.pem"));
+            writeGeneratedECPublicKey(keyDirectory.resolve(KEY_2 + ".public.pem"));
+
+            // when
+            pemKeyRegistry.reloadKeys();
+
+            // then
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_1));
+            assertThat(pemKeyRegistry.getVerificationKey(KEY_2), nullValue());
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReadKeysThrowExceptionForNotMatchingKeyFiles() throws URISyntaxException, IOException, GeneralSecurityException {
+
+        // given
+        OAuthConfigurationProperties oAuthConfigurationProperties = prepareConfig(JWSAlgorithm.ES256, "ec", null);
+        Path publicKeyFile = keyDirectory.resolve("other.public.pem");
+        writeGeneratedECPublicKey(publicKeyFile);
+        oAuthConfigurationProperties.getToken().setPublicKeyFile(publicKeyFile);
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(oAuthConfigurationProperties);
+
+        // when
+        assertThrows(IllegalArgumentException.class, pemKeyRegistry::readKeys);
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldWatchKeyDirectoryAndLoadNewKeyWithoutRestart() throws URISyntaxException, IOException, InterruptedException {
+
+        // given
+        addKeyPair(KEY_1, NOW.minusSeconds(60));
+        PEMKeyRegistry pemKeyRegistry = new PEMKeyRegistry(prepareConfig(JWSAlgorithm.ES256, "ec", keyDirectory));
+
+        try {
+            pemKeyRegistry.readKeys();
+
+            // when
+            addKeyPair(KEY_2, NOW);
+
+            // then
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!KEY_2.equals(pemKeyRegistry.getSigningKey().keyID()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(pemKeyRegistry.getSigningKey().keyID(), equalTo(KEY_2));
+        } finally {
+            pemKeyRegistry.shutdown();
+        }
+    }
+
+    private void addKeyPair(String keyID, Instant lastModified) throws URISyntaxException, IOException {
+
+        Path privateKeyFile = Files.copy(getKeyFile("lags_unit_tests_jwt_ec_prv_pkcs8.pem"), keyDirectory.resolve(keyID + ".private.pem"));
+        Files.copy(getKeyFile("lags_unit_tests_jwt_ec_pub.pem"), keyDirectory.resolve(keyID + ".public.pem"));
+        Files.setLastModifiedTime(privateKeyFile, FileTime.from(lastModified));
+    }
+
+    private void writeGeneratedECPublicKey(Path publicKeyFile) throws IOException, GeneralSecurityException {
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        String encodedKey = Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(keyPairGenerator.generateKeyPair().getPublic().getEncoded());
+
+        Files.writeString(publicKeyFile, "-----BEGIN PUBLIC KEY-----\n%s\n-----END PUBLIC KEY-----\n".formatted(encodedKey));
+    }
+
+    private static OAuthConfigurationProperties prepareConfig(JWSAlgorithm signatureAlgorithm, String keyType, Path keyDirectory)
+            throws URISyntaxException {
+
+        OAuthTokenSettings oAuthTokenSettings = OAuthConfigTestHelper.prepareTokenSettings(3600, "https://oauth.dev.local:9999",
+                getKeyFile("lags_unit_tests_jwt_%s_prv_pkcs8.pem".formatted(keyType)),
+                getKeyFile("lags_unit_tests_jwt_%s_pub.pem".formatted(keyType)));
+        oAuthTokenSettings.setSignatureAlgorithm(signatureAlgorithm);
+        oAuthTokenSettings.setKeyDirectory(keyDirectory);
+        oAuthTokenSettings.setKeyActivationDelay(Duration.ZERO);
+
+        return OAuthConfigTestHelper.prepareConfig(oAuthTokenSettings, null, Collections.emptyList());
+    }
+
+    private static Path getKeyFile(String filename) throws URISyntaxException {
+        return Paths.get(ClassLoader.getSystemResource(filename).toURI());
+    }
+
+    private static Stream<Arguments> keyFileDataProvider() {
+
+        return Stream.of(
+                Arguments.of(JWSAlgorithm.RS256, "rsa", "RSA"),
+                Arguments.of(JWSAlgorithm.ES256, "ec", "EC"),
+                Arguments.of(JWSAlgorithm.EdDSA, "ed25519", "EdDSA")
+        );
+    }
+}
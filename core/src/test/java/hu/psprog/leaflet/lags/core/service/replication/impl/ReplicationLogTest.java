@@ -0,0 +1,90 @@
+package hu.psprog.leaflet.lags.core.service.replication.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicatedMutation;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Unit tests for {@link ReplicationLog}.
+ *
+ * @author Peter Smith
+ */
+class ReplicationLogTest {
+
+    private static final String NODE_1 = "node-1";
+    private static final String NODE_2 = "node-2";
+    private static final Date EXPIRES_AT = Date.from(Instant.now().plus(1, ChronoUnit.HOURS));
+
+    private ReplicationLog replicationLog;
+
+    @BeforeEach
+    public void setup() {
+        replicationLog = new ReplicationLog();
+    }
+
+    @Test
+    public void shouldGetMutationsAfterReturnMutationsAboveAppliedSequences() {
+
+        // given
+        ReplicatedMutation node1Mutation1 = prepareMutation(NODE_1, 1, EXPIRES_AT);
+        ReplicatedMutation node1Mutation2 = prepareMutation(NODE_1, 2, EXPIRES_AT);
+        ReplicatedMutation node1Mutation3 = prepareMutation(NODE_1, 3, EXPIRES_AT);
+        ReplicatedMutation node2Mutation1 = prepareMutation(NODE_2, 1, EXPIRES_AT);
+        List.of(node1Mutation3, node1Mutation1, node2Mutation1, node1Mutation2).forEach(replicationLog::append);
+
+        // when
+        List<ReplicatedMutation> result = replicationLog.getMutationsAfter(Map.of(NODE_1, 1L));
+
+        // then
+        assertThat(result, containsInAnyOrder(node1Mutation2, node1Mutation3, node2Mutation1));
+        assertThat(result.stream().filter(mutation -> NODE_1.equals(mutation.originNodeID())).toList(), contains(node1Mutation2, node1Mutation3));
+    }
+
+    @Test
+    public void shouldPruneRemoveIrrelevantMutations() {
+
+        // given
+        Instant now = Instant.now();
+        Date expired = Date.from(now.minus(5, ChronoUnit.MINUTES));
+        ReplicatedMutation liveMutation = prepareMutation(NODE_1, 2, EXPIRES_AT);
+        replicationLog.append(prepareMutation(NODE_1, 1, expired));
+        replicationLog.append(liveMutation);
+        replicationLog.append(ReplicatedMutation.builder()
+                .originNodeID(NODE_1)
+                .sequence(3)
+                .type(TokenTrackingEvent.Type.EXPIRED)
+                .threshold(expired)
+                .build());
+
+        // when
+        int result = replicationLog.prune(Date.from(now));
+
+        // then
+        assertThat(result, equalTo(2));
+        assertThat(replicationLog.size(), equalTo(1));
+        assertThat(replicationLog.getMutationsAfter(Map.of()), contains(liveMutation));
+    }
+
+    private ReplicatedMutation prepareMutation(String originNodeID, long sequence, Date expiresAt) {
+
+        return ReplicatedMutation.builder()
+                .originNodeID(originNodeID)
+                .sequence(sequence)
+                .type(TokenTrackingEvent.Type.STORED)
+                .jti(originNodeID + "-" + sequence)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
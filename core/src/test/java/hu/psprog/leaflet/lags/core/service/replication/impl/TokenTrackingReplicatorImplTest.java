@@ -0,0 +1,413 @@
+package hu.psprog.leaflet.lags.core.service.replication.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingMode;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthApplicationChangeEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicationBatch;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.persistence.dao.impl.AccessTokenDAOImpl;
+import hu.psprog.leaflet.lags.core.persistence.repository.impl.InMemoryAccessTokenRepository;
+import hu.psprog.leaflet.lags.core.service.replication.ReplicationTransport;
+import hu.psprog.leaflet.lags.core.service.token.impl.SubjectDenylist;
+import hu.psprog.leaflet.lags.core.service.token.impl.SubjectTokenIndex;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenTrackerImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Multi-node tests for {@link TokenTrackingReplicatorImpl}.
+ * Every node runs a real token tracker with in-memory storage, connected to each other via a loopback transport,
+ * which can also simulate network partitions.
+ *
+ * @author Peter Smith
+ */
+class TokenTrackingReplicatorImplTest {
+
+    private static final String NODE_A = "node-a";
+    private static final String NODE_B = "node-b";
+    private static final String NODE_C = "node-c";
+    private static final String JTI_1 = "jti-1";
+    private static final String JTI_2 = "jti-2";
+    private static final String SUBJECT = "client-1|uid=5";
+
+    private LoopbackReplicationTransport loopbackReplicationTransport;
+    private Node nodeA;
+    private Node nodeB;
+    private Node nodeC;
+
+    @BeforeEach
+    public void setup() {
+
+        loopbackReplicationTransport = new LoopbackReplicationTransport();
+        nodeA = createNode(NODE_A, NODE_B, NODE_C);
+        nodeB = createNode(NODE_B, NODE_A, NODE_C);
+        nodeC = createNode(NODE_C, NODE_A, NODE_B);
+    }
+
+    @Test
+    public void shouldPushReplicateStoredTokenToEveryPeer() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+
+        // when
+        nodeA.replicator().pushPendingMutations();
+
+        // then
+        assertTokenStatus(nodeB, JTI_1, TokenStatus.ACTIVE);
+        assertTokenStatus(nodeC, JTI_1, TokenStatus.ACTIVE);
+    }
+
+    @Test
+    public void shouldPushReplicateRevocationBackToOriginNode() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        nodeA.replicator().pushPendingMutations();
+        nodeB.tokenTracker().revokeToken(JTI_1);
+
+        // when
+        nodeB.replicator().pushPendingMutations();
+
+        // then
+        assertTokenStatus(nodeA, JTI_1, TokenStatus.REVOKED);
+        assertTokenStatus(nodeC, JTI_1, TokenStatus.REVOKED);
+        assertThat(nodeA.tokenTracker().isTokenActive(TokenClaims.builder().tokenID(JTI_1).build()), is(false));
+    }
+
+    @Test
+    public void shouldPushNotEchoReplicatedMutations() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        nodeA.replicator().pushPendingMutations();
+        loopbackReplicationTransport.pushedBatches.clear();
+
+        // when
+        nodeB.replicator().pushPendingMutations();
+        nodeC.replicator().pushPendingMutations();
+
+        // then
+        assertThat(loopbackReplicationTransport.pushedBatches.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldSynchronizeCatchUpOnMutationsMissedDuringPartition() {
+
+        // given
+        loopbackReplicationTransport.partitionedNodes.add(NODE_C);
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_2));
+        nodeA.replicator().pushPendingMutations();
+        nodeB.tokenTracker().revokeToken(JTI_1);
+        nodeB.replicator().pushPendingMutations();
+        assertThat(nodeC.tokenTracker().retrieveTokenInfo(JTI_1).isPresent(), is(false));
+        loopbackReplicationTransport.partitionedNodes.clear();
+
+        // when
+        nodeC.replicator().synchronize();
+
+        // then
+        assertTokenStatus(nodeC, JTI_1, TokenStatus.REVOKED);
+        assertTokenStatus(nodeC, JTI_2, TokenStatus.ACTIVE);
+    }
+
+    @Test
+    public void shouldSynchronizeNotSkipMutationMissedByEveryReachablePeer() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        nodeA.replicator().pushPendingMutations();
+        loopbackReplicationTransport.partitionedNodes.addAll(List.of(NODE_B, NODE_C));
+        nodeA.tokenTracker().revokeToken(JTI_1);
+        nodeA.replicator().pushPendingMutations();
+        loopbackReplicationTransport.partitionedNodes.clear();
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_2));
+        nodeA.replicator().pushPendingMutations();
+        loopbackReplicationTransport.partitionedNodes.add(NODE_A);
+        nodeC.replicator().synchronize();
+        assertTokenStatus(nodeC, JTI_1, TokenStatus.ACTIVE);
+        loopbackReplicationTransport.partitionedNodes.clear();
+
+        // when
+        nodeC.replicator().synchronize();
+
+        // then
+        assertTokenStatus(nodeC, JTI_1, TokenStatus.REVOKED);
+        assertTokenStatus(nodeC, JTI_2, TokenStatus.ACTIVE);
+    }
+
+    @Test
+    public void shouldReceiveAdvanceCompleteSequenceOnceGapIsClosed() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        loopbackReplicationTransport.partitionedNodes.add(NODE_C);
+        nodeA.replicator().pushPendingMutations();
+        ReplicationBatch missedBatch = loopbackReplicationTransport.pushedBatches.getLast();
+        loopbackReplicationTransport.partitionedNodes.clear();
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_2));
+        nodeA.replicator().pushPendingMutations();
+        assertThat(nodeC.replicator().catchUp(Map.of()).completeSequences().getOrDefault(nodeA.replicator().getNodeID(), 0L), equalTo(0L));
+
+        // when
+        nodeC.replicator().receive(missedBatch);
+
+        // then
+        assertThat(nodeC.replicator().catchUp(Map.of()).completeSequences().get(nodeA.replicator().getNodeID()), equalTo(2L));
+    }
+
+    @Test
+    public void shouldSynchronizeSurvivePartitionedPeer() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        loopbackReplicationTransport.partitionedNodes.add(NODE_A);
+
+        // when
+        nodeC.replicator().synchronize();
+
+        // then
+        assertThat(nodeC.tokenTracker().retrieveTokenInfo(JTI_1).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldReceiveIgnoreAlreadyAppliedMutations() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        nodeA.replicator().pushPendingMutations();
+        ReplicationBatch storeBatch = loopbackReplicationTransport.pushedBatches.getFirst();
+        nodeB.tokenTracker().revokeToken(JTI_1);
+
+        // when
+        nodeB.replicator().receive(storeBatch);
+
+        // then
+        assertTokenStatus(nodeB, JTI_1, TokenStatus.REVOKED);
+    }
+
+    @Test
+    public void shouldReceiveIgnoreOwnMutations() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        nodeA.replicator().pushPendingMutations();
+        ReplicationBatch storeBatch = loopbackReplicationTransport.pushedBatches.getFirst();
+        nodeA.tokenTracker().revokeToken(JTI_1);
+        nodeA.tokenTracker().cleanUpExpiredToken();
+
+        // when
+        nodeA.replicator().receive(storeBatch);
+
+        // then
+        assertTokenStatus(nodeA, JTI_1, TokenStatus.REVOKED);
+    }
+
+    @Test
+    public void shouldSynchronizeTransferFullStateToNewNode() {
+
+        // given
+        nodeA.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        nodeA.replicator().pushPendingMutations();
+        nodeB.tokenTracker().storeTokenInfo(prepareToken(JTI_2));
+        nodeB.replicator().pushPendingMutations();
+        nodeC.tokenTracker().revokeToken(JTI_1);
+        nodeC.replicator().pushPendingMutations();
+        Node nodeD = createNode("node-d", NODE_A);
+
+        // when
+        nodeD.replicator().synchronize();
+
+        // then
+        assertTokenStatus(nodeD, JTI_1, TokenStatus.REVOKED);
+        assertTokenStatus(nodeD, JTI_2, TokenStatus.ACTIVE);
+    }
+
+    @Test
+    public void shouldPushReplicateApplicationChangeToEveryPeer() {
+
+        // given
+        UUID applicationID = UUID.randomUUID();
+        nodeA.applicationEventPublisher().publishEvent(new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.SECRET_REGENERATED));
+
+        // when
+        nodeA.replicator().pushPendingMutations();
+
+        // then
+        OAuthApplicationChangeEvent expectedEvent = new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.SECRET_REGENERATED, true);
+        assertThat(nodeB.applicationChangeEvents(), equalTo(List.of(expectedEvent)));
+        assertThat(nodeC.applicationChangeEvents(), equalTo(List.of(expectedEvent)));
+    }
+
+    @Test
+    public void shouldSynchronizeCatchUpOnApplicationChangeMissedDuringPartition() {
+
+        // given
+        UUID applicationID = UUID.randomUUID();
+        loopbackReplicationTransport.partitionedNodes.add(NODE_C);
+        nodeA.applicationEventPublisher().publishEvent(new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.DELETED));
+        nodeA.replicator().pushPendingMutations();
+        loopbackReplicationTransport.partitionedNodes.clear();
+
+        // when
+        nodeC.replicator().synchronize();
+
+        // then
+        assertThat(nodeC.applicationChangeEvents(), equalTo(List.of(
+                new OAuthApplicationChangeEvent(applicationID, OAuthApplicationChangeEvent.Type.DELETED, true))));
+        assertThat(nodeA.applicationChangeEvents().size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldNotQueueStoredTokenInDenylistMode() {
+
+        // given
+        loopbackReplicationTransport = new LoopbackReplicationTransport();
+        Node denylistNode = createNode(TokenTrackingMode.DENYLIST, NODE_A, NODE_B);
+        createNode(TokenTrackingMode.DENYLIST, NODE_B, NODE_A);
+        denylistNode.tokenTracker().storeTokenInfo(prepareToken(JTI_1));
+        denylistNode.replicator().onTokenTrackingEvent(TokenTrackingEvent.stored(new AccessTokenInfo(prepareToken(JTI_2)), false));
+
+        // when
+        denylistNode.replicator().pushPendingMutations();
+
+        // then
+        assertThat(loopbackReplicationTransport.pushedBatches.isEmpty(), is(true));
+        assertThat(denylistNode.replicator().catchUp(Map.of()).mutations().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldPushReplicateSubjectRevocationInDenylistMode() {
+
+        // given
+        loopbackReplicationTransport = new LoopbackReplicationTransport();
+        Node denylistNodeA = createNode(TokenTrackingMode.DENYLIST, NODE_A, NODE_B);
+        Node denylistNodeB = createNode(TokenTrackingMode.DENYLIST, NODE_B, NODE_A);
+        TokenClaims claims = TokenClaims.builder()
+                .tokenID(JTI_1)
+                .subject(SUBJECT)
+                .issuedAt(Date.from(Instant.now().minus(1, ChronoUnit.MINUTES)))
+                .build();
+        denylistNodeA.tokenTracker().revokeAllForSubject(TokenSubject.ofUser(5L));
+
+        // when
+        denylistNodeA.replicator().pushPendingMutations();
+
+        // then
+        assertThat(loopbackReplicationTransport.pushedBatches.size(), equalTo(1));
+        assertThat(denylistNodeB.tokenTracker().isTokenActive(claims), is(false));
+    }
+
+    @Test
+    public void shouldNodesGenerateDistinctIDs() {
+
+        // then
+        assertThat(nodeA.replicator().getNodeID(), not(equalTo(createNode(NODE_A).replicator().getNodeID())));
+    }
+
+    private void assertTokenStatus(Node node, String jti, TokenStatus expectedStatus) {
+
+        Optional<AccessTokenInfo> accessTokenInfo = node.tokenTracker().retrieveTokenInfo(jti);
+        assertThat(accessTokenInfo.isPresent(), is(true));
+        assertThat(accessTokenInfo.get().getStatus(), equalTo(expectedStatus));
+    }
+
+    private StoreAccessTokenInfoRequest prepareToken(String jti) {
+
+        Instant now = Instant.now();
+
+        return StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .subject(SUBJECT)
+                .issuedAt(Date.from(now))
+                .expiresAt(Date.from(now.plus(1, ChronoUnit.HOURS)))
+                .build();
+    }
+
+    private Node createNode(String nodeName, String... peers) {
+        return createNode(TokenTrackingMode.FULL, nodeName, peers);
+    }
+
+    private Node createNode(TokenTrackingMode mode, String nodeName, String... peers) {
+
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setMode(mode);
+        oAuthConfigurationProperties.getTokenTracking().getReplication().setNodeName(nodeName);
+        oAuthConfigurationProperties.getTokenTracking().getReplication().setPeers(List.of(peers));
+
+        TokenTrackingReplicatorImpl[] replicatorReference = new TokenTrackingReplicatorImpl[1];
+        List<OAuthApplicationChangeEvent> applicationChangeEvents = new ArrayList<>();
+        ApplicationEventPublisher applicationEventPublisher = event -> {
+            if (event instanceof TokenTrackingEvent tokenTrackingEvent) {
+                replicatorReference[0].onTokenTrackingEvent(tokenTrackingEvent);
+            } else if (event instanceof OAuthApplicationChangeEvent applicationChangeEvent) {
+                applicationChangeEvents.add(applicationChangeEvent);
+                replicatorReference[0].onApplicationChange(applicationChangeEvent);
+            }
+        };
+
+        TokenTrackerImpl tokenTracker = new TokenTrackerImpl(new AccessTokenDAOImpl(new InMemoryAccessTokenRepository()),
+                new SubjectTokenIndex(), new SubjectDenylist(), applicationEventPublisher, oAuthConfigurationProperties);
+        replicatorReference[0] = new TokenTrackingReplicatorImpl(tokenTracker, loopbackReplicationTransport, applicationEventPublisher,
+                oAuthConfigurationProperties);
+        loopbackReplicationTransport.nodes.put(nodeName, replicatorReference[0]);
+
+        return new Node(tokenTracker, replicatorReference[0], applicationEventPublisher, applicationChangeEvents);
+    }
+
+    private record Node(TokenTrackerImpl tokenTracker, TokenTrackingReplicatorImpl replicator,
+                        ApplicationEventPublisher applicationEventPublisher, List<OAuthApplicationChangeEvent> applicationChangeEvents) {
+    }
+
+    private static class LoopbackReplicationTransport implements ReplicationTransport {
+
+        private final Map<String, TokenTrackingReplicatorImpl> nodes = new HashMap<>();
+        private final Set<String> partitionedNodes = new HashSet<>();
+        private final List<ReplicationBatch> pushedBatches = new ArrayList<>();
+
+        @Override
+        public void push(String peer, ReplicationBatch replicationBatch) {
+
+            pushedBatches.add(replicationBatch);
+            getReachableNode(peer).receive(replicationBatch);
+        }
+
+        @Override
+        public ReplicationBatch catchUp(String peer, Map<String, Long> appliedSequences) {
+            return getReachableNode(peer).catchUp(appliedSequences);
+        }
+
+        private TokenTrackingReplicatorImpl getReachableNode(String peer) {
+
+            if (partitionedNodes.contains(peer)) {
+                throw new IllegalStateException("Peer " + peer + " is unreachable");
+            }
+
+            return nodes.get(peer);
+        }
+    }
+}
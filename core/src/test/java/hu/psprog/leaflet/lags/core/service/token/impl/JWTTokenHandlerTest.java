@@ -1,18 +1,25 @@
 package hu.psprog.leaflet.lags.core.service.token.impl;
 
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.JWSAlgorithm;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthTokenSettings;
 import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult.FailureReason;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
 import hu.psprog.leaflet.lags.core.exception.JWTTokenParsingException;
-import hu.psprog.leaflet.lags.core.service.registry.impl.RSAKeyRegistry;
+import hu.psprog.leaflet.lags.core.security.SignedJwtDecoder;
+import hu.psprog.leaflet.lags.core.security.signature.SignatureComponentFactory;
+import hu.psprog.leaflet.lags.core.service.registry.impl.PEMKeyRegistry;
+import hu.psprog.leaflet.lags.core.service.token.TokenStatusList;
 import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,27 +27,35 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
 import tools.jackson.core.type.TypeReference;
 import tools.jackson.databind.json.JsonMapper;
 
 import java.net.URISyntaxException;
 import java.nio.file.Paths;
-import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper.KEY_ID;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -60,25 +75,45 @@ class JWTTokenHandlerTest {
     private static final long USER_ID = 6643L;
     private static final String ROLE = "EDITOR";
     private static final TypeReference<Map<String, Object>> CLAIMS_TYPE_REFERENCE = new TypeReference<>() { };
+    private static final String STATUS_LIST_URI = "https://oauth-node-1.dev.local:9999/.well-known/status-list/status-list-1";
+    private static final int STATUS_LIST_INDEX = 12;
 
     private JWTTokenHandler jwtTokenHandler;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenSigningExecutor tokenSigningExecutor;
 
     @Mock
     private TokenTracker tokenTracker;
 
+    @Mock
+    private TokenStatusList tokenStatusList;
+
     @Captor
     private ArgumentCaptor<StoreAccessTokenInfoRequest> storeAccessTokenInfoRequestArgumentCaptor;
 
     @BeforeEach
     public void setup() {
 
-        RSAKeyRegistry rsaKeyRegistry = new RSAKeyRegistry(O_AUTH_CONFIGURATION_PROPERTIES);
-        rsaKeyRegistry.readRSAKey();
+        PEMKeyRegistry keyRegistry = new PEMKeyRegistry(O_AUTH_CONFIGURATION_PROPERTIES);
+        keyRegistry.readKeys();
+
+        SignedJwtDecoder jwtDecoder = new SignedJwtDecoder(SignatureComponentFactory.createJWTProcessor(JWSAlgorithm.RS256, keyRegistry::getVerificationKey),
+                new JwtTimestampValidator(Duration.ZERO));
 
-        JWSSigner jwsSigner = new RSASSASigner(rsaKeyRegistry.getPrivateKey());
-        JwtDecoder jwtDecoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) rsaKeyRegistry.getPublicKey()).build();
+        // status list is enabled by default, while tests of a disabled status list override it
+        lenient().when(tokenStatusList.allocateIndex(any(StoreAccessTokenInfoRequest.class))).thenReturn(STATUS_LIST_INDEX);
+        lenient().when(tokenStatusList.getListURI()).thenReturn(STATUS_LIST_URI);
+        given(tokenStatusList.isEnabled()).willReturn(true);
 
-        jwtTokenHandler = new JWTTokenHandler(O_AUTH_CONFIGURATION_PROPERTIES, tokenTracker, jwtDecoder, jwsSigner);
+        meterRegistry = new SimpleMeterRegistry();
+        tokenSigningExecutor = new TokenSigningExecutor(O_AUTH_CONFIGURATION_PROPERTIES, meterRegistry);
+        jwtTokenHandler = new JWTTokenHandler(O_AUTH_CONFIGURATION_PROPERTIES, tokenTracker, tokenStatusList,
+                new TokenParsingFailureRecorder(meterRegistry), jwtDecoder, keyRegistry, tokenSigningExecutor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tokenSigningExecutor.shutdown();
     }
 
     @Test
@@ -97,6 +132,22 @@ class JWTTokenHandlerTest {
         assertStoreAccessTokenRequest(expirationInSeconds);
     }
 
+    @Test
+    public void shouldGenerateTokenOmitStatusClaimIfStatusListIsDisabled() {
+
+        // given
+        given(tokenStatusList.isEnabled()).willReturn(false);
+
+        // when
+        OAuthTokenResponse result = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS);
+
+        // then
+        Map<String, Object> payload = readTokenPart(result.getAccessToken().split("\\.")[1]);
+        assertThat(payload.containsKey("status"), is(false));
+        assertThat(payload.get("jti"), notNullValue());
+        verify(tokenStatusList, never()).allocateIndex(any(StoreAccessTokenInfoRequest.class));
+    }
+
     @Test
     public void shouldGenerateTokenSuccessfullyCreateJWTTokenWithCustomExpiration() {
 
@@ -119,6 +170,7 @@ class JWTTokenHandlerTest {
 
         // given
         OAuthTokenResponse tokenResponse = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS);
+        given(tokenTracker.isTokenActive(any(TokenClaims.class))).willReturn(true);
 
         // when
         TokenClaims result = jwtTokenHandler.parseToken(tokenResponse.getAccessToken());
@@ -151,6 +203,131 @@ class JWTTokenHandlerTest {
         assertThat(result.getMessage().contains("Malformed token"), is(true));
     }
 
+    @Test
+    public void shouldTryParseTokenReturnClaimsOfActiveToken() {
+
+        // given
+        String accessToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+        given(tokenTracker.isTokenActive(any(TokenClaims.class))).willReturn(true);
+
+        // when
+        TokenParsingResult result = jwtTokenHandler.tryParseToken(accessToken);
+
+        // then
+        assertThat(result.isSuccessful(), is(true));
+        verifyJTI(result.claims().getTokenID());
+        assertThat(meterRegistry.get("token.parsing.failures").counters().stream().mapToDouble(Counter::count).sum(), equalTo(0.0));
+    }
+
+    @Test
+    public void shouldTryParseTokenReportMalformedToken() {
+
+        // given
+        String accessToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+
+        // when
+        TokenParsingResult result = jwtTokenHandler.tryParseToken(accessToken.replace('.', ' '));
+
+        // then
+        assertFailure(result, FailureReason.MALFORMED);
+        verify(tokenTracker, never()).isTokenActive(any(TokenClaims.class));
+    }
+
+    @Test
+    public void shouldTryParseTokenReportMalformedTokenWithValidStructure() {
+
+        // given
+        String accessToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+
+        // when
+        TokenParsingResult result = jwtTokenHandler.tryParseToken(accessToken.substring(10));
+
+        // then
+        assertFailure(result, FailureReason.MALFORMED);
+    }
+
+    @Test
+    public void shouldTryParseTokenReportInvalidSignature() {
+
+        // given
+        String accessToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+        String otherAccessToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+        String forgedAccessToken = accessToken.substring(0, accessToken.lastIndexOf('.'))
+                + otherAccessToken.substring(otherAccessToken.lastIndexOf('.'));
+
+        // when
+        TokenParsingResult result = jwtTokenHandler.tryParseToken(forgedAccessToken);
+
+        // then
+        assertFailure(result, FailureReason.INVALID_SIGNATURE);
+    }
+
+    @Test
+    public void shouldTryParseTokenReportExpiredToken() {
+
+        // given
+        String accessToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS, -60).getAccessToken();
+
+        // when
+        TokenParsingResult result = jwtTokenHandler.tryParseToken(accessToken);
+
+        // then
+        assertFailure(result, FailureReason.EXPIRED);
+    }
+
+    @Test
+    public void shouldTryParseTokenReportRevokedToken() {
+
+        // given
+        String accessToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+        given(tokenTracker.isTokenActive(any(TokenClaims.class))).willReturn(false);
+
+        // when
+        TokenParsingResult result = jwtTokenHandler.tryParseToken(accessToken);
+
+        // then
+        assertFailure(result, FailureReason.REVOKED);
+    }
+
+    @Test
+    public void shouldParseTokensReturnResultsInGivenOrder() {
+
+        // given
+        String activeToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+        String revokedToken = jwtTokenHandler.generateToken(O_AUTH_TOKEN_REQUEST, CLAIMS).getAccessToken();
+        String invalidToken = activeToken.substring(10);
+
+        verify(tokenTracker, times(2)).storeTokenInfo(storeAccessTokenInfoRequestArgumentCaptor.capture());
+        String activeJTI = storeAccessTokenInfoRequestArgumentCaptor.getAllValues().get(0).getId();
+        String revokedJTI = storeAccessTokenInfoRequestArgumentCaptor.getAllValues().get(1).getId();
+        given(tokenTracker.filterActiveTokens(argThat(claims -> claims.stream()
+                .map(TokenClaims::getTokenID)
+                .toList()
+                .equals(List.of(revokedJTI, activeJTI))))).willReturn(Set.of(activeJTI));
+
+        // when
+        List<TokenParsingResult> result = jwtTokenHandler.parseTokens(List.of(revokedToken, invalidToken, activeToken));
+
+        // then
+        assertThat(result.size(), equalTo(3));
+        assertThat(result.get(0).failureReason(), equalTo(FailureReason.REVOKED));
+        assertThat(result.get(1).failureReason(), equalTo(FailureReason.MALFORMED));
+        assertThat(result.get(2).isSuccessful(), is(true));
+        assertThat(result.get(2).claims().getTokenID(), equalTo(activeJTI));
+        verify(tokenTracker, never()).isTokenActive(any(TokenClaims.class));
+    }
+
+    private void assertFailure(TokenParsingResult result, FailureReason expectedFailureReason) {
+
+        assertThat(result.isSuccessful(), is(false));
+        assertThat(result.failureReason(), equalTo(expectedFailureReason));
+        assertThat(result.claims(), nullValue());
+        assertThat(meterRegistry.get("token.parsing.failures")
+                .tag("reason", expectedFailureReason.name().toLowerCase())
+                .counter()
+                .count(), equalTo(1.0));
+    }
+
     private void assertToken(String token, int expectedExpiration) {
 
         String[] tokenParts = token.split("\\.");
@@ -168,6 +345,9 @@ class JWTTokenHandlerTest {
         assertThat(payload.get("iss"), equalTo(O_AUTH_CONFIGURATION_PROPERTIES.getToken().getIssuer()));
         assertThat(payload.get("jti"), notNullValue());
         verifyJTI(payload.get("jti").toString());
+        assertThat(payload.get("status"), equalTo(Map.of("status_list", Map.of(
+                "idx", STATUS_LIST_INDEX,
+                "uri", STATUS_LIST_URI))));
 
         int expiration = (int) payload.get("exp") - (int) payload.get("iat");
         assertThat(expiration > expectedExpiration - 2 && expiration <= expectedExpiration, is(true));
@@ -176,6 +356,7 @@ class JWTTokenHandlerTest {
     private void assertStoreAccessTokenRequest(int expirationInSeconds) {
 
         verify(tokenTracker).storeTokenInfo(storeAccessTokenInfoRequestArgumentCaptor.capture());
+        verify(tokenStatusList).allocateIndex(storeAccessTokenInfoRequestArgumentCaptor.getValue());
 
         StoreAccessTokenInfoRequest request = storeAccessTokenInfoRequestArgumentCaptor.getValue();
         verifyJTI(request.getId());
@@ -0,0 +1,292 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.RefreshTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.internal.UserInfo;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import hu.psprog.leaflet.lags.core.persistence.repository.RefreshTokenRepository;
+import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link RefreshTokenHandlerImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenHandlerImplTest {
+
+    private static final String CLIENT_ID = "client-1";
+    private static final String AUDIENCE = "audience-1";
+    private static final String REFRESH_TOKEN = "refresh-token-1";
+    private static final String FAMILY_ID = "family-1";
+    private static final TokenClaims CLAIMS = TokenClaims.builder()
+            .userID(1234L)
+            .username("Some User")
+            .email("user1@dev.local")
+            .role("USER")
+            .build();
+    private static final Date FAMILY_EXPIRES_AT = new Date(System.currentTimeMillis() + 86_400_000L);
+    private static final RefreshTokenInfo REFRESH_TOKEN_INFO = RefreshTokenInfo.builder()
+            .familyID(FAMILY_ID)
+            .familyExpiresAt(FAMILY_EXPIRES_AT)
+            .clientID(CLIENT_ID)
+            .audience(AUDIENCE)
+            .userInfo(UserInfo.builder().id(1234L).build())
+            .build();
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private TokenTracker tokenTracker;
+
+    private OAuthConfigurationProperties oAuthConfigurationProperties;
+    private RefreshTokenHandlerImpl refreshTokenHandler;
+
+    @BeforeEach
+    public void setup() {
+
+        oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getRefreshToken().setEnabled(true);
+        oAuthConfigurationProperties.getRefreshToken().setExpiration(Duration.ofHours(1));
+        oAuthConfigurationProperties.getRefreshToken().setAbsoluteExpiration(Duration.ofDays(1));
+        refreshTokenHandler = new RefreshTokenHandlerImpl(refreshTokenRepository, tokenTracker, oAuthConfigurationProperties);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = GrantType.class, names = {"AUTHORIZATION_CODE", "PASSWORD"})
+    public void shouldIssueRefreshTokenStartNewFamily(GrantType grantType) {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(grantType, null);
+
+        // when
+        Optional<String> result = refreshTokenHandler.issueRefreshToken(context, CLAIMS);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        RefreshTokenInfo savedRefreshTokenInfo = captureSavedRefreshToken(result.get());
+        assertThat(savedRefreshTokenInfo.familyID(), not(equalTo(FAMILY_ID)));
+        assertThat(savedRefreshTokenInfo.clientID(), equalTo(CLIENT_ID));
+        assertThat(savedRefreshTokenInfo.audience(), equalTo(AUDIENCE));
+        assertThat(savedRefreshTokenInfo.scope(), equalTo(List.of("read:all", "write:all")));
+        assertThat(savedRefreshTokenInfo.userInfo(), equalTo(UserInfo.builder()
+                .id(1234L)
+                .username("Some User")
+                .email("user1@dev.local")
+                .role("USER")
+                .build()));
+        assertThat(savedRefreshTokenInfo.expiresAt().getTime() - System.currentTimeMillis(),
+                allOf(greaterThan(3_590_000L), lessThanOrEqualTo(3_600_000L)));
+        assertThat(savedRefreshTokenInfo.familyExpiresAt().getTime() - System.currentTimeMillis(),
+                allOf(greaterThan(86_390_000L), lessThanOrEqualTo(86_400_000L)));
+        assertThat(savedRefreshTokenInfo.used(), is(false));
+    }
+
+    @Test
+    public void shouldIssueRefreshTokenContinueFamilyOnRefreshTokenFlow() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(GrantType.REFRESH_TOKEN, REFRESH_TOKEN_INFO);
+
+        // when
+        Optional<String> result = refreshTokenHandler.issueRefreshToken(context, CLAIMS);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), not(equalTo(REFRESH_TOKEN)));
+        RefreshTokenInfo savedRefreshTokenInfo = captureSavedRefreshToken(result.get());
+        assertThat(savedRefreshTokenInfo.familyID(), equalTo(FAMILY_ID));
+        assertThat(savedRefreshTokenInfo.familyExpiresAt(), equalTo(FAMILY_EXPIRES_AT));
+    }
+
+    @Test
+    public void shouldIssueRefreshTokenCapExpirationWithAbsoluteExpirationOfTheFamily() {
+
+        // given
+        Date familyExpiresAt = new Date(System.currentTimeMillis() + 60_000L);
+        OAuthTokenRequestContext context = prepareContext(GrantType.REFRESH_TOKEN, REFRESH_TOKEN_INFO.toBuilder()
+                .familyExpiresAt(familyExpiresAt)
+                .build());
+
+        // when
+        Optional<String> result = refreshTokenHandler.issueRefreshToken(context, CLAIMS);
+
+        // then
+        assertThat(result.isPresent(), is(true));
+        RefreshTokenInfo savedRefreshTokenInfo = captureSavedRefreshToken(result.get());
+        assertThat(savedRefreshTokenInfo.expiresAt(), equalTo(familyExpiresAt));
+        assertThat(savedRefreshTokenInfo.familyExpiresAt(), equalTo(familyExpiresAt));
+    }
+
+    @Test
+    public void shouldIssueRefreshTokenSkipClientCredentialsFlow() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(GrantType.CLIENT_CREDENTIALS, null);
+
+        // when
+        Optional<String> result = refreshTokenHandler.issueRefreshToken(context, CLAIMS);
+
+        // then
+        assertThat(result.isPresent(), is(false));
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    public void shouldIssueRefreshTokenSkipIfDisabled() {
+
+        // given
+        oAuthConfigurationProperties.getRefreshToken().setEnabled(false);
+        refreshTokenHandler = new RefreshTokenHandlerImpl(refreshTokenRepository, tokenTracker, oAuthConfigurationProperties);
+        OAuthTokenRequestContext context = prepareContext(GrantType.PASSWORD, null);
+
+        // when
+        Optional<String> result = refreshTokenHandler.issueRefreshToken(context, CLAIMS);
+
+        // then
+        assertThat(result.isPresent(), is(false));
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    public void shouldConsumeRefreshTokenMarkTokenUsed() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(GrantType.REFRESH_TOKEN, REFRESH_TOKEN_INFO);
+
+        given(refreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN)).willReturn(true);
+
+        // when
+        RefreshTokenInfo result = refreshTokenHandler.consumeRefreshToken(context);
+
+        // then
+        assertThat(result, equalTo(REFRESH_TOKEN_INFO));
+        verifyNoInteractions(tokenTracker);
+    }
+
+    @Test
+    public void shouldConsumeRefreshTokenRevokeFamilyOnReuse() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(GrantType.REFRESH_TOKEN, REFRESH_TOKEN_INFO);
+
+        given(refreshTokenRepository.markRefreshTokenUsed(REFRESH_TOKEN)).willReturn(false);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class, () -> refreshTokenHandler.consumeRefreshToken(context));
+
+        // then
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.INVALID_GRANT));
+        verify(refreshTokenRepository).deleteRefreshTokenFamily(FAMILY_ID);
+        verify(tokenTracker).revokeAllForSubject(TokenSubject.ofSubject("client-1|uid=1234"));
+    }
+
+    @Test
+    public void shouldRestoreRefreshTokenRemoveUsedFlagOnRefreshTokenFlow() {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(GrantType.REFRESH_TOKEN, REFRESH_TOKEN_INFO);
+
+        given(refreshTokenRepository.restoreRefreshToken(REFRESH_TOKEN)).willReturn(true);
+
+        // when
+        refreshTokenHandler.restoreRefreshToken(context);
+
+        // then
+        verify(refreshTokenRepository).restoreRefreshToken(REFRESH_TOKEN);
+        verifyNoInteractions(tokenTracker);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = GrantType.class, names = {"AUTHORIZATION_CODE", "PASSWORD", "CLIENT_CREDENTIALS"})
+    public void shouldRestoreRefreshTokenSkipOtherFlows(GrantType grantType) {
+
+        // given
+        OAuthTokenRequestContext context = prepareContext(grantType, null);
+
+        // when
+        refreshTokenHandler.restoreRefreshToken(context);
+
+        // then
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    public void shouldOnTokenTrackingEventDeleteExpiredRefreshTokensOnLocalCleanUp() {
+
+        // given
+        Date threshold = new Date();
+
+        // when
+        refreshTokenHandler.onTokenTrackingEvent(TokenTrackingEvent.expired(threshold, false));
+
+        // then
+        verify(refreshTokenRepository).deleteExpiredRefreshTokens(threshold);
+    }
+
+    @Test
+    public void shouldOnTokenTrackingEventIgnoreReplicatedCleanUp() {
+
+        // when
+        refreshTokenHandler.onTokenTrackingEvent(TokenTrackingEvent.expired(new Date(), true));
+
+        // then
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    private RefreshTokenInfo captureSavedRefreshToken(String refreshToken) {
+
+        ArgumentCaptor<RefreshTokenInfo> refreshTokenInfoCaptor = ArgumentCaptor.forClass(RefreshTokenInfo.class);
+        verify(refreshTokenRepository).saveRefreshToken(eq(refreshToken), refreshTokenInfoCaptor.capture());
+
+        return refreshTokenInfoCaptor.getValue();
+    }
+
+    private OAuthTokenRequestContext prepareContext(GrantType grantType, RefreshTokenInfo refreshTokenInfo) {
+
+        return OAuthTokenRequestContext.builder()
+                .request(OAuthTokenRequest.builder()
+                        .grantType(grantType)
+                        .clientID(CLIENT_ID)
+                        .audience(AUDIENCE)
+                        .scope(List.of("read:all", "write:all"))
+                        .refreshToken(REFRESH_TOKEN)
+                        .build())
+                .refreshToken(Optional.ofNullable(refreshTokenInfo))
+                .build();
+    }
+}
@@ -0,0 +1,270 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.response.RevocationEvent;
+import hu.psprog.leaflet.lags.core.persistence.dao.AccessTokenDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willAnswer;
+
+/**
+ * Unit tests for {@link RevocationEventStreamImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class RevocationEventStreamImplTest {
+
+    private static final String SUBJECT = "client-1|uid=5";
+    private static final Date EXPIRES_AT = Date.from(Instant.now().plus(1, ChronoUnit.HOURS));
+    private static final Runnable NO_DROP_HANDLER = () -> {};
+
+    @Mock
+    private AccessTokenDAO accessTokenDAO;
+
+    private OAuthConfigurationProperties oAuthConfigurationProperties;
+    private RevocationEventStreamImpl revocationEventStream;
+
+    @BeforeEach
+    public void setup() {
+
+        oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setRevocationStreamSubscriberQueueSize(2);
+        revocationEventStream = new RevocationEventStreamImpl(accessTokenDAO, oAuthConfigurationProperties, Runnable::run);
+    }
+
+    @Test
+    public void shouldInitializeStreamWithRestoredRevokedTokens() {
+
+        // given
+        AccessTokenInfo expiredRevokedToken = prepareRevokedToken("jti-2", Date.from(Instant.now().minus(1, ChronoUnit.MINUTES)), new Date(1000L));
+        AccessTokenInfo laterRevokedToken = prepareRevokedToken("jti-3", EXPIRES_AT, new Date(3000L));
+        AccessTokenInfo earlierRevokedToken = prepareRevokedToken("jti-4", EXPIRES_AT, new Date(2000L));
+        AccessTokenInfo subjectRevocation = prepareRevokedToken(TokenSubject.ofUser(1L).toRevocationID(), EXPIRES_AT, new Date(2500L));
+        willAnswer(invocation -> {
+            Consumer<AccessTokenInfo> consumer = invocation.getArgument(1);
+            List.of(expiredRevokedToken, laterRevokedToken, earlierRevokedToken, subjectRevocation).forEach(consumer);
+            return null;
+        }).given(accessTokenDAO).forEachAccessTokenInfo(eq(TokenStatus.REVOKED), any());
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+
+        // when
+        revocationEventStream.initializeStream();
+
+        // then
+        revocationEventStream.subscribe(null, receivedEvents::add, NO_DROP_HANDLER);
+        assertThat(extractIDs(receivedEvents), contains("jti-4", "jti-3"));
+    }
+
+    @Test
+    public void shouldSubscribeReceiveBacklogThenLiveEvents() {
+
+        // given
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", EXPIRES_AT, new Date()), false));
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+
+        // when
+        revocationEventStream.subscribe(null, receivedEvents::add, NO_DROP_HANDLER);
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-2", EXPIRES_AT, new Date()), true));
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.stored(prepareToken("jti-3", EXPIRES_AT), false));
+
+        // then
+        assertThat(extractIDs(receivedEvents), contains("jti-1", "jti-2"));
+        assertThat(receivedEvents.getFirst().subject(), equalTo(SUBJECT));
+        assertThat(receivedEvents.getFirst().expiresAt(), equalTo(EXPIRES_AT));
+    }
+
+    @Test
+    public void shouldSubscribeResumeAfterLastEventID() {
+
+        // given
+        List<RevocationEvent> firstConnectionEvents = new ArrayList<>();
+        Consumer<RevocationEvent> firstSubscriber = firstConnectionEvents::add;
+        revocationEventStream.subscribe(null, firstSubscriber, NO_DROP_HANDLER);
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", EXPIRES_AT, new Date()), false));
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-2", EXPIRES_AT, new Date()), false));
+        revocationEventStream.unsubscribe(firstSubscriber);
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-3", EXPIRES_AT, new Date()), false));
+        List<RevocationEvent> secondConnectionEvents = new ArrayList<>();
+
+        // when
+        revocationEventStream.subscribe(firstConnectionEvents.getFirst().eventID(), secondConnectionEvents::add, NO_DROP_HANDLER);
+
+        // then
+        assertThat(extractIDs(secondConnectionEvents), contains("jti-2", "jti-3"));
+    }
+
+    @Test
+    public void shouldSubscribeRestartStreamForUnknownEventID() {
+
+        // given
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", EXPIRES_AT, new Date()), false));
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-2", EXPIRES_AT, new Date()), false));
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+
+        // when
+        revocationEventStream.subscribe("other-stream:1", receivedEvents::add, NO_DROP_HANDLER);
+
+        // then
+        assertThat(extractIDs(receivedEvents), contains("jti-1", "jti-2"));
+    }
+
+    @Test
+    public void shouldUnsubscribeStopDelivery() {
+
+        // given
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+        Consumer<RevocationEvent> subscriber = receivedEvents::add;
+        revocationEventStream.subscribe(null, subscriber, NO_DROP_HANDLER);
+
+        // when
+        revocationEventStream.unsubscribe(subscriber);
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", EXPIRES_AT, new Date()), false));
+
+        // then
+        assertThat(receivedEvents.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldDeliveryFailureRemoveSubscriber() {
+
+        // given
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+        revocationEventStream.subscribe(null, revocationEvent -> {
+            receivedEvents.add(revocationEvent);
+            throw new IllegalStateException("Connection closed");
+        }, NO_DROP_HANDLER);
+
+        // when
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", EXPIRES_AT, new Date()), false));
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-2", EXPIRES_AT, new Date()), false));
+
+        // then
+        assertThat(extractIDs(receivedEvents), contains("jti-1"));
+    }
+
+    @Test
+    public void shouldLocalCleanUpRemoveExpiredEvents() {
+
+        // given
+        Instant now = Instant.now();
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", Date.from(now.minus(5, ChronoUnit.MINUTES)), new Date()), false));
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-2", EXPIRES_AT, new Date()), false));
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+
+        // when
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.expired(Date.from(now), false));
+
+        // then
+        revocationEventStream.subscribe(null, receivedEvents::add, NO_DROP_HANDLER);
+        assertThat(extractIDs(receivedEvents), contains("jti-2"));
+    }
+
+    @Test
+    public void shouldReplicatedCleanUpBeIgnored() {
+
+        // given
+        Instant now = Instant.now();
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", Date.from(now.minus(5, ChronoUnit.MINUTES)), new Date()), false));
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+
+        // when
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.expired(Date.from(now), true));
+
+        // then
+        revocationEventStream.subscribe(null, receivedEvents::add, NO_DROP_HANDLER);
+        assertThat(extractIDs(receivedEvents), contains("jti-1"));
+    }
+
+    @Test
+    public void shouldSlowSubscriberBeDroppedWithoutDelayingOthers() {
+
+        // given
+        List<Runnable> pendingDeliveries = new ArrayList<>();
+        revocationEventStream = new RevocationEventStreamImpl(accessTokenDAO, oAuthConfigurationProperties, pendingDeliveries::add);
+        List<RevocationEvent> slowSubscriberEvents = new ArrayList<>();
+        AtomicBoolean slowSubscriberDropped = new AtomicBoolean();
+        revocationEventStream.subscribe(null, slowSubscriberEvents::add, () -> slowSubscriberDropped.set(true));
+        pendingDeliveries.clear();
+        List<RevocationEvent> fastSubscriberEvents = new ArrayList<>();
+        revocationEventStream.subscribe(null, fastSubscriberEvents::add, NO_DROP_HANDLER);
+
+        // when
+        for (String jti : List.of("jti-1", "jti-2", "jti-3")) {
+            revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken(jti, EXPIRES_AT, new Date()), false));
+            pendingDeliveries.forEach(Runnable::run);
+            pendingDeliveries.clear();
+        }
+
+        // then
+        assertThat(slowSubscriberDropped.get(), is(true));
+        assertThat(slowSubscriberEvents.isEmpty(), is(true));
+        assertThat(extractIDs(fastSubscriberEvents), contains("jti-1", "jti-2", "jti-3"));
+    }
+
+    @Test
+    public void shouldLocalCleanUpRemoveEventsOfTokensWithoutExpirationAfterRetention() {
+
+        // given
+        oAuthConfigurationProperties.getTokenTracking().setRevocationEventRetention(Duration.ofMinutes(5));
+        revocationEventStream = new RevocationEventStreamImpl(accessTokenDAO, oAuthConfigurationProperties, Runnable::run);
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareRevokedToken("jti-1", null, new Date()), false));
+        List<RevocationEvent> receivedEvents = new ArrayList<>();
+
+        // when
+        revocationEventStream.onTokenTrackingEvent(TokenTrackingEvent.expired(Date.from(Instant.now().plus(10, ChronoUnit.MINUTES)), false));
+
+        // then
+        revocationEventStream.subscribe(null, receivedEvents::add, NO_DROP_HANDLER);
+        assertThat(receivedEvents.isEmpty(), is(true));
+    }
+
+    private List<String> extractIDs(List<RevocationEvent> revocationEvents) {
+
+        return revocationEvents.stream()
+                .map(RevocationEvent::jti)
+                .toList();
+    }
+
+    private AccessTokenInfo prepareRevokedToken(String jti, Date expiresAt, Date revokedAt) {
+
+        AccessTokenInfo accessTokenInfo = prepareToken(jti, expiresAt);
+        accessTokenInfo.setStatus(TokenStatus.REVOKED);
+        accessTokenInfo.setRevokedAt(revokedAt);
+
+        return accessTokenInfo;
+    }
+
+    private AccessTokenInfo prepareToken(String jti, Date expiresAt) {
+
+        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .subject(SUBJECT)
+                .expiresAt(expiresAt)
+                .build());
+    }
+}
@@ -0,0 +1,134 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for {@link SubjectDenylist}.
+ *
+ * @author Peter Smith
+ */
+class SubjectDenylistTest {
+
+    private static final String CLIENT_ID = "client-1";
+    private static final String USER_SUBJECT = "client-1|uid=5";
+    private static final Date REVOKED_AT = Date.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    private static final Date EXPIRES_AT = Date.from(REVOKED_AT.toInstant().plus(1, ChronoUnit.HOURS));
+
+    private SubjectDenylist subjectDenylist;
+
+    @BeforeEach
+    public void setup() {
+        subjectDenylist = new SubjectDenylist();
+    }
+
+    @Test
+    public void shouldIsRevokedReturnTrueForTokensIssuedUntilRevocation() {
+
+        // given
+        subjectDenylist.add(TokenSubject.ofUser(5L), REVOKED_AT, EXPIRES_AT);
+
+        // when
+        boolean issuedBefore = subjectDenylist.isRevoked(USER_SUBJECT, shift(REVOKED_AT, -60));
+        boolean issuedAtSameTime = subjectDenylist.isRevoked(USER_SUBJECT, REVOKED_AT);
+        boolean issuedAfter = subjectDenylist.isRevoked(USER_SUBJECT, shift(REVOKED_AT, 1));
+        boolean withoutIssueDate = subjectDenylist.isRevoked(USER_SUBJECT, null);
+
+        // then
+        assertThat(issuedBefore, is(true));
+        assertThat(issuedAtSameTime, is(true));
+        assertThat(issuedAfter, is(false));
+        assertThat(withoutIssueDate, is(true));
+    }
+
+    @Test
+    public void shouldIsRevokedMatchEveryExtractedSubject() {
+
+        // given
+        subjectDenylist.add(TokenSubject.ofClient(CLIENT_ID), REVOKED_AT, EXPIRES_AT);
+
+        // when
+        boolean clientToken = subjectDenylist.isRevoked(CLIENT_ID, REVOKED_AT);
+        boolean userToken = subjectDenylist.isRevoked(USER_SUBJECT, REVOKED_AT);
+        boolean otherClientToken = subjectDenylist.isRevoked("client-2|uid=5", REVOKED_AT);
+
+        // then
+        assertThat(clientToken, is(true));
+        assertThat(userToken, is(true));
+        assertThat(otherClientToken, is(false));
+    }
+
+    @Test
+    public void shouldAddKeepLatestRevocation() {
+
+        // given
+        Date laterRevokedAt = shift(REVOKED_AT, 60);
+        subjectDenylist.add(TokenSubject.ofUser(5L), laterRevokedAt, shift(EXPIRES_AT, 60));
+
+        // when
+        subjectDenylist.add(TokenSubject.ofUser(5L), REVOKED_AT, EXPIRES_AT);
+
+        // then
+        assertThat(subjectDenylist.isRevoked(USER_SUBJECT, shift(REVOKED_AT, 30)), is(true));
+        assertThat(subjectDenylist.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldRemoveExpiredDropOnlyExpiredRevocations() {
+
+        // given
+        subjectDenylist.add(TokenSubject.ofUser(5L), REVOKED_AT, EXPIRES_AT);
+        subjectDenylist.add(TokenSubject.ofClient(CLIENT_ID), REVOKED_AT, shift(EXPIRES_AT, 3600));
+
+        // when
+        int result = subjectDenylist.removeExpired(shift(EXPIRES_AT, 60));
+
+        // then
+        assertThat(result, equalTo(1));
+        assertThat(subjectDenylist.size(), equalTo(1));
+        assertThat(subjectDenylist.isRevoked("client-2|uid=5", REVOKED_AT), is(false));
+        assertThat(subjectDenylist.isRevoked(CLIENT_ID, REVOKED_AT), is(true));
+    }
+
+    @Test
+    public void shouldRemoveExpiredKeepRevocationMovedToLaterExpiration() {
+
+        // given
+        subjectDenylist.add(TokenSubject.ofUser(5L), REVOKED_AT, EXPIRES_AT);
+        subjectDenylist.add(TokenSubject.ofUser(5L), shift(REVOKED_AT, 60), shift(EXPIRES_AT, 3600));
+
+        // when
+        subjectDenylist.removeExpired(shift(EXPIRES_AT, 60));
+
+        // then
+        assertThat(subjectDenylist.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldRevocationIDIdentifyTokenSubject() {
+
+        // given
+        TokenSubject tokenSubject = TokenSubject.ofSubject(USER_SUBJECT);
+
+        // when
+        Optional<TokenSubject> result = TokenSubject.fromRevocationID(tokenSubject.toRevocationID());
+
+        // then
+        assertThat(result, equalTo(Optional.of(tokenSubject)));
+        assertThat(TokenSubject.fromRevocationID("jti-1"), equalTo(Optional.empty()));
+    }
+
+    private static Date shift(Date date, long seconds) {
+        return Date.from(date.toInstant().plusSeconds(seconds));
+    }
+}
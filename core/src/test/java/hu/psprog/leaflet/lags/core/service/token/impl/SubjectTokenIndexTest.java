@@ -0,0 +1,128 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for {@link SubjectTokenIndex}.
+ *
+ * @author Peter Smith
+ */
+class SubjectTokenIndexTest {
+
+    private static final String CLIENT_ID = "client-1";
+    private static final String USER_SUBJECT = "client-1|uid=5";
+    private static final Date EXPIRES_AT = Date.from(Instant.now().plus(1, ChronoUnit.HOURS));
+
+    private SubjectTokenIndex subjectTokenIndex;
+
+    @BeforeEach
+    public void setup() {
+        subjectTokenIndex = new SubjectTokenIndex();
+    }
+
+    @Test
+    public void shouldAddIndexTokenByEveryMatchingSubject() {
+
+        // given
+        StoreAccessTokenInfoRequest clientToken = prepareToken("jti-1", CLIENT_ID, EXPIRES_AT);
+        StoreAccessTokenInfoRequest userToken = prepareToken("jti-2", USER_SUBJECT, EXPIRES_AT);
+        StoreAccessTokenInfoRequest otherUserToken = prepareToken("jti-3", "client-2|uid=5", EXPIRES_AT);
+
+        // when
+        subjectTokenIndex.add(clientToken);
+        subjectTokenIndex.add(userToken);
+        subjectTokenIndex.add(otherUserToken);
+
+        // then
+        assertThat(extractIDs(subjectTokenIndex.getTokens(TokenSubject.ofClient(CLIENT_ID))), containsInAnyOrder("jti-1", "jti-2"));
+        assertThat(extractIDs(subjectTokenIndex.getTokens(TokenSubject.ofUser(5L))), containsInAnyOrder("jti-2", "jti-3"));
+        assertThat(extractIDs(subjectTokenIndex.getTokens(TokenSubject.ofSubject(USER_SUBJECT))), containsInAnyOrder("jti-2"));
+        assertThat(subjectTokenIndex.getTokens(TokenSubject.ofUser(6L)).isEmpty(), is(true));
+        assertThat(subjectTokenIndex.size(), equalTo(3));
+    }
+
+    @Test
+    public void shouldAddIgnoreAlreadyIndexedToken() {
+
+        // given
+        subjectTokenIndex.add(prepareToken("jti-1", USER_SUBJECT, EXPIRES_AT));
+
+        // when
+        subjectTokenIndex.add(prepareToken("jti-1", USER_SUBJECT, EXPIRES_AT));
+
+        // then
+        assertThat(subjectTokenIndex.size(), equalTo(1));
+        assertThat(subjectTokenIndex.getTokens(TokenSubject.ofUser(5L)).size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldRemoveDropTokenFromEverySubject() {
+
+        // given
+        subjectTokenIndex.add(prepareToken("jti-1", USER_SUBJECT, EXPIRES_AT));
+        subjectTokenIndex.add(prepareToken("jti-2", USER_SUBJECT, EXPIRES_AT));
+
+        // when
+        subjectTokenIndex.remove("jti-1");
+
+        // then
+        assertThat(extractIDs(subjectTokenIndex.getTokens(TokenSubject.ofUser(5L))), containsInAnyOrder("jti-2"));
+        assertThat(extractIDs(subjectTokenIndex.getTokens(TokenSubject.ofClient(CLIENT_ID))), containsInAnyOrder("jti-2"));
+        assertThat(subjectTokenIndex.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldRemoveFallThroughSilentlyIfTokenIsNotIndexed() {
+
+        // when
+        subjectTokenIndex.remove("jti-1");
+
+        // then
+        assertThat(subjectTokenIndex.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldRemoveExpiredDropOnlyExpiredTokens() {
+
+        // given
+        Instant now = Instant.now();
+        subjectTokenIndex.add(prepareToken("jti-1", USER_SUBJECT, Date.from(now.minus(5, ChronoUnit.MINUTES))));
+        subjectTokenIndex.add(prepareToken("jti-2", USER_SUBJECT, EXPIRES_AT));
+
+        // when
+        int result = subjectTokenIndex.removeExpired(Date.from(now));
+
+        // then
+        assertThat(result, equalTo(1));
+        assertThat(extractIDs(subjectTokenIndex.getTokens(TokenSubject.ofUser(5L))), containsInAnyOrder("jti-2"));
+    }
+
+    private List<String> extractIDs(List<SubjectTokenIndex.IndexedToken> tokens) {
+
+        return tokens.stream()
+                .map(SubjectTokenIndex.IndexedToken::jti)
+                .toList();
+    }
+
+    private StoreAccessTokenInfoRequest prepareToken(String jti, String subject, Date expiresAt) {
+
+        return StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .subject(subject)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
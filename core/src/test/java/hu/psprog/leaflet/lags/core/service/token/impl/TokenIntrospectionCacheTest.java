@@ -0,0 +1,234 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult.FAILED_INTROSPECTION_RESULT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for {@link TokenIntrospectionCache}.
+ *
+ * @author Peter Smith
+ */
+class TokenIntrospectionCacheTest {
+
+    private static final String ACCESS_TOKEN = "access-token-1";
+    private static final String JTI = "jti-1";
+    private static final Date EXPIRATION = new Date(System.currentTimeMillis() + 3_600_000L);
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenIntrospectionCache tokenIntrospectionCache;
+    private AtomicInteger parseCount;
+
+    @BeforeEach
+    public void setup() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        tokenIntrospectionCache = new TokenIntrospectionCache(new OAuthConfigurationProperties(), meterRegistry);
+        parseCount = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldIntrospectCreateActiveResultFromParsedClaims() {
+
+        // when
+        TokenIntrospectionResult result = tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+
+        // then
+        assertThat(result, equalTo(TokenIntrospectionResult.builder()
+                .active(true)
+                .clientID("client-1")
+                .username("user-1")
+                .expiration(EXPIRATION)
+                .build()));
+    }
+
+    @Test
+    public void shouldIntrospectReturnCachedResultAndRecordMetrics() {
+
+        // given
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+
+        // when
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+
+        // then
+        assertThat(parseCount.get(), equalTo(1));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "introspection").tag("result", "hit").functionCounter().count(), equalTo(2.0));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "introspection").tag("result", "miss").functionCounter().count(), equalTo(1.0));
+    }
+
+    @Test
+    public void shouldIntrospectNotCacheResultOfExpiredToken() {
+
+        // given
+        Date expiration = new Date(System.currentTimeMillis() - 1000L);
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(expiration));
+
+        // when
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(expiration));
+
+        // then
+        assertThat(parseCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldIntrospectReturnInactiveResultOnParsingFailureWithoutCaching() {
+
+        // given
+        Function<String, TokenParsingResult> failingParser = accessToken -> {
+            parseCount.incrementAndGet();
+            return TokenParsingResult.failure(TokenParsingResult.FailureReason.MALFORMED);
+        };
+
+        // when
+        TokenIntrospectionResult result = tokenIntrospectionCache.introspect(ACCESS_TOKEN, failingParser);
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, failingParser);
+
+        // then
+        assertThat(result, equalTo(FAILED_INTROSPECTION_RESULT));
+        assertThat(parseCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRevocationEvictCachedResult() {
+
+        // given
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+
+        // when
+        tokenIntrospectionCache.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareAccessTokenInfo(JTI), true));
+
+        // then
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+        assertThat(parseCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldSubjectRevocationEvictEveryCachedResult() {
+
+        // given
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+
+        // when
+        tokenIntrospectionCache.onTokenTrackingEvent(TokenTrackingEvent.subjectRevoked(prepareAccessTokenInfo("rev:U:1"), true));
+
+        // then
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+        assertThat(parseCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRevocationOfOtherTokenKeepCachedResult() {
+
+        // given
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+
+        // when
+        tokenIntrospectionCache.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareAccessTokenInfo("jti-2"), false));
+        tokenIntrospectionCache.onTokenTrackingEvent(TokenTrackingEvent.stored(prepareAccessTokenInfo(JTI), false));
+
+        // then
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+        assertThat(parseCount.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldIntrospectNotCacheResultIfRevocationHappenedDuringParsing() {
+
+        // given
+        Function<String, TokenParsingResult> revokingParser = accessToken -> {
+            TokenParsingResult claims = countingParser(EXPIRATION).apply(accessToken);
+            tokenIntrospectionCache.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareAccessTokenInfo(JTI), false));
+            return claims;
+        };
+
+        // when
+        TokenIntrospectionResult result = tokenIntrospectionCache.introspect(ACCESS_TOKEN, revokingParser);
+
+        // then
+        assertThat(result.active(), is(true));
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+        assertThat(parseCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldIntrospectAllReturnResultsInGivenOrderAndCacheOnlyActiveTokens() {
+
+        // given
+        List<List<String>> parsedBatches = new ArrayList<>();
+        Function<List<String>, List<TokenParsingResult>> batchParser = accessTokens -> {
+            parsedBatches.add(accessTokens);
+            return accessTokens.stream()
+                    .map(accessToken -> ACCESS_TOKEN.equals(accessToken)
+                            ? countingParser(EXPIRATION).apply(accessToken)
+                            : TokenParsingResult.failure(TokenParsingResult.FailureReason.REVOKED))
+                    .toList();
+        };
+
+        // when
+        List<TokenIntrospectionResult> firstResult = tokenIntrospectionCache.introspectAll(List.of("access-token-2", ACCESS_TOKEN), batchParser);
+        List<TokenIntrospectionResult> secondResult = tokenIntrospectionCache.introspectAll(List.of(ACCESS_TOKEN, "access-token-2"), batchParser);
+
+        // then
+        assertThat(firstResult.get(0), equalTo(FAILED_INTROSPECTION_RESULT));
+        assertThat(firstResult.get(1).active(), is(true));
+        assertThat(secondResult, equalTo(List.of(firstResult.get(1), FAILED_INTROSPECTION_RESULT)));
+        assertThat(parsedBatches, equalTo(List.of(List.of("access-token-2", ACCESS_TOKEN), List.of("access-token-2"))));
+    }
+
+    @Test
+    public void shouldIntrospectAllSkipParserIfEveryResultIsCached() {
+
+        // given
+        tokenIntrospectionCache.introspect(ACCESS_TOKEN, countingParser(EXPIRATION));
+
+        // when
+        List<TokenIntrospectionResult> result = tokenIntrospectionCache.introspectAll(List.of(ACCESS_TOKEN), accessTokens -> {
+            throw new IllegalStateException("Parser should not be called");
+        });
+
+        // then
+        assertThat(result.size(), equalTo(1));
+        assertThat(result.get(0).active(), is(true));
+        assertThat(parseCount.get(), equalTo(1));
+    }
+
+    private Function<String, TokenParsingResult> countingParser(Date expiration) {
+
+        return accessToken -> {
+            parseCount.incrementAndGet();
+            return TokenParsingResult.success(TokenClaims.builder()
+                    .tokenID(JTI)
+                    .clientID("client-1")
+                    .username("user-1")
+                    .expiration(expiration)
+                    .build());
+        };
+    }
+
+    private AccessTokenInfo prepareAccessTokenInfo(String jti) {
+
+        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .build());
+    }
+}
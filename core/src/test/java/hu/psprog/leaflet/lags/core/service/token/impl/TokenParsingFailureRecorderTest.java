@@ -0,0 +1,56 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.internal.TokenParsingResult.FailureReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Unit tests for {@link TokenParsingFailureRecorder}.
+ *
+ * @author Peter Smith
+ */
+class TokenParsingFailureRecorderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenParsingFailureRecorder tokenParsingFailureRecorder;
+
+    @BeforeEach
+    public void setup() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        tokenParsingFailureRecorder = new TokenParsingFailureRecorder(meterRegistry);
+    }
+
+    @Test
+    public void shouldRegisterCounterForEveryFailureReason() {
+
+        // then
+        assertThat(meterRegistry.get("token.parsing.failures").counters().size(), equalTo(FailureReason.values().length));
+    }
+
+    @Test
+    public void shouldRecordCountFailuresPerReason() {
+
+        // when
+        tokenParsingFailureRecorder.record(FailureReason.EXPIRED, "details-1");
+        tokenParsingFailureRecorder.record(FailureReason.EXPIRED, "details-2");
+        tokenParsingFailureRecorder.record(FailureReason.MALFORMED, "details-3");
+
+        // then
+        assertThat(getCount("expired"), equalTo(2.0));
+        assertThat(getCount("malformed"), equalTo(1.0));
+        assertThat(getCount("revoked"), equalTo(0.0));
+    }
+
+    private double getCount(String reason) {
+
+        return meterRegistry.get("token.parsing.failures")
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+}
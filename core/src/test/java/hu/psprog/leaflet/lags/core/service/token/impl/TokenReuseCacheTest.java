@@ -0,0 +1,289 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Unit tests for {@link TokenReuseCache}.
+ *
+ * @author Peter Smith
+ */
+class TokenReuseCacheTest {
+
+    private static final String REUSING_CLIENT_ID = "client-1";
+    private static final String OTHER_CLIENT_ID = "client-2";
+    private static final String AUDIENCE = "audience-1";
+    private static final int EXPIRES_IN = 3600;
+    private static final TokenClaims CLAIMS = TokenClaims.builder().scope("read:all").build();
+    private static final OAuthTokenRequest TOKEN_REQUEST = prepareTokenRequest(GrantType.CLIENT_CREDENTIALS, REUSING_CLIENT_ID, AUDIENCE);
+
+    private SimpleMeterRegistry meterRegistry;
+    private OAuthConfigurationProperties oAuthConfigurationProperties;
+    private TokenReuseCache tokenReuseCache;
+    private AtomicInteger issueCount;
+
+    @BeforeEach
+    public void setup() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenReuse().setClientIDs(List.of(REUSING_CLIENT_ID));
+        tokenReuseCache = new TokenReuseCache(oAuthConfigurationProperties, meterRegistry);
+        issueCount = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldGetOrIssueReturnCachedTokenWithRemainingLifetime() {
+
+        // given
+        OAuthTokenResponse issuedToken = tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // when
+        OAuthTokenResponse result = tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // then
+        assertThat(issueCount.get(), equalTo(1));
+        assertThat(result.getAccessToken(), equalTo(issuedToken.getAccessToken()));
+        assertThat(result.getScope(), equalTo(issuedToken.getScope()));
+        assertThat(result.getExpiresIn(), allOf(greaterThan(EXPIRES_IN - 5), lessThanOrEqualTo(EXPIRES_IN)));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "token-reuse").tag("result", "hit").functionCounter().count(), equalTo(1.0));
+    }
+
+    @Test
+    public void shouldGetOrIssueIssueOnlyOneTokenForConcurrentRequests() throws Exception {
+
+        // given
+        CountDownLatch issuingStarted = new CountDownLatch(1);
+        CountDownLatch issuingReleased = new CountDownLatch(1);
+        Supplier<OAuthTokenResponse> blockingIssuer = () -> {
+            issuingStarted.countDown();
+            awaitQuietly(issuingReleased);
+            return countingIssuer(EXPIRES_IN).get();
+        };
+
+        // when
+        OAuthTokenResponse firstResult;
+        OAuthTokenResponse secondResult;
+        try (ExecutorService executorService = Executors.newFixedThreadPool(2)) {
+            Future<OAuthTokenResponse> firstRequest = executorService.submit(() -> tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, blockingIssuer));
+            issuingStarted.await(5, TimeUnit.SECONDS);
+            Future<OAuthTokenResponse> secondRequest = executorService.submit(() -> tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN)));
+            CompletableFuture.runAsync(issuingReleased::countDown, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+            firstResult = firstRequest.get(5, TimeUnit.SECONDS);
+            secondResult = secondRequest.get(5, TimeUnit.SECONDS);
+        }
+
+        // then
+        assertThat(issueCount.get(), equalTo(1));
+        assertThat(secondResult.getAccessToken(), equalTo(firstResult.getAccessToken()));
+    }
+
+    @Test
+    public void shouldGetOrIssueCalculateRemainingLifetimeFromStartOfIssuing() {
+
+        // given
+        Supplier<OAuthTokenResponse> slowIssuer = () -> {
+            sleepQuietly(1100);
+            return countingIssuer(EXPIRES_IN).get();
+        };
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, slowIssuer);
+
+        // when
+        OAuthTokenResponse result = tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // then
+        assertThat(issueCount.get(), equalTo(1));
+        assertThat(result.getExpiresIn(), lessThanOrEqualTo(EXPIRES_IN - 2));
+    }
+
+    @Test
+    public void shouldGetOrIssueIssueSeparateTokensPerAudienceAndScope() {
+
+        // given
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // when
+        tokenReuseCache.getOrIssue(prepareTokenRequest(GrantType.CLIENT_CREDENTIALS, REUSING_CLIENT_ID, "audience-2"), CLAIMS, countingIssuer(EXPIRES_IN));
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, TokenClaims.builder().scope("write:all").build(), countingIssuer(EXPIRES_IN));
+
+        // then
+        assertThat(issueCount.get(), equalTo(3));
+    }
+
+    @Test
+    public void shouldGetOrIssueAlwaysIssueForClientsNotOptedIn() {
+
+        // given
+        OAuthTokenRequest tokenRequest = prepareTokenRequest(GrantType.CLIENT_CREDENTIALS, OTHER_CLIENT_ID, AUDIENCE);
+
+        // when
+        OAuthTokenResponse firstResult = tokenReuseCache.getOrIssue(tokenRequest, CLAIMS, countingIssuer(EXPIRES_IN));
+        OAuthTokenResponse secondResult = tokenReuseCache.getOrIssue(tokenRequest, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // then
+        assertThat(issueCount.get(), equalTo(2));
+        assertThat(secondResult, not(equalTo(firstResult)));
+    }
+
+    @Test
+    public void shouldGetOrIssueAlwaysIssueForOtherGrantTypes() {
+
+        // given
+        OAuthTokenRequest tokenRequest = prepareTokenRequest(GrantType.AUTHORIZATION_CODE, REUSING_CLIENT_ID, AUDIENCE);
+
+        // when
+        tokenReuseCache.getOrIssue(tokenRequest, CLAIMS, countingIssuer(EXPIRES_IN));
+        tokenReuseCache.getOrIssue(tokenRequest, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // then
+        assertThat(issueCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldGetOrIssueIssueNewTokenAfterReusableFractionOfLifetime() {
+
+        // given
+        oAuthConfigurationProperties.getTokenReuse().setMaximumLifetimeFraction(0.0);
+        tokenReuseCache = new TokenReuseCache(oAuthConfigurationProperties, meterRegistry);
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // when
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // then
+        assertThat(issueCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRevocationEvictCachedToken() {
+
+        // given
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // when
+        tokenReuseCache.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareAccessTokenInfo("jti-1"), true));
+
+        // then
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+        assertThat(issueCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldSubjectRevocationEvictEveryCachedToken() {
+
+        // given
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // when
+        tokenReuseCache.onTokenTrackingEvent(TokenTrackingEvent.subjectRevoked(prepareAccessTokenInfo("rev:U:1"), false));
+
+        // then
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+        assertThat(issueCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRevocationOfOtherTokenKeepCachedToken() {
+
+        // given
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+
+        // when
+        tokenReuseCache.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareAccessTokenInfo("jti-2"), false));
+
+        // then
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+        assertThat(issueCount.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldGetOrIssueNotCacheTokenIfRevocationHappenedDuringIssuing() {
+
+        // given
+        Supplier<OAuthTokenResponse> revokingIssuer = () -> {
+            OAuthTokenResponse tokenResponse = countingIssuer(EXPIRES_IN).get();
+            tokenReuseCache.onTokenTrackingEvent(TokenTrackingEvent.revoked(prepareAccessTokenInfo("jti-1"), false));
+            return tokenResponse;
+        };
+
+        // when
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, revokingIssuer);
+
+        // then
+        tokenReuseCache.getOrIssue(TOKEN_REQUEST, CLAIMS, countingIssuer(EXPIRES_IN));
+        assertThat(issueCount.get(), equalTo(2));
+    }
+
+    private Supplier<OAuthTokenResponse> countingIssuer(int expiresIn) {
+
+        return () -> {
+            String jti = "jti-" + issueCount.incrementAndGet();
+            return OAuthTokenResponse.builder()
+                    .accessToken("access-token-" + jti)
+                    .scope(CLAIMS.getScope())
+                    .expiresIn(expiresIn)
+                    .tokenID(jti)
+                    .build();
+        };
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OAuthTokenRequest prepareTokenRequest(GrantType grantType, String clientID, String audience) {
+
+        return OAuthTokenRequest.builder()
+                .grantType(grantType)
+                .clientID(clientID)
+                .audience(audience)
+                .build();
+    }
+
+    private AccessTokenInfo prepareAccessTokenInfo(String jti) {
+
+        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .build());
+    }
+}
@@ -0,0 +1,147 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.util.Base64URL;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
+import hu.psprog.leaflet.lags.core.exception.OAuthTokenRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link TokenSigningExecutor}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenSigningExecutorTest {
+
+    private static final Base64URL SIGNATURE = Base64URL.encode("signature");
+    private static final JWSHeader HEADER = new JWSHeader(JWSAlgorithm.RS256);
+    private static final byte[] SIGNING_INPUT = "header.payload".getBytes(StandardCharsets.US_ASCII);
+
+    @Mock
+    private JWSSigner jwsSigner;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenSigningExecutor tokenSigningExecutor;
+
+    @BeforeEach
+    public void setup() {
+
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getSigningExecutor().setParallelism(1);
+        oAuthConfigurationProperties.getSigningExecutor().setQueueCapacity(1);
+
+        meterRegistry = new SimpleMeterRegistry();
+        tokenSigningExecutor = new TokenSigningExecutor(oAuthConfigurationProperties, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tokenSigningExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldSignCreateSignatureOnSigningThread() throws JOSEException {
+
+        // given
+        given(jwsSigner.sign(HEADER, SIGNING_INPUT)).willAnswer(invocation -> {
+            assertThat(Thread.currentThread().getName().startsWith("token-signer-"), is(true));
+            return SIGNATURE;
+        });
+
+        // when
+        Base64URL result = tokenSigningExecutor.sign(HEADER, SIGNING_INPUT, jwsSigner);
+
+        // then
+        assertThat(result, equalTo(SIGNATURE));
+        assertThat(meterRegistry.get("token.signing.duration").timer().count(), equalTo(1L));
+        assertThat(meterRegistry.get("token.signing.wait").timer().count(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldSignPropagateSigningFailure() throws JOSEException {
+
+        // given
+        given(jwsSigner.sign(HEADER, SIGNING_INPUT)).willThrow(new JOSEException("Signing failed"));
+
+        // when
+        Throwable result = assertThrows(JOSEException.class, () -> tokenSigningExecutor.sign(HEADER, SIGNING_INPUT, jwsSigner));
+
+        // then
+        // exception expected
+        assertThat(result.getMessage(), equalTo("Signing failed"));
+        assertThat(meterRegistry.get("token.signing.duration").timer().count(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldSignRejectRequestWithTemporarilyUnavailableErrorIfQueueIsFull() throws Exception {
+
+        // given
+        CountDownLatch signingStarted = new CountDownLatch(1);
+        CountDownLatch releaseSigning = new CountDownLatch(1);
+        given(jwsSigner.sign(HEADER, SIGNING_INPUT)).willAnswer(invocation -> {
+            signingStarted.countDown();
+            releaseSigning.await(10, TimeUnit.SECONDS);
+            return SIGNATURE;
+        });
+
+        CompletableFuture<Void> runningSigning = signInBackground();
+        signingStarted.await(10, TimeUnit.SECONDS);
+        CompletableFuture<Void> queuedSigning = signInBackground();
+        awaitQueueDepth(1);
+
+        // when
+        OAuthTokenRequestException result = assertThrows(OAuthTokenRequestException.class,
+                () -> tokenSigningExecutor.sign(HEADER, SIGNING_INPUT, jwsSigner));
+
+        // then
+        // exception expected
+        assertThat(result.getErrorCode(), equalTo(OAuthErrorCode.TEMPORARILY_UNAVAILABLE));
+        assertThat(meterRegistry.get("token.signing.rejections").counter().count(), equalTo(1.0));
+
+        releaseSigning.countDown();
+        runningSigning.get(10, TimeUnit.SECONDS);
+        queuedSigning.get(10, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get("token.signing.duration").timer().count(), equalTo(2L));
+    }
+
+    private CompletableFuture<Void> signInBackground() {
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                tokenSigningExecutor.sign(HEADER, SIGNING_INPUT, jwsSigner);
+            } catch (JOSEException e) {
+                throw new IllegalStateException(e);
+            }
+        }, runnable -> Thread.ofVirtual().start(runnable));
+    }
+
+    private void awaitQueueDepth(int expectedDepth) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (meterRegistry.get("token.signing.queue.depth").gauge().value() < expectedDepth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
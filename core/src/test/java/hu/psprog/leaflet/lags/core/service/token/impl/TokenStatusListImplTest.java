@@ -0,0 +1,241 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthTokenSettings;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingMode;
+import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
+import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatusListSnapshot;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Unit tests for {@link TokenStatusListImpl}.
+ *
+ * @author Peter Smith
+ */
+class TokenStatusListImplTest {
+
+    private static final String ISSUER = "https://oauth.dev.local:9999";
+    private static final Date EXPIRES_AT = Date.from(Instant.now().plus(1, ChronoUnit.HOURS));
+
+    private TokenStatusListImpl tokenStatusList;
+
+    @BeforeEach
+    public void setup() {
+        tokenStatusList = new TokenStatusListImpl(prepareConfig(TokenTrackingMode.FULL, null));
+    }
+
+    @Test
+    public void shouldStatusListBeEnabledOnlyInFullTrackingMode() {
+
+        // when
+        TokenStatusListImpl denylistModeStatusList = new TokenStatusListImpl(prepareConfig(TokenTrackingMode.DENYLIST, null));
+
+        // then
+        assertThat(tokenStatusList.isEnabled(), is(true));
+        assertThat(denylistModeStatusList.isEnabled(), is(false));
+    }
+
+    @Test
+    public void shouldGetListURIReturnURIUnderIssuerByDefault() {
+
+        // when
+        String result = tokenStatusList.getListURI();
+
+        // then
+        assertThat(result, equalTo(ISSUER + "/.well-known/status-list/" + tokenStatusList.getListID()));
+    }
+
+    @Test
+    public void shouldGetListURIReturnURIUnderConfiguredBaseURI() {
+
+        // given
+        tokenStatusList = new TokenStatusListImpl(prepareConfig(TokenTrackingMode.FULL, "https://oauth-node-1.dev.local:9999"));
+
+        // when
+        String result = tokenStatusList.getListURI();
+
+        // then
+        assertThat(result, equalTo("https://oauth-node-1.dev.local:9999/.well-known/status-list/" + tokenStatusList.getListID()));
+    }
+
+    @Test
+    public void shouldAllocateIndexAssignSequentialSlots() {
+
+        // when
+        int result1 = tokenStatusList.allocateIndex(prepareToken("jti-1", EXPIRES_AT));
+        int result2 = tokenStatusList.allocateIndex(prepareToken("jti-2", EXPIRES_AT));
+        int result3 = tokenStatusList.allocateIndex(prepareToken("jti-3", EXPIRES_AT));
+
+        // then
+        assertThat(result1, equalTo(0));
+        assertThat(result2, equalTo(1));
+        assertThat(result3, equalTo(2));
+        assertThat(decodeStatusBits(tokenStatusList.getSnapshot()), equalTo(new byte[] {0}));
+    }
+
+    @Test
+    public void shouldRevocationFlagSlotOfToken() {
+
+        // given
+        tokenStatusList.allocateIndex(prepareToken("jti-1", EXPIRES_AT));
+        tokenStatusList.allocateIndex(prepareToken("jti-2", EXPIRES_AT));
+        for (int index = 2; index < 10; index++) {
+            tokenStatusList.allocateIndex(prepareToken("jti-" + (index + 1), EXPIRES_AT));
+        }
+
+        // when
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.revoked(new AccessTokenInfo(prepareToken("jti-2", EXPIRES_AT)), false));
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.revoked(new AccessTokenInfo(prepareToken("jti-10", EXPIRES_AT)), true));
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.revoked(new AccessTokenInfo(prepareToken("jti-unknown", EXPIRES_AT)), false));
+
+        // then
+        assertThat(decodeStatusBits(tokenStatusList.getSnapshot()), equalTo(new byte[] {0b00000010, 0b00000010}));
+    }
+
+    @Test
+    public void shouldCleanUpReleaseAndRecycleSlotsOfExpiredTokens() {
+
+        // given
+        OAuthConfigurationProperties oAuthConfigurationProperties = prepareConfig(TokenTrackingMode.FULL, null);
+        oAuthConfigurationProperties.getTokenTracking().setStatusListMaxAge(Duration.ZERO);
+        tokenStatusList = new TokenStatusListImpl(oAuthConfigurationProperties);
+        Instant now = Instant.now();
+        Date expired = Date.from(now.minus(5, ChronoUnit.MINUTES));
+        tokenStatusList.allocateIndex(prepareToken("jti-1", expired));
+        tokenStatusList.allocateIndex(prepareToken("jti-2", EXPIRES_AT));
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.revoked(new AccessTokenInfo(prepareToken("jti-1", expired)), false));
+
+        // when
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.expired(Date.from(now), false));
+
+        // then
+        assertThat(decodeStatusBits(tokenStatusList.getSnapshot()), equalTo(new byte[] {0}));
+        assertThat(tokenStatusList.allocateIndex(prepareToken("jti-3", EXPIRES_AT)), equalTo(0));
+        assertThat(tokenStatusList.allocateIndex(prepareToken("jti-4", EXPIRES_AT)), equalTo(2));
+    }
+
+    @Test
+    public void shouldCleanUpQuarantineReleasedSlots() {
+
+        // given
+        Instant now = Instant.now();
+        tokenStatusList.allocateIndex(prepareToken("jti-1", Date.from(now.minus(5, ChronoUnit.MINUTES))));
+        tokenStatusList.allocateIndex(prepareToken("jti-2", EXPIRES_AT));
+
+        // when
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.expired(Date.from(now), false));
+
+        // then
+        assertThat(tokenStatusList.allocateIndex(prepareToken("jti-3", EXPIRES_AT)), equalTo(2));
+    }
+
+    @Test
+    public void shouldReplicatedCleanUpBeIgnored() {
+
+        // given
+        Instant now = Instant.now();
+        tokenStatusList.allocateIndex(prepareToken("jti-1", Date.from(now.minus(5, ChronoUnit.MINUTES))));
+
+        // when
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.expired(Date.from(now), true));
+
+        // then
+        assertThat(tokenStatusList.allocateIndex(prepareToken("jti-2", EXPIRES_AT)), equalTo(1));
+    }
+
+    @Test
+    public void shouldGetSnapshotReuseSnapshotUntilStatusChanges() {
+
+        // given
+        tokenStatusList.allocateIndex(prepareToken("jti-1", EXPIRES_AT));
+        TokenStatusListSnapshot initialSnapshot = tokenStatusList.getSnapshot();
+
+        // when
+        TokenStatusListSnapshot unchangedSnapshot = tokenStatusList.getSnapshot();
+        tokenStatusList.onTokenTrackingEvent(TokenTrackingEvent.revoked(new AccessTokenInfo(prepareToken("jti-1", EXPIRES_AT)), false));
+        TokenStatusListSnapshot changedSnapshot = tokenStatusList.getSnapshot();
+
+        // then
+        assertThat(unchangedSnapshot, sameInstance(initialSnapshot));
+        assertThat(changedSnapshot, not(sameInstance(initialSnapshot)));
+        assertThat(changedSnapshot.version(), not(equalTo(initialSnapshot.version())));
+        assertThat(changedSnapshot.listID(), equalTo(tokenStatusList.getListID()));
+        assertThat(changedSnapshot.bits(), equalTo(1));
+    }
+
+    @Test
+    public void shouldGetSnapshotKeepVersionOnAllocation() {
+
+        // given
+        tokenStatusList.allocateIndex(prepareToken("jti-1", EXPIRES_AT));
+        TokenStatusListSnapshot initialSnapshot = tokenStatusList.getSnapshot();
+
+        // when
+        for (int index = 1; index < 9; index++) {
+            tokenStatusList.allocateIndex(prepareToken("jti-" + (index + 1), EXPIRES_AT));
+        }
+        TokenStatusListSnapshot extendedSnapshot = tokenStatusList.getSnapshot();
+
+        // then
+        assertThat(extendedSnapshot.version(), equalTo(initialSnapshot.version()));
+        assertThat(decodeStatusBits(extendedSnapshot), equalTo(new byte[] {0, 0}));
+    }
+
+    private byte[] decodeStatusBits(TokenStatusListSnapshot snapshot) {
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(Base64.getUrlDecoder().decode(snapshot.encodedList()));
+
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        try {
+            while (!inflater.finished()) {
+                decompressed.write(buffer, 0, inflater.inflate(buffer));
+            }
+        } catch (DataFormatException exception) {
+            throw new IllegalStateException(exception);
+        } finally {
+            inflater.end();
+        }
+
+        return decompressed.toByteArray();
+    }
+
+    private OAuthConfigurationProperties prepareConfig(TokenTrackingMode mode, String statusListBaseURI) {
+
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        OAuthTokenSettings oAuthTokenSettings = new OAuthTokenSettings();
+        oAuthTokenSettings.setIssuer(ISSUER);
+        oAuthConfigurationProperties.setToken(oAuthTokenSettings);
+        oAuthConfigurationProperties.getTokenTracking().setMode(mode);
+        oAuthConfigurationProperties.getTokenTracking().setStatusListBaseURI(statusListBaseURI);
+
+        return oAuthConfigurationProperties;
+    }
+
+    private StoreAccessTokenInfoRequest prepareToken(String jti, Date expiresAt) {
+
+        return StoreAccessTokenInfoRequest.builder()
+                .id(jti)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
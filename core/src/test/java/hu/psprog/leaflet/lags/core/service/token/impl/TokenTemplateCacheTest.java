@@ -0,0 +1,166 @@
+package hu.psprog.leaflet.lags.core.service.token.impl;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenTemplateCache.DynamicClaims;
+import hu.psprog.leaflet.lags.core.service.token.impl.TokenTemplateCache.EncodedHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Unit tests for {@link TokenTemplateCache}.
+ *
+ * @author Peter Smith
+ */
+class TokenTemplateCacheTest {
+
+    private static final String ISSUER = "https://oauth.dev.local:9999";
+    private static final String KEY_ID = "key-1";
+    private static final String AUDIENCE = "target-svc-aud-1";
+    private static final String STATUS_LIST_URI = "https://oauth.dev.local:9999/.well-known/status-list/status-list-1";
+    private static final DynamicClaims DYNAMIC_CLAIMS = new DynamicClaims("jti-1", 1_700_000_000L, 1_700_003_600L, 12);
+    private static final TokenClaims CLAIMS = TokenClaims.builder()
+            .subject("client-1")
+            .scope("read:users write:users")
+            .username("User \"Quoted\" Name")
+            .userID(6643L)
+            .build();
+
+    private TokenTemplateCache tokenTemplateCache;
+
+    @BeforeEach
+    public void setup() {
+        tokenTemplateCache = new TokenTemplateCache(JWSAlgorithm.ES256, ISSUER);
+    }
+
+    @Test
+    public void shouldGetHeaderReturnEncodedHeaderOfKey() throws ParseException {
+
+        // when
+        EncodedHeader result = tokenTemplateCache.getHeader(KEY_ID);
+
+        // then
+        JWSHeader decodedHeader = JWSHeader.parse(new Base64URL(result.encoded()));
+        assertThat(decodedHeader.getAlgorithm(), equalTo(JWSAlgorithm.ES256));
+        assertThat(decodedHeader.getType(), equalTo(JOSEObjectType.JWT));
+        assertThat(decodedHeader.getKeyID(), equalTo(KEY_ID));
+        assertThat(result.header().getKeyID(), equalTo(KEY_ID));
+    }
+
+    @Test
+    public void shouldGetHeaderReturnCachedHeaderForSameKey() {
+
+        // given
+        EncodedHeader previousHeader = tokenTemplateCache.getHeader(KEY_ID);
+
+        // when
+        EncodedHeader result = tokenTemplateCache.getHeader(KEY_ID);
+
+        // then
+        assertThat(result, sameInstance(previousHeader));
+        assertThat(tokenTemplateCache.getHeader("key-2"), not(sameInstance(previousHeader)));
+    }
+
+    @Test
+    public void shouldCreateSigningInputContainStaticAndDynamicClaims() throws ParseException {
+
+        // given
+        EncodedHeader header = tokenTemplateCache.getHeader(KEY_ID);
+
+        // when
+        String result = tokenTemplateCache.createSigningInput(header, CLAIMS, AUDIENCE, STATUS_LIST_URI, DYNAMIC_CLAIMS);
+
+        // then
+        assertThat(result.substring(0, result.indexOf('.')), equalTo(header.encoded()));
+        Map<String, Object> payload = parsePayload(result);
+        assertThat(payload.get("sub"), equalTo("client-1"));
+        assertThat(payload.get("scope"), equalTo("read:users write:users"));
+        assertThat(payload.get("name"), equalTo("User \"Quoted\" Name"));
+        assertThat(((Number) payload.get("uid")).longValue(), equalTo(6643L));
+        assertThat(payload.get("aud"), equalTo(AUDIENCE));
+        assertThat(payload.get("iss"), equalTo(ISSUER));
+        assertThat(payload.get("jti"), equalTo("jti-1"));
+        assertThat(((Number) payload.get("iat")).longValue(), equalTo(1_700_000_000L));
+        assertThat(((Number) payload.get("nbf")).longValue(), equalTo(1_700_000_000L));
+        assertThat(((Number) payload.get("exp")).longValue(), equalTo(1_700_003_600L));
+        assertThat(payload.get("status"), equalTo(Map.of("status_list", Map.of(
+                "idx", 12L,
+                "uri", "https://oauth.dev.local:9999/.well-known/status-list/status-list-1"))));
+    }
+
+    @Test
+    public void shouldCreateSigningInputReuseTemplateWithDifferentDynamicClaims() throws ParseException {
+
+        // given
+        EncodedHeader header = tokenTemplateCache.getHeader(KEY_ID);
+        tokenTemplateCache.createSigningInput(header, CLAIMS, AUDIENCE, STATUS_LIST_URI, DYNAMIC_CLAIMS);
+        DynamicClaims otherDynamicClaims = new DynamicClaims("jti-2", 1_700_000_100L, 1_700_003_700L, 13);
+
+        // when
+        String result = tokenTemplateCache.createSigningInput(header, CLAIMS, AUDIENCE, STATUS_LIST_URI, otherDynamicClaims);
+
+        // then
+        Map<String, Object> payload = parsePayload(result);
+        assertThat(payload.get("sub"), equalTo("client-1"));
+        assertThat(payload.get("jti"), equalTo("jti-2"));
+        assertThat(((Number) payload.get("exp")).longValue(), equalTo(1_700_003_700L));
+        assertThat(payload.get("status"), equalTo(Map.of("status_list", Map.of(
+                "idx", 13L,
+                "uri", "https://oauth.dev.local:9999/.well-known/status-list/status-list-1"))));
+    }
+
+    @Test
+    public void shouldCreateSigningInputOverrideDynamicClaimsOfGivenClaims() throws ParseException {
+
+        // given
+        TokenClaims claims = TokenClaims.builder()
+                .subject("client-1")
+                .tokenID("stale-jti")
+                .expiration(new Date())
+                .build();
+        EncodedHeader header = tokenTemplateCache.getHeader(KEY_ID);
+
+        // when
+        String result = tokenTemplateCache.createSigningInput(header, claims, AUDIENCE, STATUS_LIST_URI, DYNAMIC_CLAIMS);
+
+        // then
+        Map<String, Object> payload = parsePayload(result);
+        assertThat(payload.get("jti"), equalTo("jti-1"));
+        assertThat(((Number) payload.get("exp")).longValue(), equalTo(1_700_003_600L));
+        assertThat(payload.size(), equalTo(8));
+    }
+
+    @Test
+    public void shouldCreateSigningInputOmitStatusClaimWithoutStatusList() throws ParseException {
+
+        // given
+        EncodedHeader header = tokenTemplateCache.getHeader(KEY_ID);
+
+        // when
+        String result = tokenTemplateCache.createSigningInput(header, CLAIMS, AUDIENCE, null, DYNAMIC_CLAIMS);
+
+        // then
+        Map<String, Object> payload = parsePayload(result);
+        assertThat(payload.containsKey("status"), equalTo(false));
+        assertThat(payload.get("sub"), equalTo("client-1"));
+        assertThat(payload.get("jti"), equalTo("jti-1"));
+        assertThat(((Number) payload.get("exp")).longValue(), equalTo(1_700_003_600L));
+    }
+
+    private static Map<String, Object> parsePayload(String signingInput) throws ParseException {
+        return JSONObjectUtils.parse(new Base64URL(signingInput.substring(signingInput.indexOf('.') + 1)).decodeToString());
+    }
+}
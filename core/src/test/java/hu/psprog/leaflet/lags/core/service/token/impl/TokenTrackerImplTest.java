@@ -1,28 +1,45 @@
 package hu.psprog.leaflet.lags.core.service.token.impl;
 
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthTokenSettings;
+import hu.psprog.leaflet.lags.core.domain.config.TokenTrackingMode;
 import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
 import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenClaims;
 import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenSubject;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenTrackingEvent;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
 import hu.psprog.leaflet.lags.core.persistence.dao.AccessTokenDAO;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.time.ZonedDateTime;
-import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 /**
@@ -38,38 +55,99 @@ class TokenTrackerImplTest {
             .id(JTI)
             .build();
     private static final AccessTokenInfo ACCESS_TOKEN_INFO = new AccessTokenInfo(STORE_ACCESS_TOKEN_INFO_REQUEST);
+    private static final Date EXPIRATION = new Date();
+    private static final Date REVOKED_AT = new Date();
+    private static final long TOKEN_LIFETIME_IN_MILLIS = 3_600_000L;
+    private static final TokenClaims TOKEN_CLAIMS = TokenClaims.builder()
+            .tokenID(JTI)
+            .subject("client|uid=1")
+            .expiration(EXPIRATION)
+            .build();
 
     @Mock
     private AccessTokenDAO accessTokenDAO;
 
-    @InjectMocks
+    @Mock
+    private SubjectTokenIndex subjectTokenIndex;
+
+    @Mock
+    private SubjectDenylist subjectDenylist;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
     private TokenTrackerImpl tokenTracker;
 
+    @BeforeEach
+    public void setup() {
+        tokenTracker = createTokenTracker(TokenTrackingMode.FULL);
+    }
+
     @Test
     public void shouldStoreTokenInfoCallDAO() {
 
-        // given
-        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.empty());
-
         // when
         tokenTracker.storeTokenInfo(STORE_ACCESS_TOKEN_INFO_REQUEST);
 
         // then
         verify(accessTokenDAO).save(ACCESS_TOKEN_INFO);
+        verify(accessTokenDAO, never()).retrieveByJTI(anyString());
+        verify(subjectTokenIndex).add(STORE_ACCESS_TOKEN_INFO_REQUEST);
+        verify(applicationEventPublisher).publishEvent(TokenTrackingEvent.stored(ACCESS_TOKEN_INFO, false));
     }
 
     @Test
-    public void shouldStoreTokenInfoDoNothingIfEntryAlreadyExists() {
+    public void shouldStoreTokenInfoDoNothingInDenylistMode() {
 
         // given
-        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.of(ACCESS_TOKEN_INFO));
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
 
         // when
         tokenTracker.storeTokenInfo(STORE_ACCESS_TOKEN_INFO_REQUEST);
 
         // then
-        verify(accessTokenDAO).retrieveByJTI(JTI);
-        verifyNoMoreInteractions(accessTokenDAO);
+        verifyNoInteractions(accessTokenDAO, subjectTokenIndex, subjectDenylist, applicationEventPublisher);
+    }
+
+    @Test
+    public void shouldInitializeSubjectIndexRegisterActiveTokens() {
+
+        // given
+        AccessTokenInfo activeAccessTokenInfo = prepareAccessTokenInfo("jti-1", TokenStatus.ACTIVE, new Date());
+        willAnswer(invocation -> {
+            invocation.<Consumer<AccessTokenInfo>>getArgument(1).accept(activeAccessTokenInfo);
+            return null;
+        }).given(accessTokenDAO).forEachAccessTokenInfo(eq(TokenStatus.ACTIVE), any());
+
+        // when
+        tokenTracker.initializeSubjectIndex();
+
+        // then
+        verify(subjectTokenIndex).add(activeAccessTokenInfo);
+        verify(accessTokenDAO, never()).getAllAccessTokenInfo();
+    }
+
+    @Test
+    public void shouldInitializeSubjectIndexRegisterSubjectRevocationsInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        AccessTokenInfo subjectRevocation = prepareSubjectRevocation(TokenSubject.ofUser(1L), REVOKED_AT);
+        AccessTokenInfo revokedAccessTokenInfo = prepareAccessTokenInfo("jti-1", TokenStatus.REVOKED, new Date());
+        willAnswer(invocation -> {
+            invocation.<Consumer<AccessTokenInfo>>getArgument(1).accept(subjectRevocation);
+            invocation.<Consumer<AccessTokenInfo>>getArgument(1).accept(revokedAccessTokenInfo);
+            return null;
+        }).given(accessTokenDAO).forEachAccessTokenInfo(eq(TokenStatus.REVOKED), any());
+
+        // when
+        tokenTracker.initializeSubjectIndex();
+
+        // then
+        verify(subjectDenylist).add(TokenSubject.ofUser(1L), REVOKED_AT, subjectRevocation.getExpiresAt());
+        verify(subjectDenylist).size();
+        verifyNoMoreInteractions(subjectDenylist);
+        verifyNoInteractions(subjectTokenIndex);
     }
 
     @Test
@@ -86,6 +164,159 @@ class TokenTrackerImplTest {
         assertThat(result.get(), equalTo(ACCESS_TOKEN_INFO));
     }
 
+    @Test
+    public void shouldIsTokenActiveReturnTrueForActiveToken() {
+
+        // given
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(prepareAccessTokenInfo(TokenStatus.ACTIVE));
+
+        // when
+        boolean result = tokenTracker.isTokenActive(TOKEN_CLAIMS);
+
+        // then
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void shouldIsTokenActiveReturnFalseForRevokedToken() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(prepareAccessTokenInfo(TokenStatus.REVOKED));
+
+        // when
+        boolean result = tokenTracker.isTokenActive(TOKEN_CLAIMS);
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void shouldIsTokenActiveReturnFalseForUntrackedTokenInFullMode() {
+
+        // given
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.empty());
+
+        // when
+        boolean result = tokenTracker.isTokenActive(TOKEN_CLAIMS);
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void shouldIsTokenActiveReturnTrueForUntrackedTokenInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.empty());
+
+        // when
+        boolean result = tokenTracker.isTokenActive(TOKEN_CLAIMS);
+
+        // then
+        assertThat(result, is(true));
+    }
+
+    @Test
+    public void shouldIsTokenActiveReturnFalseForTokenOfRevokedSubjectInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.empty());
+        given(subjectDenylist.isRevoked(TOKEN_CLAIMS.getSubject(), TOKEN_CLAIMS.getIssuedAt())).willReturn(true);
+
+        // when
+        boolean result = tokenTracker.isTokenActive(TOKEN_CLAIMS);
+
+        // then
+        assertThat(result, is(false));
+    }
+
+    @Test
+    public void shouldFilterActiveTokensReturnTrackedActiveTokensInFullMode() {
+
+        // given
+        List<String> jtis = List.of("jti-1", "jti-2", "jti-3");
+        given(accessTokenDAO.retrieveByJTIs(jtis)).willReturn(List.of(
+                prepareAccessTokenInfo("jti-1", TokenStatus.ACTIVE, new Date()),
+                prepareAccessTokenInfo("jti-2", TokenStatus.REVOKED, new Date())));
+
+        // when
+        Set<String> result = tokenTracker.filterActiveTokens(prepareTokenClaims(jtis, "client|uid=1"));
+
+        // then
+        assertThat(result, equalTo(Set.of("jti-1")));
+        verify(accessTokenDAO, never()).retrieveByJTI(anyString());
+    }
+
+    @Test
+    public void shouldFilterActiveTokensReturnNotRevokedTokensInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        List<String> jtis = List.of("jti-1", "jti-2", "jti-3");
+        given(accessTokenDAO.retrieveByJTIs(jtis)).willReturn(List.of(
+                prepareAccessTokenInfo("jti-2", TokenStatus.REVOKED, new Date())));
+
+        // when
+        Set<String> result = tokenTracker.filterActiveTokens(prepareTokenClaims(jtis, "client|uid=1"));
+
+        // then
+        assertThat(result, equalTo(Set.of("jti-1", "jti-3")));
+    }
+
+    @Test
+    public void shouldFilterActiveTokensSkipTokensOfRevokedSubjectInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        List<String> jtis = List.of("jti-1", "jti-2");
+        given(accessTokenDAO.retrieveByJTIs(jtis)).willReturn(List.of());
+        given(subjectDenylist.isRevoked("client|uid=1", null)).willReturn(true);
+
+        // when
+        Set<String> result = tokenTracker.filterActiveTokens(prepareTokenClaims(jtis, "client|uid=1"));
+
+        // then
+        assertThat(result.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldRevokeTokenByClaimsRecordRevokedTokenInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.empty());
+
+        // when
+        tokenTracker.revokeToken(TOKEN_CLAIMS);
+
+        // then
+        ArgumentCaptor<AccessTokenInfo> accessTokenInfoCaptor = ArgumentCaptor.forClass(AccessTokenInfo.class);
+        verify(accessTokenDAO).save(accessTokenInfoCaptor.capture());
+        AccessTokenInfo revokedAccessTokenInfo = accessTokenInfoCaptor.getValue();
+        assertThat(revokedAccessTokenInfo.getId(), equalTo(JTI));
+        assertThat(revokedAccessTokenInfo.getSubject(), equalTo("client|uid=1"));
+        assertThat(revokedAccessTokenInfo.getExpiresAt(), equalTo(EXPIRATION));
+        assertThat(revokedAccessTokenInfo.getStatus(), equalTo(TokenStatus.REVOKED));
+    }
+
+    @Test
+    public void shouldRevokeTokenByClaimsRevokeTrackedToken() {
+
+        // given
+        Optional<AccessTokenInfo> accessTokenInfo = prepareAccessTokenInfo(TokenStatus.ACTIVE);
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(accessTokenInfo);
+
+        // when
+        tokenTracker.revokeToken(TOKEN_CLAIMS);
+
+        // then
+        assertThat(accessTokenInfo.get().getStatus(), equalTo(TokenStatus.REVOKED));
+        verify(accessTokenDAO).save(accessTokenInfo.get());
+    }
+
     @Test
     public void shouldRevokeTokenDoRevokeActiveToken() {
 
@@ -101,6 +332,8 @@ class TokenTrackerImplTest {
         assertThat(revokedAccessTokenInfo.getStatus(), equalTo(TokenStatus.REVOKED));
         assertThat(System.currentTimeMillis() - revokedAccessTokenInfo.getRevokedAt().getTime() < 100, is(true));
         verify(accessTokenDAO).save(accessTokenInfo.get());
+        verify(subjectTokenIndex).remove(JTI);
+        verify(applicationEventPublisher).publishEvent(TokenTrackingEvent.revoked(revokedAccessTokenInfo, false));
     }
 
     @Test
@@ -132,31 +365,285 @@ class TokenTrackerImplTest {
         assertThat(result.getMessage(), equalTo(String.format("Access token by JTI=%s to be modified must be ACTIVE, but is %s", JTI, TokenStatus.REVOKED)));
     }
 
+    @Test
+    public void shouldRevokeAllForSubjectRevokeActiveTokens() {
+
+        // given
+        TokenSubject tokenSubject = TokenSubject.ofUser(1L);
+        AccessTokenInfo activeAccessTokenInfo = prepareAccessTokenInfo("jti-1", TokenStatus.ACTIVE, new Date());
+        AccessTokenInfo revokedAccessTokenInfo = prepareAccessTokenInfo("jti-2", TokenStatus.REVOKED, new Date());
+        given(subjectTokenIndex.getTokens(tokenSubject)).willReturn(List.of(toIndexedToken(activeAccessTokenInfo), toIndexedToken(revokedAccessTokenInfo),
+                new SubjectTokenIndex.IndexedToken("jti-3", null, null)));
+        given(accessTokenDAO.retrieveByJTI("jti-1")).willReturn(Optional.of(activeAccessTokenInfo));
+        given(accessTokenDAO.retrieveByJTI("jti-2")).willReturn(Optional.of(revokedAccessTokenInfo));
+        given(accessTokenDAO.retrieveByJTI("jti-3")).willReturn(Optional.empty());
+
+        // when
+        int result = tokenTracker.revokeAllForSubject(tokenSubject);
+
+        // then
+        assertThat(result, equalTo(1));
+        assertThat(activeAccessTokenInfo.getStatus(), equalTo(TokenStatus.REVOKED));
+        verify(accessTokenDAO).save(activeAccessTokenInfo);
+        verify(subjectTokenIndex).remove("jti-1");
+        verify(subjectTokenIndex).remove("jti-2");
+        verify(subjectTokenIndex).remove("jti-3");
+    }
+
+    @Test
+    public void shouldRevokeAllForSubjectRecordSubjectRevocationInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        TokenSubject tokenSubject = TokenSubject.ofClient("client-1");
+
+        // when
+        int result = tokenTracker.revokeAllForSubject(tokenSubject);
+
+        // then
+        assertThat(result, equalTo(0));
+        ArgumentCaptor<AccessTokenInfo> accessTokenInfoCaptor = ArgumentCaptor.forClass(AccessTokenInfo.class);
+        verify(accessTokenDAO).save(accessTokenInfoCaptor.capture());
+        AccessTokenInfo subjectRevocation = accessTokenInfoCaptor.getValue();
+        assertThat(subjectRevocation.getId(), equalTo(tokenSubject.toRevocationID()));
+        assertThat(subjectRevocation.getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(subjectRevocation.getExpiresAt().getTime() - subjectRevocation.getRevokedAt().getTime(), equalTo(TOKEN_LIFETIME_IN_MILLIS));
+        verify(subjectDenylist).add(tokenSubject, subjectRevocation.getRevokedAt(), subjectRevocation.getExpiresAt());
+        verify(applicationEventPublisher).publishEvent(TokenTrackingEvent.subjectRevoked(subjectRevocation, false));
+        verifyNoInteractions(subjectTokenIndex);
+    }
+
+    @Test
+    public void shouldRevokeAllForSubjectKeepSubjectRevocationForLongestObservedTokenLifetimeInDenylistMode() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        Date issuedAt = new Date();
+        long customTokenLifetime = TOKEN_LIFETIME_IN_MILLIS * 2;
+        tokenTracker.storeTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(JTI)
+                .issuedAt(issuedAt)
+                .expiresAt(new Date(issuedAt.getTime() + customTokenLifetime))
+                .build());
+
+        // when
+        tokenTracker.revokeAllForSubject(TokenSubject.ofUser(1L));
+
+        // then
+        ArgumentCaptor<AccessTokenInfo> accessTokenInfoCaptor = ArgumentCaptor.forClass(AccessTokenInfo.class);
+        verify(accessTokenDAO).save(accessTokenInfoCaptor.capture());
+        AccessTokenInfo subjectRevocation = accessTokenInfoCaptor.getValue();
+        assertThat(subjectRevocation.getExpiresAt().getTime() - subjectRevocation.getRevokedAt().getTime(), equalTo(customTokenLifetime));
+    }
+
     @Test
     public void shouldCleanUpExpiredTokenExecuteCleanUp() {
 
         // given
-        given(accessTokenDAO.getAllAccessTokenInfo()).willReturn(Arrays.asList(
-                prepareAccessTokenInfo("to-keep-1", TokenStatus.ACTIVE, prepareExpirationDate(1)),
-                prepareAccessTokenInfo("to-delete-1", TokenStatus.ACTIVE, prepareExpirationDate(-1)),
-                prepareAccessTokenInfo("to-keep-2", TokenStatus.REVOKED, prepareExpirationDate(1)),
-                prepareAccessTokenInfo("to-delete-2", TokenStatus.REVOKED, prepareExpirationDate(-1))
-        ));
+        given(accessTokenDAO.deleteExpiredBefore(any(Date.class))).willReturn(2);
 
         // when
         tokenTracker.cleanUpExpiredToken();
 
         // then
-        verify(accessTokenDAO).getAllAccessTokenInfo();
-        verify(accessTokenDAO).deleteByJTI("to-delete-1");
-        verify(accessTokenDAO).deleteByJTI("to-delete-2");
+        verify(accessTokenDAO).deleteExpiredBefore(argThat(threshold -> System.currentTimeMillis() - threshold.getTime() < 100));
+        verify(subjectTokenIndex).removeExpired(argThat(threshold -> System.currentTimeMillis() - threshold.getTime() < 100));
+        verifyNoInteractions(subjectDenylist);
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(applicationEventPublisher).publishEvent(eventCaptor.capture());
+        TokenTrackingEvent event = (TokenTrackingEvent) eventCaptor.getValue();
+        assertThat(event.type(), equalTo(TokenTrackingEvent.Type.EXPIRED));
+        assertThat(event.replicated(), is(false));
+        verifyNoMoreInteractions(accessTokenDAO);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventStoreTokenAndPublishReplicatedEvent() {
+
+        // given
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.empty());
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.stored(ACCESS_TOKEN_INFO, true));
+
+        // then
+        verify(accessTokenDAO).save(ACCESS_TOKEN_INFO);
+        verify(subjectTokenIndex).add(ACCESS_TOKEN_INFO);
+        verify(applicationEventPublisher).publishEvent(TokenTrackingEvent.stored(ACCESS_TOKEN_INFO, true));
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventOnlyIndexAlreadyStoredToken() {
+
+        // given
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.of(ACCESS_TOKEN_INFO));
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.stored(ACCESS_TOKEN_INFO, true));
+
+        // then
+        verify(accessTokenDAO).retrieveByJTI(JTI);
+        verifyNoMoreInteractions(accessTokenDAO);
+        verify(subjectTokenIndex).add(ACCESS_TOKEN_INFO);
+        verifyNoInteractions(applicationEventPublisher);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventNotOverwriteAlreadyRevokedToken() {
+
+        // given
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(prepareAccessTokenInfo(TokenStatus.REVOKED));
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.stored(ACCESS_TOKEN_INFO, true));
+
+        // then
+        verify(accessTokenDAO).retrieveByJTI(JTI);
         verifyNoMoreInteractions(accessTokenDAO);
+        verifyNoInteractions(subjectTokenIndex, applicationEventPublisher);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventRevokeTrackedToken() {
+
+        // given
+        Optional<AccessTokenInfo> accessTokenInfo = prepareAccessTokenInfo(TokenStatus.ACTIVE);
+        AccessTokenInfo replicatedAccessTokenInfo = prepareAccessTokenInfo(JTI, TokenStatus.REVOKED, new Date());
+        replicatedAccessTokenInfo.setRevokedAt(EXPIRATION);
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(accessTokenInfo);
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.revoked(replicatedAccessTokenInfo, true));
+
+        // then
+        assertThat(accessTokenInfo.get().getStatus(), equalTo(TokenStatus.REVOKED));
+        assertThat(accessTokenInfo.get().getRevokedAt(), equalTo(EXPIRATION));
+        verify(accessTokenDAO).save(accessTokenInfo.get());
+        verify(subjectTokenIndex).remove(JTI);
+        verify(applicationEventPublisher).publishEvent(TokenTrackingEvent.revoked(replicatedAccessTokenInfo, true));
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventRecordRevocationOfUntrackedToken() {
+
+        // given
+        AccessTokenInfo replicatedAccessTokenInfo = prepareAccessTokenInfo(JTI, TokenStatus.REVOKED, new Date());
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(Optional.empty());
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.revoked(replicatedAccessTokenInfo, true));
+
+        // then
+        verify(accessTokenDAO).save(replicatedAccessTokenInfo);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventIgnoreRevocationOfAlreadyRevokedToken() {
+
+        // given
+        given(accessTokenDAO.retrieveByJTI(JTI)).willReturn(prepareAccessTokenInfo(TokenStatus.REVOKED));
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.revoked(prepareAccessTokenInfo(JTI, TokenStatus.REVOKED, new Date()), true));
+
+        // then
+        verify(accessTokenDAO).retrieveByJTI(JTI);
+        verifyNoMoreInteractions(accessTokenDAO);
+        verifyNoInteractions(applicationEventPublisher);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventRegisterSubjectRevocation() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        AccessTokenInfo subjectRevocation = prepareSubjectRevocation(TokenSubject.ofUser(1L), REVOKED_AT);
+        given(accessTokenDAO.retrieveByJTI(subjectRevocation.getId())).willReturn(Optional.of(
+                prepareSubjectRevocation(TokenSubject.ofUser(1L), new Date(REVOKED_AT.getTime() - 1000))));
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.subjectRevoked(subjectRevocation, true));
+
+        // then
+        verify(accessTokenDAO).save(subjectRevocation);
+        verify(subjectDenylist).add(TokenSubject.ofUser(1L), REVOKED_AT, subjectRevocation.getExpiresAt());
+        verify(applicationEventPublisher).publishEvent(TokenTrackingEvent.subjectRevoked(subjectRevocation, true));
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventIgnoreEarlierSubjectRevocation() {
+
+        // given
+        tokenTracker = createTokenTracker(TokenTrackingMode.DENYLIST);
+        AccessTokenInfo subjectRevocation = prepareSubjectRevocation(TokenSubject.ofUser(1L), REVOKED_AT);
+        given(accessTokenDAO.retrieveByJTI(subjectRevocation.getId())).willReturn(Optional.of(
+                prepareSubjectRevocation(TokenSubject.ofUser(1L), new Date(REVOKED_AT.getTime() + 1000))));
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.subjectRevoked(subjectRevocation, true));
+
+        // then
+        verify(accessTokenDAO).retrieveByJTI(subjectRevocation.getId());
+        verifyNoMoreInteractions(accessTokenDAO);
+        verifyNoInteractions(subjectDenylist, applicationEventPublisher);
+    }
+
+    @Test
+    public void shouldApplyReplicatedEventLimitCleanUpThresholdToLocalTime() {
+
+        // given
+        Date futureThreshold = new Date(System.currentTimeMillis() + 60_000);
+
+        // when
+        tokenTracker.applyReplicatedEvent(TokenTrackingEvent.expired(futureThreshold, true));
+
+        // then
+        verify(accessTokenDAO).deleteExpiredBefore(argThat(threshold -> threshold.before(futureThreshold)));
+        verify(applicationEventPublisher).publishEvent(TokenTrackingEvent.expired(futureThreshold, true));
+    }
+
+    private TokenTrackerImpl createTokenTracker(TokenTrackingMode mode) {
+
+        OAuthTokenSettings oAuthTokenSettings = new OAuthTokenSettings();
+        oAuthTokenSettings.setExpiration((int) TimeUnit.MILLISECONDS.toSeconds(TOKEN_LIFETIME_IN_MILLIS));
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setMode(mode);
+        oAuthConfigurationProperties.setToken(oAuthTokenSettings);
+
+        return new TokenTrackerImpl(accessTokenDAO, subjectTokenIndex, subjectDenylist, applicationEventPublisher, oAuthConfigurationProperties);
+    }
+
+    private List<TokenClaims> prepareTokenClaims(List<String> jtis, String subject) {
+
+        return jtis.stream()
+                .map(jti -> TokenClaims.builder()
+                        .tokenID(jti)
+                        .subject(subject)
+                        .build())
+                .toList();
+    }
+
+    private AccessTokenInfo prepareSubjectRevocation(TokenSubject tokenSubject, Date revokedAt) {
+
+        AccessTokenInfo subjectRevocation = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
+                .id(tokenSubject.toRevocationID())
+                .subject(tokenSubject.value())
+                .expiresAt(new Date(revokedAt.getTime() + TOKEN_LIFETIME_IN_MILLIS))
+                .build());
+        subjectRevocation.setStatus(TokenStatus.REVOKED);
+        subjectRevocation.setRevokedAt(revokedAt);
+
+        return subjectRevocation;
     }
 
     private Optional<AccessTokenInfo> prepareAccessTokenInfo(TokenStatus status) {
         return Optional.of(prepareAccessTokenInfo(JTI, status, new Date()));
     }
 
+    private SubjectTokenIndex.IndexedToken toIndexedToken(AccessTokenInfo accessTokenInfo) {
+        return new SubjectTokenIndex.IndexedToken(accessTokenInfo.getId(), accessTokenInfo.getSubject(), accessTokenInfo.getExpiresAt());
+    }
+
     private AccessTokenInfo prepareAccessTokenInfo(String jti, TokenStatus status, Date expiresAt) {
 
         AccessTokenInfo accessTokenInfo = new AccessTokenInfo(StoreAccessTokenInfoRequest.builder()
@@ -167,11 +654,4 @@ class TokenTrackerImplTest {
 
         return accessTokenInfo;
     }
-
-    private Date prepareExpirationDate(long hoursOffset) {
-
-        return Date.from(ZonedDateTime.now()
-                .plusHours(hoursOffset)
-                .toInstant());
-    }
 }
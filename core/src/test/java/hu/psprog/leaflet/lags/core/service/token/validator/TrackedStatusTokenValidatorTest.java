@@ -1,8 +1,5 @@
 package hu.psprog.leaflet.lags.core.service.token.validator;
 
-import hu.psprog.leaflet.lags.core.domain.internal.AccessTokenInfo;
-import hu.psprog.leaflet.lags.core.domain.internal.StoreAccessTokenInfoRequest;
-import hu.psprog.leaflet.lags.core.domain.internal.TokenStatus;
 import hu.psprog.leaflet.lags.core.service.token.TokenTracker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,12 +10,12 @@ import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.Jwt;
 
 import java.util.Collections;
-import java.util.Optional;
 import java.util.UUID;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
 
 /**
@@ -43,10 +40,9 @@ class TrackedStatusTokenValidatorTest {
 
         // given
         var tokenID = UUID.randomUUID().toString();
-        var tokenInfo = prepareAccessTokenInfo();
 
         given(jwt.getId()).willReturn(tokenID);
-        given(tokenTracker.retrieveTokenInfo(tokenID)).willReturn(Optional.of(tokenInfo));
+        given(tokenTracker.isTokenActive(argThat(claims -> tokenID.equals(claims.getTokenID())))).willReturn(true);
 
         // when
         var result = validator.validate(jwt);
@@ -56,15 +52,13 @@ class TrackedStatusTokenValidatorTest {
     }
 
     @Test
-    public void shouldValidateReturnFailureForRevokedToken() {
+    public void shouldValidateReturnFailureForInactiveToken() {
 
         // given
         var tokenID = UUID.randomUUID().toString();
-        var tokenInfo = prepareAccessTokenInfo();
-        tokenInfo.setStatus(TokenStatus.REVOKED);
 
         given(jwt.getId()).willReturn(tokenID);
-        given(tokenTracker.retrieveTokenInfo(tokenID)).willReturn(Optional.of(tokenInfo));
+        given(tokenTracker.isTokenActive(argThat(claims -> tokenID.equals(claims.getTokenID())))).willReturn(false);
 
         // when
         var result = validator.validate(jwt);
@@ -73,26 +67,6 @@ class TrackedStatusTokenValidatorTest {
         assertFailure(result);
     }
 
-    @Test
-    public void shouldValidateReturnFailureForMissingToken() {
-
-        // given
-        var tokenID = UUID.randomUUID().toString();
-
-        given(jwt.getId()).willReturn(tokenID);
-        given(tokenTracker.retrieveTokenInfo(tokenID)).willReturn(Optional.empty());
-
-        // when
-        var result = validator.validate(jwt);
-
-        // then
-        assertFailure(result);
-    }
-
-    private AccessTokenInfo prepareAccessTokenInfo() {
-        return new AccessTokenInfo(StoreAccessTokenInfoRequest.builder().build());
-    }
-
     private void assertFailure(OAuth2TokenValidatorResult result) {
 
         assertThat(result.getErrors().size(), equalTo(1));
@@ -4,8 +4,10 @@ import hu.psprog.leaflet.lags.core.domain.entity.AccountType;
 import hu.psprog.leaflet.lags.core.domain.entity.Role;
 import hu.psprog.leaflet.lags.core.domain.entity.User;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
 import hu.psprog.leaflet.lags.core.persistence.dao.UserDAO;
 import hu.psprog.leaflet.lags.core.service.registry.RoleToAuthorityMappingRegistry;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -38,6 +40,7 @@ class NonExternalLocalUserUserDetailsServiceTest {
     private static final User LOCAL_USER = prepareUser(AccountType.LOCAL);
     private static final User EXTERNAL_USER = prepareUser(AccountType.GITHUB);
     private static final List<GrantedAuthority> AUTHORITIES = AuthorityUtils.createAuthorityList("read:all", "write:all");
+    private static final ScopeSet AUTHORITY_SET = ScopeSet.of(0, 1);
     private static final ExtendedUser EXPECTED_EXTENDED_USER = prepareExpectedExtendedUser();
 
     @Mock
@@ -46,6 +49,9 @@ class NonExternalLocalUserUserDetailsServiceTest {
     @Mock
     private RoleToAuthorityMappingRegistry roleToAuthorityMappingRegistry;
 
+    @Mock
+    private PermissionDictionary permissionDictionary;
+
     @InjectMocks
     private NonExternalLocalUserUserDetailsService nonExternalLocalUserUserDetailsService;
 
@@ -55,12 +61,14 @@ class NonExternalLocalUserUserDetailsServiceTest {
         // given
         given(userDAO.findByEmail(EMAIL)).willReturn(Optional.of(LOCAL_USER));
         given(roleToAuthorityMappingRegistry.getAuthoritiesForRole(LOCAL_USER.getRole())).willReturn(AUTHORITIES);
+        given(permissionDictionary.encode(List.of("read:all", "write:all"))).willReturn(AUTHORITY_SET);
 
         // when
         UserDetails result = nonExternalLocalUserUserDetailsService.loadUserByUsername(EMAIL);
 
         // then
         assertThat(result instanceof ExtendedUser, is(true));
+        assertThat(((ExtendedUser) result).getAuthoritySet(scope -> ScopeSet.EMPTY), equalTo(AUTHORITY_SET));
         assertThat(result, equalTo(EXPECTED_EXTENDED_USER));
     }
 
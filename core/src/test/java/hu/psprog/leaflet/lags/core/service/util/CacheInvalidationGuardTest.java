@@ -0,0 +1,115 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for {@link CacheInvalidationGuard}.
+ *
+ * @author Peter Smith
+ */
+class CacheInvalidationGuardTest {
+
+    private static final String ID = "jti-1";
+    private static final String CACHE_KEY = "cache-key-1";
+
+    private CacheInvalidationGuard<String> cacheInvalidationGuard;
+
+    @BeforeEach
+    public void setup() {
+        cacheInvalidationGuard = new CacheInvalidationGuard<>();
+    }
+
+    @Test
+    public void shouldRunIfNotInvalidatedSinceRunCacheOperationWithoutInvalidation() {
+
+        // given
+        long invalidationCount = cacheInvalidationGuard.getInvalidationCount();
+        AtomicBoolean cached = new AtomicBoolean();
+
+        // when
+        boolean result = cacheInvalidationGuard.runIfNotInvalidatedSince(invalidationCount, () -> cached.set(true));
+
+        // then
+        assertThat(result, is(true));
+        assertThat(cached.get(), is(true));
+    }
+
+    @Test
+    public void shouldRunIfNotInvalidatedSinceSkipCacheOperationAfterInvalidation() {
+
+        // given
+        long invalidationCount = cacheInvalidationGuard.getInvalidationCount();
+        AtomicBoolean cached = new AtomicBoolean();
+        cacheInvalidationGuard.invalidateAll(() -> { });
+
+        // when
+        boolean result = cacheInvalidationGuard.runIfNotInvalidatedSince(invalidationCount, () -> cached.set(true));
+
+        // then
+        assertThat(result, is(false));
+        assertThat(cached.get(), is(false));
+    }
+
+    @Test
+    public void shouldInvalidateReturnCacheKeyRegisteredByID() {
+
+        // given
+        cacheInvalidationGuard.runIfNotInvalidatedSince(cacheInvalidationGuard.getInvalidationCount(), ID, CACHE_KEY, () -> { });
+
+        // when
+        Optional<String> result = cacheInvalidationGuard.invalidate(ID);
+
+        // then
+        assertThat(result, equalTo(Optional.of(CACHE_KEY)));
+        assertThat(cacheInvalidationGuard.invalidate(ID), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldRegisterIfNotInvalidatedSinceSkipRegistrationAfterInvalidation() {
+
+        // given
+        long invalidationCount = cacheInvalidationGuard.getInvalidationCount();
+        cacheInvalidationGuard.invalidate("jti-2");
+
+        // when
+        boolean result = cacheInvalidationGuard.registerIfNotInvalidatedSince(invalidationCount, ID, CACHE_KEY);
+
+        // then
+        assertThat(result, is(false));
+        assertThat(cacheInvalidationGuard.invalidate(ID), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldReleaseKeepRegistrationOfOtherCacheKey() {
+
+        // given
+        cacheInvalidationGuard.registerIfNotInvalidatedSince(cacheInvalidationGuard.getInvalidationCount(), ID, CACHE_KEY);
+
+        // when
+        cacheInvalidationGuard.release(ID, "cache-key-2");
+
+        // then
+        assertThat(cacheInvalidationGuard.invalidate(ID), equalTo(Optional.of(CACHE_KEY)));
+    }
+
+    @Test
+    public void shouldInvalidateAllDropRegistrations() {
+
+        // given
+        cacheInvalidationGuard.registerIfNotInvalidatedSince(cacheInvalidationGuard.getInvalidationCount(), ID, CACHE_KEY);
+
+        // when
+        cacheInvalidationGuard.invalidateAll(() -> { });
+
+        // then
+        assertThat(cacheInvalidationGuard.invalidate(ID), equalTo(Optional.empty()));
+    }
+}
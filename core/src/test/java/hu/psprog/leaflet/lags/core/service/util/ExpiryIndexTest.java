@@ -0,0 +1,92 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Unit tests for {@link ExpiryIndex}.
+ *
+ * @author Peter Smith
+ */
+class ExpiryIndexTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T10:30:15Z");
+
+    private ExpiryIndex<String> expiryIndex;
+
+    @BeforeEach
+    public void setup() {
+        expiryIndex = new ExpiryIndex<>();
+    }
+
+    @Test
+    public void shouldDrainExpiredReturnKeysOfFullyPassedBuckets() {
+
+        // given
+        expiryIndex.add("expired-1", NOW.minus(5, ChronoUnit.MINUTES));
+        expiryIndex.add("expired-2", NOW.minus(1, ChronoUnit.MINUTES));
+        expiryIndex.add("current-bucket", NOW.minus(10, ChronoUnit.SECONDS));
+        expiryIndex.add("valid", NOW.plus(5, ChronoUnit.MINUTES));
+        List<String> drainedKeys = new ArrayList<>();
+
+        // when
+        int result = expiryIndex.drainExpired(NOW, drainedKeys::add);
+
+        // then
+        assertThat(result, equalTo(2));
+        assertThat(drainedKeys, containsInAnyOrder("expired-1", "expired-2"));
+        assertThat(expiryIndex.size(), equalTo(2));
+    }
+
+    @Test
+    public void shouldDrainExpiredSkipRemovedKeys() {
+
+        // given
+        Instant expiresAt = NOW.minus(5, ChronoUnit.MINUTES);
+        expiryIndex.add("expired-1", expiresAt);
+        expiryIndex.add("expired-2", expiresAt);
+        expiryIndex.remove("expired-1", expiresAt);
+        List<String> drainedKeys = new ArrayList<>();
+
+        // when
+        int result = expiryIndex.drainExpired(NOW, drainedKeys::add);
+
+        // then
+        assertThat(result, equalTo(1));
+        assertThat(drainedKeys, containsInAnyOrder("expired-2"));
+    }
+
+    @Test
+    public void shouldAddIgnoreMissingExpiration() {
+
+        // when
+        expiryIndex.add("key", null);
+
+        // then
+        assertThat(expiryIndex.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldDrainExpiredDoNothingOnEmptyIndex() {
+
+        // given
+        List<String> drainedKeys = new ArrayList<>();
+
+        // when
+        int result = expiryIndex.drainExpired(NOW, drainedKeys::add);
+
+        // then
+        assertThat(result, equalTo(0));
+        assertThat(drainedKeys, empty());
+    }
+}
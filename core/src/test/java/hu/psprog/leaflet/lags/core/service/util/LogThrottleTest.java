@@ -0,0 +1,49 @@
+package hu.psprog.leaflet.lags.core.service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Unit tests for {@link LogThrottle}.
+ *
+ * @author Peter Smith
+ */
+class LogThrottleTest {
+
+    @Test
+    public void shouldLogExecuteOnlyFirstActionWithinInterval() {
+
+        // given
+        LogThrottle logThrottle = new LogThrottle(Duration.ofHours(1));
+        List<Long> executedActions = new ArrayList<>();
+
+        // when
+        logThrottle.log(executedActions::add);
+        logThrottle.log(executedActions::add);
+        logThrottle.log(executedActions::add);
+
+        // then
+        assertThat(executedActions, equalTo(List.of(0L)));
+    }
+
+    @Test
+    public void shouldLogPassSuppressedCountToNextExecutedAction() {
+
+        // given
+        LogThrottle logThrottle = new LogThrottle(Duration.ZERO);
+        List<Long> executedActions = new ArrayList<>();
+
+        // when
+        logThrottle.log(executedActions::add);
+        logThrottle.log(executedActions::add);
+
+        // then
+        assertThat(executedActions, equalTo(List.of(0L, 0L)));
+    }
+}
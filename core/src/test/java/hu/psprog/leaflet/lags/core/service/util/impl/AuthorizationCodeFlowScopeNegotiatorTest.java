@@ -2,18 +2,21 @@ package hu.psprog.leaflet.lags.core.service.util.impl;
 
 import hu.psprog.leaflet.lags.core.domain.config.ApplicationType;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthClient;
-import hu.psprog.leaflet.lags.core.domain.config.OAuthClientAllowRelation;
 import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigTestHelper;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthAuthorizationRequestContext;
+import hu.psprog.leaflet.lags.core.domain.internal.OAuthClientRelation;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthTokenRequestContext;
 import hu.psprog.leaflet.lags.core.domain.internal.OngoingAuthorization;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
+import hu.psprog.leaflet.lags.core.persistence.dao.PermissionDAO;
+import hu.psprog.leaflet.lags.core.service.util.PermissionDictionary;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
@@ -36,9 +39,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @ExtendWith(MockitoExtension.class)
 class AuthorizationCodeFlowScopeNegotiatorTest {
 
-    @InjectMocks
+    @Mock
+    private PermissionDAO permissionDAO;
+
+    private PermissionDictionary permissionDictionary;
     private AuthorizationCodeFlowScopeNegotiator authorizationCodeFlowScopeNegotiator;
 
+    @BeforeEach
+    public void setup() {
+        permissionDictionary = new PermissionDictionaryImpl(permissionDAO);
+        authorizationCodeFlowScopeNegotiator = new AuthorizationCodeFlowScopeNegotiator(permissionDictionary);
+    }
+
     @Test
     public void shouldGetScopeForAuthorizationContextVerifyAndReturnUserScopeSet() {
 
@@ -73,6 +85,28 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
         assertThat(result, hasItems("write:entries", "write:categories"));
     }
 
+    @Test
+    public void shouldGetScopeForAuthorizationContextVerifyDefinedScopeAgainstAuthoritySetEncodedOnLoad() {
+
+        // given
+        OAuthAuthorizationRequest request = prepareOAuthAuthorizationRequest("write:entries write:categories");
+        OAuthClient sourceClient = prepareOAuthClient();
+        ExtendedUser extendedUser = ExtendedUser.builder()
+                .authorities(prepareAuthorities(false))
+                .authoritySet(permissionDictionary.encode(prepareAuthorities(true).stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .toList()))
+                .build();
+        OAuthAuthorizationRequestContext context = prepareAuthorizationContext(request, sourceClient, extendedUser);
+
+        // when
+        List<String> result = authorizationCodeFlowScopeNegotiator.getScope(context);
+
+        // then
+        assertThat(result.size(), equalTo(2));
+        assertThat(result, hasItems("write:entries", "write:categories"));
+    }
+
     @Test
     public void shouldGetScopeForAuthorizationContextThrowExceptionOnInvalidUser() {
 
@@ -130,7 +164,7 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
         // given
         OAuthTokenRequest request = prepareOAuthTokenRequest(false);
         OngoingAuthorization ongoingAuthorization = prepareOngoingAuthorization("read:users", "write:users");
-        OAuthClientAllowRelation relation = prepareRelation();
+        OAuthClientRelation relation = prepareRelation();
         OAuthTokenRequestContext context = prepareTokenContext(request, ongoingAuthorization, relation);
 
         // when
@@ -150,7 +184,7 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
         // given
         OAuthTokenRequest request = prepareOAuthTokenRequest(false);
         OngoingAuthorization ongoingAuthorization = prepareOngoingAuthorization("read:users", "write:users", "read:comments", "write:comments", "read:admin", "write:admin");
-        OAuthClientAllowRelation relation = prepareRelation();
+        OAuthClientRelation relation = prepareRelation();
         OAuthTokenRequestContext context = prepareTokenContext(request, ongoingAuthorization, relation);
 
         // when
@@ -172,7 +206,7 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
         // given
         OAuthTokenRequest request = prepareOAuthTokenRequest(false);
         OngoingAuthorization ongoingAuthorization = prepareOngoingAuthorization("read:users", "write:users", "read:comments", "read:admin", "write:admin");
-        OAuthClientAllowRelation relation = prepareRelation();
+        OAuthClientRelation relation = prepareRelation();
         OAuthTokenRequestContext context = prepareTokenContext(request, ongoingAuthorization, relation);
 
         // when
@@ -193,7 +227,7 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
         // given
         OAuthTokenRequest request = prepareOAuthTokenRequest(false);
         OngoingAuthorization ongoingAuthorization = prepareOngoingAuthorization("read:users", "read:comments", "read:admin", "write:admin");
-        OAuthClientAllowRelation relation = prepareRelation();
+        OAuthClientRelation relation = prepareRelation();
         OAuthTokenRequestContext context = prepareTokenContext(request, ongoingAuthorization, relation);
 
         // when
@@ -213,7 +247,7 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
         // given
         OAuthTokenRequest request = prepareOAuthTokenRequest(true);
         OngoingAuthorization ongoingAuthorization = prepareOngoingAuthorization("read:users", "write:users");
-        OAuthClientAllowRelation relation = prepareRelation();
+        OAuthClientRelation relation = prepareRelation();
         OAuthTokenRequestContext context = prepareTokenContext(request, ongoingAuthorization, relation);
 
         // when
@@ -229,7 +263,7 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
 
         // given
         OAuthTokenRequest request = prepareOAuthTokenRequest(false);
-        OAuthClientAllowRelation relation = prepareRelation();
+        OAuthClientRelation relation = prepareRelation();
         OAuthTokenRequestContext context = prepareTokenContext(request, null, relation);
 
         // when
@@ -249,7 +283,7 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
                 .build();
     }
 
-    private OAuthTokenRequestContext prepareTokenContext(OAuthTokenRequest request, OngoingAuthorization ongoingAuthorization, OAuthClientAllowRelation relation) {
+    private OAuthTokenRequestContext prepareTokenContext(OAuthTokenRequest request, OngoingAuthorization ongoingAuthorization, OAuthClientRelation relation) {
 
         return OAuthTokenRequestContext.builder()
                 .request(request)
@@ -300,10 +334,13 @@ class AuthorizationCodeFlowScopeNegotiatorTest {
 
         return OngoingAuthorization.builder()
                 .scope(Arrays.asList(scope))
+                .scopeSet(permissionDictionary.encode(Arrays.asList(scope)))
                 .build();
     }
 
-    private OAuthClientAllowRelation prepareRelation() {
-        return OAuthConfigTestHelper.prepareRelation("client2", Arrays.asList("read:users", "write:users", "read:comments", "write:comments"));
+    private OAuthClientRelation prepareRelation() {
+        return OAuthClientRelation.of(prepareOAuthClient(), prepareOAuthClient(),
+                OAuthConfigTestHelper.prepareRelation("client2", Arrays.asList("read:users", "write:users", "read:comments", "write:comments")),
+                permissionDictionary::encode);
     }
 }
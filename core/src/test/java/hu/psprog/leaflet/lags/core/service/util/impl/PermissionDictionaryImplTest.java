@@ -0,0 +1,107 @@
+package hu.psprog.leaflet.lags.core.service.util.impl;
+
+import hu.psprog.leaflet.lags.core.domain.entity.Permission;
+import hu.psprog.leaflet.lags.core.domain.internal.ScopeSet;
+import hu.psprog.leaflet.lags.core.persistence.dao.PermissionDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Unit tests for {@link PermissionDictionaryImpl}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class PermissionDictionaryImplTest {
+
+    @Mock
+    private PermissionDAO permissionDAO;
+
+    private PermissionDictionaryImpl permissionDictionary;
+
+    @BeforeEach
+    public void setup() {
+        permissionDictionary = new PermissionDictionaryImpl(permissionDAO);
+    }
+
+    @Test
+    public void shouldInitializeRegisterExistingPermissionsInOrderOfTheirNames() {
+
+        // given
+        given(permissionDAO.findAll(Pageable.unpaged(Sort.by("name").ascending())))
+                .willReturn(new PageImpl<>(List.of(preparePermission("read:all"), preparePermission("write:all"))));
+
+        // when
+        permissionDictionary.initialize();
+
+        // then
+        assertThat(permissionDictionary.lookup(List.of("read:all")), equalTo(ScopeSet.of(0)));
+        assertThat(permissionDictionary.lookup(List.of("write:all")), equalTo(ScopeSet.of(1)));
+    }
+
+    @Test
+    public void shouldEncodeRegisterUnknownScopesWithStableIDs() {
+
+        // when
+        ScopeSet firstResult = permissionDictionary.encode(List.of("read:all", "write:all"));
+        ScopeSet secondResult = permissionDictionary.encode(List.of("write:all", "read:all", "admin"));
+
+        // then
+        assertThat(firstResult, equalTo(ScopeSet.of(0, 1)));
+        assertThat(secondResult, equalTo(ScopeSet.of(0, 1, 2)));
+        assertThat(firstResult.isSubsetOf(secondResult), is(true));
+    }
+
+    @Test
+    public void shouldLookupMarkUnknownScopesWithoutRegisteringThem() {
+
+        // given
+        ScopeSet allowedScope = permissionDictionary.encode(List.of("read:all", "write:all"));
+
+        // when
+        ScopeSet result = permissionDictionary.lookup(List.of("read:all", "unknown"));
+
+        // then
+        assertThat(result.containsUnknown(), is(true));
+        assertThat(result.isSubsetOf(allowedScope), is(false));
+        assertThat(permissionDictionary.lookup(List.of("unknown")).containsUnknown(), is(true));
+    }
+
+    @Test
+    public void shouldContainsCheckMembershipByScopeName() {
+
+        // given
+        ScopeSet scopeSet = permissionDictionary.encode(List.of("read:all"));
+        permissionDictionary.encode(List.of("write:all"));
+
+        // when
+        boolean containsKnownMember = permissionDictionary.contains(scopeSet, "read:all");
+        boolean containsKnownNonMember = permissionDictionary.contains(scopeSet, "write:all");
+        boolean containsUnknown = permissionDictionary.contains(scopeSet, "unknown");
+
+        // then
+        assertThat(containsKnownMember, is(true));
+        assertThat(containsKnownNonMember, is(false));
+        assertThat(containsUnknown, is(false));
+    }
+
+    private Permission preparePermission(String name) {
+
+        return Permission.builder()
+                .name(name)
+                .build();
+    }
+}
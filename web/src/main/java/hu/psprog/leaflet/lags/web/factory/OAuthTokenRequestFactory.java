@@ -2,6 +2,7 @@ package hu.psprog.leaflet.lags.web.factory;
 
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthConstants;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthErrorCode;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
@@ -18,7 +19,7 @@ import java.util.Objects;
 import java.util.Optional;
 
 /**
- * Factory component to create {@link OAuthTokenRequest} objects out of the received OAuth2 token request parameters,
+ * Factory component to create {@link OAuthTokenRequest} (and {@link OAuthTokenBatchRequest}) objects out of the received OAuth2 token request parameters,
  * and the current {@link UserDetails} object stored in the Security Context.
  *
  * @author Peter Smith
@@ -41,11 +42,7 @@ public class OAuthTokenRequestFactory {
      */
     public OAuthTokenRequest createTokenRequest(Map<String, String> requestParameters, UserDetails userDetails) {
 
-        if (Objects.isNull(requestParameters.get(OAuthConstants.Request.CLIENT_ID))) {
-            requestParameters.put(OAuthConstants.Request.CLIENT_ID, userDetails.getUsername());
-        } else if (!requestParameters.get(OAuthConstants.Request.CLIENT_ID).equals(userDetails.getUsername())) {
-            throw new OAuthTokenRequestException(OAuthErrorCode.UNAUTHORIZED_CLIENT, "Authenticated client is different than the one the authorization is requested for");
-        }
+        verifyClientID(requestParameters, userDetails);
 
         return OAuthTokenRequest.builder()
                 .grantType(GrantType.parseGrantType(requestParameters.get(OAuthConstants.Request.GRANT_TYPE)))
@@ -55,10 +52,42 @@ public class OAuthTokenRequestFactory {
                 .password(requestParameters.get(OAuthConstants.Request.PASSWORD))
                 .authorizationCode(requestParameters.get(OAuthConstants.Request.CODE))
                 .redirectURI(requestParameters.get(OAuthConstants.Request.REDIRECT_URI))
+                .refreshToken(requestParameters.get(OAuthConstants.Request.REFRESH_TOKEN))
+                .scope(extractScope(requestParameters))
+                .build();
+    }
+
+    /**
+     * Creates an {@link OAuthTokenBatchRequest}.
+     * Extracts the necessary parameters from the request parameters and wraps them as a domain class. The requested
+     * audiences are expected as a space separated list in the audience parameter. Client ID is handled the same way as
+     * by {@link OAuthTokenRequestFactory#createTokenRequest(Map, UserDetails)}.
+     *
+     * @param requestParameters OAuth2 authorization request parameters coming from a form POST HTTP request
+     * @param userDetails {@link UserDetails} object stored in the Security Context
+     * @return the created {@link OAuthTokenBatchRequest} object
+     */
+    public OAuthTokenBatchRequest createTokenBatchRequest(Map<String, String> requestParameters, UserDetails userDetails) {
+
+        verifyClientID(requestParameters, userDetails);
+
+        return OAuthTokenBatchRequest.builder()
+                .grantType(GrantType.parseGrantType(requestParameters.get(OAuthConstants.Request.GRANT_TYPE)))
+                .clientID(extractMandatoryParameter(requestParameters, OAuthConstants.Request.CLIENT_ID))
+                .audiences(Arrays.asList(extractMandatoryParameter(requestParameters, OAuthConstants.Request.AUDIENCE).split(StringUtils.SPACE)))
                 .scope(extractScope(requestParameters))
                 .build();
     }
 
+    private void verifyClientID(Map<String, String> requestParameters, UserDetails userDetails) {
+
+        if (Objects.isNull(requestParameters.get(OAuthConstants.Request.CLIENT_ID))) {
+            requestParameters.put(OAuthConstants.Request.CLIENT_ID, userDetails.getUsername());
+        } else if (!requestParameters.get(OAuthConstants.Request.CLIENT_ID).equals(userDetails.getUsername())) {
+            throw new OAuthTokenRequestException(OAuthErrorCode.UNAUTHORIZED_CLIENT, "Authenticated client is different than the one the authorization is requested for");
+        }
+    }
+
     private String extractMandatoryParameter(Map<String, String> requestParameters, String parameterName) {
 
         String parameterValue = requestParameters.get(parameterName);
@@ -0,0 +1,10 @@
+package hu.psprog.leaflet.lags.web.model;
+
+/**
+ * Model class for token status list responses.
+ *
+ * @param bits number of bits representing the status of a single token
+ * @param lst ZLIB compressed, base64url encoded status bits
+ * @author Peter Smith
+ */
+public record TokenStatusListResponse(int bits, String lst) { }
@@ -39,8 +39,11 @@ import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH
 public class BaseController {
 
     public static final String PATH_OAUTH_TOKEN = "/oauth/token";
+    public static final String PATH_OAUTH_TOKEN_BATCH = "/oauth/token/batch";
     public static final String PATH_OAUTH_AUTHORIZE = "/oauth/authorize";
     public static final String PATH_OAUTH_INTROSPECT = "/oauth/introspect";
+    public static final String PATH_OAUTH_INTROSPECT_BATCH = "/oauth/introspect/batch";
+    public static final String PATH_OAUTH_REVOCATIONS = "/oauth/revocations";
     public static final String PATH_WELL_KNOWN_JWKS = "/.well-known/jwks";
     public static final String PATH_WELL_KNOWN_OAUTH_AUTHORIZATION_SERVER = "/.well-known/oauth-authorization-server";
     public static final String PATH_WELL_KNOWN_OPENID_CONFIGURATION = "/.well-known/openid-configuration";
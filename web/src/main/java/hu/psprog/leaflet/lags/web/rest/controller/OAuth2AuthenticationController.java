@@ -3,9 +3,13 @@ package hu.psprog.leaflet.lags.web.rest.controller;
 import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.domain.internal.OAuthConstants;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.request.TokenIntrospectionBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthAuthorizationResponse;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
+import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionBatchResult;
 import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult;
 import hu.psprog.leaflet.lags.core.domain.response.UserInfoResponse;
 import hu.psprog.leaflet.lags.core.service.OAuthAuthorizationService;
@@ -24,6 +28,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.ModelAndView;
@@ -38,7 +43,9 @@ import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH
 import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.CONTENT_TYPE_APPLICATION_JSON;
 import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_OAUTH_AUTHORIZE;
 import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_OAUTH_INTROSPECT;
+import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_OAUTH_INTROSPECT_BATCH;
 import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_OAUTH_TOKEN;
+import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_OAUTH_TOKEN_BATCH;
 
 /**
  * Controller implementation for OAuth2 authentication related endpoints.
@@ -132,6 +139,29 @@ public class OAuth2AuthenticationController {
         return createResponse(oAuthTokenResponse);
     }
 
+    /**
+     * POST /oauth/token/batch
+     * Handles batch OAuth2 access token requests, issuing an access token for each of the requested audiences (given as
+     * a space separated list) with a single client authentication. Only client credentials grant is supported.
+     * Failures of the individual audiences are reported along with the issued tokens.
+     *
+     * @param requestParameters OAuth2 authorization request parameters coming from a form POST HTTP request
+     * @param authentication {@link Authentication} object containing the result of the client pre-authentication
+     * @return response entity containing the generated access tokens and failures by audience with HTTP 200 OK status.
+     */
+    @PostMapping(value = PATH_OAUTH_TOKEN_BATCH, produces = CONTENT_TYPE_APPLICATION_JSON)
+    public ResponseEntity<OAuthTokenBatchResponse> claimTokens(@RequestParam Map<String, String> requestParameters, Authentication authentication) {
+
+        UserDetails principal = (UserDetails) authentication.getPrincipal();
+
+        log.info("Batch access token requested by client={}", principal.getUsername());
+
+        OAuthTokenBatchRequest oAuthTokenBatchRequest = oAuthTokenRequestFactory.createTokenBatchRequest(requestParameters, principal);
+        OAuthTokenBatchResponse oAuthTokenBatchResponse = oAuthAuthorizationService.authorize(oAuthTokenBatchRequest);
+
+        return createResponse(oAuthTokenBatchResponse);
+    }
+
     /**
      * POST /oauth/introspect
      * Processes a token introspection request. Introspection can be used to check if the given token is tracked and is not yet revoked.
@@ -148,6 +178,24 @@ public class OAuth2AuthenticationController {
         return ResponseEntity.ok(oAuthAuthorizationService.introspect(token));
     }
 
+    /**
+     * POST /oauth/introspect/batch
+     * Processes a batch token introspection request, introspecting every given token with a single client authentication.
+     * Results are returned in the same order as the tokens are given in the request.
+     *
+     * @param tokenIntrospectionBatchRequest access tokens to be introspected as {@link TokenIntrospectionBatchRequest}
+     * @param authentication current {@link Authentication} object
+     * @return introspection results as {@link TokenIntrospectionBatchResult} object wrapped in {@link ResponseEntity}
+     */
+    @PostMapping(value = PATH_OAUTH_INTROSPECT_BATCH, consumes = CONTENT_TYPE_APPLICATION_JSON, produces = CONTENT_TYPE_APPLICATION_JSON)
+    public ResponseEntity<TokenIntrospectionBatchResult> introspectTokens(@RequestBody TokenIntrospectionBatchRequest tokenIntrospectionBatchRequest,
+                                                                          Authentication authentication) {
+
+        log.info("Batch token introspection requested by client={}", authentication.getName());
+
+        return ResponseEntity.ok(oAuthAuthorizationService.introspect(tokenIntrospectionBatchRequest.tokens()));
+    }
+
     /**
      * GET /oauth/userinfo
      * Returns a user's information based on their access token.
@@ -0,0 +1,84 @@
+package hu.psprog.leaflet.lags.web.rest.controller;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.response.RevocationEvent;
+import hu.psprog.leaflet.lags.core.service.token.RevocationEventStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_OAUTH_REVOCATIONS;
+
+/**
+ * Controller implementation for the revocation event stream.
+ * Resource servers can subscribe to the stream to maintain a local denylist of the revoked tokens, and validate the
+ * received tokens offline (against the keys published under /.well-known/jwks), instead of introspecting them.
+ *
+ * @author Peter Smith
+ */
+@RestController
+@Slf4j
+public class RevocationEventController {
+
+    private static final String HEADER_LAST_EVENT_ID = "Last-Event-ID";
+    private static final String EVENT_NAME_REVOCATION = "revocation";
+
+    private final RevocationEventStream revocationEventStream;
+    private final OAuthConfigurationProperties oAuthConfigurationProperties;
+
+    @Autowired
+    public RevocationEventController(RevocationEventStream revocationEventStream, OAuthConfigurationProperties oAuthConfigurationProperties) {
+        this.revocationEventStream = revocationEventStream;
+        this.oAuthConfigurationProperties = oAuthConfigurationProperties;
+    }
+
+    /**
+     * GET /oauth/revocations
+     * Opens a Server-Sent Events stream of the token revocations. Every event contains the ID, the subject and the
+     * expiration of a revoked token. The stream starts with every revoked, but not yet expired token, unless the
+     * Last-Event-ID header is specified, in which case the stream resumes after the given event. The connection is
+     * closed by the server after the configured timeout, or if the client does not keep up with the events, after which
+     * clients are expected to reconnect.
+     *
+     * @param lastEventID ID of the last received event (optional)
+     * @param authentication current {@link Authentication} object
+     * @return {@link SseEmitter} streaming the revocation events
+     */
+    @GetMapping(value = PATH_OAUTH_REVOCATIONS, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRevocationEvents(@RequestHeader(value = HEADER_LAST_EVENT_ID, required = false) String lastEventID,
+                                             Authentication authentication) {
+
+        log.info("Revocation event stream requested by client={}", authentication.getName());
+
+        SseEmitter sseEmitter = new SseEmitter(oAuthConfigurationProperties.getTokenTracking().getRevocationStreamTimeout().toMillis());
+        Consumer<RevocationEvent> subscriber = revocationEvent -> sendEvent(sseEmitter, revocationEvent);
+
+        sseEmitter.onTimeout(sseEmitter::complete);
+        sseEmitter.onCompletion(() -> revocationEventStream.unsubscribe(subscriber));
+        sseEmitter.onError(throwable -> revocationEventStream.unsubscribe(subscriber));
+        revocationEventStream.subscribe(lastEventID, subscriber, sseEmitter::complete);
+
+        return sseEmitter;
+    }
+
+    private void sendEvent(SseEmitter sseEmitter, RevocationEvent revocationEvent) {
+
+        try {
+            sseEmitter.send(SseEmitter.event()
+                    .id(revocationEvent.eventID())
+                    .name(EVENT_NAME_REVOCATION)
+                    .data(revocationEvent, MediaType.APPLICATION_JSON));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package hu.psprog.leaflet.lags.web.rest.controller;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicationBatch;
+import hu.psprog.leaflet.lags.core.exception.AuthenticationException;
+import hu.psprog.leaflet.lags.core.service.replication.TokenTrackingReplicator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH_OAUTH_REPLICATION_CATCH_UP;
+import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH_OAUTH_REPLICATION_PUSH;
+import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.CONTENT_TYPE_APPLICATION_JSON;
+
+/**
+ * Controller implementation for the token tracking replication endpoints, called by the peer service instances.
+ * Only the OAuth application configured for the replication is allowed to call these endpoints.
+ *
+ * @author Peter Smith
+ */
+@RestController
+@Slf4j
+@ConditionalOnProperty(name = "oauth2-config.token-tracking.replication.enabled", havingValue = "true")
+public class TokenReplicationController {
+
+    private final TokenTrackingReplicator tokenTrackingReplicator;
+    private final String replicationClientID;
+
+    @Autowired
+    public TokenReplicationController(TokenTrackingReplicator tokenTrackingReplicator, OAuthConfigurationProperties oAuthConfigurationProperties) {
+        this.tokenTrackingReplicator = tokenTrackingReplicator;
+        this.replicationClientID = oAuthConfigurationProperties.getTokenTracking().getReplication().getClientID();
+    }
+
+    /**
+     * POST /oauth/replication/push
+     * Receives the token tracking mutations pushed by a peer.
+     *
+     * @param replicationBatch {@link ReplicationBatch} containing the pushed mutations
+     * @param authentication current {@link Authentication} object
+     * @return empty response with HTTP 204 No Content status
+     */
+    @PostMapping(value = PATH_OAUTH_REPLICATION_PUSH, consumes = CONTENT_TYPE_APPLICATION_JSON)
+    public ResponseEntity<Void> receiveMutations(@RequestBody ReplicationBatch replicationBatch, Authentication authentication) {
+
+        verifyReplicationClient(authentication);
+        tokenTrackingReplicator.receive(replicationBatch);
+
+        return ResponseEntity
+                .noContent()
+                .build();
+    }
+
+    /**
+     * POST /oauth/replication/catch-up
+     * Returns the token tracking mutations not yet applied by the requesting peer.
+     *
+     * @param appliedSequences highest sequence number applied by the requesting peer, per origin node
+     * @param authentication current {@link Authentication} object
+     * @return {@link ReplicationBatch} containing the missing mutations
+     */
+    @PostMapping(value = PATH_OAUTH_REPLICATION_CATCH_UP, consumes = CONTENT_TYPE_APPLICATION_JSON, produces = CONTENT_TYPE_APPLICATION_JSON)
+    public ResponseEntity<ReplicationBatch> catchUp(@RequestBody Map<String, Long> appliedSequences, Authentication authentication) {
+
+        verifyReplicationClient(authentication);
+        log.info("Replication catch-up requested by client={}", authentication.getName());
+
+        return ResponseEntity.ok(tokenTrackingReplicator.catchUp(appliedSequences));
+    }
+
+    private void verifyReplicationClient(Authentication authentication) {
+
+        if (!authentication.getName().equals(replicationClientID)) {
+            throw new AuthenticationException(String.format("Client [%s] is not allowed to replicate token tracking mutations", authentication.getName()));
+        }
+    }
+}
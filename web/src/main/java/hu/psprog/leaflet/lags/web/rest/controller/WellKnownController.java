@@ -1,17 +1,24 @@
 package hu.psprog.leaflet.lags.web.rest.controller;
 
-import com.nimbusds.jose.jwk.JWKSet;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatusListSnapshot;
+import hu.psprog.leaflet.lags.core.service.registry.KeyRegistry;
+import hu.psprog.leaflet.lags.core.service.token.TokenStatusList;
 import hu.psprog.leaflet.lags.web.model.AuthServerMetaInfo;
+import hu.psprog.leaflet.lags.web.model.TokenStatusListResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
 
+import static hu.psprog.leaflet.lags.core.domain.internal.SecurityConstants.PATH_WELL_KNOWN_STATUS_LIST;
 import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.CONTENT_TYPE_APPLICATION_JSON;
 import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_WELL_KNOWN_JWKS;
 import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_WELL_KNOWN_OAUTH_AUTHORIZATION_SERVER;
@@ -26,18 +33,26 @@ import static hu.psprog.leaflet.lags.web.rest.controller.BaseController.PATH_WEL
 @Slf4j
 public class WellKnownController {
 
-    private final JWKSet jwkSet;
+    private static final String PATH_VARIABLE_LIST_ID = "/{listID}";
+
+    private final KeyRegistry keyRegistry;
     private final AuthServerMetaInfo authServerMetaInfo;
+    private final TokenStatusList tokenStatusList;
+    private final OAuthConfigurationProperties oAuthConfigurationProperties;
 
     @Autowired
-    public WellKnownController(JWKSet jwkSet, AuthServerMetaInfo authServerMetaInfo) {
-        this.jwkSet = jwkSet;
+    public WellKnownController(KeyRegistry keyRegistry, AuthServerMetaInfo authServerMetaInfo, TokenStatusList tokenStatusList,
+                               OAuthConfigurationProperties oAuthConfigurationProperties) {
+        this.keyRegistry = keyRegistry;
         this.authServerMetaInfo = authServerMetaInfo;
+        this.tokenStatusList = tokenStatusList;
+        this.oAuthConfigurationProperties = oAuthConfigurationProperties;
     }
 
     /**
      * GET /.well-known/jwks
-     * Returns the public RSA key in JWK format for token signature verification.
+     * Returns the public keys in JWK format for token signature verification, including the previous keys still
+     * registered for verification.
      *
      * @return JWK set response as JSON document
      */
@@ -47,7 +62,37 @@ public class WellKnownController {
         log.info("JWK Set requested.");
 
         return ResponseEntity
-                .ok(jwkSet.toJSONObject());
+                .ok(keyRegistry.getJWKSet().toJSONObject());
+    }
+
+    /**
+     * GET /.well-known/status-list/{listID}
+     * Returns the compressed status list of the issued tokens, referenced by the status claim of the tokens.
+     * Response is cacheable for the configured maximum age, and can be conditionally requested by its ETag.
+     * Returns 404 for an unknown list ID (e.g. a list published before a restart), or if the status list is disabled,
+     * in which case the status of the token should be checked via introspection.
+     *
+     * @param listID ID of the status list
+     * @return status list response as JSON document
+     */
+    @GetMapping(value = PATH_WELL_KNOWN_STATUS_LIST + PATH_VARIABLE_LIST_ID, produces = CONTENT_TYPE_APPLICATION_JSON)
+    public ResponseEntity<TokenStatusListResponse> getTokenStatusList(@PathVariable String listID) {
+
+        log.debug("Token status list requested.");
+
+        if (!tokenStatusList.isEnabled() || !tokenStatusList.getListID().equals(listID)) {
+            return ResponseEntity
+                    .notFound()
+                    .build();
+        }
+
+        TokenStatusListSnapshot snapshot = tokenStatusList.getSnapshot();
+
+        return ResponseEntity
+                .ok()
+                .cacheControl(CacheControl.maxAge(oAuthConfigurationProperties.getTokenTracking().getStatusListMaxAge()))
+                .eTag(String.format("%s-%d", snapshot.listID(), snapshot.version()))
+                .body(new TokenStatusListResponse(snapshot.bits(), snapshot.encodedList()));
     }
 
     /**
@@ -1,6 +1,7 @@
 package hu.psprog.leaflet.lags.web.factory;
 
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
 import hu.psprog.leaflet.lags.core.exception.OAuthAuthorizationException;
 import org.junit.jupiter.api.Test;
@@ -158,6 +159,57 @@ class OAuthTokenRequestFactoryTest {
         assertThat(result.getMessage(), equalTo("Value for required authorization parameter [audience] is missing"));
     }
 
+    @Test
+    public void shouldCreateTokenBatchRequestWithSplitAudiences() {
+
+        // given
+        Map<String, String> requestParameters = Map.of(
+                "client_id", "client1",
+                "grant_type", "client_credentials",
+                "audience", "aud1 aud2 aud3",
+                "scope", "scope1 scope2"
+        );
+        given(userDetails.getUsername()).willReturn("client1");
+
+        // when
+        OAuthTokenBatchRequest result = oAuthTokenRequestFactory.createTokenBatchRequest(requestParameters, userDetails);
+
+        // then
+        assertThat(result.getClientID(), equalTo("client1"));
+        assertThat(result.getGrantType(), equalTo(GrantType.CLIENT_CREDENTIALS));
+        assertThat(result.getAudiences(), equalTo(Arrays.asList("aud1", "aud2", "aud3")));
+        assertThat(result.getScope(), equalTo(Arrays.asList("scope1", "scope2")));
+    }
+
+    @Test
+    public void shouldCreateTokenBatchRequestThrowExceptionForSpecifiedAndDifferentClientIDInAuthentication() {
+
+        // given
+        given(userDetails.getUsername()).willReturn("client2");
+
+        // when
+        assertThrows(OAuthAuthorizationException.class,
+                () -> oAuthTokenRequestFactory.createTokenBatchRequest(REQUEST_PARAMETERS, userDetails));
+
+        // then
+        // exception expected
+    }
+
+    @Test
+    public void shouldCreateTokenBatchRequestThrowExceptionForMissingMandatoryParameterAudience() {
+
+        // given
+        given(userDetails.getUsername()).willReturn("client1");
+
+        // when
+        Throwable result = assertThrows(OAuthAuthorizationException.class,
+                () -> oAuthTokenRequestFactory.createTokenBatchRequest(REQUEST_PARAMETERS_WITHOUT_AUDIENCE, userDetails));
+
+        // then
+        // exception expected
+        assertThat(result.getMessage(), equalTo("Value for required authorization parameter [audience] is missing"));
+    }
+
     private void verifyOAuthTokenRequest(OAuthTokenRequest result, boolean withScope) {
 
         assertThat(result.getClientID(), equalTo("client1"));
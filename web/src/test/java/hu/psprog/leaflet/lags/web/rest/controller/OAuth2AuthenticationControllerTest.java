@@ -4,9 +4,14 @@ import hu.psprog.leaflet.lags.core.domain.internal.ExtendedUser;
 import hu.psprog.leaflet.lags.core.domain.request.AuthorizationResponseType;
 import hu.psprog.leaflet.lags.core.domain.request.GrantType;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthAuthorizationRequest;
+import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.request.OAuthTokenRequest;
+import hu.psprog.leaflet.lags.core.domain.request.TokenIntrospectionBatchRequest;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthAuthorizationResponse;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchError;
+import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenBatchResponse;
 import hu.psprog.leaflet.lags.core.domain.response.OAuthTokenResponse;
+import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionBatchResult;
 import hu.psprog.leaflet.lags.core.domain.response.TokenIntrospectionResult;
 import hu.psprog.leaflet.lags.core.domain.response.UserInfoResponse;
 import hu.psprog.leaflet.lags.core.service.OAuthAuthorizationService;
@@ -142,6 +147,32 @@ class OAuth2AuthenticationControllerTest {
         assertThat(result.getBody(), equalTo(O_AUTH_TOKEN_RESPONSE));
     }
 
+    @Test
+    public void shouldClaimTokensProcessRequest() {
+
+        // given
+        OAuthTokenBatchRequest oAuthTokenBatchRequest = OAuthTokenBatchRequest.builder()
+                .grantType(GrantType.CLIENT_CREDENTIALS)
+                .clientID("client_id_1")
+                .audiences(List.of("aud-1", "aud-2"))
+                .build();
+        OAuthTokenBatchResponse oAuthTokenBatchResponse = new OAuthTokenBatchResponse(
+                Map.of("aud-1", O_AUTH_TOKEN_RESPONSE),
+                Map.of("aud-2", new OAuthTokenBatchError("unauthorized_client", "Requested access for non-registered OAuth client [aud-2]")));
+
+        given(authentication.getPrincipal()).willReturn(userDetails);
+        given(oAuthTokenRequestFactory.createTokenBatchRequest(REQUEST_PARAMETERS, userDetails)).willReturn(oAuthTokenBatchRequest);
+        given(oAuthAuthorizationService.authorize(oAuthTokenBatchRequest)).willReturn(oAuthTokenBatchResponse);
+
+        // when
+        ResponseEntity<OAuthTokenBatchResponse> result = oAuth2AuthenticationController.claimTokens(REQUEST_PARAMETERS, authentication);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getHeaders().getFirst("Cache-Control"), equalTo("no-store"));
+        assertThat(result.getBody(), equalTo(oAuthTokenBatchResponse));
+    }
+
     @Test
     public void shouldIntrospectTokenProcessRequest() {
 
@@ -157,6 +188,27 @@ class OAuth2AuthenticationControllerTest {
         assertThat(result.getBody(), equalTo(TOKEN_INTROSPECTION_RESULT));
     }
 
+    @Test
+    public void shouldIntrospectTokensProcessRequest() {
+
+        // given
+        TokenIntrospectionBatchRequest tokenIntrospectionBatchRequest = TokenIntrospectionBatchRequest.builder()
+                .tokens(List.of(ACCESS_TOKEN, "access-token-2"))
+                .build();
+        TokenIntrospectionBatchResult tokenIntrospectionBatchResult = new TokenIntrospectionBatchResult(
+                List.of(TOKEN_INTROSPECTION_RESULT, TokenIntrospectionResult.FAILED_INTROSPECTION_RESULT));
+
+        given(oAuthAuthorizationService.introspect(List.of(ACCESS_TOKEN, "access-token-2"))).willReturn(tokenIntrospectionBatchResult);
+        given(authentication.getName()).willReturn("client_id_1");
+
+        // when
+        ResponseEntity<TokenIntrospectionBatchResult> result = oAuth2AuthenticationController.introspectTokens(tokenIntrospectionBatchRequest, authentication);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(tokenIntrospectionBatchResult));
+    }
+
     @Test
     public void shouldGetUserInfoReturnUserInfoExtractedFromAuthenticationObject() {
 
@@ -0,0 +1,84 @@
+package hu.psprog.leaflet.lags.web.rest.controller;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.response.RevocationEvent;
+import hu.psprog.leaflet.lags.core.service.token.RevocationEventStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link RevocationEventController}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class RevocationEventControllerTest {
+
+    private static final String LAST_EVENT_ID = "stream-1:5";
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(5);
+
+    @Mock
+    private RevocationEventStream revocationEventStream;
+
+    @Mock
+    private Authentication authentication;
+
+    private RevocationEventController revocationEventController;
+
+    @BeforeEach
+    public void setup() {
+
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setRevocationStreamTimeout(STREAM_TIMEOUT);
+        revocationEventController = new RevocationEventController(revocationEventStream, oAuthConfigurationProperties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldStreamRevocationEventsSubscribeToStream() {
+
+        // given
+        given(authentication.getName()).willReturn("client-1");
+        ArgumentCaptor<Consumer<RevocationEvent>> subscriberCaptor = ArgumentCaptor.forClass(Consumer.class);
+
+        // when
+        SseEmitter result = revocationEventController.streamRevocationEvents(LAST_EVENT_ID, authentication);
+
+        // then
+        assertThat(result, notNullValue());
+        assertThat(result.getTimeout(), equalTo(STREAM_TIMEOUT.toMillis()));
+        verify(revocationEventStream).subscribe(eq(LAST_EVENT_ID), subscriberCaptor.capture(), any(Runnable.class));
+        subscriberCaptor.getValue().accept(new RevocationEvent("stream-1:6", "jti-1", "client-1|uid=5", new Date()));
+    }
+
+    @Test
+    public void shouldStreamRevocationEventsSubscribeWithoutLastEventID() {
+
+        // given
+        given(authentication.getName()).willReturn("client-1");
+
+        // when
+        revocationEventController.streamRevocationEvents(null, authentication);
+
+        // then
+        verify(revocationEventStream).subscribe(eq(null), any(), any());
+    }
+}
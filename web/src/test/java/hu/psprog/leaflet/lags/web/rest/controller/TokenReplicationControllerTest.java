@@ -0,0 +1,110 @@
+package hu.psprog.leaflet.lags.web.rest.controller;
+
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.ReplicationBatch;
+import hu.psprog.leaflet.lags.core.exception.AuthenticationException;
+import hu.psprog.leaflet.lags.core.service.replication.TokenTrackingReplicator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Unit tests for {@link TokenReplicationController}.
+ *
+ * @author Peter Smith
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenReplicationControllerTest {
+
+    private static final String REPLICATION_CLIENT_ID = "replication-client";
+    private static final Map<String, Long> APPLIED_SEQUENCES = Map.of("node-1", 5L);
+    private static final ReplicationBatch REPLICATION_BATCH = new ReplicationBatch("node-1", List.of(), APPLIED_SEQUENCES);
+
+    @Mock
+    private TokenTrackingReplicator tokenTrackingReplicator;
+
+    @Mock
+    private Authentication authentication;
+
+    private TokenReplicationController tokenReplicationController;
+
+    @BeforeEach
+    public void setup() {
+
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().getReplication().setClientID(REPLICATION_CLIENT_ID);
+        tokenReplicationController = new TokenReplicationController(tokenTrackingReplicator, oAuthConfigurationProperties);
+    }
+
+    @Test
+    public void shouldReceiveMutationsPassBatchToReplicator() {
+
+        // given
+        given(authentication.getName()).willReturn(REPLICATION_CLIENT_ID);
+
+        // when
+        ResponseEntity<Void> result = tokenReplicationController.receiveMutations(REPLICATION_BATCH, authentication);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.NO_CONTENT));
+        verify(tokenTrackingReplicator).receive(REPLICATION_BATCH);
+    }
+
+    @Test
+    public void shouldReceiveMutationsRejectUnknownClient() {
+
+        // given
+        given(authentication.getName()).willReturn("other-client");
+
+        // when
+        assertThrows(AuthenticationException.class, () -> tokenReplicationController.receiveMutations(REPLICATION_BATCH, authentication));
+
+        // then
+        // exception expected
+        verifyNoInteractions(tokenTrackingReplicator);
+    }
+
+    @Test
+    public void shouldCatchUpReturnMissingMutations() {
+
+        // given
+        given(authentication.getName()).willReturn(REPLICATION_CLIENT_ID);
+        given(tokenTrackingReplicator.catchUp(APPLIED_SEQUENCES)).willReturn(REPLICATION_BATCH);
+
+        // when
+        ResponseEntity<ReplicationBatch> result = tokenReplicationController.catchUp(APPLIED_SEQUENCES, authentication);
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(REPLICATION_BATCH));
+    }
+
+    @Test
+    public void shouldCatchUpRejectUnknownClient() {
+
+        // given
+        given(authentication.getName()).willReturn("other-client");
+
+        // when
+        assertThrows(AuthenticationException.class, () -> tokenReplicationController.catchUp(APPLIED_SEQUENCES, authentication));
+
+        // then
+        // exception expected
+        verifyNoInteractions(tokenTrackingReplicator);
+    }
+}
@@ -1,7 +1,12 @@
 package hu.psprog.leaflet.lags.web.rest.controller;
 
 import com.nimbusds.jose.jwk.JWKSet;
+import hu.psprog.leaflet.lags.core.domain.config.OAuthConfigurationProperties;
+import hu.psprog.leaflet.lags.core.domain.internal.TokenStatusListSnapshot;
+import hu.psprog.leaflet.lags.core.service.registry.KeyRegistry;
+import hu.psprog.leaflet.lags.core.service.token.TokenStatusList;
 import hu.psprog.leaflet.lags.web.model.AuthServerMetaInfo;
+import hu.psprog.leaflet.lags.web.model.TokenStatusListResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,13 +17,17 @@ import org.springframework.http.ResponseEntity;
 import tools.jackson.core.type.TypeReference;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit tests for {@link WellKnownController}.
@@ -32,17 +41,26 @@ class WellKnownControllerTest {
     private static final String ISSUER = "http://localhost:9999";
     private static final AuthServerMetaInfo AUTH_SERVER_META_INFO = prepareAuthServerMetaInfo();
     private static final TypeReference<Map<String, Object>> MAP_TYPE_REFERENCE = new TypeReference<>() {};
+    private static final TokenStatusListSnapshot STATUS_LIST_SNAPSHOT = new TokenStatusListSnapshot("list-1", 4L, 1, "eNpjAAAAAQAB");
+
+    @Mock
+    private KeyRegistry keyRegistry;
 
     @Mock
     private JWKSet jwkSet;
 
+    @Mock
+    private TokenStatusList tokenStatusList;
+
     private JsonMapper jsonMapper;
 
     private WellKnownController wellKnownController;
 
     @BeforeEach
     public void setup() {
-        wellKnownController = new WellKnownController(jwkSet, AUTH_SERVER_META_INFO);
+        OAuthConfigurationProperties oAuthConfigurationProperties = new OAuthConfigurationProperties();
+        oAuthConfigurationProperties.getTokenTracking().setStatusListMaxAge(Duration.ofSeconds(10));
+        wellKnownController = new WellKnownController(keyRegistry, AUTH_SERVER_META_INFO, tokenStatusList, oAuthConfigurationProperties);
         jsonMapper = new JsonMapper();
     }
 
@@ -50,6 +68,7 @@ class WellKnownControllerTest {
     public void shouldGetJWKsReturnJWKSet() {
 
         // given
+        given(keyRegistry.getJWKSet()).willReturn(jwkSet);
         given(jwkSet.toJSONObject()).willReturn(JWKS_RESPONSE);
 
         // when
@@ -73,6 +92,53 @@ class WellKnownControllerTest {
         assertResultAsJSON(result.getBody());
     }
 
+    @Test
+    public void shouldGetTokenStatusListReturnCacheableStatusList() {
+
+        // given
+        given(tokenStatusList.isEnabled()).willReturn(true);
+        given(tokenStatusList.getListID()).willReturn("list-1");
+        given(tokenStatusList.getSnapshot()).willReturn(STATUS_LIST_SNAPSHOT);
+
+        // when
+        ResponseEntity<TokenStatusListResponse> result = wellKnownController.getTokenStatusList("list-1");
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(result.getBody(), equalTo(new TokenStatusListResponse(1, "eNpjAAAAAQAB")));
+        assertThat(result.getHeaders().getETag(), equalTo("\"list-1-4\""));
+        assertThat(result.getHeaders().getCacheControl(), equalTo("max-age=10"));
+    }
+
+    @Test
+    public void shouldGetTokenStatusListReturnNotFoundForUnknownList() {
+
+        // given
+        given(tokenStatusList.isEnabled()).willReturn(true);
+        given(tokenStatusList.getListID()).willReturn("list-1");
+
+        // when
+        ResponseEntity<TokenStatusListResponse> result = wellKnownController.getTokenStatusList("list-0");
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        assertThat(result.getBody(), nullValue());
+    }
+
+    @Test
+    public void shouldGetTokenStatusListReturnNotFoundIfStatusListIsDisabled() {
+
+        // given
+        given(tokenStatusList.isEnabled()).willReturn(false);
+
+        // when
+        ResponseEntity<TokenStatusListResponse> result = wellKnownController.getTokenStatusList("list-1");
+
+        // then
+        assertThat(result.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        verify(tokenStatusList, never()).getSnapshot();
+    }
+
     private void assertResultAsJSON(AuthServerMetaInfo authServerMetaInfo) {
 
         String jsonString = jsonMapper.writeValueAsString(authServerMetaInfo);